@@ -7,6 +7,7 @@ import com.mmnaseri.utils.spring.data.query.Sort;
 import com.mmnaseri.utils.spring.data.query.SortDirection;
 import com.mmnaseri.utils.spring.data.tools.PropertyUtils;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -122,4 +123,29 @@ public class PropertyComparator implements Comparator<Object> {
         }
     }
 
+    /**
+     * Creates a single comparator for the whole sort specification, which compares by each order in turn until it
+     * finds a difference. With a stable sort, this orders a collection exactly as {@link #sort(List, Sort)} would.
+     * @param sort    the sort specification
+     * @return the comparator
+     */
+    static Comparator<Object> forSort(Sort sort) {
+        final List<PropertyComparator> comparators = new ArrayList<>();
+        for (Order order : sort.getOrders()) {
+            comparators.add(new PropertyComparator(order));
+        }
+        return new Comparator<Object>() {
+            @Override
+            public int compare(Object first, Object second) {
+                for (PropertyComparator comparator : comparators) {
+                    final int comparison = comparator.compare(first, second);
+                    if (comparison != 0) {
+                        return comparison;
+                    }
+                }
+                return 0;
+            }
+        };
+    }
+
 }
@@ -1,12 +1,21 @@
 package com.mmnaseri.utils.spring.data.domain.impl;
 
 import com.mmnaseri.utils.spring.data.domain.Invocation;
+import com.mmnaseri.utils.spring.data.domain.Parameter;
 import com.mmnaseri.utils.spring.data.proxy.RepositoryConfiguration;
+import com.mmnaseri.utils.spring.data.query.Order;
 import com.mmnaseri.utils.spring.data.query.Page;
 import com.mmnaseri.utils.spring.data.query.QueryDescriptor;
 import com.mmnaseri.utils.spring.data.query.Sort;
+import com.mmnaseri.utils.spring.data.store.ColumnarDataStore;
 import com.mmnaseri.utils.spring.data.store.DataStore;
 import com.mmnaseri.utils.spring.data.store.DataStoreOperation;
+import com.mmnaseri.utils.spring.data.store.DataStoreStatistics;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.IndexedDataStore;
+import com.mmnaseri.utils.spring.data.store.PartitionedDataStore;
+import com.mmnaseri.utils.spring.data.store.StatisticsDataStore;
+import com.mmnaseri.utils.spring.data.store.impl.DataStoreUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -18,6 +27,32 @@ import java.util.*;
  * query description's different decision branches. Once all the values are loaded and filtered, it will then sort them
  * according to the sort instruction, and then paginate them if necessary.
  *
+ * <p>The data store is {@link DataStoreUtils#scan(com.mmnaseri.utils.spring.data.store.DataStore,
+ * DataStoreVisitor) scanned} one entity at a time, and only the matching entities are kept. If the selection does not
+ * need to be sorted afterwards, the scan stops as soon as enough entities have been found to fill the requested page
+ * or limit.</p>
+ *
+ * <p>If the data store has to be scanned in full and is {@link PartitionedDataStore partitioned}, the partitions are
+ * scanned in parallel, each with its own selection, and the selections are then concatenated in the order of the
+ * partitions, which is the order in which a sequential scan would have found them. Sorting, pagination, and limits are
+ * applied to the combined selection as usual.</p>
+ *
+ * <p>Otherwise, if every matching entity is needed, and there are known to be enough entities to match, they are read
+ * first and then matched against the query descriptor in parallel. The number of entities is known if they were found
+ * through the indexes, or if the data store keeps {@link StatisticsDataStore statistics}; if it is not known, the
+ * entities are matched as they are read, so that the data store is never copied only to find out that it was too small
+ * to be matched in parallel. Similarly, a large selection that needs sorting is sorted in parallel. When and where
+ * this happens is decided by the {@link SelectionParallelism} given to the operation.</p>
+ *
+ * <p>If the data store is {@link IndexedDataStore indexed}, and every decision branch has at least one parameter
+ * that can be answered by the indexes, only the entities found through the indexes will be matched against the
+ * query. Also, if the query has to look at every entity in the store and is ordered by a single property for which
+ * the data store keeps a sorted index, the entities will be read in the order of that index instead of being sorted
+ * after they have been matched.</p>
+ *
+ * <p>Before any of that, if the data store is {@link ColumnarDataStore columnar}, it is asked to select the matching
+ * entities over its columns. If it can, nothing is scanned, and the selection is only sorted and paginated.</p>
+ *
  * @author Milad Naseri (mmnaseri@programmer.net)
  * @since 1.0 (9/17/15)
  */
@@ -25,9 +60,15 @@ public class SelectDataStoreOperation<K extends Serializable, E> implements Data
 
     private static final Log log = LogFactory.getLog(SelectDataStoreOperation.class);
     private final QueryDescriptor descriptor;
+    private final SelectionParallelism parallelism;
 
     public SelectDataStoreOperation(QueryDescriptor descriptor) {
+        this(descriptor, SelectionParallelism.defaultParallelism());
+    }
+
+    public SelectDataStoreOperation(QueryDescriptor descriptor, SelectionParallelism parallelism) {
         this.descriptor = descriptor;
+        this.parallelism = parallelism;
     }
 
     public QueryDescriptor getDescriptor() {
@@ -37,25 +78,45 @@ public class SelectDataStoreOperation<K extends Serializable, E> implements Data
     @Override
     public List<E> execute(DataStore<K, E> store, RepositoryConfiguration configuration, Invocation invocation) {
         log.info("Selecting the data according to the provided selection descriptor: " + descriptor);
-        final List<E> selection = new LinkedList<>();
-        final Collection<E> all = new LinkedList<>(store.retrieveAll());
-        for (E entity : all) {
-            if (descriptor.matches(entity, invocation)) {
-                selection.add(entity);
-            }
-        }
-        log.info("Matched " + selection.size() + " items from the data store");
-        if (descriptor.isDistinct()) {
-            final Set<E> distinctValues = new HashSet<>(selection);
-            selection.clear();
-            selection.addAll(distinctValues);
-            log.info("After clearing up duplicates, " + selection.size() + " items remained");
-        }
         final Sort sort = descriptor.getSort(invocation);
         final Page page = descriptor.getPage(invocation);
-        if (sort != null) {
-            log.info("Sorting the selected items according to the provided ordering");
-            PropertyComparator.sort(selection, sort);
+        final List<E> columnar = selectFromColumns(store, invocation);
+        final Set<K> candidates = columnar == null ? getCandidates(store, invocation) : null;
+        final List<K> ordered = columnar == null && candidates == null ? getOrderedKeys(store, sort) : null;
+        final boolean sorted = sort == null || ordered != null;
+        //if the data does not need to be sorted after it is selected, we can stop as soon as we have enough of it
+        final int required = sorted ? getRequiredCount(page) : 0;
+        final List<E> selection;
+        if (columnar != null) {
+            selection = columnar;
+        } else if (candidates == null && ordered == null && isPartitioned(store)) {
+            selection = selectFromPartitions((PartitionedDataStore<K, E>) store, invocation, required);
+        } else if (required <= 0 && parallelism.appliesTo(getKnownSize(store, candidates, ordered))) {
+            //we need every match anyway, and there are enough entities to be worth reading them first and then
+            //matching them in parallel
+            final List<E> entities = new ArrayList<>();
+            scan(store, candidates, ordered, new DataStoreVisitor<K, E>() {
+                @Override
+                public boolean visit(K key, E entity) {
+                    entities.add(entity);
+                    return true;
+                }
+            });
+            selection = select(entities, invocation);
+        } else {
+            final Selector selector = new Selector(invocation, required);
+            scan(store, candidates, ordered, selector);
+            selection = selector.getSelection();
+        }
+        log.info("Matched " + selection.size() + " items from the data store");
+        if (!sorted) {
+            if (parallelism.appliesTo(selection.size())) {
+                log.info("Sorting the " + selection.size() + " selected items in parallel");
+                parallelism.sort(selection, PropertyComparator.forSort(sort));
+            } else {
+                log.info("Sorting the selected items according to the provided ordering");
+                PropertyComparator.sort(selection, sort);
+            }
         }
         if (page != null) {
             log.info("We need to paginate the selection to fit the selection criteria");
@@ -84,9 +145,229 @@ public class SelectDataStoreOperation<K extends Serializable, E> implements Data
         return selection;
     }
 
+    /**
+     * Asks a columnar data store to select the matching entities over its columns, dropping the duplicates if the
+     * query is distinct
+     * @param store         the data store
+     * @param invocation    the invocation
+     * @return the selection, or {@literal null} if the data store cannot make it
+     */
+    private List<E> selectFromColumns(DataStore<K, E> store, Invocation invocation) {
+        final List<List<Parameter>> branches = descriptor.getBranches();
+        if (!(store instanceof ColumnarDataStore) || branches.isEmpty()) {
+            return null;
+        }
+        final List<E> selection = ((ColumnarDataStore<K, E>) store).select(branches, invocation);
+        if (selection == null) {
+            return null;
+        }
+        log.info("Selected the matching entities using the data store's columns");
+        if (!descriptor.isDistinct()) {
+            return new ArrayList<>(selection);
+        }
+        return new ArrayList<>(new LinkedHashSet<>(selection));
+    }
+
+    /**
+     * Finds the entities that should be matched against the query descriptor. If the data store can answer at
+     * least one parameter on each branch from its indexes, the candidates will be the union of the most selective
+     * index lookup for each branch.
+     * @param store         the data store
+     * @param invocation    the invocation
+     * @return the keys of the candidate entities, or {@literal null} if all the entities in the data store need to be
+     * considered
+     */
+    private Set<K> getCandidates(DataStore<K, E> store, Invocation invocation) {
+        final List<List<Parameter>> branches = descriptor.getBranches();
+        if (!(store instanceof IndexedDataStore) || branches.isEmpty()) {
+            return null;
+        }
+        final IndexedDataStore<K, E> indexed = (IndexedDataStore<K, E>) store;
+        final Set<K> keys = new LinkedHashSet<>();
+        for (List<Parameter> branch : branches) {
+            Set<K> branchKeys = null;
+            for (Parameter parameter : branch) {
+                final Set<K> found = indexed.lookup(parameter, getOperands(parameter, invocation));
+                if (found != null && (branchKeys == null || found.size() < branchKeys.size())) {
+                    branchKeys = found;
+                }
+            }
+            if (branchKeys == null) {
+                log.info("Branch " + branch + " cannot be answered using indexes; falling back to a full scan");
+                return null;
+            }
+            keys.addAll(branchKeys);
+        }
+        log.info("Found " + keys.size() + " candidates using the data store indexes");
+        return keys;
+    }
+
+    /**
+     * Asks the data store for all of its keys in the order specified by the sort, if the sort is on a single property
+     * for which the data store keeps a sorted index.
+     * @param store    the data store
+     * @param sort     the sort (could be {@literal null})
+     * @return the ordered keys or {@literal null} if the data store cannot provide them
+     */
+    private List<K> getOrderedKeys(DataStore<K, E> store, Sort sort) {
+        if (sort == null || sort.getOrders().size() != 1 || !(store instanceof IndexedDataStore)) {
+            return null;
+        }
+        final Order order = sort.getOrders().get(0);
+        return ((IndexedDataStore<K, E>) store).sort(order);
+    }
+
+    /**
+     * @param store         the data store
+     * @param candidates    the keys of the entities to read, if they are known
+     * @param ordered       the keys of all the entities, if they are known
+     * @return the number of entities that will be read, or {@literal 0} if that cannot be known without reading them
+     */
+    private int getKnownSize(DataStore<K, E> store, Set<K> candidates, List<K> ordered) {
+        if (candidates != null) {
+            return candidates.size();
+        }
+        if (ordered != null) {
+            return ordered.size();
+        }
+        if (store instanceof StatisticsDataStore) {
+            final DataStoreStatistics statistics = ((StatisticsDataStore<K, E>) store).getStatistics();
+            if (statistics != null) {
+                return (int) Math.min(Integer.MAX_VALUE, statistics.getCount());
+            }
+        }
+        return 0;
+    }
+
+    private void scan(DataStore<K, E> store, Set<K> candidates, List<K> ordered, DataStoreVisitor<K, E> visitor) {
+        if (candidates != null) {
+            DataStoreUtils.scan(store, candidates, visitor);
+        } else if (ordered != null) {
+            log.info("Reading the data in the order provided by the data store's sorted index");
+            DataStoreUtils.scan(store, ordered, visitor);
+        } else {
+            DataStoreUtils.scan(store, visitor);
+        }
+    }
+
+    /**
+     * Matches the entities against the query descriptor, in parallel if there are enough of them, and drops the
+     * duplicates if the query is distinct
+     * @param entities      the entities, in the order in which they were read
+     * @param invocation    the invocation
+     * @return the matching entities, in the order in which they were read
+     */
+    private List<E> select(List<E> entities, final Invocation invocation) {
+        final List<E> selection;
+        if (parallelism.appliesTo(entities.size())) {
+            log.info("Matching the " + entities.size() + " entities in parallel");
+            selection = parallelism.filter(entities, new SelectionParallelism.Filter<E>() {
+                @Override
+                public boolean accept(E entity) {
+                    return descriptor.matches(entity, invocation);
+                }
+            });
+        } else {
+            selection = new ArrayList<>();
+            for (E entity : entities) {
+                if (descriptor.matches(entity, invocation)) {
+                    selection.add(entity);
+                }
+            }
+        }
+        if (!descriptor.isDistinct()) {
+            return selection;
+        }
+        return new ArrayList<>(new LinkedHashSet<>(selection));
+    }
+
+    private boolean isPartitioned(DataStore<K, E> store) {
+        return store instanceof PartitionedDataStore && ((PartitionedDataStore) store).getPartitionCount() > 1;
+    }
+
+    /**
+     * Scans the partitions of the data store in parallel and combines what was selected from each of them
+     * @param store         the data store
+     * @param invocation    the invocation
+     * @param required      the number of entities needed from each partition, or {@literal 0} if all of them are needed
+     * @return the combined selection
+     */
+    private List<E> selectFromPartitions(PartitionedDataStore<K, E> store, Invocation invocation, int required) {
+        final int partitions = store.getPartitionCount();
+        log.info("Scanning the " + partitions + " partitions of the data store in parallel");
+        final List<Selector> selectors = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            selectors.add(new Selector(invocation, required));
+        }
+        DataStoreUtils.scanPartitions(store, selectors);
+        final List<E> selection = new LinkedList<>();
+        //each selector only drops the duplicates it has seen itself
+        final Set<E> seen = descriptor.isDistinct() ? new HashSet<E>() : null;
+        for (Selector selector : selectors) {
+            for (E entity : selector.getSelection()) {
+                if (seen == null || seen.add(entity)) {
+                    selection.add(entity);
+                }
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * Determines how many matching entities are needed to produce the final result, assuming that they are selected
+     * in their final order.
+     * @param page    the page (could be {@literal null})
+     * @return the number of entities needed, or {@literal 0} if all of them are needed
+     */
+    private int getRequiredCount(Page page) {
+        if (page != null) {
+            return (int) Math.min(Integer.MAX_VALUE, ((long) page.getPageNumber() + 1) * page.getPageSize());
+        }
+        return Math.max(descriptor.getLimit(), 0);
+    }
+
+    private static Object[] getOperands(Parameter parameter, Invocation invocation) {
+        final Object[] operands = new Object[parameter.getOperator().getOperands()];
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = invocation.getArguments()[parameter.getIndices()[i]];
+        }
+        return operands;
+    }
+
     @Override
     public String toString() {
         return descriptor.toString();
     }
 
+    /**
+     * Collects the entities matching the query descriptor, dropping duplicates if the query is distinct, and asks for
+     * the scan to stop once the required number of entities has been collected.
+     */
+    private class Selector implements DataStoreVisitor<K, E> {
+
+        private final Invocation invocation;
+        private final int required;
+        private final List<E> selection = new LinkedList<>();
+        private final Set<E> seen;
+
+        private Selector(Invocation invocation, int required) {
+            this.invocation = invocation;
+            this.required = required;
+            this.seen = descriptor.isDistinct() ? new HashSet<E>() : null;
+        }
+
+        @Override
+        public boolean visit(K key, E entity) {
+            if (descriptor.matches(entity, invocation) && (seen == null || seen.add(entity))) {
+                selection.add(entity);
+            }
+            return required <= 0 || selection.size() < required;
+        }
+
+        private List<E> getSelection() {
+            return selection;
+        }
+
+    }
+
 }
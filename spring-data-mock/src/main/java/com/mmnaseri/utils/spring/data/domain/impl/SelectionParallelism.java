@@ -0,0 +1,241 @@
+package com.mmnaseri.utils.spring.data.domain.impl;
+
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.impl.DataStoreUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>This class decides when a {@link SelectDataStoreOperation} should match and sort the entities it has read on a
+ * fork/join pool instead of the calling thread, and does the actual parallel work.</p>
+ *
+ * <p>Splitting the work up only pays off once there are enough entities to keep the workers busy for longer than it
+ * takes to hand out the work, so parallelism only kicks in for selections of at least {@link #getThreshold() the
+ * threshold} number of entities. The results are always the same as they would have been had the work been done
+ * sequentially: matching keeps the entities in the order in which they were read, and sorting is stable.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public final class SelectionParallelism {
+
+    /**
+     * The smallest number of entities handed out to a worker at once. As measured by
+     * {@code SelectionParallelismBenchmark}, matching a derived query against an entity takes about 5.6 microseconds
+     * and handing a chunk of work out to the pool about 90, so a chunk of this size spends around 3% of its time
+     * being handed out.
+     */
+    private static final int MINIMUM_CHUNK_SIZE = 512;
+    /**
+     * The default number of entities from which matching and sorting are done in parallel, which is the smallest
+     * number of entities that can be split into two {@link #MINIMUM_CHUNK_SIZE chunks}
+     */
+    public static final int DEFAULT_THRESHOLD = 2 * MINIMUM_CHUNK_SIZE;
+    /**
+     * Does everything on the calling thread
+     */
+    public static final SelectionParallelism DISABLED = new SelectionParallelism();
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Uses the default threshold and the pool {@link DataStoreUtils#getSharedPool() shared} by all data store
+     * operations, unless there is only a single processor to work with, in which case parallelism is
+     * {@link #DISABLED disabled}.
+     * @return the default parallelism settings
+     */
+    public static SelectionParallelism defaultParallelism() {
+        final ForkJoinPool pool = DataStoreUtils.getSharedPool();
+        return pool.getParallelism() > 1 ? new SelectionParallelism(DEFAULT_THRESHOLD, pool) : DISABLED;
+    }
+
+    /**
+     * @param threshold    the number of entities at or above which the work is done in parallel
+     * @param pool         the pool on which the work is done
+     */
+    public SelectionParallelism(int threshold, ForkJoinPool pool) {
+        if (threshold < 1) {
+            throw new InvalidArgumentException("Threshold must be a positive number: " + threshold);
+        }
+        if (pool == null) {
+            throw new InvalidArgumentException("A pool is required for parallel selection");
+        }
+        this.threshold = threshold;
+        this.pool = pool;
+    }
+
+    private SelectionParallelism() {
+        this.threshold = Integer.MAX_VALUE;
+        this.pool = null;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return {@literal true} if any selection could ever be done in parallel
+     */
+    public boolean isEnabled() {
+        return pool != null;
+    }
+
+    /**
+     * @param count    the number of entities
+     * @return {@literal true} if working on that many entities should be done in parallel
+     */
+    public boolean appliesTo(int count) {
+        return pool != null && count >= threshold;
+    }
+
+    /**
+     * Selects the items that match the filter in parallel
+     * @param items     the items
+     * @param filter    the filter, which will be called from many threads at once
+     * @return the matching items, in their original order
+     */
+    public <T> List<T> filter(List<T> items, Filter<? super T> filter) {
+        return invoke(new FilterTask<>(items, 0, items.size(), filter, getChunkSize(items.size())));
+    }
+
+    /**
+     * Sorts the list in place using a parallel merge sort. The sort is stable.
+     * @param list          the list
+     * @param comparator    the comparator, which will be called from many threads at once
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void sort(List<T> list, Comparator<? super T> comparator) {
+        final Object[] items = list.toArray();
+        invoke(new SortTask(items, new Object[items.length], 0, items.length, (Comparator<Object>) comparator, getChunkSize(items.length)));
+        final ListIterator<T> iterator = list.listIterator();
+        for (Object item : items) {
+            iterator.next();
+            iterator.set((T) item);
+        }
+    }
+
+    private int getChunkSize(int count) {
+        //a few chunks per worker lets the pool even out chunks that happen to be slower than the rest
+        return Math.max(MINIMUM_CHUNK_SIZE, count / (pool.getParallelism() * 4));
+    }
+
+    private <T> T invoke(ForkJoinTask<T> task) {
+        if (ForkJoinTask.inForkJoinPool()) {
+            return task.invoke();
+        }
+        return pool.invoke(task);
+    }
+
+    /**
+     * Decides which items are selected
+     */
+    public interface Filter<T> {
+
+        /**
+         * @param item    the item
+         * @return {@literal true} if the item should be selected
+         */
+        boolean accept(T item);
+
+    }
+
+    private static class FilterTask<T> extends RecursiveTask<List<T>> {
+
+        private static final long serialVersionUID = -6514843329087140931L;
+
+        private final List<T> items;
+        private final int from;
+        private final int to;
+        private final Filter<? super T> filter;
+        private final int chunkSize;
+
+        private FilterTask(List<T> items, int from, int to, Filter<? super T> filter, int chunkSize) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.filter = filter;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (to - from <= chunkSize) {
+                final List<T> selected = new ArrayList<>();
+                for (T item : items.subList(from, to)) {
+                    if (filter.accept(item)) {
+                        selected.add(item);
+                    }
+                }
+                return selected;
+            }
+            final int middle = (from + to) >>> 1;
+            final FilterTask<T> left = new FilterTask<>(items, from, middle, filter, chunkSize);
+            final FilterTask<T> right = new FilterTask<>(items, middle, to, filter, chunkSize);
+            right.fork();
+            final List<T> selected = left.compute();
+            selected.addAll(right.join());
+            return selected;
+        }
+
+    }
+
+    private static class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 3868592612480470582L;
+
+        private final Object[] items;
+        private final Object[] buffer;
+        private final int from;
+        private final int to;
+        private final Comparator<Object> comparator;
+        private final int chunkSize;
+
+        private SortTask(Object[] items, Object[] buffer, int from, int to, Comparator<Object> comparator, int chunkSize) {
+            this.items = items;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                Arrays.sort(items, from, to, comparator);
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(items, buffer, from, middle, comparator, chunkSize), new SortTask(items, buffer, middle, to, comparator, chunkSize));
+            if (comparator.compare(items[middle - 1], items[middle]) <= 0) {
+                //the two halves are already in order
+                return;
+            }
+            System.arraycopy(items, from, buffer, from, to - from);
+            int left = from;
+            int right = middle;
+            int target = from;
+            while (left < middle && right < to) {
+                //taking from the left half on ties is what keeps the sort stable
+                items[target++] = comparator.compare(buffer[right], buffer[left]) < 0 ? buffer[right++] : buffer[left++];
+            }
+            System.arraycopy(buffer, left, items, target, middle - left);
+            System.arraycopy(buffer, right, items, target + middle - left, to - right);
+        }
+
+    }
+
+}
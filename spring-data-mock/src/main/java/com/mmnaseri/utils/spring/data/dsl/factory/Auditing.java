@@ -9,20 +9,20 @@ import org.springframework.data.domain.AuditorAware;
  * @since 1.0 (4/13/16, 11:20 AM)
  */
 @SuppressWarnings("WeakerAccess")
-public interface Auditing extends End {
+public interface Auditing extends ChangeLogging {
 
     /**
      * Enables auditing by using the provided auditor aware
      * @param auditorAware    the auditor aware providing auditor
      * @return the rest of the configuration
      */
-    End enableAuditing(AuditorAware auditorAware);
+    ChangeLogging enableAuditing(AuditorAware auditorAware);
 
     /**
      * Enables auditing by setting the auditor to {@link com.mmnaseri.utils.spring.data.dsl.factory.RepositoryFactoryBuilder.DefaultAuditorAware the default}
      * value.
      * @return the rest of the configuration
      */
-    End enableAuditing();
+    ChangeLogging enableAuditing();
 
 }
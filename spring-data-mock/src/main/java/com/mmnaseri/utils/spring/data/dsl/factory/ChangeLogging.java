@@ -0,0 +1,26 @@
+package com.mmnaseri.utils.spring.data.dsl.factory;
+
+/**
+ * Lets us have the data stores record the changes made to them in a change log
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public interface ChangeLogging extends End {
+
+    /**
+     * Has the data stores record their changes in change logs of the
+     * {@link com.mmnaseri.utils.spring.data.store.impl.ChangeLog#DEFAULT_CAPACITY default capacity}
+     * @return the rest of the configuration
+     */
+    End recordChanges();
+
+    /**
+     * Has the data stores record their changes in change logs of the given capacity
+     * @param capacity    the number of changes kept by each change log
+     * @return the rest of the configuration
+     */
+    End recordChanges(int capacity);
+
+}
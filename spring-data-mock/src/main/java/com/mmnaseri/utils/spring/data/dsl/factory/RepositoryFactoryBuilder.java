@@ -7,6 +7,7 @@ import com.mmnaseri.utils.spring.data.domain.RepositoryMetadataResolver;
 import com.mmnaseri.utils.spring.data.domain.impl.DefaultOperatorContext;
 import com.mmnaseri.utils.spring.data.domain.impl.DefaultRepositoryMetadataResolver;
 import com.mmnaseri.utils.spring.data.domain.impl.MethodQueryDescriptionExtractor;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
 import com.mmnaseri.utils.spring.data.dsl.mock.Implementation;
 import com.mmnaseri.utils.spring.data.dsl.mock.ImplementationAnd;
 import com.mmnaseri.utils.spring.data.dsl.mock.RepositoryMockBuilder;
@@ -17,6 +18,7 @@ import com.mmnaseri.utils.spring.data.query.DataFunctionRegistry;
 import com.mmnaseri.utils.spring.data.query.impl.DefaultDataFunctionRegistry;
 import com.mmnaseri.utils.spring.data.store.*;
 import com.mmnaseri.utils.spring.data.store.impl.AuditDataEventListener;
+import com.mmnaseri.utils.spring.data.store.impl.ChangeLog;
 import com.mmnaseri.utils.spring.data.store.impl.DefaultDataStoreEventListenerContext;
 import com.mmnaseri.utils.spring.data.store.impl.DefaultDataStoreRegistry;
 import org.springframework.data.domain.AuditorAware;
@@ -42,6 +44,7 @@ public class RepositoryFactoryBuilder implements Start, DataFunctionsAnd, DataSt
     private DataStoreEventListenerContext eventListenerContext;
     private NonDataOperationInvocationHandler operationInvocationHandler;
     private KeyGenerator<? extends Serializable> defaultKeyGenerator;
+    private int changeLogCapacity;
 
     /**
      * @return the default configuration
@@ -57,7 +60,8 @@ public class RepositoryFactoryBuilder implements Start, DataFunctionsAnd, DataSt
                 builder.typeMappingContext,
                 builder.eventListenerContext,
                 builder.operationInvocationHandler,
-                builder.defaultKeyGenerator);
+                builder.defaultKeyGenerator,
+                builder.changeLogCapacity);
     }
 
     /**
@@ -86,6 +90,7 @@ public class RepositoryFactoryBuilder implements Start, DataFunctionsAnd, DataSt
         builder.eventListenerContext = getOrDefault(configuration.getEventListenerContext(), builder.eventListenerContext);
         builder.operationInvocationHandler = getOrDefault(configuration.getOperationInvocationHandler(), builder.operationInvocationHandler);
         builder.defaultKeyGenerator = getOrDefault(configuration.getDefaultKeyGenerator(), builder.defaultKeyGenerator);
+        builder.changeLogCapacity = configuration.getChangeLogCapacity();
         return builder;
     }
 
@@ -111,6 +116,8 @@ public class RepositoryFactoryBuilder implements Start, DataFunctionsAnd, DataSt
         operationInvocationHandler = new NonDataOperationInvocationHandler();
         //by default, we do not want any key generator, unless one is specified
         defaultKeyGenerator = null;
+        //nor do we want to record the changes, unless asked to
+        changeLogCapacity = 0;
     }
 
     @Override
@@ -210,6 +217,20 @@ public class RepositoryFactoryBuilder implements Start, DataFunctionsAnd, DataSt
         return this;
     }
 
+    @Override
+    public End recordChanges() {
+        return recordChanges(ChangeLog.DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public End recordChanges(int capacity) {
+        if (capacity < 1) {
+            throw new InvalidArgumentException("Capacity of the change log must be a positive number: " + capacity);
+        }
+        changeLogCapacity = capacity;
+        return this;
+    }
+
     @Override
     public EventListener enableAuditing(AuditorAware auditorAware) {
         return (EventListener) and(new AuditDataEventListener(auditorAware));
@@ -275,7 +296,7 @@ public class RepositoryFactoryBuilder implements Start, DataFunctionsAnd, DataSt
 
     @Override
     public RepositoryFactoryConfiguration configure() {
-        return new ImmutableRepositoryFactoryConfiguration(metadataResolver, queryDescriptionExtractor, functionRegistry, dataStoreRegistry, resultAdapterContext, typeMappingContext, eventListenerContext, operationInvocationHandler, defaultKeyGenerator);
+        return new ImmutableRepositoryFactoryConfiguration(metadataResolver, queryDescriptionExtractor, functionRegistry, dataStoreRegistry, resultAdapterContext, typeMappingContext, eventListenerContext, operationInvocationHandler, defaultKeyGenerator, changeLogCapacity);
     }
 
     @Override
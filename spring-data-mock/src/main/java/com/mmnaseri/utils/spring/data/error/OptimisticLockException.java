@@ -0,0 +1,37 @@
+package com.mmnaseri.utils.spring.data.error;
+
+/**
+ * This exception is thrown when a versioned entity cannot be saved, because the entity stored under the same key has
+ * been changed since the version being saved was read.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class OptimisticLockException extends DataStoreException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object key;
+    private final Object expectedVersion;
+    private final Object actualVersion;
+
+    public OptimisticLockException(Class<?> entityType, Object key, Object expectedVersion, Object actualVersion) {
+        super(entityType, "Entity with key " + key + " has been modified concurrently; expected version " + expectedVersion + " but found " + actualVersion);
+        this.key = key;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public Object getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public Object getActualVersion() {
+        return actualVersion;
+    }
+
+}
@@ -61,4 +61,11 @@ public interface RepositoryFactoryConfiguration {
      */
     KeyGenerator<?> getDefaultKeyGenerator();
 
+    /**
+     * @return the number of changes the data stores created by the factory keep in their
+     * {@link com.mmnaseri.utils.spring.data.store.impl.ChangeLog change logs}, or {@literal 0} if they should not
+     * record their changes
+     */
+    int getChangeLogCapacity();
+
 }
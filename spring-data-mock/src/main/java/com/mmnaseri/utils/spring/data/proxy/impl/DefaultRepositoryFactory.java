@@ -3,15 +3,15 @@ package com.mmnaseri.utils.spring.data.proxy.impl;
 import com.mmnaseri.utils.spring.data.domain.*;
 import com.mmnaseri.utils.spring.data.domain.impl.MethodQueryDescriptionExtractor;
 import com.mmnaseri.utils.spring.data.domain.impl.key.NoOpKeyGenerator;
+import com.mmnaseri.utils.spring.data.domain.impl.key.SequentialIntegerKeyGenerator;
+import com.mmnaseri.utils.spring.data.domain.impl.key.SequentialLongKeyGenerator;
 import com.mmnaseri.utils.spring.data.proxy.*;
 import com.mmnaseri.utils.spring.data.proxy.impl.resolvers.DefaultDataOperationResolver;
 import com.mmnaseri.utils.spring.data.query.DataFunctionRegistry;
 import com.mmnaseri.utils.spring.data.store.DataStore;
 import com.mmnaseri.utils.spring.data.store.DataStoreOperation;
 import com.mmnaseri.utils.spring.data.store.DataStoreRegistry;
-import com.mmnaseri.utils.spring.data.store.impl.DefaultDataStoreEventListenerContext;
-import com.mmnaseri.utils.spring.data.store.impl.EventPublishingDataStore;
-import com.mmnaseri.utils.spring.data.store.impl.MemoryDataStore;
+import com.mmnaseri.utils.spring.data.store.impl.*;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -24,6 +24,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>This class is the entry point to this framework as a whole. Using this class, you can mock a repository
@@ -76,7 +77,7 @@ public class DefaultRepositoryFactory implements RepositoryFactory {
         final RepositoryMetadata metadata = getRepositoryMetadata(repositoryInterface);
         //get the underlying data store
         log.info("Resolving the data store for " + repositoryInterface);
-        final DataStore<Serializable, Object> dataStore = getDataStore(metadata);
+        final DataStore<Serializable, Object> dataStore = getDataStore(metadata, actualKeyGenerator);
         //figure out type mappings
         log.info("Trying to find all the proper type mappings for entity repository " + repositoryInterface);
         final List<TypeMapping<?>> typeMappings = getTypeMappings(metadata, dataStore, actualKeyGenerator, implementations);
@@ -187,25 +188,46 @@ public class DefaultRepositoryFactory implements RepositoryFactory {
     /**
      * <p>Given a repository metadata, it will return the data store instance associated with the entity type for that repository.</p>
      *
+     * <p>If no data store has been registered for the entity type, a memory data store will be created. Entities with integral
+     * identifiers are kept in a {@link DenseMemoryDataStore} if their keys come from one of the sequential key generators,
+     * and in a {@link LongKeyMemoryDataStore} if not. If the entity has any
+     * {@link com.mmnaseri.utils.spring.data.store.Indexed indexed} properties, the data store will be indexed.</p>
+     *
      * <p>If the data store is not an instance of {@link EventPublishingDataStore} it will wrap it in one, thus enabling event processing
-     * for this repository.</p>
+     * for this repository. If the configuration asks for a {@link RepositoryFactoryConfiguration#getChangeLogCapacity() change log},
+     * the wrapper will record its changes in a {@link ChangeLog} of that capacity.</p>
      *
      * <p>It will also register the data store instance to let the user access the data store, as well as cache it for future use.</p>
      *
-     * @param metadata    the metadata
+     * @param metadata        the metadata
+     * @param keyGenerator    the key generator
      * @return the data store
      */
-    private DataStore<Serializable, Object> getDataStore(RepositoryMetadata metadata) {
+    private DataStore<Serializable, Object> getDataStore(RepositoryMetadata metadata, KeyGenerator<? extends Serializable> keyGenerator) {
         DataStore<Serializable, Object> dataStore;
         if (dataStoreRegistry.has(metadata.getEntityType())) {
             //noinspection unchecked
             dataStore = (DataStore<Serializable, Object>) dataStoreRegistry.getDataStore(metadata.getEntityType());
         } else {
-            //noinspection unchecked
-            dataStore = new MemoryDataStore<>((Class<Object>) metadata.getEntityType());
+            if (!AbstractLongKeyDataStore.supports(metadata.getIdentifierType())) {
+                dataStore = new MemoryDataStore<>(getEntityType(metadata));
+            } else if (keyGenerator instanceof SequentialLongKeyGenerator || keyGenerator instanceof SequentialIntegerKeyGenerator) {
+                dataStore = new DenseMemoryDataStore<>(getIdentifierType(metadata), getEntityType(metadata));
+            } else {
+                dataStore = new LongKeyMemoryDataStore<>(getIdentifierType(metadata), getEntityType(metadata));
+            }
+            if (!IndexUtils.getIndexedProperties(metadata.getEntityType()).isEmpty()) {
+                dataStore = new IndexedMemoryDataStore<>(dataStore);
+            }
         }
         if (!(dataStore instanceof EventPublishingDataStore)) {
-            dataStore = new EventPublishingDataStore<>(dataStore, metadata, new DefaultDataStoreEventListenerContext(configuration.getEventListenerContext()));
+            final ChangeLog<Serializable, Object> changeLog;
+            if (configuration.getChangeLogCapacity() > 0) {
+                changeLog = new ChangeLog<>(getEntityType(metadata), configuration.getChangeLogCapacity(), 0, TimeUnit.MILLISECONDS);
+            } else {
+                changeLog = null;
+            }
+            dataStore = new EventPublishingDataStore<>(dataStore, metadata, new DefaultDataStoreEventListenerContext(configuration.getEventListenerContext()), changeLog);
         }
         dataStoreRegistry.register(dataStore);
         return dataStore;
@@ -227,5 +249,24 @@ public class DefaultRepositoryFactory implements RepositoryFactory {
         return invocationMappings;
     }
 
+    /**
+     * The data stores created by this factory hold entities of any type as plain objects
+     * @param metadata    the metadata
+     * @return the entity type
+     */
+    @SuppressWarnings("unchecked")
+    private static Class<Object> getEntityType(RepositoryMetadata metadata) {
+        return (Class<Object>) metadata.getEntityType();
+    }
+
+    /**
+     * The data stores created by this factory take keys of any type as plain serializable objects
+     * @param metadata    the metadata
+     * @return the identifier type
+     */
+    @SuppressWarnings("unchecked")
+    private static Class<Serializable> getIdentifierType(RepositoryMetadata metadata) {
+        return (Class<Serializable>) metadata.getIdentifierType();
+    }
 
 }
@@ -27,6 +27,7 @@ public class DefaultRepositoryFactoryConfiguration implements RepositoryFactoryC
     private DataStoreEventListenerContext eventListenerContext;
     private NonDataOperationInvocationHandler operationInvocationHandler;
     private KeyGenerator<?> defaultKeyGenerator;
+    private int changeLogCapacity;
 
     public DefaultRepositoryFactoryConfiguration() {
     }
@@ -35,6 +36,7 @@ public class DefaultRepositoryFactoryConfiguration implements RepositoryFactoryC
         this(configuration.getRepositoryMetadataResolver(), configuration.getDescriptionExtractor(), configuration.getFunctionRegistry(), configuration.getDataStoreRegistry(),
                 configuration.getResultAdapterContext(), configuration.getTypeMappingContext(), configuration.getEventListenerContext(),
                 configuration.getOperationInvocationHandler(), configuration.getDefaultKeyGenerator());
+        this.changeLogCapacity = configuration.getChangeLogCapacity();
     }
 
     public DefaultRepositoryFactoryConfiguration(RepositoryMetadataResolver repositoryMetadataResolver, MethodQueryDescriptionExtractor descriptionExtractor, DataFunctionRegistry functionRegistry, DataStoreRegistry dataStoreRegistry, ResultAdapterContext resultAdapterContext, TypeMappingContext typeMappingContext, DataStoreEventListenerContext eventListenerContext, NonDataOperationInvocationHandler operationInvocationHandler, KeyGenerator<?> defaultKeyGenerator) {
@@ -130,4 +132,13 @@ public class DefaultRepositoryFactoryConfiguration implements RepositoryFactoryC
         this.defaultKeyGenerator = defaultKeyGenerator;
     }
 
+    @Override
+    public int getChangeLogCapacity() {
+        return changeLogCapacity;
+    }
+
+    public void setChangeLogCapacity(int changeLogCapacity) {
+        this.changeLogCapacity = changeLogCapacity;
+    }
+
 }
@@ -29,14 +29,20 @@ public class ImmutableRepositoryFactoryConfiguration implements RepositoryFactor
     private final DataStoreEventListenerContext eventListenerContext;
     private final NonDataOperationInvocationHandler operationInvocationHandler;
     private final KeyGenerator<?> keyGenerator;
+    private final int changeLogCapacity;
 
     public ImmutableRepositoryFactoryConfiguration(RepositoryFactoryConfiguration configuration) {
         this(configuration.getRepositoryMetadataResolver(), configuration.getDescriptionExtractor(), configuration.getFunctionRegistry(),
                 configuration.getDataStoreRegistry(), configuration.getResultAdapterContext(), configuration.getTypeMappingContext(),
-                configuration.getEventListenerContext(), configuration.getOperationInvocationHandler(), configuration.getDefaultKeyGenerator());
+                configuration.getEventListenerContext(), configuration.getOperationInvocationHandler(), configuration.getDefaultKeyGenerator(),
+                configuration.getChangeLogCapacity());
     }
 
     public ImmutableRepositoryFactoryConfiguration(RepositoryMetadataResolver metadataResolver, MethodQueryDescriptionExtractor queryDescriptionExtractor, DataFunctionRegistry functionRegistry, DataStoreRegistry dataStoreRegistry, ResultAdapterContext resultAdapterContext, TypeMappingContext typeMappingContext, DataStoreEventListenerContext eventListenerContext, NonDataOperationInvocationHandler operationInvocationHandler, KeyGenerator<?> keyGenerator) {
+        this(metadataResolver, queryDescriptionExtractor, functionRegistry, dataStoreRegistry, resultAdapterContext, typeMappingContext, eventListenerContext, operationInvocationHandler, keyGenerator, 0);
+    }
+
+    public ImmutableRepositoryFactoryConfiguration(RepositoryMetadataResolver metadataResolver, MethodQueryDescriptionExtractor queryDescriptionExtractor, DataFunctionRegistry functionRegistry, DataStoreRegistry dataStoreRegistry, ResultAdapterContext resultAdapterContext, TypeMappingContext typeMappingContext, DataStoreEventListenerContext eventListenerContext, NonDataOperationInvocationHandler operationInvocationHandler, KeyGenerator<?> keyGenerator, int changeLogCapacity) {
         this.metadataResolver = metadataResolver;
         this.queryDescriptionExtractor = queryDescriptionExtractor;
         this.functionRegistry = functionRegistry;
@@ -46,6 +52,7 @@ public class ImmutableRepositoryFactoryConfiguration implements RepositoryFactor
         this.eventListenerContext = eventListenerContext;
         this.operationInvocationHandler = operationInvocationHandler;
         this.keyGenerator = keyGenerator;
+        this.changeLogCapacity = changeLogCapacity;
     }
 
     @Override
@@ -93,4 +100,9 @@ public class ImmutableRepositoryFactoryConfiguration implements RepositoryFactor
         return keyGenerator;
     }
 
+    @Override
+    public int getChangeLogCapacity() {
+        return changeLogCapacity;
+    }
+
 }
@@ -2,6 +2,8 @@ package com.mmnaseri.utils.spring.data.repository;
 
 import com.mmnaseri.utils.spring.data.domain.*;
 import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.VersionedDataStore;
+import com.mmnaseri.utils.spring.data.store.impl.VersionUtils;
 import com.mmnaseri.utils.spring.data.tools.PropertyUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -26,12 +28,47 @@ public class CrudRepositorySupport implements DataStoreAware, RepositoryMetadata
     protected CrudRepositorySupport() {}
 
     /**
-     * Saves the entity in the underlying data store, creating keys in the process, if necessary.
+     * Saves the entity in the underlying data store, creating keys in the process, if necessary. If the entity has a
+     * version property and the data store can check versions, the entity is only saved if its version matches that of
+     * the stored entity, and its version is incremented.
      * @param entity    the entity to save
      * @return the saved entity (the exact same instance, with the difference that if the entity was
      * newly inserted, it will have a key).
+     * @throws com.mmnaseri.utils.spring.data.error.OptimisticLockException if the stored entity has a different version
      */
     public Object save(Object entity) {
+        final Object key = prepareKey(entity);
+        final String versionProperty = getVersionProperty();
+        if (versionProperty != null) {
+            log.info("The entity is versioned, so we are going to check its version as we save it");
+            @SuppressWarnings("unchecked")
+            final VersionedDataStore<Serializable, Object> versioned = (VersionedDataStore<Serializable, Object>) dataStore;
+            versioned.save((Serializable) key, entity, versionProperty);
+        } else {
+            //noinspection unchecked
+            dataStore.save((Serializable) key, entity);
+        }
+        return entity;
+    }
+
+    /**
+     * @return the version property of the entity, or {@literal null} if the entity is not versioned or the data store
+     * cannot check versions
+     */
+    protected String getVersionProperty() {
+        if (!(dataStore instanceof VersionedDataStore)) {
+            return null;
+        }
+        return VersionUtils.getVersionProperty(repositoryMetadata.getEntityType());
+    }
+
+    /**
+     * Looks up the key of the entity, generating a key and setting it on the entity if it does not have one yet and
+     * a key generator is available.
+     * @param entity    the entity
+     * @return the key for the entity, which might still be {@literal null} if no key generator is available
+     */
+    protected Object prepareKey(Object entity) {
         Object key = PropertyUtils.getPropertyValue(entity, repositoryMetadata.getIdentifierProperty());
         log.info("The entity that is to be saved has a key with value " + key);
         if (key == null && keyGenerator != null) {
@@ -43,9 +80,7 @@ public class CrudRepositorySupport implements DataStoreAware, RepositoryMetadata
         if (key == null) {
             log.warn("Attempting to save an entity without a key. This might result in an error. To fix this, specify a key generator.");
         }
-        //noinspection unchecked
-        dataStore.save((Serializable) key, entity);
-        return entity;
+        return key;
     }
 
     @Override
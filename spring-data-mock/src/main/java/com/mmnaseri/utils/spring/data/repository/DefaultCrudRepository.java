@@ -1,14 +1,20 @@
 package com.mmnaseri.utils.spring.data.repository;
 
 import com.mmnaseri.utils.spring.data.error.EntityMissingKeyException;
+import com.mmnaseri.utils.spring.data.store.impl.DataStoreUtils;
 import com.mmnaseri.utils.spring.data.tools.PropertyUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * <p>
@@ -25,17 +31,42 @@ public class DefaultCrudRepository extends CrudRepositorySupport {
     private static final Log log = LogFactory.getLog(DefaultCrudRepository.class);
 
     /**
-     * Saves all the given entities
+     * Saves all the given entities in one go. If the same key comes up more than once, or an entity has no key, the
+     * entities collected so far are written first, so that every entity is saved in order, as if the entities had been
+     * saved one by one. This means that if saving an entity fails, the entities before it will have been saved.
      * @param entities entities to save (insert or update)
      * @return saved entities
      */
     public Iterable<Object> save(Iterable entities) {
         final List<Object> list = new LinkedList<>();
+        if (getVersionProperty() != null) {
+            log.info("Saving versioned entities one by one, so that each of their versions is checked");
+            for (Object entity : entities) {
+                list.add(save(entity));
+            }
+            return list;
+        }
+        final Map<Serializable, Object> entitiesByKey = new LinkedHashMap<>();
         log.info("Going to save a number of entities in the underlying data store");
         log.debug(entities);
         for (Object entity : entities) {
-            list.add(save(entity));
+            final Serializable key = (Serializable) prepareKey(entity);
+            if (key == null) {
+                log.debug("An entity without a key was found; saving the entities collected so far before passing it on");
+                DataStoreUtils.saveAll(getDataStore(), entitiesByKey);
+                entitiesByKey.clear();
+                list.add(save(entity));
+                continue;
+            }
+            if (entitiesByKey.containsKey(key)) {
+                log.debug("The key " + key + " is saved more than once; saving the entities collected so far first");
+                DataStoreUtils.saveAll(getDataStore(), entitiesByKey);
+                entitiesByKey.clear();
+            }
+            entitiesByKey.put(key, entity);
+            list.add(entity);
         }
+        DataStoreUtils.saveAll(getDataStore(), entitiesByKey);
         return list;
     }
 
@@ -64,17 +95,13 @@ public class DefaultCrudRepository extends CrudRepositorySupport {
      * @return entities that matched the ids.
      */
     public Iterable findAll(Iterable ids) {
-        final List entities = new LinkedList();
+        final List<Serializable> keys = new ArrayList<>();
         log.info("Looking for multiple entities for a number of ids");
         log.debug(ids);
         for (Object id : ids) {
-            final Object found = findOne((Serializable) id);
-            if (found != null) {
-                log.trace("Entity found for key " + id + ", adding the found entity to the list of returned entity");
-                entities.add(found);
-            }
+            keys.add((Serializable) id);
         }
-        return entities;
+        return new LinkedList(DataStoreUtils.retrieveAll(getDataStore(), keys));
     }
 
     /**
@@ -84,19 +111,28 @@ public class DefaultCrudRepository extends CrudRepositorySupport {
      * @return the entity that was deleted or {@literal null} if it wasn't found
      */
     public Object delete(Serializable id) {
-        Object retrieved = getDataStore().retrieve(id);
         log.info("Attempting to delete the entity with key " + id);
-        if (retrieved == null) {
-            log.info("Object not found with key " + id + ", try to find by identifier property");
-            try {
-                id = (Serializable) PropertyUtils.getPropertyValue(id, getRepositoryMetadata().getIdentifierProperty());
-                retrieved = getDataStore().retrieve(id);
-            } catch (IllegalStateException exception) {
-                log.info("Serialized id doesn't have a identifier property");
-            }
+        final Object deleted = DataStoreUtils.remove(getDataStore(), id);
+        if (deleted == null) {
+            return deleteByIdentifierProperty(id);
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes the entity whose key is the identifier property of the given id, for when the id was not itself a key
+     * @param id the id
+     * @return the entity that was deleted or {@literal null} if it wasn't found
+     */
+    private Object deleteByIdentifierProperty(Serializable id) {
+        log.info("Object not found with key " + id + ", try to find by identifier property");
+        try {
+            final Serializable key = (Serializable) PropertyUtils.getPropertyValue(id, getRepositoryMetadata().getIdentifierProperty());
+            return DataStoreUtils.remove(getDataStore(), key);
+        } catch (IllegalStateException exception) {
+            log.info("Serialized id doesn't have a identifier property");
+            return null;
         }
-        getDataStore().delete(id);
-        return retrieved;
     }
 
     /**
@@ -115,19 +151,31 @@ public class DefaultCrudRepository extends CrudRepositorySupport {
     }
 
     /**
-     * Deletes all specified <em>entities</em> from the data store.
+     * Deletes all specified <em>entities</em> from the data store in one go.
      * @param entities the entities to delete
      * @return the entities that were actually deleted
+     * @throws EntityMissingKeyException if any of the passed entities doesn't have a key, in which case nothing is
+     * deleted
      */
     public Iterable delete(Iterable entities) {
         log.info("Attempting to delete multiple entities via entity objects themselves");
         log.debug(entities);
-        final List list = new LinkedList();
+        final Set<Serializable> keys = new LinkedHashSet<>();
         for (Object entity : entities) {
-            final Object deleted = delete(entity);
-            if (deleted != null) {
-                log.debug("The entity was deleted successfully and will be added to the list of deleted entities");
-                list.add(deleted);
+            final Object key = PropertyUtils.getPropertyValue(entity, getRepositoryMetadata().getIdentifierProperty());
+            if (key == null) {
+                log.error("One of the entities that were supposed to be deleted does not have a key");
+                throw new EntityMissingKeyException(getRepositoryMetadata().getEntityType(), getRepositoryMetadata().getIdentifierProperty());
+            }
+            keys.add((Serializable) key);
+        }
+        final Map<?, ?> deleted = DataStoreUtils.deleteAll(getDataStore(), keys);
+        log.debug(deleted.size() + " of the entities were found and deleted");
+        final List list = new LinkedList();
+        for (Serializable key : keys) {
+            final Object entity = deleted.containsKey(key) ? deleted.get(key) : deleteByIdentifierProperty(key);
+            if (entity != null) {
+                list.add(entity);
             }
         }
         return list;
@@ -139,16 +187,9 @@ public class DefaultCrudRepository extends CrudRepositorySupport {
      */
     public Iterable deleteAll() {
         log.info("Attempting to delete all entities at once");
-        final List list = new LinkedList();
         final Collection keys = getDataStore().keys();
         log.debug("There are " + keys.size() + " entities altogether in the data store that are going to be deleted");
-        for (Object key : keys) {
-            final Object deleted = delete(((Serializable) key));
-            if (deleted != null) {
-                log.debug("The entity was deleted successfully and will be added to the list of deleted entities");
-                list.add(deleted);
-            }
-        }
+        final List list = new LinkedList(DataStoreUtils.deleteAll(getDataStore(), keys).values());
         final Collection remainingKeys = getDataStore().keys();
         log.debug("There are " + remainingKeys.size() + " keys remaining in the data store after the delete operation");
         return list;
@@ -79,15 +79,18 @@ public class DefaultJpaRepository extends CrudRepositorySupport {
             batch = null;
         }
         final List result = new LinkedList();
-        for (Serializable key : keys) {
-            if (getDataStore().hasKey(key)) {
-                result.add(getDataStore().retrieve(key));
-                getDataStore().delete(key);
+        try {
+            for (Serializable key : keys) {
+                if (getDataStore().hasKey(key)) {
+                    result.add(getDataStore().retrieve(key));
+                    getDataStore().delete(key);
+                }
+            }
+        } finally {
+            if (getDataStore() instanceof QueueingDataStore) {
+                log.debug("Ending the batch operation that was started previously.");
+                ((QueueingDataStore) getDataStore()).endBatch(batch);
             }
-        }
-        if (getDataStore() instanceof QueueingDataStore) {
-            log.debug("Ending the batch operation that was started previously.");
-            ((QueueingDataStore) getDataStore()).endBatch(batch);
         }
         return result;
     }
@@ -14,6 +14,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -72,21 +73,29 @@ final class PagingAndSortingUtils {
      * @return the specified view of the data
      */
     public static Page page(Collection entries, Pageable pageable) {
-        final List<?> all;
+        final Collection<?> all;
         if (pageable.getSort() != null) {
             log.info("The page specification requests sorting, so we are going to sort the data first");
             all = sort(entries, pageable.getSort());
         } else {
-            log.info("The page specification does not need sorting, so we are going to load the data as-is");
+            log.info("The page specification does not need sorting, so we are going to page the data as-is");
             //noinspection unchecked
-            all = new LinkedList(entries);
+            all = entries;
         }
         int start = Math.max(0, pageable.getPageNumber() * pageable.getPageSize());
         int end = start + pageable.getPageSize();
         start = Math.min(start, all.size());
         end = Math.min(end, all.size());
         log.info("Trimming the selection down for page " + pageable.getPageNumber() + " to include items from " + start + " to " + end);
-        final List<?> selection = new LinkedList<>(all.subList(start, end));
+        //we walk the entries instead of copying them, and stop as soon as the page is full
+        final List<Object> selection = new LinkedList<>();
+        final Iterator<?> iterator = all.iterator();
+        for (int i = 0; i < end && iterator.hasNext(); i++) {
+            final Object item = iterator.next();
+            if (i >= start) {
+                selection.add(item);
+            }
+        }
         //noinspection unchecked
         return new PageImpl(selection, pageable, all.size());
     }
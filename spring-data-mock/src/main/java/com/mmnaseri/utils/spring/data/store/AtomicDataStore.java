@@ -0,0 +1,48 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+
+/**
+ * This interface indicates that the implementing data store can carry out writes that also tell what was there
+ * before, as a single atomic step. This means that whoever is writing to the data store can tell insertions apart
+ * from updates without having to look the key up first, and without the answer going stale before the write happens.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface AtomicDataStore<K extends Serializable, E> extends DataStore<K, E> {
+
+    /**
+     * Saves the entity under the key
+     * @param key       the key
+     * @param entity    the entity
+     * @return the entity previously stored under the key, or {@literal null} if there was none
+     */
+    E put(K key, E entity);
+
+    /**
+     * Saves the entity under the key, unless there already is an entity under the key
+     * @param key       the key
+     * @param entity    the entity
+     * @return the entity already stored under the key, in which case nothing was saved, or {@literal null} if the
+     * entity was saved
+     */
+    E putIfAbsent(K key, E entity);
+
+    /**
+     * Deletes the entity under the key
+     * @param key    the key
+     * @return the entity that was deleted, or {@literal null} if there was none
+     */
+    E remove(K key);
+
+    /**
+     * Replaces the entity under the key with the one worked out by the function, provided that nothing else has been
+     * saved under the key while the function was at work. Otherwise, the function is called again with the new entity.
+     * @param key         the key
+     * @param function    the function working out the new entity
+     * @return the new entity, or {@literal null} if the function asked for the key to be deleted
+     */
+    E compute(K key, EntityRemappingFunction<K, E> function);
+
+}
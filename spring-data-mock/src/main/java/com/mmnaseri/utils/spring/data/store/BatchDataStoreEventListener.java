@@ -0,0 +1,22 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.util.List;
+
+/**
+ * This interface indicates that the implementing listener would rather be handed the events in batches, when the
+ * context dispatching them has more than one at hand, than be called once per event.
+ *
+ * @param <E>   the type of the event to which this listener subscribes
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface BatchDataStoreEventListener<E extends DataStoreEvent> extends DataStoreEventListener<E> {
+
+    /**
+     * Will be called instead of {@link #onEvent(DataStoreEvent)} when a number of relevant events are dispatched
+     * together
+     * @param events    the events, in the order in which they were published
+     */
+    void onEvents(List<E> events);
+
+}
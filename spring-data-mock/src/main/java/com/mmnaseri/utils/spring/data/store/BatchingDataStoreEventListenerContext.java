@@ -0,0 +1,23 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.util.List;
+
+/**
+ * This interface indicates that the implementing listener context can trigger a number of events in one go, handing
+ * them to {@link BatchDataStoreEventListener batch listeners} in a single call.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface BatchingDataStoreEventListenerContext extends DataStoreEventListenerContext {
+
+    /**
+     * Triggers the events on the context. Every listener sees the events meant for it in the order in which they are
+     * given, but a batch listener sees all of its events at once, and so might see them before or after other
+     * listeners have seen theirs. A listener that fails on one of the events does not keep the other events from being
+     * triggered; the first failure is thrown once all the events have been triggered.
+     * @param events    the events
+     */
+    void triggerAll(List<? extends DataStoreEvent> events);
+
+}
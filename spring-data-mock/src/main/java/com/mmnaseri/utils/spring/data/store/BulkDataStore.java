@@ -0,0 +1,39 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This interface indicates that the implementing data store can save, delete, and retrieve many entities in a single
+ * call, which is expected to be cheaper than doing the same one entity at a time.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface BulkDataStore<K extends Serializable, E> extends DataStore<K, E> {
+
+    /**
+     * Saves all the given entities under their keys. Either all of the entities are saved, or if any of the keys
+     * or entities is {@literal null}, none of them are.
+     * @param entities    the entities, mapped by their keys
+     * @return the number of entities that were new entries
+     */
+    int saveAll(Map<K, E> entities);
+
+    /**
+     * Deletes the entities under all the given keys. Keys for which there is no entity are ignored.
+     * @param keys    the keys
+     * @return the entities that were actually deleted, mapped by their keys in the order in which the keys were given
+     */
+    Map<K, E> deleteAll(Collection<K> keys);
+
+    /**
+     * Retrieves the entities under all the given keys. Keys for which there is no entity are skipped.
+     * @param keys    the keys
+     * @return the entities that were found, in the order in which the keys were given
+     */
+    List<E> retrieveAll(Collection<K> keys);
+
+}
@@ -0,0 +1,18 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+
+/**
+ * This interface indicates that the implementing data store records the changes made to it in a {@link ChangeFeed}.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface ChangeCapturingDataStore<K extends Serializable, E> extends DataStore<K, E> {
+
+    /**
+     * @return the feed of changes made to this data store
+     */
+    ChangeFeed<K, E> getChanges();
+
+}
@@ -0,0 +1,56 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Closeable;
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This interface is used to read the changes recorded in a {@link ChangeFeed} in order, picking up each time where the
+ * last read left off. A cursor holds on to the changes it has not yet read, so it should be {@link #close() closed}
+ * once it is no longer needed.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface ChangeCursor<K extends Serializable, E> extends Closeable {
+
+    /**
+     * Reads the next changes, without waiting for any to be made
+     * @param max    the maximum number of changes to read
+     * @return the changes, which might be empty
+     */
+    List<DataStoreChange<K, E>> poll(int max);
+
+    /**
+     * Reads the next changes, waiting for at least one to be made if there are none
+     * @param max        the maximum number of changes to read
+     * @param timeout    how long to wait
+     * @param unit       the unit of the timeout
+     * @return the changes, which will be empty if none were made before the timeout
+     */
+    List<DataStoreChange<K, E>> poll(int max, long timeout, TimeUnit unit);
+
+    /**
+     * Moves the cursor, so that the next change read is the one with the given sequence number
+     * @param sequence    the sequence number, which must still be in the feed
+     */
+    void seek(long sequence);
+
+    /**
+     * @return the sequence number of the next change to be read
+     */
+    long getPosition();
+
+    /**
+     * @return the number of changes recorded that the cursor has not read yet
+     */
+    long getLag();
+
+    /**
+     * Lets go of the cursor, after which it can no longer be read from
+     */
+    @Override
+    void close();
+
+}
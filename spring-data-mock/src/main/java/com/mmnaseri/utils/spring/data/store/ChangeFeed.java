@@ -0,0 +1,66 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+
+/**
+ * <p>This interface represents a bounded, ordered record of the changes made to a data store, which can be read
+ * incrementally through {@link ChangeCursor cursors}, so that whoever needs to follow the changes does not have to
+ * look at the whole data store to find them.</p>
+ *
+ * <p>Each change gets a sequence number one higher than the one before it, starting at {@literal 1}. Only the most
+ * recent changes are kept, so a cursor that falls too far behind will find that some of the changes it was going to
+ * read are gone, and will fail to read any more changes until it has been {@link ChangeCursor#seek(long) moved} to a
+ * change that is still kept.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface ChangeFeed<K extends Serializable, E> {
+
+    /**
+     * Opens a cursor that will read the changes made from now on
+     * @return the cursor
+     */
+    ChangeCursor<K, E> openCursor();
+
+    /**
+     * Opens a cursor that will start reading from the change with the given sequence number
+     * @param sequence    the sequence number, which must be at least {@link #getFirstSequence()}, and at most one
+     *                    more than {@link #getLastSequence()}
+     * @return the cursor
+     */
+    ChangeCursor<K, E> openCursor(long sequence);
+
+    /**
+     * @return the sequence number of the oldest change still kept, or one more than {@link #getLastSequence()} if
+     * no changes are kept
+     */
+    long getFirstSequence();
+
+    /**
+     * @return the sequence number of the latest change, or {@literal 0} if no changes have been made
+     */
+    long getLastSequence();
+
+    /**
+     * @return the number of open cursors
+     */
+    int getCursorCount();
+
+    /**
+     * @return the number of changes the slowest open cursor has yet to read
+     */
+    long getMaxLag();
+
+    /**
+     * @return the number of changes that were dropped before all the open cursors had read them
+     */
+    long getDroppedCount();
+
+    /**
+     * @return the number of times a change could not be recorded right away, because the feed was full of changes
+     * some cursor had yet to read
+     */
+    long getStallCount();
+
+}
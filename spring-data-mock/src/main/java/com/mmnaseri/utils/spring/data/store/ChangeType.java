@@ -0,0 +1,28 @@
+package com.mmnaseri.utils.spring.data.store;
+
+/**
+ * The kinds of changes recorded in a {@link ChangeFeed}.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public enum ChangeType {
+
+    /**
+     * An entity was saved under a key that was not in the data store
+     */
+    INSERT,
+    /**
+     * An entity was saved under a key that was already in the data store
+     */
+    UPDATE,
+    /**
+     * An entity was removed from the data store
+     */
+    DELETE,
+    /**
+     * All the entities were removed from the data store at once. Such changes carry no key and no entities.
+     */
+    TRUNCATE
+
+}
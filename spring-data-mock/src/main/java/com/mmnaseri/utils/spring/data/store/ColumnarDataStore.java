@@ -0,0 +1,30 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import com.mmnaseri.utils.spring.data.domain.Invocation;
+import com.mmnaseri.utils.spring.data.domain.Parameter;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * This interface indicates that the implementing data store keeps the values of some of the properties of its
+ * entities in columns, and can evaluate query parameters over those columns in bulk instead of matching the entities
+ * one at a time.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface ColumnarDataStore<K extends Serializable, E> extends DataStore<K, E> {
+
+    /**
+     * Selects the entities matching any of the given branches, where an entity matches a branch if it satisfies all
+     * of the parameters on that branch. The operands for each parameter are read from the arguments of the invocation,
+     * the same way they would be when matching the entities one by one.
+     * @param branches      the decision branches of the query
+     * @param invocation    the invocation
+     * @return the matching entities, or {@literal null} if any one of the parameters cannot be evaluated using the
+     * columns, in which case the caller should match the entities itself
+     */
+    List<E> select(List<List<Parameter>> branches, Invocation invocation);
+
+}
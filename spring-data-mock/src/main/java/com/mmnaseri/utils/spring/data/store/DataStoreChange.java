@@ -0,0 +1,39 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+
+/**
+ * This interface describes a single change made to a data store, as recorded in a {@link ChangeFeed}.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface DataStoreChange<K extends Serializable, E> {
+
+    /**
+     * @return the sequence number of the change, which is one more than that of the change before it
+     */
+    long getSequence();
+
+    /**
+     * @return the kind of change
+     */
+    ChangeType getType();
+
+    /**
+     * @return the key of the entity that was changed, or {@literal null} if the whole data store was
+     * {@link ChangeType#TRUNCATE truncated}
+     */
+    K getKey();
+
+    /**
+     * @return the entity as it was before the change, or {@literal null} for insertions and truncations
+     */
+    E getPrevious();
+
+    /**
+     * @return the entity as it was saved, or {@literal null} for deletions and truncations
+     */
+    E getCurrent();
+
+}
@@ -0,0 +1,41 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.util.List;
+
+/**
+ * This interface describes the shape of the data held by a data store: how many entities there are, and how the values
+ * of their properties are distributed.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface DataStoreStatistics {
+
+    /**
+     * @return the type of the entities described by these statistics
+     */
+    Class<?> getEntityType();
+
+    /**
+     * @return the number of entities in the data store
+     */
+    long getCount();
+
+    /**
+     * @return {@literal true} if the statistics were extrapolated from a sample of the entities, in which case all the
+     * numbers reported for the properties, except for the number of entities itself, are estimates
+     */
+    boolean isSampled();
+
+    /**
+     * @return the statistics for each of the properties that are being tracked
+     */
+    List<PropertyStatistics> getProperties();
+
+    /**
+     * @param property    the property
+     * @return the statistics for the property, or {@literal null} if it is not being tracked
+     */
+    PropertyStatistics getProperty(String property);
+
+}
@@ -0,0 +1,22 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+
+/**
+ * This interface is used to walk over the entities in a {@link ScanningDataStore} one at a time, without having
+ * to load all of them into a collection first.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface DataStoreVisitor<K extends Serializable, E> {
+
+    /**
+     * Visits a single entity in the data store
+     * @param key       the key of the entity
+     * @param entity    the entity
+     * @return {@literal true} if the scan should go on, or {@literal false} if the visitor has seen enough
+     */
+    boolean visit(K key, E entity);
+
+}
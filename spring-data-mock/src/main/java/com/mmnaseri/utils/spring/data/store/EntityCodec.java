@@ -0,0 +1,26 @@
+package com.mmnaseri.utils.spring.data.store;
+
+/**
+ * This interface is used by data stores that keep their entities in a serialized form, to convert entities to and
+ * from their binary representation.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface EntityCodec<E> {
+
+    /**
+     * Encodes the entity
+     * @param entity    the entity
+     * @return the binary representation of the entity
+     */
+    byte[] encode(E entity);
+
+    /**
+     * Decodes an entity previously encoded by this codec
+     * @param data    the binary representation of the entity
+     * @return a new instance of the entity
+     */
+    E decode(byte[] data);
+
+}
@@ -0,0 +1,19 @@
+package com.mmnaseri.utils.spring.data.store;
+
+/**
+ * This interface is used by data stores that keep their entities isolated from their callers, to make copies of the
+ * entities going in and out of the data store.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface EntityCopier<E> {
+
+    /**
+     * Makes a deep copy of the entity, which shares no mutable state with the original
+     * @param entity    the entity
+     * @return the copy, or {@literal null} if the entity was {@literal null}
+     */
+    E copy(E entity);
+
+}
@@ -0,0 +1,23 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+
+/**
+ * This interface is used to work out the new entity for a key in an {@link AtomicDataStore#compute(Serializable,
+ * EntityRemappingFunction) atomic computation}, given the entity currently stored under the key.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface EntityRemappingFunction<K extends Serializable, E> {
+
+    /**
+     * Works out the new entity. This might be called more than once for the same computation if the entity changes
+     * in the meantime, so it should not have any side effects.
+     * @param key        the key
+     * @param current    the entity currently stored under the key, or {@literal null} if there is none
+     * @return the entity to store under the key, or {@literal null} if the key should be deleted
+     */
+    E apply(K key, E current);
+
+}
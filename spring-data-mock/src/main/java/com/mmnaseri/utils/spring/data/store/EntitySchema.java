@@ -0,0 +1,42 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>This interface describes the binary layout used by a {@link SchemaAwareEntityCodec} for an entity type, along
+ * with every type that can be reached from it through its properties. Each type is described by the list of its
+ * properties, in the order in which they are encoded, with each property written as {@literal name:signature}, the
+ * signature describing how the value of the property is encoded.</p>
+ *
+ * <p>The version of a schema is worked out from the layouts of its types, so two schemas with the same version are
+ * expected to describe the same layouts.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface EntitySchema {
+
+    /**
+     * @return the name of the entity type
+     */
+    String getEntityType();
+
+    /**
+     * @return the version of the schema, which is recorded alongside every entity encoded with it
+     */
+    int getVersion();
+
+    /**
+     * @return the names of all the types described by this schema, including the entity type
+     */
+    Set<String> getTypes();
+
+    /**
+     * @param type    the name of the type
+     * @return the properties of the type, in the order in which they are encoded, or {@literal null} if the type is
+     * not described by this schema
+     */
+    List<String> getProperties(String type);
+
+}
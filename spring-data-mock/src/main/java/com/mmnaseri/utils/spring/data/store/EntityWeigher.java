@@ -0,0 +1,17 @@
+package com.mmnaseri.utils.spring.data.store;
+
+/**
+ * This interface is used to estimate how much of a data store's capacity an entity takes up, for instance in bytes.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface EntityWeigher<E> {
+
+    /**
+     * @param entity    the entity
+     * @return the weight of the entity, which must not be negative
+     */
+    long weigh(E entity);
+
+}
@@ -0,0 +1,20 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+
+/**
+ * This interface indicates that the implementing data store might remove entities on its own, without being asked to
+ * {@link #delete(Serializable) delete} them.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface EvictingDataStore<K extends Serializable, E> extends DataStore<K, E> {
+
+    /**
+     * Registers a listener to be notified of evicted entities
+     * @param listener    the listener
+     */
+    void addEvictionListener(EvictionListener<K, E> listener);
+
+}
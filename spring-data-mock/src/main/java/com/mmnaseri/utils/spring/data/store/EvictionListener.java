@@ -0,0 +1,21 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+
+/**
+ * This interface is used to be notified of entities that an {@link EvictingDataStore} has removed on its own, either
+ * to stay within its capacity or because they have expired.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface EvictionListener<K extends Serializable, E> {
+
+    /**
+     * Called once the entity has been removed from the data store
+     * @param key       the key of the entity
+     * @param entity    the entity
+     */
+    void onEviction(K key, E entity);
+
+}
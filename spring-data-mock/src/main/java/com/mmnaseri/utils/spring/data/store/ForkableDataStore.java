@@ -0,0 +1,21 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+
+/**
+ * This interface indicates that the implementing data store can be forked into an independent copy of itself.
+ * Changes made to the fork after it has been created are not visible to the original, and vice versa.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface ForkableDataStore<K extends Serializable, E> extends DataStore<K, E> {
+
+    /**
+     * Creates an independent copy of this data store, holding the entities it currently holds
+     * @return the fork
+     * @throws com.mmnaseri.utils.spring.data.error.DataStoreException if the data store cannot be forked
+     */
+    ForkableDataStore<K, E> fork();
+
+}
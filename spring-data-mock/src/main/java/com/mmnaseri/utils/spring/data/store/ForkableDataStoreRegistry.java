@@ -0,0 +1,19 @@
+package com.mmnaseri.utils.spring.data.store;
+
+/**
+ * This interface indicates that the implementing registry can be forked into an independent copy of itself,
+ * holding a {@link ForkableDataStore#fork() fork} of each of its data stores.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface ForkableDataStoreRegistry extends DataStoreRegistry {
+
+    /**
+     * @return a new registry holding a fork of each of the data stores registered with this registry
+     * @throws com.mmnaseri.utils.spring.data.error.DataStoreException if any of the registered data stores cannot
+     * be forked
+     */
+    ForkableDataStoreRegistry fork();
+
+}
@@ -0,0 +1,27 @@
+package com.mmnaseri.utils.spring.data.store;
+
+/**
+ * This interface represents a single bucket in the histogram of the values of a property, covering all the values
+ * between its bounds, inclusive.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface HistogramBucket {
+
+    /**
+     * @return the smallest value in the bucket
+     */
+    Object getLowerBound();
+
+    /**
+     * @return the largest value in the bucket
+     */
+    Object getUpperBound();
+
+    /**
+     * @return the number of entities whose values fall into the bucket
+     */
+    long getCount();
+
+}
@@ -0,0 +1,25 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a property of an entity as indexed. Data stores created by the framework for entities that have indexed
+ * properties will maintain a secondary index over these properties, which will be used to answer queries without
+ * scanning the whole data store.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface Indexed {
+
+    /**
+     * @return whether the index should keep the values of the property sorted. Sorted indexes can also answer range
+     * queries (such as {@literal Between} or {@literal GreaterThan}) and orderings on the property, but require the
+     * values of the property to be {@link Comparable}.
+     */
+    boolean sorted() default false;
+
+}
@@ -0,0 +1,38 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import com.mmnaseri.utils.spring.data.domain.Parameter;
+import com.mmnaseri.utils.spring.data.query.Order;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This interface indicates that the implementing data store maintains secondary indexes over some of the properties
+ * of its entities, and can thus narrow down the candidates for a query parameter without looking at every single
+ * entity in the store.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface IndexedDataStore<K extends Serializable, E> extends DataStore<K, E> {
+
+    /**
+     * Looks up the keys for all the entities that could satisfy the given parameter. The returned set is guaranteed
+     * to contain the key of every matching entity, but callers are still expected to match the entities against the
+     * parameter themselves.
+     * @param parameter    the parameter
+     * @param operands     the actual values passed for the parameter's operands
+     * @return the candidate keys, or {@literal null} if none of the indexes can be used to answer the parameter
+     */
+    Set<K> lookup(Parameter parameter, Object... operands);
+
+    /**
+     * Lists the keys of all the entities in the data store in the given order, using a
+     * {@link SortedPropertyIndex sorted index} on the ordered property.
+     * @param order    the ordering
+     * @return the ordered keys, or {@literal null} if there is no sorted index for the ordered property
+     */
+    List<K> sort(Order order);
+
+}
@@ -0,0 +1,28 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+
+/**
+ * This interface indicates that the entities of the implementing data store are split into a number of disjoint
+ * partitions, each of which can be {@link #scan(int, DataStoreVisitor) scanned} on its own, and independently of the
+ * others. This allows callers to scan the partitions in parallel.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface PartitionedDataStore<K extends Serializable, E> extends ScanningDataStore<K, E> {
+
+    /**
+     * @return the number of partitions, which never changes during the lifetime of the data store
+     */
+    int getPartitionCount();
+
+    /**
+     * Hands every entity in the given partition to the visitor, under the same terms as {@link #scan(DataStoreVisitor)}.
+     * Scanning all partitions one after the other, in order, visits the entities in the same order as a full scan.
+     * @param partition    the index of the partition, from zero to one less than the number of partitions
+     * @param visitor      the visitor
+     */
+    void scan(int partition, DataStoreVisitor<K, E> visitor);
+
+}
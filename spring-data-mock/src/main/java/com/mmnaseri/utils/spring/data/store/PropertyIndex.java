@@ -0,0 +1,49 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import com.mmnaseri.utils.spring.data.domain.Parameter;
+
+import java.io.Serializable;
+import java.util.Set;
+
+/**
+ * This interface represents a secondary index kept over a single property of the entities in a data store. Indexes
+ * map the value of the indexed property to the keys of the entities holding that value.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface PropertyIndex<K extends Serializable> {
+
+    /**
+     * @return the path to the property being indexed
+     */
+    String getProperty();
+
+    /**
+     * Indexes the given key under the given value, replacing any value that was previously indexed for the same key
+     * @param key      the key of the entity
+     * @param value    the value of the indexed property (could be {@literal null})
+     */
+    void index(K key, Object value);
+
+    /**
+     * Removes the given key from the index
+     * @param key    the key
+     */
+    void remove(K key);
+
+    /**
+     * Removes everything from the index
+     */
+    void clear();
+
+    /**
+     * Looks up the keys of all the entities that could satisfy the given parameter.
+     * @param parameter    the parameter
+     * @param operands     the actual values passed for the parameter's operands
+     * @return the keys for all the entities that might match the parameter, or {@literal null} if the index cannot
+     * be used to answer the given parameter
+     */
+    Set<K> lookup(Parameter parameter, Object... operands);
+
+}
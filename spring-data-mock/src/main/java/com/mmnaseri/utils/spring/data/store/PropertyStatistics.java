@@ -0,0 +1,52 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.util.List;
+
+/**
+ * This interface describes how the values of a single property are distributed across the entities of a data store.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface PropertyStatistics {
+
+    /**
+     * @return the path to the property
+     */
+    String getProperty();
+
+    /**
+     * @return the number of entities for which the property is {@literal null}
+     */
+    long getNullCount();
+
+    /**
+     * @return the fraction of the entities for which the property is {@literal null}, between {@literal 0} and
+     * {@literal 1}
+     */
+    double getNullFraction();
+
+    /**
+     * @return the number of distinct non-null values of the property
+     */
+    long getDistinctCount();
+
+    /**
+     * @return the smallest value of the property, or {@literal null} if the values are not comparable or are all
+     * {@literal null}
+     */
+    Object getMinimum();
+
+    /**
+     * @return the largest value of the property, or {@literal null} if the values are not comparable or are all
+     * {@literal null}
+     */
+    Object getMaximum();
+
+    /**
+     * @return an equi-depth histogram of the non-null values, in ascending order, which is empty if the values are not
+     * comparable
+     */
+    List<HistogramBucket> getHistogram();
+
+}
@@ -0,0 +1,35 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+
+/**
+ * This interface indicates that the implementing data store can mark its current state and later roll back to it,
+ * undoing all the changes made since. Savepoints can be nested; rolling back to a savepoint discards all the
+ * savepoints marked after it, while the savepoint itself remains in place and can be rolled back to again.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface SavepointDataStore<K extends Serializable, E, S> extends DataStore<K, E> {
+
+    /**
+     * Marks the current state of the data store
+     * @return the savepoint, which can be used to {@link #rollback(Object) roll back} to the current state
+     */
+    S mark();
+
+    /**
+     * Undoes all the changes made since the savepoint was marked
+     * @param savepoint    the savepoint
+     * @throws com.mmnaseri.utils.spring.data.error.DataStoreException if the savepoint is not active
+     */
+    void rollback(S savepoint);
+
+    /**
+     * Releases the savepoint along with all the savepoints marked after it, keeping the changes made since
+     * @param savepoint    the savepoint
+     * @throws com.mmnaseri.utils.spring.data.error.DataStoreException if the savepoint is not active
+     */
+    void release(S savepoint);
+
+}
@@ -0,0 +1,33 @@
+package com.mmnaseri.utils.spring.data.store;
+
+/**
+ * This interface indicates that the implementing registry can mark the state of all of its
+ * {@link SavepointDataStore savepoint-capable} data stores at once, and later roll all of them back.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface SavepointDataStoreRegistry extends DataStoreRegistry {
+
+    /**
+     * Marks the current state of all the registered data stores that support savepoints
+     * @return the savepoint
+     */
+    Object mark();
+
+    /**
+     * Rolls back all the data stores that were marked by the savepoint. Data stores registered after the savepoint
+     * was marked are left as they are.
+     * @param savepoint    the savepoint
+     * @throws com.mmnaseri.utils.spring.data.error.InvalidArgumentException if the savepoint is not active
+     */
+    void rollback(Object savepoint);
+
+    /**
+     * Releases the savepoint in all the data stores that were marked by it
+     * @param savepoint    the savepoint
+     * @throws com.mmnaseri.utils.spring.data.error.InvalidArgumentException if the savepoint is not active
+     */
+    void release(Object savepoint);
+
+}
@@ -0,0 +1,23 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+
+/**
+ * This interface indicates that the implementing data store can be scanned entity by entity, so that callers do not
+ * need to materialize the whole contents of the data store through {@link #retrieveAll()} just to look at each entity
+ * once.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface ScanningDataStore<K extends Serializable, E> extends DataStore<K, E> {
+
+    /**
+     * Hands every entity in the data store to the visitor, until either all the entities have been visited or the
+     * visitor asks for the scan to stop. Writes happening during the scan may or may not be seen by the visitor, and the
+     * visitor itself should not modify the data store.
+     * @param visitor    the visitor
+     */
+    void scan(DataStoreVisitor<K, E> visitor);
+
+}
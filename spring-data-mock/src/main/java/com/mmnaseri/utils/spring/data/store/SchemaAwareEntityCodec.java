@@ -0,0 +1,25 @@
+package com.mmnaseri.utils.spring.data.store;
+
+/**
+ * This interface is implemented by codecs that encode entities according to an {@link EntitySchema}, and can decode
+ * entities encoded with earlier versions of the schema, as long as those versions have been registered with them.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface SchemaAwareEntityCodec<E> extends EntityCodec<E> {
+
+    /**
+     * @return the schema entities are currently encoded with
+     */
+    EntitySchema getSchema();
+
+    /**
+     * Registers an earlier version of the schema, so that entities encoded with it can be decoded. Properties that no
+     * longer exist, or whose values no longer fit, are ignored, and properties that did not exist are left as they
+     * are after the entity has been created.
+     * @param schema    the schema
+     */
+    void registerSchema(EntitySchema schema);
+
+}
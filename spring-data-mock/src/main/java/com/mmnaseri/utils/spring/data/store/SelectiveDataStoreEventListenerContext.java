@@ -0,0 +1,19 @@
+package com.mmnaseri.utils.spring.data.store;
+
+/**
+ * This interface indicates that the implementing listener context can tell ahead of time whether or not triggering
+ * an event of a given type would reach any listeners, so that publishers can avoid creating events nobody is
+ * listening to.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface SelectiveDataStoreEventListenerContext extends DataStoreEventListenerContext {
+
+    /**
+     * @param eventType    the concrete type of the event
+     * @return {@literal true} if triggering an event of the given type might reach at least one listener
+     */
+    boolean hasListeners(Class<? extends DataStoreEvent> eventType);
+
+}
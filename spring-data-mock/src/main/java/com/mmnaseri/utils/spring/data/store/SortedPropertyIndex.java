@@ -0,0 +1,25 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import com.mmnaseri.utils.spring.data.query.Order;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * This interface represents a property index that keeps the indexed values in their natural order, and can thus
+ * answer range parameters as well as list the keys in the order of the indexed property.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface SortedPropertyIndex<K extends Serializable> extends PropertyIndex<K> {
+
+    /**
+     * Lists all the indexed keys in the order requested. Null values are handled the same way
+     * {@link com.mmnaseri.utils.spring.data.domain.impl.PropertyComparator} would handle them.
+     * @param order    the ordering
+     * @return the keys of all the indexed entities, or {@literal null} if the ordering is not on the indexed property
+     */
+    List<K> sort(Order order);
+
+}
@@ -0,0 +1,19 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import java.io.Serializable;
+
+/**
+ * This interface indicates that the implementing data store keeps statistics about its contents up to date as it is
+ * being modified.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface StatisticsDataStore<K extends Serializable, E> extends DataStore<K, E> {
+
+    /**
+     * @return the statistics as of the last modification, or {@literal null} if the data store is not keeping any
+     */
+    DataStoreStatistics getStatistics();
+
+}
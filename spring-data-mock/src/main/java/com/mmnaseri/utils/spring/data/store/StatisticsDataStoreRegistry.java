@@ -0,0 +1,21 @@
+package com.mmnaseri.utils.spring.data.store;
+
+/**
+ * This interface indicates that the implementing registry can describe the data held by its data stores.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface StatisticsDataStoreRegistry extends DataStoreRegistry {
+
+    /**
+     * Describes the data held by the data store for the given entity type. Data stores that keep their own
+     * {@link StatisticsDataStore statistics} are asked for them, and the rest are sampled.
+     * @param entityType    the entity type
+     * @return the statistics
+     * @throws com.mmnaseri.utils.spring.data.error.DataStoreNotFoundException if no data store can be found for the
+     * given entity type
+     */
+    DataStoreStatistics getStatistics(Class<?> entityType);
+
+}
@@ -0,0 +1,42 @@
+package com.mmnaseri.utils.spring.data.store;
+
+import com.mmnaseri.utils.spring.data.error.OptimisticLockException;
+
+import java.io.Serializable;
+
+/**
+ * <p>This interface indicates that the implementing data store can check the version of an entity as it is being
+ * saved, so that changes made concurrently to the same entity are not silently overwritten.</p>
+ *
+ * <p>An entity can only replace the one stored under its key if the two have the same version, in which case the
+ * version of the entity being saved is incremented once it has been stored. An entity saved under a key that is not in
+ * use is stored as it is, with its version starting at zero if it has none. Versioned saves of the same key are made
+ * one at a time, so no other versioned save can check its version against an entity whose version has not been
+ * incremented yet, and an entity that could not be saved is left with the version it had.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface VersionedDataStore<K extends Serializable, E> extends DataStore<K, E> {
+
+    /**
+     * Saves the entity, provided that its version matches that of the entity currently stored under the key
+     * @param key                the key
+     * @param entity             the entity
+     * @param versionProperty    the property holding the version of the entity
+     * @return {@literal true} if the entity was inserted, and {@literal false} if it replaced an existing entity
+     * @throws OptimisticLockException if the entity stored under the key has a different version
+     */
+    boolean save(K key, E entity, String versionProperty);
+
+    /**
+     * Saves the entity the same way as {@link #save(Serializable, Object, String)} does
+     * @param key                the key
+     * @param entity             the entity
+     * @param versionProperty    the property holding the version of the entity
+     * @return the entity that was replaced, or {@literal null} if the entity was inserted
+     * @throws OptimisticLockException if the entity stored under the key has a different version
+     */
+    E put(K key, E entity, String versionProperty);
+
+}
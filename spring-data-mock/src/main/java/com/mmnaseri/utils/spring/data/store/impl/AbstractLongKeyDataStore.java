@@ -0,0 +1,378 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.AtomicDataStore;
+import com.mmnaseri.utils.spring.data.store.BulkDataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import com.mmnaseri.utils.spring.data.store.VersionedDataStore;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>This class factors out what is common to data stores that keep their entities under integral keys
+ * ({@link Long}, {@link Integer}, {@link Short}, or {@link Byte}) converted to primitive {@literal long} values.
+ * Subclasses decide how the entities are laid out in memory; this class takes care of converting the keys and
+ * validating the input.</p>
+ *
+ * <p>Reads never take a lock, and subclasses have to lay out their entities so that they can be read while they are
+ * being written to. Writes are serialized by a lock held by this class, which is also what makes the
+ * {@link AtomicDataStore atomic}, {@link BulkDataStore bulk}, and {@link VersionedDataStore versioned} writes atomic.
+ * Scans, as well as {@link #keys()} and {@link #retrieveAll()}, see the entities as they are while the scan is going
+ * on, and might or might not see the writes made in the meantime.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class AbstractLongKeyDataStore<K extends Serializable, E> implements ScanningDataStore<K, E>, AtomicDataStore<K, E>,
+        BulkDataStore<K, E>, VersionedDataStore<K, E> {
+
+    private static final Log log = LogFactory.getLog(AbstractLongKeyDataStore.class);
+    private final Class<K> keyType;
+    private final Class<E> entityType;
+    private final Lock lock = new ReentrantLock();
+
+    protected AbstractLongKeyDataStore(Class<K> keyType, Class<E> entityType) {
+        if (!supports(keyType)) {
+            throw new InvalidArgumentException("Expected the key type to be an integral number type: " + keyType);
+        }
+        this.keyType = keyType;
+        this.entityType = entityType;
+    }
+
+    /**
+     * Determines whether or not keys of the given type can be held by this kind of data store
+     * @param keyType    the key type
+     * @return {@literal true} if the key type is an integral number type
+     */
+    public static boolean supports(Class<?> keyType) {
+        return Long.class.equals(keyType) || Integer.class.equals(keyType) || Short.class.equals(keyType) || Byte.class.equals(keyType)
+                || long.class.equals(keyType) || int.class.equals(keyType) || short.class.equals(keyType) || byte.class.equals(keyType);
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        return key != null && get(toLong(key)) != null;
+    }
+
+    @Override
+    public boolean save(K key, E entity) {
+        return put(key, entity) == null;
+    }
+
+    @Override
+    public E put(K key, E entity) {
+        final long value = toSaveKey(key, entity);
+        log.info("Attempting to save entity with key " + key);
+        lock.lock();
+        try {
+            return put(value, entity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E putIfAbsent(K key, E entity) {
+        final long value = toSaveKey(key, entity);
+        lock.lock();
+        try {
+            final E existing = get(value);
+            if (existing != null) {
+                log.info("Did not save entity since there already is one under key " + key);
+                return existing;
+            }
+            put(value, entity);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean save(K key, E entity, String versionProperty) {
+        return put(key, entity, versionProperty) == null;
+    }
+
+    @Override
+    public E put(K key, E entity, String versionProperty) {
+        toSaveKey(key, entity);
+        log.info("Attempting to save versioned entity with key " + key);
+        return DataStoreUtils.putVersioned(this, key, entity, versionProperty);
+    }
+
+    @Override
+    public boolean delete(K key) {
+        return remove(key) != null;
+    }
+
+    @Override
+    public E remove(K key) {
+        final long value = toDeleteKey(key);
+        lock.lock();
+        try {
+            final E removed = remove(value);
+            if (removed == null) {
+                log.info("No entity was found to delete under key " + key);
+            } else {
+                log.info("Deleted entity under key " + key);
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Works out the new entity while holding the lock on writes, so the function is applied exactly once
+     */
+    @Override
+    public E compute(K key, EntityRemappingFunction<K, E> function) {
+        if (key == null) {
+            log.error("Asked to compute an entity for a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        }
+        final long value = toLong(key);
+        lock.lock();
+        try {
+            final E current = get(value);
+            final E computed = function.apply(key, current);
+            if (computed != null) {
+                put(value, computed);
+            } else if (current != null) {
+                remove(value);
+            }
+            return computed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int saveAll(Map<K, E> entities) {
+        final long[] keys = new long[entities.size()];
+        int i = 0;
+        for (Map.Entry<K, E> entry : entities.entrySet()) {
+            keys[i++] = toSaveKey(entry.getKey(), entry.getValue());
+        }
+        log.info("Attempting to save " + entities.size() + " entities");
+        int inserted = 0;
+        lock.lock();
+        try {
+            i = 0;
+            for (E entity : entities.values()) {
+                if (put(keys[i++], entity) == null) {
+                    inserted++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return inserted;
+    }
+
+    @Override
+    public Map<K, E> deleteAll(Collection<K> keys) {
+        final long[] values = new long[keys.size()];
+        int i = 0;
+        for (K key : keys) {
+            values[i++] = toDeleteKey(key);
+        }
+        log.info("Deleting entities under " + keys.size() + " keys");
+        final Map<K, E> deleted = DataStoreUtils.newLinkedHashMap(keys.size());
+        lock.lock();
+        try {
+            i = 0;
+            for (K key : keys) {
+                final E entity = remove(values[i++]);
+                if (entity != null) {
+                    deleted.put(key, entity);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return deleted;
+    }
+
+    @Override
+    public E retrieve(K key) {
+        if (key == null) {
+            log.error("Asked to retrieve an entity from a null key");
+            throw new DataStoreException(entityType, "Cannot retrieve an entity with a null key");
+        }
+        return get(toLong(key));
+    }
+
+    @Override
+    public List<E> retrieveAll(Collection<K> keys) {
+        final List<E> entities = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            final E entity = retrieve(key);
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    @Override
+    public Collection<K> keys() {
+        final List<K> keys = new ArrayList<>(count());
+        visit(new LongObjectMap.Visitor<E>() {
+            @Override
+            public boolean visit(long key, E value) {
+                keys.add(toKey(key));
+                return true;
+            }
+        });
+        return keys;
+    }
+
+    @Override
+    public Collection<E> retrieveAll() {
+        log.info("Retrieving all entities from the data store");
+        final List<E> entities = new ArrayList<>(count());
+        visit(new LongObjectMap.Visitor<E>() {
+            @Override
+            public boolean visit(long key, E value) {
+                entities.add(value);
+                return true;
+            }
+        });
+        return entities;
+    }
+
+    @Override
+    public void scan(final DataStoreVisitor<K, E> visitor) {
+        log.info("Scanning all entities in the data store");
+        visit(new LongObjectMap.Visitor<E>() {
+            @Override
+            public boolean visit(long key, E value) {
+                return visitor.visit(toKey(key), value);
+            }
+        });
+    }
+
+    @Override
+    public Class<E> getEntityType() {
+        return entityType;
+    }
+
+    @Override
+    public void truncate() {
+        lock.lock();
+        try {
+            clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of entities in the data store
+     */
+    public int size() {
+        return count();
+    }
+
+    /**
+     * @return the type of the keys held by this data store
+     */
+    public Class<K> getKeyType() {
+        return keyType;
+    }
+
+    /**
+     * Called without holding any locks, possibly while another thread is writing
+     * @param key    the key
+     * @return the entity under the key or {@literal null}
+     */
+    protected abstract E get(long key);
+
+    /**
+     * Called while holding the lock on writes
+     * @param key       the key
+     * @param entity    the entity
+     * @return the entity previously held under the key or {@literal null}
+     */
+    protected abstract E put(long key, E entity);
+
+    /**
+     * Called while holding the lock on writes
+     * @param key    the key
+     * @return the entity that was removed or {@literal null}
+     */
+    protected abstract E remove(long key);
+
+    /**
+     * Removes all the entities. Called while holding the lock on writes.
+     */
+    protected abstract void clear();
+
+    /**
+     * Called without holding any locks
+     * @return the number of entities
+     */
+    protected abstract int count();
+
+    /**
+     * Visits all the entities. Called without holding any locks, possibly while another thread is writing.
+     * @param visitor    the visitor
+     */
+    protected abstract void visit(LongObjectMap.Visitor<E> visitor);
+
+    private long toSaveKey(K key, E entity) {
+        if (key == null) {
+            log.error("Asked to save an entity with a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        } else if (entity == null) {
+            log.error("Asked to save a null value into the data store");
+            throw new DataStoreException(entityType, "Cannot save a null entity");
+        }
+        return toLong(key);
+    }
+
+    private long toDeleteKey(K key) {
+        if (key == null) {
+            log.error("Asked to delete an entity with a null key for reference");
+            throw new DataStoreException(entityType, "Cannot delete an entity with a null key");
+        }
+        return toLong(key);
+    }
+
+    private long toLong(K key) {
+        if (!(key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte)) {
+            log.error("Expected an integral key but got " + key.getClass());
+            throw new DataStoreException(entityType, "Expected an integral number as the key: " + key);
+        }
+        return ((Number) key).longValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private K toKey(long key) {
+        final Object value;
+        if (Long.class.equals(keyType) || long.class.equals(keyType)) {
+            value = key;
+        } else if (Integer.class.equals(keyType) || int.class.equals(keyType)) {
+            value = (int) key;
+        } else if (Short.class.equals(keyType) || short.class.equals(keyType)) {
+            value = (short) key;
+        } else {
+            value = (byte) key;
+        }
+        return (K) value;
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.domain.Matcher;
+import com.mmnaseri.utils.spring.data.domain.Modifier;
+import com.mmnaseri.utils.spring.data.domain.Parameter;
+import com.mmnaseri.utils.spring.data.domain.impl.matchers.IsEqualToMatcher;
+import com.mmnaseri.utils.spring.data.domain.impl.matchers.IsInMatcher;
+import com.mmnaseri.utils.spring.data.domain.impl.matchers.IsNullMatcher;
+import com.mmnaseri.utils.spring.data.store.PropertyIndex;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>This class factors out the bookkeeping common to indexes that map the values of the indexed property to the
+ * keys of the entities having that value. Subclasses decide the kind of map used to hold the values.</p>
+ *
+ * <p>Out of the box, this class can answer equality ({@literal Is}, {@literal EqualTo}), membership
+ * ({@literal In}), and {@literal IsNull} parameters that are not case-insensitive. Subclasses can answer
+ * other parameters by overriding {@link #lookup(Matcher, Parameter, Object...)}.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public abstract class AbstractPropertyIndex<K extends Serializable> implements PropertyIndex<K> {
+
+    private static final Log log = LogFactory.getLog(AbstractPropertyIndex.class);
+    /**
+     * Used in place of {@literal null} values, since concurrent maps cannot hold {@literal null} keys
+     */
+    protected static final Object NULL = new Object();
+    private final String property;
+    private final ConcurrentMap<Object, Set<K>> buckets;
+    private final ConcurrentMap<K, Object> values = new ConcurrentHashMap<>();
+
+    protected AbstractPropertyIndex(String property, ConcurrentMap<Object, Set<K>> buckets) {
+        this.property = property;
+        this.buckets = buckets;
+    }
+
+    @Override
+    public String getProperty() {
+        return property;
+    }
+
+    @Override
+    public synchronized void index(K key, Object value) {
+        final Object indexed = value == null ? NULL : value;
+        //we locate the bucket before touching anything, so that a value the index cannot hold is rejected cleanly
+        Set<K> bucket = buckets.get(indexed);
+        if (bucket == null) {
+            bucket = Collections.newSetFromMap(new ConcurrentHashMap<K, Boolean>());
+            buckets.put(indexed, bucket);
+        }
+        final Object previous = values.put(key, indexed);
+        if (previous != null && previous != indexed) {
+            removeFromBucket(previous, key);
+        }
+        bucket.add(key);
+    }
+
+    @Override
+    public synchronized void remove(K key) {
+        final Object previous = values.remove(key);
+        if (previous != null) {
+            removeFromBucket(previous, key);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        values.clear();
+        buckets.clear();
+    }
+
+    @Override
+    public Set<K> lookup(Parameter parameter, Object... operands) {
+        if (!property.equals(parameter.getPath()) || parameter.getModifiers().contains(Modifier.IGNORE_CASE)) {
+            return null;
+        }
+        final Matcher matcher = parameter.getOperator().getMatcher();
+        if (matcher instanceof IsEqualToMatcher && operands.length == 1) {
+            log.debug("Looking up index " + property + " for entities equal to " + operands[0]);
+            return find(operands[0]);
+        }
+        if (matcher instanceof IsNullMatcher && operands.length == 0) {
+            log.debug("Looking up index " + property + " for entities with a null value");
+            return find(null);
+        }
+        if (matcher instanceof IsInMatcher && operands.length == 1) {
+            final Collection<?> items = toCollection(operands[0]);
+            if (items == null) {
+                return null;
+            }
+            log.debug("Looking up index " + property + " for entities with a value in " + items);
+            final Set<K> found = new HashSet<>();
+            for (Object item : items) {
+                if (item != null) {
+                    found.addAll(find(item));
+                }
+            }
+            return found;
+        }
+        return lookup(matcher, parameter, operands);
+    }
+
+    /**
+     * Called when the parameter could not be answered using simple value lookups.
+     * @param matcher      the matcher for the parameter
+     * @param parameter    the parameter
+     * @param operands     the operands
+     * @return the keys that might match the parameter, or {@literal null} if this index cannot answer it
+     */
+    protected Set<K> lookup(Matcher matcher, Parameter parameter, Object... operands) {
+        return null;
+    }
+
+    /**
+     * Finds all the keys indexed under the given value
+     * @param value    the value
+     * @return a copy of the set of keys
+     */
+    protected Set<K> find(Object value) {
+        final Set<K> bucket = buckets.get(value == null ? NULL : value);
+        return bucket == null ? new HashSet<K>() : new HashSet<>(bucket);
+    }
+
+    private void removeFromBucket(Object value, K key) {
+        final Set<K> bucket = buckets.get(value);
+        if (bucket == null) {
+            return;
+        }
+        bucket.remove(key);
+        if (bucket.isEmpty()) {
+            buckets.remove(value);
+        }
+    }
+
+    /**
+     * Converts the operand of an {@literal In} parameter to a collection, without consuming it.
+     * @param operand    the operand
+     * @return the collection or {@literal null} if the operand cannot be safely read
+     */
+    private static Collection<?> toCollection(Object operand) {
+        if (operand == null) {
+            return null;
+        }
+        if (operand.getClass().isArray()) {
+            final List<Object> items = new ArrayList<>();
+            for (int i = 0; i < Array.getLength(operand); i++) {
+                items.add(Array.get(operand, i));
+            }
+            return items;
+        }
+        if (operand instanceof Collection) {
+            return (Collection<?>) operand;
+        }
+        //iterators would be consumed by the lookup, and arbitrary iterables might not be re-iterable
+        return null;
+    }
+
+}
@@ -0,0 +1,306 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.BatchingDataStoreEventListenerContext;
+import com.mmnaseri.utils.spring.data.store.DataStoreEvent;
+import com.mmnaseri.utils.spring.data.store.DataStoreEventListener;
+import com.mmnaseri.utils.spring.data.store.DataStoreEventListenerContext;
+import com.mmnaseri.utils.spring.data.store.SelectiveDataStoreEventListenerContext;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * <p>This listener context decorates another context so that the "after" events (the events published once an entity
+ * has been inserted, updated, or deleted) are dispatched to the listeners on a separate thread, taking slow listeners
+ * off the path of the writers. All other events, most notably the "before" events whose listeners are allowed to
+ * modify the entity before it is written, are still triggered right away on the thread publishing them.</p>
+ *
+ * <p>The events are queued in a bounded buffer, and writers will wait for room in the buffer once it is full, even if
+ * they are interrupted in the meantime. A single dispatcher thread takes the events off the buffer in batches and
+ * triggers them on the delegate context in the order in which they were published, so the events for any given entity
+ * are always seen in order. If the delegate is a {@link BatchingDataStoreEventListenerContext}, each batch is triggered
+ * on it in one go, so that its {@link com.mmnaseri.utils.spring.data.store.BatchDataStoreEventListener batch listeners}
+ * see the whole batch at once. Events published by the listeners themselves while they are being dispatched are
+ * triggered right away.</p>
+ *
+ * <p>Since the events are dispatched in the background, failing listeners cannot fail the writes that published them.
+ * Instead, the first failure is held until the next call to {@link #drain()}, which waits for all the queued events to
+ * be dispatched and then rethrows it. This makes {@link #drain()} the natural place for tests to synchronize with the
+ * listeners.</p>
+ *
+ * <p>Asynchronous dispatch is opt-in: to use it, hand an instance of this class to the repository factory configuration
+ * as its listener context, e.g. through
+ * {@link com.mmnaseri.utils.spring.data.dsl.factory.RepositoryFactoryBuilder#withListeners(com.mmnaseri.utils.spring.data.store.DataStoreEventListenerContext)}.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class AsynchronousDataStoreEventListenerContext implements SelectiveDataStoreEventListenerContext, Closeable {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    private static final Log log = LogFactory.getLog(AsynchronousDataStoreEventListenerContext.class);
+    private final DataStoreEventListenerContext delegate;
+    private final BlockingQueue<DataStoreEvent> queue;
+    private final int batchSize;
+    private final Object monitor = new Object();
+    private Thread dispatcher;
+    private boolean closed;
+    private long queued;
+    private long dispatched;
+    private RuntimeException failure;
+
+    public AsynchronousDataStoreEventListenerContext(DataStoreEventListenerContext delegate) {
+        this(delegate, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public AsynchronousDataStoreEventListenerContext(DataStoreEventListenerContext delegate, int capacity, int batchSize) {
+        if (capacity < 1) {
+            throw new InvalidArgumentException("Capacity must be a positive number: " + capacity);
+        }
+        if (batchSize < 1) {
+            throw new InvalidArgumentException("Batch size must be a positive number: " + batchSize);
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public <E extends DataStoreEvent> void register(DataStoreEventListener<E> listener) {
+        delegate.register(listener);
+    }
+
+    @Override
+    public void trigger(DataStoreEvent event) {
+        if (event == null) {
+            log.error("The data store event that was triggered was a null value");
+            throw new InvalidArgumentException("Cannot raise a null event");
+        }
+        if (!isDeferred(event)) {
+            delegate.trigger(event);
+            return;
+        }
+        synchronized (monitor) {
+            if (Thread.currentThread() == dispatcher) {
+                log.debug("Triggering event " + event.getClass() + " right away");
+            } else if (closed) {
+                log.debug("Triggering event " + event.getClass() + " once the events queued before it are dispatched");
+                awaitDispatched(queued);
+            } else {
+                if (dispatcher == null) {
+                    start();
+                }
+                event = enqueue(event);
+            }
+        }
+        if (event != null) {
+            delegate.trigger(event);
+        }
+    }
+
+    @Override
+    public <E extends DataStoreEvent> List<DataStoreEventListener<? extends E>> getListeners(Class<E> eventType) {
+        return delegate.getListeners(eventType);
+    }
+
+    @Override
+    public boolean hasListeners(Class<? extends DataStoreEvent> eventType) {
+        return !(delegate instanceof SelectiveDataStoreEventListenerContext) || ((SelectiveDataStoreEventListenerContext) delegate).hasListeners(eventType);
+    }
+
+    /**
+     * Waits until all the events queued so far have been dispatched to the listeners
+     * @throws RuntimeException the first exception thrown by a listener since the last time this method was called
+     */
+    public void drain() {
+        synchronized (monitor) {
+            if (Thread.currentThread() != dispatcher) {
+                awaitDispatched(queued);
+            }
+            final RuntimeException failure = this.failure;
+            this.failure = null;
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * @return the number of events waiting to be dispatched
+     */
+    public int getPendingCount() {
+        synchronized (monitor) {
+            return (int) (queued - dispatched);
+        }
+    }
+
+    /**
+     * Dispatches all the queued events and stops the dispatcher thread. Events triggered after the context has been
+     * closed are dispatched on the thread triggering them, once all the events queued before them have been
+     * dispatched.
+     */
+    @Override
+    public void close() {
+        final Thread dispatcher;
+        synchronized (monitor) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            dispatcher = this.dispatcher;
+            monitor.notifyAll();
+        }
+        if (dispatcher != null) {
+            if (dispatcher != Thread.currentThread()) {
+                boolean interrupted = false;
+                while (dispatcher.isAlive()) {
+                    try {
+                        dispatcher.join();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        log.info("The asynchronous event dispatcher has been closed");
+    }
+
+    /**
+     * Determines whether or not the event should be handed to the dispatcher thread
+     * @param event    the event
+     * @return {@literal true} if the event is one of the "after" events
+     */
+    protected boolean isDeferred(DataStoreEvent event) {
+        return event instanceof AfterInsertDataStoreEvent || event instanceof AfterUpdateDataStoreEvent
+                || event instanceof AfterDeleteDataStoreEvent;
+    }
+
+    /**
+     * Puts the event on the queue, waiting for room while releasing the monitor. Called while holding the monitor.
+     * @param event    the event
+     * @return {@literal null} if the event was queued, or the event itself if it has to be triggered by the caller
+     * because the context was closed in the meantime, in which case all the events queued before it have already been
+     * dispatched
+     */
+    private DataStoreEvent enqueue(DataStoreEvent event) {
+        boolean interrupted = false;
+        try {
+            while (!queue.offer(event)) {
+                if (closed) {
+                    //the dispatcher might already be gone, so we cannot count on it to pick up the event
+                    awaitDispatched(queued);
+                    return event;
+                }
+                try {
+                    //the dispatcher notifies the monitor after taking each batch, which frees up room in the queue
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    //triggering the event right away would have it overtake the events still in the queue
+                    log.warn("Interrupted while waiting for room in the event queue; still waiting");
+                    interrupted = true;
+                }
+            }
+            queued++;
+            monitor.notifyAll();
+            return null;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Waits until the given number of events have been dispatched, while releasing the monitor. Called while holding
+     * the monitor.
+     * @param target    the number of events
+     */
+    private void awaitDispatched(long target) {
+        boolean interrupted = false;
+        while (dispatched < target) {
+            try {
+                monitor.wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void start() {
+        dispatcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dispatch();
+            }
+        }, "data-store-event-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    private void dispatch() {
+        final List<DataStoreEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            synchronized (monitor) {
+                while (queue.isEmpty() && !closed) {
+                    try {
+                        monitor.wait();
+                    } catch (InterruptedException e) {
+                        log.warn("The event dispatcher was interrupted; it will keep running until closed");
+                    }
+                }
+                if (queue.isEmpty()) {
+                    return;
+                }
+                queue.drainTo(batch, batchSize);
+                monitor.notifyAll();
+            }
+            log.debug("Dispatching a batch of " + batch.size() + " events");
+            if (delegate instanceof BatchingDataStoreEventListenerContext) {
+                //the delegate triggers the rest of the batch even if a listener fails on one of the events
+                try {
+                    ((BatchingDataStoreEventListenerContext) delegate).triggerAll(batch);
+                } catch (RuntimeException e) {
+                    log.error("A listener failed to handle one of the events in a batch of " + batch.size(), e);
+                    fail(e);
+                }
+            } else {
+                for (DataStoreEvent event : batch) {
+                    try {
+                        delegate.trigger(event);
+                    } catch (RuntimeException e) {
+                        log.error("A listener failed to handle event " + event.getClass(), e);
+                        fail(e);
+                    }
+                }
+            }
+            synchronized (monitor) {
+                dispatched += batch.size();
+                monitor.notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    private void fail(RuntimeException e) {
+        synchronized (monitor) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,689 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.EntitySchema;
+import com.mmnaseri.utils.spring.data.store.SchemaAwareEntityCodec;
+import com.mmnaseri.utils.spring.data.store.impl.ValueDescriptor.Kind;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>This codec encodes entities into a compact binary form laid out according to their properties, which are found
+ * the same way {@link com.mmnaseri.utils.spring.data.tools.PropertyUtils} finds them. The layout of each type is
+ * worked out once, and the properties are then read and written through {@link MethodHandle method handles}, so
+ * encoding and decoding do not go through reflection or Java serialization.</p>
+ *
+ * <p>Primitives and their wrappers, strings, {@link Date dates}, enums, arrays, collections, maps, and other objects
+ * with a default constructor are laid out property by property. Numbers are written as variable-length integers,
+ * enums by the names of their constants, and dates by their time in milliseconds, which means they are always read
+ * back as {@link Date}. Values of platform types that do not fall into any of these groups, such as
+ * {@link java.math.BigDecimal}, are written using Java serialization. Properties whose declared type is abstract, or
+ * that are declared through type variables, carry the class of their value along with it.</p>
+ *
+ * <p>Every entity starts with the version of the {@link EntitySchema schema} it was encoded with, which covers the
+ * entity type and every type reachable from it through its declared properties. Entities encoded with an earlier
+ * version can be decoded once that version has been {@link #registerSchema(EntitySchema) registered}, in which case
+ * properties are matched by name. Values whose class is not the declared type of their property are always decoded
+ * using the current layout of their class.</p>
+ *
+ * <p>Objects are written as trees: an object referenced more than once within the same entity is written once per
+ * reference, entities with cycles cannot be encoded, and sorted collections are read back without their
+ * comparators.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class BinaryEntityCodec<E> implements SchemaAwareEntityCodec<E> {
+
+    private static final Log log = LogFactory.getLog(BinaryEntityCodec.class);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    /**
+     * How deeply objects can be nested within an entity, which is how cycles are caught
+     */
+    private static final int MAXIMUM_DEPTH = 256;
+    private static final int NULL = 0;
+    private static final int PRESENT = 1;
+    private static final int SUBTYPE = 2;
+    private static final Kind[] KINDS = Kind.values();
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(Object.class);
+    private static final ConcurrentMap<Class<?>, MethodHandle> containers = new ConcurrentHashMap<>();
+    private final Class<E> entityType;
+    private final ClassLoader classLoader;
+    private final ValueDescriptor root;
+    private final EntitySchema schema;
+    private final ConcurrentMap<Integer, SchemaContext> contexts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+    public BinaryEntityCodec(Class<E> entityType) {
+        this.entityType = entityType;
+        this.classLoader = entityType.getClassLoader() == null ? ClassLoader.getSystemClassLoader() : entityType.getClassLoader();
+        this.root = ValueDescriptor.of(entityType);
+        final Map<String, List<String>> layouts = new HashMap<>();
+        collectLayouts(root, layouts);
+        if (!layouts.containsKey(entityType.getName())) {
+            layouts.put(entityType.getName(), Collections.<String>emptyList());
+        }
+        this.schema = new ImmutableEntitySchema(entityType.getName(), layouts);
+        contexts.put(schema.getVersion(), new SchemaContext(schema));
+        log.info("Encoding entities of type " + entityType + " with schema version " + Integer.toHexString(schema.getVersion()));
+    }
+
+    private static void collectLayouts(ValueDescriptor descriptor, Map<String, List<String>> layouts) {
+        if (descriptor.kind == Kind.OBJECT && !layouts.containsKey(descriptor.type.getName())) {
+            final TypeLayout layout = TypeLayout.of(descriptor.type);
+            layouts.put(descriptor.type.getName(), layout.properties);
+            for (ValueDescriptor property : layout.descriptors) {
+                collectLayouts(property, layouts);
+            }
+        }
+        for (ValueDescriptor element : descriptor.elements) {
+            collectLayouts(element, layouts);
+        }
+    }
+
+    public Class<E> getEntityType() {
+        return entityType;
+    }
+
+    @Override
+    public EntitySchema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public void registerSchema(EntitySchema schema) {
+        if (!entityType.getName().equals(schema.getEntityType())) {
+            throw new InvalidArgumentException("Schema describes " + schema.getEntityType() + " instead of " + entityType.getName());
+        }
+        final SchemaContext context = new SchemaContext(schema);
+        //we work out the plans right away, so that schemas that no longer fit the classes are caught here
+        for (String type : schema.getTypes()) {
+            context.plan(load(type, InvalidArgumentException.class));
+        }
+        log.info("Registered schema version " + Integer.toHexString(schema.getVersion()) + " for entities of type " + entityType);
+        contexts.putIfAbsent(schema.getVersion(), context);
+    }
+
+    @Override
+    public byte[] encode(E entity) {
+        final Output output = new Output();
+        output.writeInt(schema.getVersion());
+        try {
+            write(root, entity, output, 0);
+        } catch (DataStoreException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.error("Failed to encode entity " + entity);
+            throw new DataStoreException(entityType, "Failed to encode entity: " + e);
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public E decode(byte[] data) {
+        final Input input = new Input(data);
+        try {
+            final int version = input.readInt();
+            final SchemaContext context = contexts.get(version);
+            if (context == null) {
+                throw new DataStoreException(entityType, "Cannot decode entity encoded with unknown schema version " + Integer.toHexString(version));
+            }
+            final Object entity = read(root, input, context, 0);
+            if (input.position != data.length) {
+                throw new DataStoreException(entityType, "Found " + (data.length - input.position) + " unexpected bytes after the entity");
+            }
+            return entityType.cast(entity);
+        } catch (DataStoreException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.error("Failed to decode entity of type " + entityType);
+            throw new DataStoreException(entityType, "Failed to decode entity: " + e);
+        }
+    }
+
+    private void write(ValueDescriptor descriptor, Object value, Output output, int depth) {
+        if (descriptor.kind == Kind.DYNAMIC) {
+            if (value == null) {
+                output.write(NULL);
+                return;
+            }
+            final ValueDescriptor actual = ValueDescriptor.ofValue(value.getClass());
+            output.write(actual.kind.ordinal() + 1);
+            if (actual.isNamed()) {
+                output.writeString(actual.type.getName());
+            }
+            writeValue(actual, value, output, depth);
+        } else if (descriptor.kind == Kind.OBJECT) {
+            if (value == null) {
+                output.write(NULL);
+                return;
+            }
+            if (value.getClass().equals(descriptor.type)) {
+                output.write(PRESENT);
+            } else {
+                output.write(SUBTYPE);
+                output.writeString(value.getClass().getName());
+            }
+            writeObject(value, output, depth);
+        } else {
+            if (descriptor.nullable) {
+                if (value == null) {
+                    output.write(NULL);
+                    return;
+                }
+                output.write(PRESENT);
+            }
+            writeValue(descriptor, value, output, depth);
+        }
+    }
+
+    private void writeValue(ValueDescriptor descriptor, Object value, Output output, int depth) {
+        switch (descriptor.kind) {
+            case BOOLEAN:
+                output.write((Boolean) value ? 1 : 0);
+                break;
+            case BYTE:
+                output.write((Byte) value);
+                break;
+            case SHORT:
+                output.writeVarInt(zigZag((Short) value));
+                break;
+            case CHAR:
+                output.writeVarInt((Character) value);
+                break;
+            case INT:
+                output.writeVarInt(zigZag((Integer) value));
+                break;
+            case LONG:
+                output.writeVarLong(zigZag((Long) value));
+                break;
+            case FLOAT:
+                output.writeInt(Float.floatToIntBits((Float) value));
+                break;
+            case DOUBLE:
+                output.writeLong(Double.doubleToLongBits((Double) value));
+                break;
+            case STRING:
+                output.writeString((String) value);
+                break;
+            case DATE:
+                output.writeVarLong(zigZag(((Date) value).getTime()));
+                break;
+            case ENUM:
+                output.writeString(((Enum<?>) value).name());
+                break;
+            case ARRAY:
+                if (value instanceof byte[]) {
+                    output.writeVarInt(((byte[]) value).length);
+                    output.write((byte[]) value);
+                    break;
+                }
+                final int length = Array.getLength(value);
+                output.writeVarInt(length);
+                for (int i = 0; i < length; i++) {
+                    write(descriptor.elements[0], Array.get(value, i), output, depth + 1);
+                }
+                break;
+            case COLLECTION:
+                final Collection<?> collection = (Collection<?>) value;
+                output.writeVarInt(collection.size());
+                for (Object item : collection) {
+                    write(descriptor.elements[0], item, output, depth + 1);
+                }
+                break;
+            case MAP:
+                final Map<?, ?> map = (Map<?, ?>) value;
+                output.writeVarInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    write(descriptor.elements[0], entry.getKey(), output, depth + 1);
+                    write(descriptor.elements[1], entry.getValue(), output, depth + 1);
+                }
+                break;
+            case OBJECT:
+                writeObject(value, output, depth);
+                break;
+            case SERIALIZED:
+                final byte[] data = descriptor.codec.encode(value);
+                output.writeVarInt(data.length);
+                output.write(data);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected kind of value: " + descriptor.kind);
+        }
+    }
+
+    private void writeObject(Object value, Output output, int depth) {
+        if (depth > MAXIMUM_DEPTH) {
+            throw new DataStoreException(entityType, "Entity is nested more than " + MAXIMUM_DEPTH + " levels deep; it might have a cycle");
+        }
+        final TypeLayout layout = TypeLayout.of(value.getClass());
+        for (int i = 0; i < layout.descriptors.length; i++) {
+            write(layout.descriptors[i], layout.get(value, i), output, depth + 1);
+        }
+    }
+
+    private Object read(ValueDescriptor descriptor, Input input, SchemaContext context, int depth) {
+        if (descriptor.kind == Kind.DYNAMIC) {
+            final int tag = input.read();
+            if (tag == NULL) {
+                return null;
+            }
+            if (tag > KINDS.length) {
+                throw new DataStoreException(entityType, "Unknown kind of value: " + tag);
+            }
+            return readValue(resolve(KINDS[tag - 1], input), input, context, depth);
+        } else if (descriptor.kind == Kind.OBJECT) {
+            final int marker = input.read();
+            if (marker == NULL) {
+                return null;
+            } else if (marker == PRESENT) {
+                return readObject(descriptor.type, input, context, depth);
+            } else if (marker == SUBTYPE) {
+                return readObject(load(input.readString(), DataStoreException.class), input, context, depth);
+            }
+            throw new DataStoreException(entityType, "Unexpected marker for an object: " + marker);
+        }
+        if (descriptor.nullable && input.read() == NULL) {
+            return null;
+        }
+        return readValue(descriptor, input, context, depth);
+    }
+
+    /**
+     * Works out the descriptor of a value of a dynamic property from the kind it was tagged with, reading the name of
+     * its class if the kind names one
+     */
+    private ValueDescriptor resolve(Kind kind, Input input) {
+        switch (kind) {
+            case ENUM:
+            case ARRAY:
+            case COLLECTION:
+            case MAP:
+            case OBJECT:
+            case SERIALIZED:
+                return ValueDescriptor.ofValue(load(input.readString(), DataStoreException.class));
+            case DYNAMIC:
+                throw new DataStoreException(entityType, "Unexpected kind of value: " + kind);
+            default:
+                return ValueDescriptor.ofKind(kind);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object readValue(ValueDescriptor descriptor, Input input, SchemaContext context, int depth) {
+        switch (descriptor.kind) {
+            case BOOLEAN:
+                return input.read() != 0;
+            case BYTE:
+                return (byte) input.read();
+            case SHORT:
+                return (short) unZigZag(input.readVarInt());
+            case CHAR:
+                return (char) input.readVarInt();
+            case INT:
+                return unZigZag(input.readVarInt());
+            case LONG:
+                return unZigZag(input.readVarLong());
+            case FLOAT:
+                return Float.intBitsToFloat(input.readInt());
+            case DOUBLE:
+                return Double.longBitsToDouble(input.readLong());
+            case STRING:
+                return input.readString();
+            case DATE:
+                return new Date(unZigZag(input.readVarLong()));
+            case ENUM:
+                final String name = input.readString();
+                try {
+                    return Enum.valueOf((Class<Enum>) descriptor.type, name);
+                } catch (IllegalArgumentException e) {
+                    log.warn("Constant " + name + " no longer exists in " + descriptor.type + "; reading it as null");
+                    return null;
+                }
+            case ARRAY:
+                final int length = input.readLength();
+                if (byte[].class.equals(descriptor.type)) {
+                    return input.read(length);
+                }
+                final Object array = Array.newInstance(descriptor.type.getComponentType(), length);
+                for (int i = 0; i < length; i++) {
+                    Array.set(array, i, read(descriptor.elements[0], input, context, depth + 1));
+                }
+                return array;
+            case COLLECTION:
+                final Collection<Object> collection = (Collection<Object>) instantiate(descriptor.type);
+                for (int i = input.readLength(); i > 0; i--) {
+                    collection.add(read(descriptor.elements[0], input, context, depth + 1));
+                }
+                return collection;
+            case MAP:
+                final Map<Object, Object> map = (Map<Object, Object>) instantiate(descriptor.type);
+                for (int i = input.readLength(); i > 0; i--) {
+                    final Object key = read(descriptor.elements[0], input, context, depth + 1);
+                    map.put(key, read(descriptor.elements[1], input, context, depth + 1));
+                }
+                return map;
+            case OBJECT:
+                return readObject(descriptor.type, input, context, depth);
+            case SERIALIZED:
+                return descriptor.codec.decode(input.read(input.readLength()));
+            default:
+                throw new IllegalStateException("Unexpected kind of value: " + descriptor.kind);
+        }
+    }
+
+    private Object readObject(Class<?> type, Input input, SchemaContext context, int depth) {
+        if (depth > MAXIMUM_DEPTH) {
+            throw new DataStoreException(entityType, "Entity is nested more than " + MAXIMUM_DEPTH + " levels deep");
+        }
+        final Plan plan = context.plan(type);
+        final TypeLayout target = plan.target;
+        final Object object = target.newInstance();
+        for (int i = 0; i < plan.descriptors.length; i++) {
+            final Object value = read(plan.descriptors[i], input, context, depth + 1);
+            final int property = plan.properties[i];
+            if (property >= 0 && (plan.exact || target.accepts(property, value))) {
+                target.set(object, property, value);
+            }
+        }
+        return object;
+    }
+
+    private static Object instantiate(Class<?> type) {
+        MethodHandle constructor = containers.get(type);
+        if (constructor == null) {
+            try {
+                constructor = MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class)).asType(CONSTRUCTOR);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new DataStoreException(type, "Cannot create an instance through a public default constructor");
+            }
+            containers.putIfAbsent(type, constructor);
+        }
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new DataStoreException(type, "Failed to create instance: " + e.getMessage());
+        }
+    }
+
+    private Class<?> load(String name, Class<? extends RuntimeException> failure) {
+        Class<?> type = classes.get(name);
+        if (type == null) {
+            try {
+                type = Class.forName(name, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                if (InvalidArgumentException.class.equals(failure)) {
+                    throw new InvalidArgumentException("Cannot find class " + name);
+                }
+                throw new DataStoreException(entityType, "Cannot find class " + name);
+            }
+            classes.putIfAbsent(name, type);
+        }
+        return type;
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Decides how the objects laid out with a given version of the schema are read into the current classes
+     */
+    private final class SchemaContext {
+
+        private final EntitySchema schema;
+        private final ConcurrentMap<Class<?>, Plan> plans = new ConcurrentHashMap<>();
+
+        private SchemaContext(EntitySchema schema) {
+            this.schema = schema;
+        }
+
+        private Plan plan(Class<?> type) {
+            Plan plan = plans.get(type);
+            if (plan == null) {
+                final TypeLayout layout = TypeLayout.of(type);
+                final List<String> properties = schema.getProperties(type.getName());
+                if (properties == null || properties.equals(layout.properties)) {
+                    plan = new Plan(layout);
+                } else {
+                    plan = new Plan(layout, properties, classLoader);
+                }
+                plans.putIfAbsent(type, plan);
+            }
+            return plan;
+        }
+
+    }
+
+    /**
+     * Reads the properties of an object in the order in which they were written, and says which property of the
+     * current class each of them goes to
+     */
+    private static final class Plan {
+
+        private final TypeLayout target;
+        private final ValueDescriptor[] descriptors;
+        private final int[] properties;
+        private final boolean exact;
+
+        private Plan(TypeLayout target) {
+            this.target = target;
+            this.descriptors = target.descriptors;
+            this.properties = new int[descriptors.length];
+            for (int i = 0; i < properties.length; i++) {
+                properties[i] = i;
+            }
+            this.exact = true;
+        }
+
+        private Plan(TypeLayout target, List<String> layout, ClassLoader classLoader) {
+            this.target = target;
+            this.descriptors = new ValueDescriptor[layout.size()];
+            this.properties = new int[layout.size()];
+            for (int i = 0; i < descriptors.length; i++) {
+                final String property = layout.get(i);
+                final int separator = property.indexOf(':');
+                if (separator < 0) {
+                    throw new InvalidArgumentException("Expected a property of " + target.type.getName() + " as name:signature, got " + property);
+                }
+                descriptors[i] = ValueDescriptor.parse(property.substring(separator + 1), classLoader);
+                properties[i] = target.indexOf(property.substring(0, separator));
+            }
+            this.exact = false;
+        }
+
+    }
+
+    /**
+     * A growing buffer of bytes
+     */
+    private static final class Output {
+
+        private byte[] buffer = new byte[64];
+        private int size;
+
+        private void ensure(int length) {
+            if (size + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + length));
+            }
+        }
+
+        private void write(int value) {
+            ensure(1);
+            buffer[size++] = (byte) value;
+        }
+
+        private void write(byte[] data) {
+            ensure(data.length);
+            System.arraycopy(data, 0, buffer, size, data.length);
+            size += data.length;
+        }
+
+        private void writeInt(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeString(String value) {
+            final int length = value.length();
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) >= 0x80) {
+                    final byte[] data = value.getBytes(UTF_8);
+                    writeVarInt(data.length);
+                    write(data);
+                    return;
+                }
+            }
+            //plain ASCII is its own UTF-8 encoding
+            writeVarInt(length);
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                buffer[size++] = (byte) value.charAt(i);
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+    }
+
+    /**
+     * Reads through an array of bytes
+     */
+    private final class Input {
+
+        private final byte[] data;
+        private int position;
+
+        private Input(byte[] data) {
+            this.data = data;
+        }
+
+        private int read() {
+            if (position >= data.length) {
+                throw new DataStoreException(entityType, "Data ended unexpectedly");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        private byte[] read(int length) {
+            final byte[] result = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return result;
+        }
+
+        private int readInt() {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = (value << 8) | read();
+            }
+            return value;
+        }
+
+        private long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | read();
+            }
+            return value;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                final int current = read();
+                value |= (current & 0x7F) << shift;
+                if ((current & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new DataStoreException(entityType, "Malformed variable-length integer");
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                final int current = read();
+                value |= (long) (current & 0x7F) << shift;
+                if ((current & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new DataStoreException(entityType, "Malformed variable-length integer");
+        }
+
+        /**
+         * Reads the length of a string, an array, a collection, or a map, each item of which takes up at least a
+         * byte, so that garbage does not make us allocate more than there is data
+         */
+        private int readLength() {
+            final int length = readVarInt();
+            if (length < 0 || length > data.length - position) {
+                throw new DataStoreException(entityType, "Invalid length " + length + " with " + (data.length - position) + " bytes left");
+            }
+            return length;
+        }
+
+        private String readString() {
+            final int length = readLength();
+            final String value = new String(data, position, length, UTF_8);
+            position += length;
+            return value;
+        }
+
+    }
+
+}
@@ -0,0 +1,273 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.ChangeCursor;
+import com.mmnaseri.utils.spring.data.store.ChangeFeed;
+import com.mmnaseri.utils.spring.data.store.ChangeType;
+import com.mmnaseri.utils.spring.data.store.DataStoreChange;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>This is a {@link ChangeFeed} that keeps the latest changes in a ring buffer of a fixed capacity. Recording a
+ * change takes constant time, and so does reading it, no matter how many changes there are or how large the data store
+ * is.</p>
+ *
+ * <p>Once the buffer is full, each new change takes the place of the oldest one. If an open cursor has yet to read the
+ * oldest change, the writer can be made to wait, for up to a given amount of time, for the cursor to catch up, which
+ * slows writers down to the pace of the slowest reader. If the cursor does not catch up in time, or if the log does
+ * not wait at all, which is the default, the change is dropped and the cursor will fail when it is next read from.</p>
+ *
+ * <p>The log records the entities as they are given to it, so if they are changed in place later on, so are the
+ * changes in the log.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class ChangeLog<K extends Serializable, E> implements ChangeFeed<K, E> {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final Log log = LogFactory.getLog(ChangeLog.class);
+    private final Class<E> entityType;
+    private final List<DataStoreChange<K, E>> changes;
+    private final long timeout;
+    private final Set<Cursor> cursors = new HashSet<>();
+    private long first = 1;
+    private long next = 1;
+    private long dropped;
+    private long stalls;
+
+    public ChangeLog(Class<E> entityType) {
+        this(entityType, DEFAULT_CAPACITY, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public ChangeLog(Class<E> entityType, int capacity, long timeout, TimeUnit unit) {
+        if (capacity < 1) {
+            throw new InvalidArgumentException("Capacity of the change log must be a positive number: " + capacity);
+        }
+        if (timeout < 0) {
+            throw new InvalidArgumentException("Timeout cannot be negative: " + timeout);
+        }
+        this.entityType = entityType;
+        this.changes = new ArrayList<>(Collections.<DataStoreChange<K, E>>nCopies(capacity, null));
+        this.timeout = unit.toNanos(timeout);
+    }
+
+    /**
+     * Records a change, waiting for the slowest cursor if need be
+     * @param type        the kind of change
+     * @param key         the key of the entity
+     * @param previous    the entity before the change
+     * @param current     the entity after the change
+     * @return the sequence number of the change
+     */
+    public synchronized long append(ChangeType type, K key, E previous, E current) {
+        if (next - first == changes.size()) {
+            if (timeout > 0 && getSlowestPosition() == first) {
+                stalls++;
+                log.debug("Change log for " + entityType + " is full; waiting for the cursors to catch up");
+                final long deadline = System.nanoTime() + timeout;
+                long remaining = timeout;
+                while (remaining > 0 && getSlowestPosition() == first) {
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    remaining = deadline - System.nanoTime();
+                }
+            }
+            if (getSlowestPosition() == first) {
+                dropped++;
+                log.warn("Dropping change #" + first + " for " + entityType + " before all the cursors have read it");
+            }
+            changes.set(index(first), null);
+            first++;
+        }
+        final long sequence = next++;
+        changes.set(index(sequence), new ImmutableDataStoreChange<>(sequence, type, key, previous, current));
+        notifyAll();
+        return sequence;
+    }
+
+    @Override
+    public synchronized ChangeCursor<K, E> openCursor() {
+        return openCursor(next);
+    }
+
+    @Override
+    public synchronized ChangeCursor<K, E> openCursor(long sequence) {
+        checkSequence(sequence);
+        final Cursor cursor = new Cursor(sequence);
+        cursors.add(cursor);
+        return cursor;
+    }
+
+    @Override
+    public synchronized long getFirstSequence() {
+        return first;
+    }
+
+    @Override
+    public synchronized long getLastSequence() {
+        return next - 1;
+    }
+
+    public int getCapacity() {
+        return changes.size();
+    }
+
+    /**
+     * @param unit    the unit in which to return the timeout
+     * @return how long writers wait for the cursors to catch up once the log is full
+     */
+    public long getTimeout(TimeUnit unit) {
+        return unit.convert(timeout, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized int getCursorCount() {
+        return cursors.size();
+    }
+
+    @Override
+    public synchronized long getMaxLag() {
+        return next - getSlowestPosition();
+    }
+
+    @Override
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    @Override
+    public synchronized long getStallCount() {
+        return stalls;
+    }
+
+    /**
+     * @return the position of the cursor furthest behind, or the next sequence number if there are no cursors
+     */
+    private long getSlowestPosition() {
+        long slowest = next;
+        for (Cursor cursor : cursors) {
+            slowest = Math.min(slowest, cursor.position);
+        }
+        return slowest;
+    }
+
+    private int index(long sequence) {
+        return (int) ((sequence - 1) % changes.size());
+    }
+
+    private void checkSequence(long sequence) {
+        if (sequence < first || sequence > next) {
+            throw new InvalidArgumentException("Sequence number " + sequence + " is not in the change log, which has changes " + first + " through " + (next - 1));
+        }
+    }
+
+    private class Cursor implements ChangeCursor<K, E> {
+
+        private long position;
+        private boolean closed;
+
+        private Cursor(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public List<DataStoreChange<K, E>> poll(int max) {
+            return poll(max, 0, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public List<DataStoreChange<K, E>> poll(int max, long timeout, TimeUnit unit) {
+            if (max < 1) {
+                throw new InvalidArgumentException("Maximum number of changes to read must be a positive number: " + max);
+            }
+            synchronized (ChangeLog.this) {
+                checkOpen();
+                final long deadline = System.nanoTime() + unit.toNanos(timeout);
+                long remaining = unit.toNanos(timeout);
+                while (position == next && remaining > 0 && !closed) {
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(ChangeLog.this, remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    remaining = deadline - System.nanoTime();
+                }
+                checkOpen();
+                if (position < first) {
+                    log.error("Cursor at change #" + position + " has fallen behind the change log for " + entityType);
+                    throw new DataStoreException(entityType, "The cursor has fallen behind; changes " + position + " through " + (first - 1) + " have been dropped");
+                }
+                if (position == next) {
+                    return Collections.emptyList();
+                }
+                final int count = (int) Math.min(max, next - position);
+                final List<DataStoreChange<K, E>> result = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    result.add(changes.get(index(position + i)));
+                }
+                position += count;
+                //writers might be waiting for this cursor to catch up
+                ChangeLog.this.notifyAll();
+                return result;
+            }
+        }
+
+        @Override
+        public void seek(long sequence) {
+            synchronized (ChangeLog.this) {
+                checkOpen();
+                checkSequence(sequence);
+                position = sequence;
+                ChangeLog.this.notifyAll();
+            }
+        }
+
+        @Override
+        public long getPosition() {
+            synchronized (ChangeLog.this) {
+                return position;
+            }
+        }
+
+        @Override
+        public long getLag() {
+            synchronized (ChangeLog.this) {
+                return next - position;
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (ChangeLog.this) {
+                closed = true;
+                cursors.remove(this);
+                ChangeLog.this.notifyAll();
+            }
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new DataStoreException(entityType, "The cursor has been closed");
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.store.EntityCodec;
+import com.mmnaseri.utils.spring.data.store.EntityWeigher;
+
+/**
+ * This weigher estimates the size of an entity in bytes as the length of its encoded form.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class CodecEntityWeigher<E> implements EntityWeigher<E> {
+
+    private final EntityCodec<E> codec;
+
+    public CodecEntityWeigher(EntityCodec<E> codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public long weigh(E entity) {
+        return codec.encode(entity).length;
+    }
+
+}
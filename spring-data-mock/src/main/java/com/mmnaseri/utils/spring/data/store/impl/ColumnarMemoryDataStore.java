@@ -0,0 +1,782 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.domain.Invocation;
+import com.mmnaseri.utils.spring.data.domain.Matcher;
+import com.mmnaseri.utils.spring.data.domain.Modifier;
+import com.mmnaseri.utils.spring.data.domain.Parameter;
+import com.mmnaseri.utils.spring.data.domain.impl.matchers.*;
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.store.ColumnarDataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.Indexed;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import com.mmnaseri.utils.spring.data.tools.PropertyUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>This data store keeps its entities in rows, and next to them, the values of some of their properties in columns.
+ * Properties of type {@literal int}, {@literal long}, {@literal double}, and {@literal boolean} (and their wrappers)
+ * are kept in primitive arrays, strings and enums are dictionary encoded, and any other property is kept as is.</p>
+ *
+ * <p>Query parameters are evaluated one column at a time, producing a bitmap of the matching rows. The bitmaps for the
+ * parameters of a branch are intersected, and those of the branches are then combined. Comparisons on numeric
+ * columns run as tight loops over the primitive values, while parameters on dictionary encoded columns are matched
+ * once per distinct value instead of once per row. All other parameters fall back to the operator's
+ * {@link Matcher} for each row, which still spares the caller from reading the property off of each entity.</p>
+ *
+ * <p>The properties kept in columns are the ones explicitly passed to the constructor, plus all the properties on the
+ * entity that have been annotated with {@link Indexed}. A query touching any other property is not answered from the
+ * columns at all, and is left to the caller to match as usual.</p>
+ *
+ * <p>As with the {@link IndexedMemoryDataStore}, entities that are changed in place must be saved again for the
+ * changes to be reflected by the columns. Values that are no longer used by any row are kept in the dictionaries until
+ * the data store is truncated.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class ColumnarMemoryDataStore<K extends Serializable, E> implements ColumnarDataStore<K, E>, ScanningDataStore<K, E> {
+
+    private static final Log log = LogFactory.getLog(ColumnarMemoryDataStore.class);
+    private static final int INITIAL_CAPACITY = 16;
+    private final Class<E> entityType;
+    private final Map<String, Column> columns;
+    private final Map<K, Integer> rows = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Object[] keys = new Object[INITIAL_CAPACITY];
+    private Object[] entities = new Object[INITIAL_CAPACITY];
+    private int size;
+
+    public ColumnarMemoryDataStore(Class<E> entityType, String... properties) {
+        this.entityType = entityType;
+        final Set<String> names = new LinkedHashSet<>(IndexUtils.getIndexedProperties(entityType).keySet());
+        names.addAll(Arrays.asList(properties));
+        this.columns = new LinkedHashMap<>();
+        for (String name : names) {
+            final Class<?> type;
+            try {
+                type = PropertyUtils.getPropertyType(entityType, name);
+            } catch (Exception e) {
+                log.error("Failed to resolve the type of property " + name);
+                throw new DataStoreException(entityType, "Failed to resolve the type of property " + name + ": " + e.getMessage());
+            }
+            columns.put(name, Column.of(type));
+        }
+    }
+
+    /**
+     * @return the properties whose values are kept in columns
+     */
+    public Set<String> getColumnProperties() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        lock.readLock().lock();
+        try {
+            return rows.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean save(K key, E entity) {
+        if (key == null) {
+            log.error("Asked to save an entity with a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        } else if (entity == null) {
+            log.error("Asked to save a null value into the data store");
+            throw new DataStoreException(entityType, "Cannot save a null entity");
+        }
+        //we read the values first so that a failure will not leave the columns out of sync with the data
+        final Object[] values = read(entity);
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.get(key);
+            final boolean saved = row == null;
+            if (saved) {
+                row = size++;
+                ensureCapacity(size);
+                rows.put(key, row);
+                keys[row] = key;
+            }
+            entities[row] = entity;
+            int i = 0;
+            for (Column column : columns.values()) {
+                column.set(row, values[i++]);
+            }
+            log.debug("Entity was " + (!saved ? "not " : "") + "saved under key " + key);
+            return saved;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(K key) {
+        if (key == null) {
+            log.error("Asked to delete an entity with a null key for reference");
+            throw new DataStoreException(entityType, "Cannot delete an entity with a null key");
+        }
+        lock.writeLock().lock();
+        try {
+            final Integer row = rows.remove(key);
+            if (row == null) {
+                log.info("No entity was found to delete under key " + key);
+                return false;
+            }
+            log.info("Deleting entity under key " + key);
+            //the last row is moved into the hole, so that the rows are always packed
+            final int last = --size;
+            if (row != last) {
+                keys[row] = keys[last];
+                entities[row] = entities[last];
+                for (Column column : columns.values()) {
+                    column.move(last, row);
+                }
+                rows.put(keyAt(keys, row), row);
+            }
+            keys[last] = null;
+            entities[last] = null;
+            for (Column column : columns.values()) {
+                column.set(last, null);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public E retrieve(K key) {
+        lock.readLock().lock();
+        try {
+            final Integer row = rows.get(key);
+            return row == null ? null : entityType.cast(entities[row]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<K> keys() {
+        lock.readLock().lock();
+        try {
+            final List<K> keys = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                keys.add(keyAt(this.keys, i));
+            }
+            return keys;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<E> retrieveAll() {
+        lock.readLock().lock();
+        try {
+            final List<E> entities = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                entities.add(entityType.cast(this.entities[i]));
+            }
+            return entities;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void scan(DataStoreVisitor<K, E> visitor) {
+        final Object[] keys;
+        final Object[] entities;
+        lock.readLock().lock();
+        try {
+            keys = Arrays.copyOf(this.keys, size);
+            entities = Arrays.copyOf(this.entities, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+        //the visitor is called without holding the lock, so that it is free to read from the data store
+        for (int i = 0; i < keys.length; i++) {
+            if (!visitor.visit(keyAt(keys, i), entityType.cast(entities[i]))) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Class<E> getEntityType() {
+        return entityType;
+    }
+
+    @Override
+    public void truncate() {
+        lock.writeLock().lock();
+        try {
+            log.info("Clearing out the data store");
+            rows.clear();
+            keys = new Object[INITIAL_CAPACITY];
+            entities = new Object[INITIAL_CAPACITY];
+            size = 0;
+            for (Map.Entry<String, Column> entry : columns.entrySet()) {
+                entry.setValue(entry.getValue().empty());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<E> select(List<List<Parameter>> branches, Invocation invocation) {
+        for (List<Parameter> branch : branches) {
+            for (Parameter parameter : branch) {
+                if (!columns.containsKey(parameter.getPath())) {
+                    log.info("Property " + parameter.getPath() + " is not kept in a column; cannot select from the columns");
+                    return null;
+                }
+            }
+        }
+        lock.readLock().lock();
+        try {
+            final BitSet selected = new BitSet(size);
+            for (List<Parameter> branch : branches) {
+                BitSet matches = null;
+                for (Parameter parameter : branch) {
+                    final BitSet found = columns.get(parameter.getPath()).select(parameter, getOperands(parameter, invocation), size);
+                    if (found == null) {
+                        log.info("Parameter " + parameter + " cannot be evaluated over its column");
+                        return null;
+                    }
+                    if (matches == null) {
+                        matches = found;
+                    } else {
+                        matches.and(found);
+                    }
+                }
+                if (matches == null) {
+                    //an empty branch matches every entity
+                    selected.set(0, size);
+                } else {
+                    selected.or(matches);
+                }
+            }
+            final List<E> selection = new ArrayList<>(selected.cardinality());
+            for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1)) {
+                selection.add(entityType.cast(entities[row]));
+            }
+            return selection;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The keys are kept in an array of objects, but only ever put there by {@link #save(Serializable, Object)}, so they
+     * are all of the key type
+     */
+    @SuppressWarnings("unchecked")
+    private K keyAt(Object[] keys, int row) {
+        return (K) keys[row];
+    }
+
+    private Object[] read(E entity) {
+        final Object[] values = new Object[columns.size()];
+        int i = 0;
+        for (String property : columns.keySet()) {
+            try {
+                values[i++] = PropertyUtils.getPropertyValue(entity, property);
+            } catch (Exception e) {
+                log.error("Failed to read the value of property " + property);
+                throw new DataStoreException(entityType, "Failed to read the value of property " + property + ": " + e.getMessage());
+            }
+        }
+        return values;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            final int length = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, length);
+            entities = Arrays.copyOf(entities, length);
+        }
+    }
+
+    private static Object[] getOperands(Parameter parameter, Invocation invocation) {
+        final Object[] operands = new Object[parameter.getOperator().getOperands()];
+        for (int i = 0; i < operands.length; i++) {
+            operands[i] = invocation.getArguments()[parameter.getIndices()[i]];
+        }
+        return operands;
+    }
+
+    /**
+     * The ways in which a numeric column can compare its values to a pivot
+     */
+    private enum Comparison {
+
+        EQUAL, LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL;
+
+        private boolean accepts(int comparison) {
+            switch (this) {
+                case EQUAL:
+                    return comparison == 0;
+                case LESS:
+                    return comparison < 0;
+                case LESS_OR_EQUAL:
+                    return comparison <= 0;
+                case GREATER:
+                    return comparison > 0;
+                default:
+                    return comparison >= 0;
+            }
+        }
+
+    }
+
+    /**
+     * A column holding the values of a single property for all the rows. Rows whose value is {@literal null} are
+     * tracked separately in {@link #nulls}.
+     */
+    private abstract static class Column {
+
+        protected final BitSet nulls = new BitSet();
+
+        private static Column of(Class<?> type) {
+            if (type.equals(int.class) || type.equals(Integer.class)) {
+                return new IntColumn();
+            } else if (type.equals(long.class) || type.equals(Long.class)) {
+                return new LongColumn();
+            } else if (type.equals(double.class) || type.equals(Double.class)) {
+                return new DoubleColumn();
+            } else if (type.equals(boolean.class) || type.equals(Boolean.class)) {
+                return new BooleanColumn();
+            } else if (type.equals(String.class) || type.isEnum()) {
+                return new DictionaryColumn();
+            }
+            return new ObjectColumn();
+        }
+
+        /**
+         * @return a new, empty column of the same kind
+         */
+        protected abstract Column empty();
+
+        protected abstract Object get(int row);
+
+        /**
+         * Sets the value of the row, making room for it if necessary
+         */
+        protected abstract void set(int row, Object value);
+
+        private void move(int from, int to) {
+            set(to, get(from));
+        }
+
+        /**
+         * @return the rows matching the parameter, or {@literal null} if the parameter cannot be evaluated
+         */
+        private BitSet select(Parameter parameter, Object[] operands, int size) {
+            final Matcher matcher = parameter.getOperator().getMatcher();
+            if (matcher instanceof IsNullMatcher) {
+                return nulls.get(0, size);
+            } else if (matcher instanceof IsNotNullMatcher) {
+                final BitSet selected = nulls.get(0, size);
+                selected.flip(0, size);
+                return selected;
+            } else if (matcher == null) {
+                return null;
+            }
+            return select(parameter, matcher, prepare(parameter, operands), size);
+        }
+
+        /**
+         * Matches every row against the parameter. Columns override this to evaluate the parameters they know about
+         * more efficiently.
+         */
+        protected BitSet select(Parameter parameter, Matcher matcher, Object[] operands, int size) {
+            final BitSet selected = new BitSet(size);
+            for (int row = 0; row < size; row++) {
+                final Boolean matches = matches(parameter, matcher, get(row), operands);
+                if (matches == null) {
+                    return null;
+                }
+                if (matches) {
+                    selected.set(row);
+                }
+            }
+            return selected;
+        }
+
+        /**
+         * Applies the modifiers of the parameter to the operands, the same way it would be done when matching the
+         * entities one by one
+         */
+        private static Object[] prepare(Parameter parameter, Object[] operands) {
+            if (!parameter.getModifiers().contains(Modifier.IGNORE_CASE)) {
+                return operands;
+            }
+            final Object[] prepared = operands.clone();
+            for (int i = 0; i < prepared.length; i++) {
+                if (prepared[i] instanceof String) {
+                    prepared[i] = ((String) prepared[i]).toLowerCase();
+                }
+            }
+            return prepared;
+        }
+
+        /**
+         * @return whether or not the value matches, or {@literal null} if the matcher failed, so that the failure
+         * is left to be reported by the caller when it matches the entities itself
+         */
+        protected static Boolean matches(Parameter parameter, Matcher matcher, Object value, Object[] operands) {
+            if (value instanceof String && parameter.getModifiers().contains(Modifier.IGNORE_CASE)) {
+                value = ((String) value).toLowerCase();
+            }
+            try {
+                return matcher.matches(parameter, value, operands);
+            } catch (RuntimeException e) {
+                log.debug("Failed to match value " + value + " for " + parameter.getPath(), e);
+                return null;
+            }
+        }
+
+    }
+
+    /**
+     * A column of numbers that can be compared directly, as long as the operands are of the same type as the values
+     */
+    private abstract static class NumericColumn extends Column {
+
+        private final Class<?> type;
+
+        private NumericColumn(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        protected BitSet select(Parameter parameter, Matcher matcher, Object[] operands, int size) {
+            for (Object operand : operands) {
+                if (operand == null || !type.equals(operand.getClass())) {
+                    return super.select(parameter, matcher, operands, size);
+                }
+            }
+            final BitSet selected;
+            if (matcher instanceof IsEqualToMatcher) {
+                selected = compare(Comparison.EQUAL, operands[0], size);
+            } else if (matcher instanceof IsNotMatcher) {
+                //null values are held as zeros, but are not equal to anything, so they have to be selected either way
+                selected = compare(Comparison.EQUAL, operands[0], size);
+                selected.andNot(nulls);
+                selected.flip(0, size);
+                return selected;
+            } else if (!nulls.isEmpty()) {
+                //comparing null values fails, which we leave to the caller to report
+                return null;
+            } else if (matcher instanceof IsGreaterThanMatcher) {
+                selected = compare(Comparison.GREATER, operands[0], size);
+            } else if (matcher instanceof IsGreaterThanOrEqualToMatcher) {
+                selected = compare(Comparison.GREATER_OR_EQUAL, operands[0], size);
+            } else if (matcher instanceof IsLessThanMatcher) {
+                selected = compare(Comparison.LESS, operands[0], size);
+            } else if (matcher instanceof IsLessThanOrEqualToMatcher) {
+                selected = compare(Comparison.LESS_OR_EQUAL, operands[0], size);
+            } else if (matcher instanceof IsBetweenMatcher) {
+                selected = compare(Comparison.GREATER_OR_EQUAL, operands[0], size);
+                selected.and(compare(Comparison.LESS_OR_EQUAL, operands[1], size));
+            } else if (matcher instanceof IsNotBetweenMatcher) {
+                selected = compare(Comparison.LESS, operands[0], size);
+                selected.or(compare(Comparison.GREATER, operands[1], size));
+            } else {
+                return super.select(parameter, matcher, operands, size);
+            }
+            selected.andNot(nulls);
+            return selected;
+        }
+
+        /**
+         * @return the rows whose values compare to the pivot as specified, including the rows holding {@literal null}
+         */
+        protected abstract BitSet compare(Comparison comparison, Object pivot, int size);
+
+    }
+
+    private static class IntColumn extends NumericColumn {
+
+        private int[] values = new int[INITIAL_CAPACITY];
+
+        private IntColumn() {
+            super(Integer.class);
+        }
+
+        @Override
+        protected Column empty() {
+            return new IntColumn();
+        }
+
+        @Override
+        protected Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        protected void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, Math.max(row + 1, values.length * 2));
+            }
+            nulls.set(row, value == null);
+            values[row] = value == null ? 0 : (Integer) value;
+        }
+
+        @Override
+        protected BitSet compare(Comparison comparison, Object pivot, int size) {
+            final int value = (Integer) pivot;
+            final BitSet selected = new BitSet(size);
+            for (int row = 0; row < size; row++) {
+                if (comparison.accepts(Integer.compare(values[row], value))) {
+                    selected.set(row);
+                }
+            }
+            return selected;
+        }
+
+    }
+
+    private static class LongColumn extends NumericColumn {
+
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        private LongColumn() {
+            super(Long.class);
+        }
+
+        @Override
+        protected Column empty() {
+            return new LongColumn();
+        }
+
+        @Override
+        protected Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        protected void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, Math.max(row + 1, values.length * 2));
+            }
+            nulls.set(row, value == null);
+            values[row] = value == null ? 0L : (Long) value;
+        }
+
+        @Override
+        protected BitSet compare(Comparison comparison, Object pivot, int size) {
+            final long value = (Long) pivot;
+            final BitSet selected = new BitSet(size);
+            for (int row = 0; row < size; row++) {
+                if (comparison.accepts(Long.compare(values[row], value))) {
+                    selected.set(row);
+                }
+            }
+            return selected;
+        }
+
+    }
+
+    private static class DoubleColumn extends NumericColumn {
+
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        private DoubleColumn() {
+            super(Double.class);
+        }
+
+        @Override
+        protected Column empty() {
+            return new DoubleColumn();
+        }
+
+        @Override
+        protected Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        protected void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, Math.max(row + 1, values.length * 2));
+            }
+            nulls.set(row, value == null);
+            values[row] = value == null ? 0D : (Double) value;
+        }
+
+        @Override
+        protected BitSet compare(Comparison comparison, Object pivot, int size) {
+            final double value = (Double) pivot;
+            final BitSet selected = new BitSet(size);
+            for (int row = 0; row < size; row++) {
+                //this is how Double#equals and Double#compareTo see the values, too
+                if (comparison.accepts(Double.compare(values[row], value))) {
+                    selected.set(row);
+                }
+            }
+            return selected;
+        }
+
+    }
+
+    /**
+     * A column of booleans, which only ever has three distinct values to match against the parameter
+     */
+    private static class BooleanColumn extends Column {
+
+        private final BitSet values = new BitSet();
+
+        @Override
+        protected Column empty() {
+            return new BooleanColumn();
+        }
+
+        @Override
+        protected Object get(int row) {
+            return nulls.get(row) ? null : values.get(row);
+        }
+
+        @Override
+        protected void set(int row, Object value) {
+            nulls.set(row, value == null);
+            values.set(row, value != null && (Boolean) value);
+        }
+
+        @Override
+        protected BitSet select(Parameter parameter, Matcher matcher, Object[] operands, int size) {
+            final Boolean matchesTrue = matches(parameter, matcher, true, operands);
+            final Boolean matchesFalse = matches(parameter, matcher, false, operands);
+            final BitSet nulls = this.nulls.get(0, size);
+            final Boolean matchesNull = nulls.isEmpty() ? Boolean.FALSE : matches(parameter, matcher, null, operands);
+            if (matchesTrue == null || matchesFalse == null || matchesNull == null) {
+                return null;
+            }
+            final BitSet selected = new BitSet(size);
+            if (matchesFalse) {
+                selected.set(0, size);
+                selected.andNot(values);
+                selected.andNot(nulls);
+            }
+            if (matchesTrue) {
+                selected.or(values.get(0, size));
+            }
+            if (matchesNull) {
+                selected.or(nulls);
+            }
+            return selected;
+        }
+
+    }
+
+    /**
+     * A column that encodes each distinct value as an integer, and matches the parameter once per distinct value
+     */
+    private static class DictionaryColumn extends Column {
+
+        private final Map<Object, Integer> codes = new HashMap<>();
+        private final List<Object> dictionary = new ArrayList<>();
+        private int[] values = new int[INITIAL_CAPACITY];
+
+        @Override
+        protected Column empty() {
+            return new DictionaryColumn();
+        }
+
+        @Override
+        protected Object get(int row) {
+            return nulls.get(row) ? null : dictionary.get(values[row]);
+        }
+
+        @Override
+        protected void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, Math.max(row + 1, values.length * 2));
+            }
+            nulls.set(row, value == null);
+            if (value == null) {
+                values[row] = -1;
+                return;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                codes.put(value, code);
+            }
+            values[row] = code;
+        }
+
+        @Override
+        protected BitSet select(Parameter parameter, Matcher matcher, Object[] operands, int size) {
+            final boolean[] accepted = new boolean[dictionary.size()];
+            for (int code = 0; code < accepted.length; code++) {
+                final Boolean matches = matches(parameter, matcher, dictionary.get(code), operands);
+                if (matches == null) {
+                    return null;
+                }
+                accepted[code] = matches;
+            }
+            final BitSet nulls = this.nulls.get(0, size);
+            final Boolean matchesNull = nulls.isEmpty() ? Boolean.FALSE : matches(parameter, matcher, null, operands);
+            if (matchesNull == null) {
+                return null;
+            }
+            final BitSet selected = new BitSet(size);
+            for (int row = 0; row < size; row++) {
+                final int code = values[row];
+                if (code >= 0 && accepted[code]) {
+                    selected.set(row);
+                }
+            }
+            if (matchesNull) {
+                selected.or(nulls);
+            }
+            return selected;
+        }
+
+    }
+
+    /**
+     * A column for values that cannot be laid out any better, which are matched one at a time
+     */
+    private static class ObjectColumn extends Column {
+
+        private Object[] values = new Object[INITIAL_CAPACITY];
+
+        @Override
+        protected Column empty() {
+            return new ObjectColumn();
+        }
+
+        @Override
+        protected Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        protected void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, Math.max(row + 1, values.length * 2));
+            }
+            nulls.set(row, value == null);
+            values[row] = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.EntityCodec;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This codec compresses the binary representation produced by another codec using {@link Deflater}. The compressed
+ * form is preceded by the length of the uncompressed data, so that it can be inflated in one go.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class CompressingEntityCodec<E> implements EntityCodec<E> {
+
+    private static final Log log = LogFactory.getLog(CompressingEntityCodec.class);
+    /**
+     * The number of bytes used to record the length of the uncompressed data
+     */
+    private static final int HEADER_SIZE = 4;
+    private static final int CHUNK_SIZE = 512;
+    private final Class<E> entityType;
+    private final EntityCodec<E> codec;
+    private final int level;
+
+    public CompressingEntityCodec(Class<E> entityType) {
+        this(entityType, new SerializingEntityCodec<>(entityType));
+    }
+
+    public CompressingEntityCodec(Class<E> entityType, EntityCodec<E> codec) {
+        this(entityType, codec, Deflater.BEST_SPEED);
+    }
+
+    /**
+     * @param entityType    the entity type
+     * @param codec         the codec producing the data to be compressed
+     * @param level         the compression level, from {@link Deflater#NO_COMPRESSION} to
+     *                      {@link Deflater#BEST_COMPRESSION}, or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public CompressingEntityCodec(Class<E> entityType, EntityCodec<E> codec, int level) {
+        if (codec == null) {
+            throw new InvalidArgumentException("Codec cannot be null");
+        }
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new InvalidArgumentException("Invalid compression level: " + level);
+        }
+        this.entityType = entityType;
+        this.codec = codec;
+        this.level = level;
+    }
+
+    @Override
+    public byte[] encode(E entity) {
+        final byte[] data = codec.encode(entity);
+        final Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            final ByteArrayOutputStream output = new ByteArrayOutputStream(HEADER_SIZE + data.length / 2);
+            output.write(ByteBuffer.allocate(HEADER_SIZE).putInt(data.length).array(), 0, HEADER_SIZE);
+            final byte[] chunk = new byte[CHUNK_SIZE];
+            while (!deflater.finished()) {
+                output.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public E decode(byte[] data) {
+        if (data.length < HEADER_SIZE) {
+            log.error("Compressed entity of type " + entityType + " is missing its header");
+            throw new DataStoreException(entityType, "Failed to decompress entity: data is too short");
+        }
+        final byte[] inflated = new byte[ByteBuffer.wrap(data).getInt()];
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, HEADER_SIZE, data.length - HEADER_SIZE);
+            int length = 0;
+            while (length < inflated.length && !inflater.finished()) {
+                final int read = inflater.inflate(inflated, length, inflated.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != inflated.length) {
+                log.error("Compressed entity of type " + entityType + " is truncated");
+                throw new DataStoreException(entityType, "Failed to decompress entity: expected " + inflated.length + " bytes but found " + length);
+            }
+        } catch (DataFormatException e) {
+            log.error("Failed to decompress entity of type " + entityType);
+            throw new DataStoreException(entityType, "Failed to decompress entity: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        return codec.decode(inflated);
+    }
+
+}
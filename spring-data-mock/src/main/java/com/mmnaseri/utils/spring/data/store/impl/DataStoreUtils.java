@@ -0,0 +1,351 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.AtomicDataStore;
+import com.mmnaseri.utils.spring.data.store.BulkDataStore;
+import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import com.mmnaseri.utils.spring.data.store.PartitionedDataStore;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import com.mmnaseri.utils.spring.data.store.VersionedDataStore;
+import com.mmnaseri.utils.spring.data.tools.PropertyUtils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Utilities for walking over the contents of a data store, for working with many entities at once regardless of
+ * whether or not the data store supports {@link BulkDataStore bulk operations}, and for writing to a data store
+ * through {@link AtomicDataStore atomic writes} where it supports them. The writes fall back to reading and then
+ * writing the entity for other data stores, in which case they are not atomic.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public final class DataStoreUtils {
+
+    private DataStoreUtils() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Hands every entity in the data store to the visitor until the visitor asks to stop. If the data store is a
+     * {@link ScanningDataStore}, it will be asked to do the scan. Otherwise, the entities will be looked up one by one
+     * through the data store's keys.
+     * @param dataStore    the data store
+     * @param visitor      the visitor
+     */
+    public static <K extends Serializable, E> void scan(DataStore<K, E> dataStore, DataStoreVisitor<K, E> visitor) {
+        if (dataStore instanceof ScanningDataStore) {
+            ((ScanningDataStore<K, E>) dataStore).scan(visitor);
+        } else {
+            scan(dataStore, dataStore.keys(), visitor);
+        }
+    }
+
+    /**
+     * Scans all the partitions of the data store in parallel, handing each partition to its own visitor. The scans run
+     * on a fork/join pool shared by all data stores, and this method returns once all of them are done.
+     * @param dataStore    the data store
+     * @param visitors     one visitor per partition, in the order of the partitions
+     * @throws RuntimeException the exception thrown by any of the visitors or the data store
+     */
+    public static <K extends Serializable, E> void scanPartitions(final PartitionedDataStore<K, E> dataStore, List<? extends DataStoreVisitor<K, E>> visitors) {
+        if (visitors.size() != dataStore.getPartitionCount()) {
+            throw new InvalidArgumentException("Expected " + dataStore.getPartitionCount() + " visitors, one for each partition, but got " + visitors.size());
+        }
+        if (visitors.size() == 1) {
+            dataStore.scan(0, visitors.get(0));
+            return;
+        }
+        final List<RecursiveAction> scans = new ArrayList<>(visitors.size());
+        for (int i = 0; i < visitors.size(); i++) {
+            final int partition = i;
+            final DataStoreVisitor<K, E> visitor = visitors.get(i);
+            scans.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    dataStore.scan(partition, visitor);
+                }
+            });
+        }
+        final RecursiveAction scan = new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(scans);
+            }
+        };
+        if (ForkJoinTask.inForkJoinPool()) {
+            scan.invoke();
+        } else {
+            getSharedPool().invoke(scan);
+        }
+    }
+
+    /**
+     * @return the fork/join pool shared by all parallel data store operations, which has one worker per processor
+     * available to the JVM
+     */
+    public static ForkJoinPool getSharedPool() {
+        return SharedPool.INSTANCE;
+    }
+
+    /**
+     * Hands the entities under the given keys to the visitor until the visitor asks to stop. Keys for which there is
+     * no entity in the data store are skipped.
+     * @param dataStore    the data store
+     * @param keys         the keys
+     * @param visitor      the visitor
+     */
+    public static <K extends Serializable, E> void scan(DataStore<K, E> dataStore, Iterable<K> keys, DataStoreVisitor<K, E> visitor) {
+        for (K key : keys) {
+            final E entity = dataStore.retrieve(key);
+            if (entity != null && !visitor.visit(key, entity)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Saves all the given entities, either in one go if the data store is a {@link BulkDataStore}, or one by one
+     * otherwise.
+     * @param dataStore    the data store
+     * @param entities     the entities, mapped by their keys
+     * @return the number of entities that were new entries
+     */
+    public static <K extends Serializable, E> int saveAll(DataStore<K, E> dataStore, Map<K, E> entities) {
+        if (dataStore instanceof BulkDataStore) {
+            return ((BulkDataStore<K, E>) dataStore).saveAll(entities);
+        }
+        int inserted = 0;
+        for (Map.Entry<K, E> entry : entities.entrySet()) {
+            if (dataStore.save(entry.getKey(), entry.getValue())) {
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Deletes the entities under all the given keys, either in one go if the data store is a {@link BulkDataStore},
+     * or one by one otherwise.
+     * @param dataStore    the data store
+     * @param keys         the keys
+     * @return the entities that were actually deleted, mapped by their keys
+     */
+    public static <K extends Serializable, E> Map<K, E> deleteAll(DataStore<K, E> dataStore, Collection<K> keys) {
+        if (dataStore instanceof BulkDataStore) {
+            return ((BulkDataStore<K, E>) dataStore).deleteAll(keys);
+        }
+        final Map<K, E> deleted = newLinkedHashMap(keys.size());
+        for (K key : keys) {
+            final E entity = dataStore.retrieve(key);
+            if (entity != null && dataStore.delete(key)) {
+                deleted.put(key, entity);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Retrieves the entities under all the given keys, either in one go if the data store is a
+     * {@link BulkDataStore}, or one by one otherwise.
+     * @param dataStore    the data store
+     * @param keys         the keys
+     * @return the entities that were found, in the order of the keys
+     */
+    public static <K extends Serializable, E> List<E> retrieveAll(DataStore<K, E> dataStore, Collection<K> keys) {
+        if (dataStore instanceof BulkDataStore) {
+            return ((BulkDataStore<K, E>) dataStore).retrieveAll(keys);
+        }
+        final List<E> entities = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            final E entity = dataStore.retrieve(key);
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * Saves the entity under the key, atomically if the data store is an {@link AtomicDataStore}
+     * @param dataStore    the data store
+     * @param key          the key
+     * @param entity       the entity
+     * @return the entity previously stored under the key, or {@literal null} if there was none
+     */
+    public static <K extends Serializable, E> E put(DataStore<K, E> dataStore, K key, E entity) {
+        if (dataStore instanceof AtomicDataStore) {
+            return ((AtomicDataStore<K, E>) dataStore).put(key, entity);
+        }
+        final E previous = dataStore.retrieve(key);
+        dataStore.save(key, entity);
+        return previous;
+    }
+
+    /**
+     * Saves the entity under the key unless there already is one, atomically if the data store is an
+     * {@link AtomicDataStore}
+     * @param dataStore    the data store
+     * @param key          the key
+     * @param entity       the entity
+     * @return the entity already stored under the key, or {@literal null} if the entity was saved
+     */
+    public static <K extends Serializable, E> E putIfAbsent(DataStore<K, E> dataStore, K key, E entity) {
+        if (dataStore instanceof AtomicDataStore) {
+            return ((AtomicDataStore<K, E>) dataStore).putIfAbsent(key, entity);
+        }
+        final E existing = dataStore.retrieve(key);
+        if (existing == null) {
+            dataStore.save(key, entity);
+        }
+        return existing;
+    }
+
+    /**
+     * Deletes the entity under the key, atomically if the data store is an {@link AtomicDataStore}
+     * @param dataStore    the data store
+     * @param key          the key
+     * @return the entity that was deleted, or {@literal null} if there was none
+     */
+    public static <K extends Serializable, E> E remove(DataStore<K, E> dataStore, K key) {
+        if (dataStore instanceof AtomicDataStore) {
+            return ((AtomicDataStore<K, E>) dataStore).remove(key);
+        }
+        final E entity = dataStore.retrieve(key);
+        return entity != null && dataStore.delete(key) ? entity : null;
+    }
+
+    /**
+     * Replaces the entity under the key with the one worked out by the function, atomically if the data store is an
+     * {@link AtomicDataStore}
+     * @param dataStore    the data store
+     * @param key          the key
+     * @param function     the function working out the new entity
+     * @return the new entity, or {@literal null} if the key was deleted
+     */
+    public static <K extends Serializable, E> E compute(DataStore<K, E> dataStore, K key, EntityRemappingFunction<K, E> function) {
+        if (dataStore instanceof AtomicDataStore) {
+            return ((AtomicDataStore<K, E>) dataStore).compute(key, function);
+        }
+        final E current = dataStore.retrieve(key);
+        final E computed = function.apply(key, current);
+        if (computed != null) {
+            dataStore.save(key, computed);
+        } else if (current != null) {
+            dataStore.delete(key);
+        }
+        return computed;
+    }
+
+    /**
+     * Saves the entity under the key after checking its version against the stored entity and advancing it, either
+     * through the data store if it is a {@link VersionedDataStore}, or as described in
+     * {@link #putVersioned(DataStore, Serializable, Object, String)} otherwise
+     * @param dataStore          the data store
+     * @param key                the key
+     * @param entity             the entity
+     * @param versionProperty    the version property
+     * @return {@literal true} if the entity was inserted
+     * @throws com.mmnaseri.utils.spring.data.error.OptimisticLockException if the stored entity has a different version
+     */
+    public static <K extends Serializable, E> boolean save(DataStore<K, E> dataStore, K key, E entity, String versionProperty) {
+        if (dataStore instanceof VersionedDataStore) {
+            return ((VersionedDataStore<K, E>) dataStore).save(key, entity, versionProperty);
+        }
+        return putVersioned(dataStore, key, entity, versionProperty) == null;
+    }
+
+    /**
+     * Works the same way as {@link #save(DataStore, Serializable, Object, String)}, but hands back the entity that was
+     * replaced
+     * @param dataStore          the data store
+     * @param key                the key
+     * @param entity             the entity
+     * @param versionProperty    the version property
+     * @return the entity that was replaced, or {@literal null} if the entity was inserted
+     * @throws com.mmnaseri.utils.spring.data.error.OptimisticLockException if the stored entity has a different version
+     */
+    public static <K extends Serializable, E> E put(DataStore<K, E> dataStore, K key, E entity, String versionProperty) {
+        if (dataStore instanceof VersionedDataStore) {
+            return ((VersionedDataStore<K, E>) dataStore).put(key, entity, versionProperty);
+        }
+        return putVersioned(dataStore, key, entity, versionProperty);
+    }
+
+    /**
+     * Saves the entity under the key as described in {@link #putVersioned(DataStore, Serializable, Object, String)}
+     * @param dataStore          the data store
+     * @param key                the key
+     * @param entity             the entity
+     * @param versionProperty    the version property
+     * @return {@literal true} if the entity was inserted
+     * @throws com.mmnaseri.utils.spring.data.error.OptimisticLockException if the stored entity has a different version
+     */
+    public static <K extends Serializable, E> boolean saveVersioned(DataStore<K, E> dataStore, K key, E entity, String versionProperty) {
+        return putVersioned(dataStore, key, entity, versionProperty) == null;
+    }
+
+    /**
+     * Saves the entity under the key after checking its version against the stored entity, by
+     * {@link #compute(DataStore, Serializable, EntityRemappingFunction) computing} the entity under the key, and then
+     * advances its version. The check and the save are therefore atomic as long as the data store is an
+     * {@link AtomicDataStore}, and if the save does not go through, the entity is left with the version it had. The
+     * version is only advanced once the entity has been stored, so versioned saves made through this method hold the
+     * monitor of the data store throughout; otherwise, another versioned save could be checked against the entity
+     * before its version has been advanced.
+     * @param dataStore          the data store
+     * @param key                the key
+     * @param entity             the entity
+     * @param versionProperty    the version property
+     * @return the entity that was replaced, or {@literal null} if the entity was inserted
+     * @throws com.mmnaseri.utils.spring.data.error.OptimisticLockException if the stored entity has a different version
+     */
+    public static <K extends Serializable, E> E putVersioned(DataStore<K, E> dataStore, K key, final E entity, final String versionProperty) {
+        final Class<E> entityType = dataStore.getEntityType();
+        final List<E> replaced = new ArrayList<>(1);
+        final Object[] version = new Object[1];
+        synchronized (dataStore) {
+            compute(dataStore, key, new EntityRemappingFunction<K, E>() {
+                @Override
+                public E apply(K key, E current) {
+                    //the function is applied again if the stored entity changes in the meantime
+                    version[0] = VersionUtils.getNextVersion(entityType, key, current, entity, versionProperty);
+                    replaced.clear();
+                    replaced.add(current);
+                    return entity;
+                }
+            });
+            PropertyUtils.setPropertyValue(entity, versionProperty, version[0]);
+        }
+        return replaced.get(0);
+    }
+
+    /**
+     * @param expectedSize    the number of entries the map is expected to hold
+     * @return a linked hash map that can hold the expected number of entries without having to be resized
+     */
+    static <K, V> Map<K, V> newLinkedHashMap(int expectedSize) {
+        return new LinkedHashMap<>(expectedSize < 3 ? 4 : (int) (expectedSize / 0.75f) + 1);
+    }
+
+    /**
+     * Holds the shared fork/join pool, which is only created once it is first needed
+     */
+    private static class SharedPool {
+
+        private static final ForkJoinPool INSTANCE = new ForkJoinPool();
+
+    }
+
+}
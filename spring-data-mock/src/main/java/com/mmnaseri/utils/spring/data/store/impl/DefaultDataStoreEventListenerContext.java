@@ -1,17 +1,25 @@
 package com.mmnaseri.utils.spring.data.store.impl;
 
 import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.BatchDataStoreEventListener;
+import com.mmnaseri.utils.spring.data.store.BatchingDataStoreEventListenerContext;
 import com.mmnaseri.utils.spring.data.store.DataStoreEvent;
 import com.mmnaseri.utils.spring.data.store.DataStoreEventListener;
 import com.mmnaseri.utils.spring.data.store.DataStoreEventListenerContext;
+import com.mmnaseri.utils.spring.data.store.SelectiveDataStoreEventListenerContext;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>This is the default implementation for the {@link DataStoreEventListenerContext} interface.
@@ -20,16 +28,27 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * triggered in that context as well.</p>
  *
  * <p>It should be noted that listeners registered in the current context always take precedence over the
- * listeners found on a possible parent context.</p>
+ * listeners found on a possible parent context. Within a context, listeners are called in the order in which they were
+ * registered.</p>
+ *
+ * <p>The listeners for each concrete event type are resolved once and cached in a flat array, which includes the
+ * listeners of the parent context if it is also an instance of this class. Registering a listener with this context or
+ * any of its parents invalidates the cache.</p>
+ *
+ * <p>When a number of events are {@link #triggerAll(List) triggered together}, the listeners that are
+ * {@link BatchDataStoreEventListener batch listeners} are handed all the events meant for them in a single call, once
+ * the other listeners have seen all the events.</p>
  *
  * @author Milad Naseri (mmnaseri@programmer.net)
  * @since 1.0 (10/12/15)
  */
-public class DefaultDataStoreEventListenerContext implements DataStoreEventListenerContext {
+public class DefaultDataStoreEventListenerContext implements SelectiveDataStoreEventListenerContext, BatchingDataStoreEventListenerContext {
 
     private static final Log log = LogFactory.getLog(DefaultDataStoreEventListenerContext.class);
-    private final ConcurrentMap<Class<? extends DataStoreEvent>, List<DataStoreEventListener<?>>> listeners;
+    private final List<SmartDataStoreEventListener<?>> listeners;
     private final DataStoreEventListenerContext parent;
+    private final ConcurrentMap<Class<?>, DispatchTable> dispatchTables = new ConcurrentHashMap<>();
+    private final AtomicLong modifications = new AtomicLong();
 
     public DefaultDataStoreEventListenerContext() {
         this(null);
@@ -37,15 +56,16 @@ public class DefaultDataStoreEventListenerContext implements DataStoreEventListe
 
     public DefaultDataStoreEventListenerContext(DataStoreEventListenerContext parent) {
         this.parent = parent;
-        listeners = new ConcurrentHashMap<>();
+        listeners = new CopyOnWriteArrayList<>();
     }
 
     @Override
     public <E extends DataStoreEvent> void register(DataStoreEventListener<E> listener) {
         final SmartDataStoreEventListener<E> eventListener = new SmartDataStoreEventListener<>(listener);
-        listeners.putIfAbsent(eventListener.getEventType(), new CopyOnWriteArrayList<DataStoreEventListener<?>>());
         log.info("Registering an event listener for type " + eventListener.getEventType());
-        listeners.get(eventListener.getEventType()).add(eventListener);
+        listeners.add(eventListener);
+        modifications.incrementAndGet();
+        dispatchTables.clear();
     }
 
     @Override
@@ -55,30 +75,88 @@ public class DefaultDataStoreEventListenerContext implements DataStoreEventListe
             throw new InvalidArgumentException("Cannot raise a null event");
         }
         log.info("Triggering data store event of type " + event.getClass());
-        for (Class<? extends DataStoreEvent> eventType : listeners.keySet()) {
-            if (eventType.isInstance(event)) {
-                for (DataStoreEventListener listener : listeners.get(eventType)) {
-                    log.debug("Triggering event on listener " + ((SmartDataStoreEventListener) listener).getDelegate());
-                    //noinspection unchecked
-                    listener.onEvent(event);
+        final DispatchTable table = resolve(event.getClass());
+        for (SmartDataStoreEventListener<?> listener : table.listeners) {
+            log.debug("Triggering event on listener " + listener.getDelegate());
+            onEvent(listener, event);
+        }
+        if (table.next != null) {
+            log.info("Going to trigger the same event on the parent context");
+            table.next.trigger(event);
+        }
+    }
+
+    /**
+     * Triggers the events in order. Since this is meant for events describing what has already happened, a listener
+     * that fails does not keep the other listeners from seeing the events; instead, the first failure is thrown once
+     * all the listeners have been called.
+     * @param events    the events
+     */
+    @Override
+    public void triggerAll(List<? extends DataStoreEvent> events) {
+        log.info("Triggering " + events.size() + " data store events");
+        final Map<SmartDataStoreEventListener<?>, List<DataStoreEvent>> batches = new LinkedHashMap<>();
+        RuntimeException failure = null;
+        for (DataStoreEvent event : events) {
+            if (event == null) {
+                log.error("One of the data store events that were triggered was a null value");
+                throw new InvalidArgumentException("Cannot raise a null event");
+            }
+            final DispatchTable table = resolve(event.getClass());
+            for (SmartDataStoreEventListener<?> listener : table.listeners) {
+                if (listener.getDelegate() instanceof BatchDataStoreEventListener) {
+                    if (!batches.containsKey(listener)) {
+                        batches.put(listener, new ArrayList<DataStoreEvent>());
+                    }
+                    batches.get(listener).add(event);
+                    continue;
+                }
+                try {
+                    onEvent(listener, event);
+                } catch (RuntimeException e) {
+                    log.error("A listener failed to handle event " + event.getClass(), e);
+                    failure = failure == null ? e : failure;
+                }
+            }
+            if (table.next != null) {
+                try {
+                    table.next.trigger(event);
+                } catch (RuntimeException e) {
+                    log.error("The parent context failed to handle event " + event.getClass(), e);
+                    failure = failure == null ? e : failure;
                 }
             }
         }
-        if (parent != null) {
-            log.info("Going to trigger the same event on the parent context");
-            parent.trigger(event);
+        for (Map.Entry<SmartDataStoreEventListener<?>, List<DataStoreEvent>> entry : batches.entrySet()) {
+            log.debug("Triggering " + entry.getValue().size() + " events on listener " + entry.getKey().getDelegate());
+            try {
+                onEvents(entry.getKey().getDelegate(), entry.getValue());
+            } catch (RuntimeException e) {
+                log.error("A listener failed to handle a batch of events", e);
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public boolean hasListeners(Class<? extends DataStoreEvent> eventType) {
+        final DispatchTable table = resolve(eventType);
+        if (table.listeners.length > 0) {
+            return true;
         }
+        return table.next != null && (!(table.next instanceof SelectiveDataStoreEventListenerContext) || ((SelectiveDataStoreEventListenerContext) table.next).hasListeners(eventType));
     }
 
     @Override
     public <E extends DataStoreEvent> List<DataStoreEventListener<? extends E>> getListeners(Class<E> eventType) {
         final List<DataStoreEventListener<? extends E>> found = new LinkedList<>();
-        for (Class<? extends DataStoreEvent> supportedType : listeners.keySet()) {
-            if (supportedType.isAssignableFrom(eventType)) {
-                for (DataStoreEventListener listener : listeners.get(supportedType)) {
-                    //noinspection unchecked
-                    found.add(((SmartDataStoreEventListener) listener).getDelegate());
-                }
+        for (SmartDataStoreEventListener<?> listener : listeners) {
+            if (listener.getEventType().isAssignableFrom(eventType)) {
+                //noinspection unchecked
+                found.add(((SmartDataStoreEventListener) listener).getDelegate());
             }
         }
         if (parent != null) {
@@ -87,4 +165,73 @@ public class DefaultDataStoreEventListenerContext implements DataStoreEventListe
         return found;
     }
 
+    /**
+     * Hands the event to the listener. The listener has been picked by the type of the event, so the event is of the
+     * type it subscribes to.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends DataStoreEvent> void onEvent(DataStoreEventListener<E> listener, DataStoreEvent event) {
+        listener.onEvent((E) event);
+    }
+
+    /**
+     * Hands the events to the batch listener. The events have been picked by their type, so they are all of the type
+     * the listener subscribes to.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends DataStoreEvent> void onEvents(DataStoreEventListener<E> listener, List<DataStoreEvent> events) {
+        ((BatchDataStoreEventListener<E>) listener).onEvents((List<E>) (List<?>) events);
+    }
+
+    /**
+     * @return a value that changes whenever a listener is registered with this context or any of its parents
+     */
+    private long stamp() {
+        final long stamp = modifications.get();
+        return parent instanceof DefaultDataStoreEventListenerContext ? stamp + ((DefaultDataStoreEventListenerContext) parent).stamp() : stamp;
+    }
+
+    private DispatchTable resolve(Class<? extends DataStoreEvent> eventType) {
+        //the stamp has to be read before the listeners are collected, so that a table built while a listener is being
+        //registered is thrown away the next time around
+        final long stamp = stamp();
+        DispatchTable table = dispatchTables.get(eventType);
+        if (table == null || table.stamp != stamp) {
+            log.debug("Resolving the listeners for event type " + eventType);
+            final List<SmartDataStoreEventListener<?>> found = new ArrayList<>();
+            for (SmartDataStoreEventListener<?> listener : listeners) {
+                if (listener.getEventType().isAssignableFrom(eventType)) {
+                    found.add(listener);
+                }
+            }
+            DataStoreEventListenerContext next = parent;
+            if (parent instanceof DefaultDataStoreEventListenerContext) {
+                final DispatchTable parentTable = ((DefaultDataStoreEventListenerContext) parent).resolve(eventType);
+                found.addAll(Arrays.asList(parentTable.listeners));
+                next = parentTable.next;
+            }
+            table = new DispatchTable(stamp, found.toArray(new SmartDataStoreEventListener<?>[found.size()]), next);
+            dispatchTables.put(eventType, table);
+        }
+        return table;
+    }
+
+    /**
+     * The listeners to call for a given event type, in order, followed by the context to which the event should be
+     * handed afterwards, if any
+     */
+    private static class DispatchTable {
+
+        private final long stamp;
+        private final SmartDataStoreEventListener<?>[] listeners;
+        private final DataStoreEventListenerContext next;
+
+        private DispatchTable(long stamp, SmartDataStoreEventListener<?>[] listeners, DataStoreEventListenerContext next) {
+            this.stamp = stamp;
+            this.listeners = listeners;
+            this.next = next;
+        }
+
+    }
+
 }
@@ -1,26 +1,68 @@
 package com.mmnaseri.utils.spring.data.store.impl;
 
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
 import com.mmnaseri.utils.spring.data.error.DataStoreNotFoundException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
 import com.mmnaseri.utils.spring.data.store.DataStore;
-import com.mmnaseri.utils.spring.data.store.DataStoreRegistry;
+import com.mmnaseri.utils.spring.data.store.DataStoreStatistics;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.ForkableDataStore;
+import com.mmnaseri.utils.spring.data.store.ForkableDataStoreRegistry;
+import com.mmnaseri.utils.spring.data.store.SavepointDataStore;
+import com.mmnaseri.utils.spring.data.store.SavepointDataStoreRegistry;
+import com.mmnaseri.utils.spring.data.store.StatisticsDataStore;
+import com.mmnaseri.utils.spring.data.store.StatisticsDataStoreRegistry;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.Serializable;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This is the default implementation of the data store registry that supports caching a data store based on
  * the type of entity the data store supports.
  *
+ * <p>Savepoints marked on the registry are marked on all the registered data stores that are
+ * {@link SavepointDataStore savepoint-capable}, which includes all the data stores created by the
+ * {@link com.mmnaseri.utils.spring.data.proxy.impl.DefaultRepositoryFactory repository factory}.</p>
+ *
+ * <p>The registry can be {@link #fork() forked} as long as all of its data stores are {@link ForkableDataStore
+ * forkable}, which makes it possible to set up a fixture once and hand each test its own copy of it. Savepoints are
+ * not carried over to the fork. The forks are only as independent as the data stores make them: for instance, a
+ * {@link PersistentMemoryDataStore} shares its entities with its forks, and should be wrapped in an
+ * {@link IsolatingDataStore} if the tests change the entities they read in place.</p>
+ *
+ * <p>Data stores that do not keep {@link StatisticsDataStore statistics} of their own are described by looking at a
+ * uniform sample of their entities, which covers all of them as long as there are no more than
+ * {@link #DEFAULT_SAMPLE_SIZE} (or whatever sample size was given to the registry).</p>
+ *
  * @author Milad Naseri (mmnaseri@programmer.net)
  * @since 1.0 (9/29/15)
  */
-public class DefaultDataStoreRegistry implements DataStoreRegistry {
+public class DefaultDataStoreRegistry implements SavepointDataStoreRegistry, ForkableDataStoreRegistry, StatisticsDataStoreRegistry {
 
+    public static final int DEFAULT_SAMPLE_SIZE = 10000;
     private static final Log log = LogFactory.getLog(DefaultDataStoreRegistry.class);
     private final Map<Class<?>, DataStore<?, ?>> dataStores = new ConcurrentHashMap<>();
+    private final List<Savepoint> savepoints = new ArrayList<>();
+    private final int sampleSize;
+
+    public DefaultDataStoreRegistry() {
+        this(DEFAULT_SAMPLE_SIZE);
+    }
+
+    /**
+     * @param sampleSize    the largest number of entities to look at when describing a data store that does not keep
+     *                      statistics of its own
+     */
+    public DefaultDataStoreRegistry(int sampleSize) {
+        if (sampleSize < 1) {
+            throw new InvalidArgumentException("Sample size must be a positive number: " + sampleSize);
+        }
+        this.sampleSize = sampleSize;
+    }
 
     @Override
     public <E, K extends Serializable> void register(DataStore<K, E> dataStore) {
@@ -44,4 +86,116 @@ public class DefaultDataStoreRegistry implements DataStoreRegistry {
         return dataStores.containsKey(entityType);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public synchronized Object mark() {
+        final Savepoint savepoint = new Savepoint();
+        for (DataStore<?, ?> dataStore : dataStores.values()) {
+            if (dataStore instanceof SavepointDataStore) {
+                savepoint.marks.put((SavepointDataStore<?, ?, Object>) dataStore, ((SavepointDataStore<?, ?, Object>) dataStore).mark());
+            }
+        }
+        log.info("Marked a savepoint across " + savepoint.marks.size() + " data stores");
+        savepoints.add(savepoint);
+        return savepoint;
+    }
+
+    @Override
+    public synchronized void rollback(Object savepoint) {
+        final int index = indexOf(savepoint);
+        log.info("Rolling back " + savepoints.get(index).marks.size() + " data stores to a savepoint");
+        for (Map.Entry<SavepointDataStore<?, ?, Object>, Object> entry : savepoints.get(index).marks.entrySet()) {
+            entry.getKey().rollback(entry.getValue());
+        }
+        //the data stores have discarded all later savepoints, and so should we
+        savepoints.subList(index + 1, savepoints.size()).clear();
+    }
+
+    @Override
+    public synchronized void release(Object savepoint) {
+        final int index = indexOf(savepoint);
+        for (Map.Entry<SavepointDataStore<?, ?, Object>, Object> entry : savepoints.get(index).marks.entrySet()) {
+            entry.getKey().release(entry.getValue());
+        }
+        savepoints.subList(index, savepoints.size()).clear();
+    }
+
+    @Override
+    public DefaultDataStoreRegistry fork() {
+        final DefaultDataStoreRegistry registry = new DefaultDataStoreRegistry(sampleSize);
+        for (DataStore<?, ?> dataStore : dataStores.values()) {
+            if (!(dataStore instanceof ForkableDataStore)) {
+                log.error("Data store for type " + dataStore.getEntityType() + " cannot be forked");
+                throw new DataStoreException(dataStore.getEntityType(), "The data store cannot be forked: " + dataStore.getClass().getName());
+            }
+            registry.register(((ForkableDataStore<?, ?>) dataStore).fork());
+        }
+        log.info("Forked the registry with " + registry.dataStores.size() + " data stores");
+        return registry;
+    }
+
+    @Override
+    public DataStoreStatistics getStatistics(Class<?> entityType) {
+        final DataStore<?, ?> dataStore = getDataStore(entityType);
+        if (dataStore instanceof StatisticsDataStore) {
+            final DataStoreStatistics statistics = ((StatisticsDataStore<?, ?>) dataStore).getStatistics();
+            if (statistics != null) {
+                return statistics;
+            }
+        }
+        return sample(dataStore);
+    }
+
+    /**
+     * Describes the data store from a uniform sample of its entities, picked using reservoir sampling so that the
+     * data store is only scanned once
+     * @param dataStore    the data store
+     * @return the statistics
+     */
+    private <K extends Serializable, E> DataStoreStatistics sample(DataStore<K, E> dataStore) {
+        log.info("Sampling up to " + sampleSize + " entities of type " + dataStore.getEntityType());
+        final List<E> sample = new ArrayList<>();
+        final long[] population = new long[1];
+        final Random random = ThreadLocalRandom.current();
+        DataStoreUtils.scan(dataStore, new DataStoreVisitor<K, E>() {
+            @Override
+            public boolean visit(K key, E entity) {
+                final long seen = population[0]++;
+                if (sample.size() < sampleSize) {
+                    sample.add(entity);
+                } else {
+                    //the entity replaces one in the sample with the probability of sampleSize / (seen + 1)
+                    final long slot = (long) (random.nextDouble() * (seen + 1));
+                    if (slot < sampleSize) {
+                        sample.set((int) slot, entity);
+                    }
+                }
+                return true;
+            }
+        });
+        final StatisticsAccumulator accumulator = new StatisticsAccumulator(dataStore.getEntityType(), StatisticsAccumulator.getSimpleProperties(dataStore.getEntityType()));
+        for (E entity : sample) {
+            accumulator.add(accumulator.read(entity));
+        }
+        return accumulator.getStatistics(population[0]);
+    }
+
+    private int indexOf(Object savepoint) {
+        final int index = savepoints.indexOf(savepoint);
+        if (index < 0) {
+            log.error("Savepoint " + savepoint + " is not active");
+            throw new InvalidArgumentException("The savepoint is not active; it has either been released or rolled back past");
+        }
+        return index;
+    }
+
+    /**
+     * Holds the savepoint marked on each of the data stores
+     */
+    private static class Savepoint {
+
+        private final Map<SavepointDataStore<?, ?, Object>, Object> marks = new IdentityHashMap<>();
+
+    }
+
 }
@@ -0,0 +1,138 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>This data store is meant for keys handed out by the
+ * {@link com.mmnaseri.utils.spring.data.domain.impl.key.SequentialLongKeyGenerator sequential key generators}, which
+ * start at one and keep counting up. Entities are placed in fixed-size chunks of an array, so that finding the
+ * entity for a key takes two array lookups and no hashing, and no memory is spent on anything but the references to
+ * the entities themselves. The chunks are atomic arrays, so that entities can be read without taking a lock.</p>
+ *
+ * <p>Keys that are negative or too large to be held densely ({@link #MAXIMUM_DENSE_KEY} and up) are kept in a
+ * {@link LongObjectMap} on the side, so that any integral key can still be saved.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class DenseMemoryDataStore<K extends Serializable, E> extends AbstractLongKeyDataStore<K, E> {
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    /**
+     * The smallest key that is not held in the chunks
+     */
+    public static final long MAXIMUM_DENSE_KEY = 1L << 26;
+    /**
+     * The chunks are never moved once allocated, so growing the directory only copies the references to them
+     */
+    private volatile AtomicReferenceArray<AtomicReferenceArray<E>> chunks = new AtomicReferenceArray<>(0);
+    private volatile LongObjectMap<E> overflow = new LongObjectMap<>();
+    private volatile int count;
+
+    public DenseMemoryDataStore(Class<K> keyType, Class<E> entityType) {
+        super(keyType, entityType);
+    }
+
+    @Override
+    protected E get(long key) {
+        if (!isDense(key)) {
+            return overflow.get(key);
+        }
+        final AtomicReferenceArray<E> chunk = chunk(chunks, key);
+        return chunk == null ? null : chunk.get((int) key & CHUNK_MASK);
+    }
+
+    @Override
+    protected E put(long key, E entity) {
+        final E previous;
+        if (isDense(key)) {
+            final int index = (int) (key >>> CHUNK_BITS);
+            AtomicReferenceArray<AtomicReferenceArray<E>> chunks = this.chunks;
+            if (index >= chunks.length()) {
+                final AtomicReferenceArray<AtomicReferenceArray<E>> grown = new AtomicReferenceArray<>(Math.max(index + 1, chunks.length() * 2));
+                for (int i = 0; i < chunks.length(); i++) {
+                    grown.set(i, chunks.get(i));
+                }
+                this.chunks = chunks = grown;
+            }
+            AtomicReferenceArray<E> chunk = chunks.get(index);
+            if (chunk == null) {
+                chunk = new AtomicReferenceArray<>(CHUNK_SIZE);
+                chunks.set(index, chunk);
+            }
+            previous = chunk.getAndSet((int) key & CHUNK_MASK, entity);
+        } else {
+            previous = overflow.put(key, entity);
+        }
+        if (previous == null) {
+            count++;
+        }
+        return previous;
+    }
+
+    @Override
+    protected E remove(long key) {
+        final E previous;
+        if (isDense(key)) {
+            final AtomicReferenceArray<E> chunk = chunk(chunks, key);
+            if (chunk == null) {
+                return null;
+            }
+            previous = chunk.getAndSet((int) key & CHUNK_MASK, null);
+        } else {
+            previous = overflow.remove(key);
+        }
+        if (previous != null) {
+            count--;
+        }
+        return previous;
+    }
+
+    @Override
+    protected void clear() {
+        chunks = new AtomicReferenceArray<>(0);
+        overflow = new LongObjectMap<>();
+        count = 0;
+    }
+
+    @Override
+    protected int count() {
+        return count;
+    }
+
+    /**
+     * Visits the densely held entities in the order of their keys, followed by the rest of the entities
+     */
+    @Override
+    protected void visit(LongObjectMap.Visitor<E> visitor) {
+        final AtomicReferenceArray<AtomicReferenceArray<E>> chunks = this.chunks;
+        final LongObjectMap<E> overflow = this.overflow;
+        for (int index = 0; index < chunks.length(); index++) {
+            final AtomicReferenceArray<E> chunk = chunks.get(index);
+            if (chunk == null) {
+                continue;
+            }
+            for (int offset = 0; offset < CHUNK_SIZE; offset++) {
+                final E entity = chunk.get(offset);
+                if (entity != null && !visitor.visit(((long) index << CHUNK_BITS) | offset, entity)) {
+                    return;
+                }
+            }
+        }
+        overflow.visit(visitor);
+    }
+
+    private static <E> AtomicReferenceArray<E> chunk(AtomicReferenceArray<AtomicReferenceArray<E>> chunks, long key) {
+        final int index = (int) (key >>> CHUNK_BITS);
+        return index < chunks.length() ? chunks.get(index) : null;
+    }
+
+    private static boolean isDense(long key) {
+        return key >= 0 && key < MAXIMUM_DENSE_KEY;
+    }
+
+}
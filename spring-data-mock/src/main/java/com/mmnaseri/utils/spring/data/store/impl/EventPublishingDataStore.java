@@ -1,16 +1,44 @@
 package com.mmnaseri.utils.spring.data.store.impl;
 
+import com.mmnaseri.utils.spring.data.domain.Invocation;
+import com.mmnaseri.utils.spring.data.domain.Parameter;
 import com.mmnaseri.utils.spring.data.domain.RepositoryMetadata;
 import com.mmnaseri.utils.spring.data.error.CorruptDataException;
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.query.Order;
+import com.mmnaseri.utils.spring.data.store.AtomicDataStore;
+import com.mmnaseri.utils.spring.data.store.BulkDataStore;
+import com.mmnaseri.utils.spring.data.store.ChangeCapturingDataStore;
+import com.mmnaseri.utils.spring.data.store.ChangeFeed;
+import com.mmnaseri.utils.spring.data.store.ChangeType;
+import com.mmnaseri.utils.spring.data.store.ColumnarDataStore;
 import com.mmnaseri.utils.spring.data.store.DataStore;
 import com.mmnaseri.utils.spring.data.store.DataStoreEvent;
 import com.mmnaseri.utils.spring.data.store.DataStoreEventListenerContext;
 import com.mmnaseri.utils.spring.data.store.DataStoreEventPublisher;
+import com.mmnaseri.utils.spring.data.store.DataStoreStatistics;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import com.mmnaseri.utils.spring.data.store.EvictingDataStore;
+import com.mmnaseri.utils.spring.data.store.EvictionListener;
+import com.mmnaseri.utils.spring.data.store.ForkableDataStore;
+import com.mmnaseri.utils.spring.data.store.IndexedDataStore;
+import com.mmnaseri.utils.spring.data.store.PartitionedDataStore;
+import com.mmnaseri.utils.spring.data.store.QueueingDataStore;
+import com.mmnaseri.utils.spring.data.store.SavepointDataStore;
+import com.mmnaseri.utils.spring.data.store.SelectiveDataStoreEventListenerContext;
+import com.mmnaseri.utils.spring.data.store.StatisticsDataStore;
+import com.mmnaseri.utils.spring.data.store.VersionedDataStore;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.Serializable;
-import java.util.Collection;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This implementation relies on a delegate data store to handling the actual storage/retrieval. It decorates the
@@ -19,17 +47,54 @@ import java.util.Collection;
  * @author Milad Naseri (mmnaseri@programmer.net)
  * @since 1.0 (10/6/15)
  */
-public class EventPublishingDataStore<K extends Serializable, E> implements DataStore<K, E>, DataStoreEventPublisher {
+public class EventPublishingDataStore<K extends Serializable, E> implements IndexedDataStore<K, E>, QueueingDataStore<K, E, Object>, SavepointDataStore<K, E, Object>, PartitionedDataStore<K, E>, ForkableDataStore<K, E>, BulkDataStore<K, E>, ColumnarDataStore<K, E>, StatisticsDataStore<K, E>, ChangeCapturingDataStore<K, E>, VersionedDataStore<K, E>, AtomicDataStore<K, E>, DataStoreEventPublisher {
 
     private static final Log log = LogFactory.getLog(EventPublishingDataStore.class);
+    private static final int LOCK_STRIPES = 64;
     private final DataStore<K, E> delegate;
     private final RepositoryMetadata repositoryMetadata;
     private final DataStoreEventListenerContext listenerContext;
+    private final ThreadLocal<Batches> batches = new ThreadLocal<>();
+    private final UndoLog<K, E> undoLog;
+    private final ChangeLog<K, E> changeLog;
+    private final Lock[] locks;
 
     public EventPublishingDataStore(DataStore<K, E> delegate, RepositoryMetadata repositoryMetadata, DataStoreEventListenerContext listenerContext) {
+        this(delegate, repositoryMetadata, listenerContext, null);
+    }
+
+    /**
+     * Every change made through this data store, including the entities evicted by the delegate, truncating the data
+     * store, and the changes undone by rolling back to a savepoint kept by this data store, is recorded in the change
+     * log by the thread making it, before the "after" events are published. To keep the changes to any given key in
+     * order, each write and the recording of its change are done while holding a lock picked by the key. If the
+     * delegate is an {@link EvictingDataStore}, the entities it evicts on its own are reported as deleted.
+     * @param changeLog    the log in which to record the changes made through this data store, or {@literal null} if
+     *                     the changes need not be recorded, in which case the locks are only taken while there are
+     *                     listeners for the "before" events
+     */
+    public EventPublishingDataStore(DataStore<K, E> delegate, RepositoryMetadata repositoryMetadata, DataStoreEventListenerContext listenerContext, ChangeLog<K, E> changeLog) {
         this.delegate = delegate;
         this.repositoryMetadata = repositoryMetadata;
         this.listenerContext = listenerContext;
+        this.changeLog = changeLog;
+        this.locks = new Lock[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        //rolling back goes through a view of the delegate that records what is undone
+        this.undoLog = delegate instanceof SavepointDataStore ? null : new UndoLog<>(new RollbackCapturingDataStore());
+        if (delegate instanceof EvictingDataStore) {
+            ((EvictingDataStore<K, E>) delegate).addEvictionListener(new EvictionListener<K, E>() {
+                @Override
+                public void onEviction(K key, E entity) {
+                    record(ChangeType.DELETE, key, entity, null);
+                    if (hasListeners(AfterDeleteDataStoreEvent.class)) {
+                        publishAfterEvent(new AfterDeleteDataStoreEvent(EventPublishingDataStore.this.repositoryMetadata, EventPublishingDataStore.this, entity));
+                    }
+                }
+            });
+        }
     }
 
     @Override
@@ -39,6 +104,207 @@ public class EventPublishingDataStore<K extends Serializable, E> implements Data
 
     @Override
     public boolean save(K key, E entity) {
+        return put(key, entity) == null;
+    }
+
+    /**
+     * Goes through an {@link AtomicDataStore atomic write} if the delegate supports it, so that whether the save was an
+     * insert or an update is decided by the write itself. If there are listeners for the "before" events, the key is
+     * looked up first, so that one "before" event can be published ahead of the write. This is done while holding the
+     * lock picked by the key, which every write made through this data store takes as long as there are such
+     * listeners, so the entity looked up is the one the write replaces.
+     */
+    @Override
+    public E put(K key, E entity) {
+        checkSave(key, entity);
+        if (undoLog != null) {
+            undoLog.record(key);
+        }
+        final E previous;
+        final Lock held = lock(key);
+        try {
+            if (!(delegate instanceof AtomicDataStore)) {
+                previous = delegate.retrieve(key);
+                publishBeforeSave(key, previous, entity);
+                delegate.save(key, entity);
+            } else if (hasListeners(BeforeInsertDataStoreEvent.class) || hasListeners(BeforeUpdateDataStoreEvent.class)) {
+                //the listeners need to know whether this is an insert or an update before the entity is saved
+                publishBeforeSave(key, delegate.retrieve(key), entity);
+                previous = ((AtomicDataStore<K, E>) delegate).put(key, entity);
+            } else {
+                previous = ((AtomicDataStore<K, E>) delegate).put(key, entity);
+            }
+            record(previous == null ? ChangeType.INSERT : ChangeType.UPDATE, key, previous, entity);
+        } finally {
+            unlock(held);
+        }
+        publishAfterSave(key, previous, entity, previous == null);
+        return previous;
+    }
+
+    @Override
+    public E putIfAbsent(K key, E entity) {
+        checkSave(key, entity);
+        if (undoLog != null) {
+            undoLog.record(key);
+        }
+        E existing = null;
+        final Lock held = lock(key);
+        try {
+            if (!(delegate instanceof AtomicDataStore) || hasListeners(BeforeInsertDataStoreEvent.class)) {
+                existing = delegate.retrieve(key);
+                if (existing != null) {
+                    log.info("Did not save the entity, since there already is one under key " + key);
+                    return existing;
+                }
+                publishBeforeSave(key, null, entity);
+            }
+            if (delegate instanceof AtomicDataStore) {
+                existing = ((AtomicDataStore<K, E>) delegate).putIfAbsent(key, entity);
+            } else {
+                delegate.save(key, entity);
+            }
+            if (existing == null) {
+                record(ChangeType.INSERT, key, null, entity);
+            }
+        } finally {
+            unlock(held);
+        }
+        if (existing == null) {
+            publishAfterSave(key, null, entity, true);
+        }
+        return existing;
+    }
+
+    @Override
+    public boolean save(K key, E entity, String versionProperty) {
+        return put(key, entity, versionProperty) == null;
+    }
+
+    /**
+     * Checks the version of the entity against the stored entity before anything else, so that a stale entity is
+     * turned down without publishing any events or recording anything for the savepoints. The save itself is then
+     * {@link DataStoreUtils#put(DataStore, Serializable, Object, String) made through the delegate}, which checks the
+     * version again as part of the write, and the "after" event is published for the entity the write actually
+     * replaced.
+     */
+    @Override
+    public E put(K key, E entity, String versionProperty) {
+        checkSave(key, entity);
+        final E previous;
+        final Lock held = lock(key);
+        try {
+            final E current = delegate.retrieve(key);
+            VersionUtils.check(getEntityType(), key, current, entity, versionProperty);
+            publishBeforeSave(key, current, entity);
+            if (undoLog != null) {
+                undoLog.record(key);
+            }
+            previous = DataStoreUtils.put(delegate, key, entity, versionProperty);
+            record(previous == null ? ChangeType.INSERT : ChangeType.UPDATE, key, previous, entity);
+        } finally {
+            unlock(held);
+        }
+        publishAfterSave(key, previous, entity, previous == null);
+        return previous;
+    }
+
+    @Override
+    public boolean delete(K key) {
+        return remove(key) != null;
+    }
+
+    /**
+     * Goes through an {@link AtomicDataStore atomic write} if the delegate supports it and nobody is listening for the
+     * "before" events
+     */
+    @Override
+    public E remove(K key) {
+        if (undoLog != null) {
+            undoLog.record(key);
+        }
+        final E removed;
+        final Lock held = lock(key);
+        try {
+            if (delegate instanceof AtomicDataStore && !hasListeners(BeforeDeleteDataStoreEvent.class)) {
+                removed = ((AtomicDataStore<K, E>) delegate).remove(key);
+            } else {
+                final E entity = delegate.retrieve(key);
+                if (entity == null) {
+                    log.info("Attempted to delete entity with key " + key + " but found nothing");
+                    return null;
+                }
+                log.info("About to delete an entity with key " + key);
+                if (hasListeners(BeforeDeleteDataStoreEvent.class)) {
+                    publishEvent(new BeforeDeleteDataStoreEvent(repositoryMetadata, this, entity));
+                }
+                if (delegate instanceof AtomicDataStore) {
+                    removed = ((AtomicDataStore<K, E>) delegate).remove(key);
+                } else {
+                    removed = delegate.delete(key) ? entity : null;
+                }
+            }
+            if (removed != null) {
+                record(ChangeType.DELETE, key, removed, null);
+            }
+        } finally {
+            unlock(held);
+        }
+        if (removed == null) {
+            log.info("Attempted to delete entity with key " + key + " but found nothing");
+            return null;
+        }
+        publishAfterDelete(key, removed);
+        return removed;
+    }
+
+    /**
+     * The "before" events are published each time the delegate applies the function
+     */
+    @Override
+    public E compute(K key, final EntityRemappingFunction<K, E> function) {
+        if (key == null) {
+            log.error("Cannot save an entity under a null key");
+            throw new CorruptDataException(getEntityType(), null, "Cannot save an entity with a null key");
+        }
+        if (undoLog != null) {
+            undoLog.record(key);
+        }
+        final AtomicReference<E> previous = new AtomicReference<>();
+        final E computed;
+        final Lock held = lock(key);
+        try {
+            computed = DataStoreUtils.compute(delegate, key, new EntityRemappingFunction<K, E>() {
+                @Override
+                public E apply(K key, E current) {
+                    final E computed = function.apply(key, current);
+                    //this runs again if the computation is retried, so the "before" event is published once per attempt
+                    if (computed != null) {
+                        publishBeforeSave(key, current, computed);
+                    } else if (current != null && hasListeners(BeforeDeleteDataStoreEvent.class)) {
+                        publishEvent(new BeforeDeleteDataStoreEvent(repositoryMetadata, EventPublishingDataStore.this, current));
+                    }
+                    previous.set(current);
+                    return computed;
+                }
+            });
+            if (computed != null) {
+                record(previous.get() == null ? ChangeType.INSERT : ChangeType.UPDATE, key, previous.get(), computed);
+            } else if (previous.get() != null) {
+                record(ChangeType.DELETE, key, previous.get(), null);
+            }
+        } finally {
+            unlock(held);
+        }
+        if (computed != null) {
+            publishAfterSave(key, previous.get(), computed, previous.get() == null);
+        } else if (previous.get() != null) {
+            publishAfterDelete(key, previous.get());
+        }
+        return computed;
+    }
+
+    private void checkSave(K key, E entity) {
         if (key == null) {
             log.error("Cannot save an entity under a null key");
             throw new CorruptDataException(getEntityType(), null, "Cannot save an entity with a null key");
@@ -47,44 +313,177 @@ public class EventPublishingDataStore<K extends Serializable, E> implements Data
             log.error("Cannot save a null value into the data store");
             throw new CorruptDataException(getEntityType(), null, "Cannot save null into the data store");
         }
-        final boolean entityIsNew = !delegate.hasKey(key);
-        if (entityIsNew) {
+    }
+
+    /**
+     * Publishes the "before" event for saving an entity
+     * @param key         the key
+     * @param current     the entity currently stored under the key, if any
+     * @param entity      the entity being saved
+     */
+    private void publishBeforeSave(K key, E current, E entity) {
+        if (current == null) {
             log.info("About to insert a new entity in the data store under key " + key);
-            publishEvent(new BeforeInsertDataStoreEvent(repositoryMetadata, this, entity));
+            if (hasListeners(BeforeInsertDataStoreEvent.class)) {
+                publishEvent(new BeforeInsertDataStoreEvent(repositoryMetadata, this, entity));
+            }
         } else {
             log.info("About to update the entity in the data store under key " + key);
-            publishEvent(new BeforeUpdateDataStoreEvent(repositoryMetadata, this, entity));
+            if (hasListeners(BeforeUpdateDataStoreEvent.class)) {
+                publishEvent(new BeforeUpdateDataStoreEvent(repositoryMetadata, this, entity));
+            }
         }
-        delegate.save(key, entity);
-        if (entityIsNew) {
+    }
+
+    /**
+     * Publishes the "after" event for an entity that has been saved
+     * @param key         the key
+     * @param previous    the entity that was replaced, if any
+     * @param entity      the entity that was saved
+     * @param inserted    whether the entity was inserted, rather than replacing another
+     */
+    private void publishAfterSave(K key, E previous, E entity, boolean inserted) {
+        if (inserted) {
             log.info("Finished inserting the entity in the data store under key " + key);
-            publishEvent(new AfterInsertDataStoreEvent(repositoryMetadata, this, entity));
-            return true;
+            if (hasListeners(AfterInsertDataStoreEvent.class)) {
+                publishAfterEvent(new AfterInsertDataStoreEvent(repositoryMetadata, this, entity));
+            }
         } else {
             log.info("Finished updating the entity under key " + key);
-            publishEvent(new AfterUpdateDataStoreEvent(repositoryMetadata, this, entity));
-            return false;
+            if (hasListeners(AfterUpdateDataStoreEvent.class)) {
+                publishAfterEvent(new AfterUpdateDataStoreEvent(repositoryMetadata, this, entity));
+            }
+        }
+    }
+
+    /**
+     * Publishes the "after" event for an entity that has been deleted
+     * @param key       the key
+     * @param entity    the entity that was deleted
+     */
+    private void publishAfterDelete(K key, E entity) {
+        log.info("Finished deleting the entity with key " + key);
+        if (hasListeners(AfterDeleteDataStoreEvent.class)) {
+            publishAfterEvent(new AfterDeleteDataStoreEvent(repositoryMetadata, this, entity));
         }
     }
 
+    /**
+     * Publishes the "before" events for all the entities first, then asks the delegate to save them all in one go, and
+     * finally publishes the "after" events. Listeners still see one event per entity.
+     */
     @Override
-    public boolean delete(K key) {
-        if (!delegate.hasKey(key)) {
-            log.info("Attempted to delete entity with key " + key + " but found nothing");
-            return false;
+    public int saveAll(Map<K, E> entities) {
+        for (Map.Entry<K, E> entry : entities.entrySet()) {
+            if (entry.getKey() == null) {
+                log.error("Cannot save an entity under a null key");
+                throw new CorruptDataException(getEntityType(), null, "Cannot save an entity with a null key");
+            }
+            if (entry.getValue() == null) {
+                log.error("Cannot save a null value into the data store");
+                throw new CorruptDataException(getEntityType(), null, "Cannot save null into the data store");
+            }
         }
-        final E entity = delegate.retrieve(key);
-        log.info("About to delete an entity with key " + key);
-        publishEvent(new BeforeDeleteDataStoreEvent(repositoryMetadata, this, entity));
-        delegate.delete(key);
-        log.info("Finished deleting the entity with key " + key);
-        publishEvent(new AfterDeleteDataStoreEvent(repositoryMetadata, this, entity));
-        return true;
+        log.info("About to save " + entities.size() + " entities in the data store");
+        final boolean beforeInsert = hasListeners(BeforeInsertDataStoreEvent.class);
+        final boolean beforeUpdate = hasListeners(BeforeUpdateDataStoreEvent.class);
+        final Set<K> inserted = new HashSet<>();
+        final Map<K, E> previous = new HashMap<>();
+        final List<Lock> held = lockAll(entities.keySet());
+        try {
+            for (Map.Entry<K, E> entry : entities.entrySet()) {
+                final E current = delegate.retrieve(entry.getKey());
+                if (current == null) {
+                    inserted.add(entry.getKey());
+                    if (beforeInsert) {
+                        publishEvent(new BeforeInsertDataStoreEvent(repositoryMetadata, this, entry.getValue()));
+                    }
+                } else {
+                    previous.put(entry.getKey(), current);
+                    if (beforeUpdate) {
+                        publishEvent(new BeforeUpdateDataStoreEvent(repositoryMetadata, this, entry.getValue()));
+                    }
+                }
+                if (undoLog != null) {
+                    undoLog.record(entry.getKey());
+                }
+            }
+            DataStoreUtils.saveAll(delegate, entities);
+            if (changeLog != null) {
+                for (Map.Entry<K, E> entry : entities.entrySet()) {
+                    final boolean entityIsNew = inserted.contains(entry.getKey());
+                    record(entityIsNew ? ChangeType.INSERT : ChangeType.UPDATE, entry.getKey(), previous.get(entry.getKey()), entry.getValue());
+                }
+            }
+        } finally {
+            unlockAll(held);
+        }
+        log.info("Finished saving " + entities.size() + " entities, " + inserted.size() + " of which were new");
+        final boolean afterInsert = hasListeners(AfterInsertDataStoreEvent.class);
+        final boolean afterUpdate = hasListeners(AfterUpdateDataStoreEvent.class);
+        if (afterInsert || afterUpdate) {
+            for (Map.Entry<K, E> entry : entities.entrySet()) {
+                if (inserted.contains(entry.getKey())) {
+                    if (afterInsert) {
+                        publishAfterEvent(new AfterInsertDataStoreEvent(repositoryMetadata, this, entry.getValue()));
+                    }
+                } else if (afterUpdate) {
+                    publishAfterEvent(new AfterUpdateDataStoreEvent(repositoryMetadata, this, entry.getValue()));
+                }
+            }
+        }
+        return inserted.size();
+    }
+
+    /**
+     * Carried out in the same phases as {@link #saveAll(Map)}
+     */
+    @Override
+    public Map<K, E> deleteAll(Collection<K> keys) {
+        final Map<K, E> found = DataStoreUtils.newLinkedHashMap(keys.size());
+        final List<Lock> held = lockAll(keys);
+        try {
+            for (K key : keys) {
+                final E entity = delegate.retrieve(key);
+                if (entity != null) {
+                    found.put(key, entity);
+                }
+            }
+            log.info("About to delete " + found.size() + " entities");
+            final boolean beforeDelete = hasListeners(BeforeDeleteDataStoreEvent.class);
+            for (Map.Entry<K, E> entry : found.entrySet()) {
+                if (beforeDelete) {
+                    publishEvent(new BeforeDeleteDataStoreEvent(repositoryMetadata, this, entry.getValue()));
+                }
+                if (undoLog != null) {
+                    undoLog.record(entry.getKey());
+                }
+            }
+            DataStoreUtils.deleteAll(delegate, found.keySet());
+            for (Map.Entry<K, E> entry : found.entrySet()) {
+                record(ChangeType.DELETE, entry.getKey(), entry.getValue(), null);
+            }
+        } finally {
+            unlockAll(held);
+        }
+        log.info("Finished deleting " + found.size() + " entities");
+        if (hasListeners(AfterDeleteDataStoreEvent.class)) {
+            for (E entity : found.values()) {
+                publishAfterEvent(new AfterDeleteDataStoreEvent(repositoryMetadata, this, entity));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<E> retrieveAll(Collection<K> keys) {
+        return isolate(DataStoreUtils.retrieveAll(delegate, keys));
     }
 
     @Override
     public E retrieve(K key) {
-        return delegate.retrieve(key);
+        final E entity = delegate.retrieve(key);
+        return isIsolating() ? undoLog.copy(entity) : entity;
     }
 
     @Override
@@ -94,7 +493,33 @@ public class EventPublishingDataStore<K extends Serializable, E> implements Data
 
     @Override
     public Collection<E> retrieveAll() {
-        return delegate.retrieveAll();
+        final Collection<E> entities = delegate.retrieveAll();
+        return isIsolating() ? isolate(entities) : entities;
+    }
+
+    @Override
+    public void scan(DataStoreVisitor<K, E> visitor) {
+        DataStoreUtils.scan(delegate, isolate(visitor));
+    }
+
+    /**
+     * @return the number of partitions of the delegate if it is a {@link PartitionedDataStore}, or otherwise one, as
+     * the whole data store is presented as a single partition
+     */
+    @Override
+    public int getPartitionCount() {
+        return delegate instanceof PartitionedDataStore ? ((PartitionedDataStore) delegate).getPartitionCount() : 1;
+    }
+
+    @Override
+    public void scan(int partition, DataStoreVisitor<K, E> visitor) {
+        if (delegate instanceof PartitionedDataStore) {
+            ((PartitionedDataStore<K, E>) delegate).scan(partition, isolate(visitor));
+        } else if (partition == 0) {
+            DataStoreUtils.scan(delegate, isolate(visitor));
+        } else {
+            throw new InvalidArgumentException("No such partition: " + partition);
+        }
     }
 
     @Override
@@ -102,9 +527,186 @@ public class EventPublishingDataStore<K extends Serializable, E> implements Data
         return delegate.getEntityType();
     }
 
+    /**
+     * @return the data store to which all operations are delegated
+     */
+    public DataStore<K, E> getDelegate() {
+        return delegate;
+    }
+
     @Override
     public void truncate() {
-        delegate.truncate();
+        final List<Lock> held = lockAll(null);
+        try {
+            if (undoLog != null) {
+                undoLog.recordAll();
+            }
+            delegate.truncate();
+            record(ChangeType.TRUNCATE, null, null, null);
+        } finally {
+            unlockAll(held);
+        }
+    }
+
+    /**
+     * Forwarded to the delegate if it is an {@link IndexedDataStore}
+     */
+    @Override
+    public Set<K> lookup(Parameter parameter, Object... operands) {
+        if (delegate instanceof IndexedDataStore) {
+            return ((IndexedDataStore<K, E>) delegate).lookup(parameter, operands);
+        }
+        return null;
+    }
+
+    /**
+     * Forwarded to the delegate if it is an {@link IndexedDataStore}
+     */
+    @Override
+    public List<K> sort(Order order) {
+        if (delegate instanceof IndexedDataStore) {
+            return ((IndexedDataStore<K, E>) delegate).sort(order);
+        }
+        return null;
+    }
+
+    /**
+     * Forwarded to the delegate if it is a {@link ColumnarDataStore}
+     */
+    @Override
+    public List<E> select(List<List<Parameter>> branches, Invocation invocation) {
+        if (delegate instanceof ColumnarDataStore) {
+            final List<E> selected = ((ColumnarDataStore<K, E>) delegate).select(branches, invocation);
+            return selected == null ? null : isolate(selected);
+        }
+        return null;
+    }
+
+    /**
+     * Forwarded to the delegate if it is a {@link StatisticsDataStore}
+     */
+    @Override
+    public DataStoreStatistics getStatistics() {
+        if (delegate instanceof StatisticsDataStore) {
+            return ((StatisticsDataStore) delegate).getStatistics();
+        }
+        return null;
+    }
+
+    /**
+     * @return the log of the changes made through this data store, or {@literal null} if this data store was not given
+     * a change log
+     */
+    @Override
+    public ChangeFeed<K, E> getChanges() {
+        return changeLog;
+    }
+
+    /**
+     * Flushes the delegate if it is a {@link QueueingDataStore}
+     */
+    @Override
+    public void flush() {
+        if (delegate instanceof QueueingDataStore) {
+            ((QueueingDataStore) delegate).flush();
+        }
+    }
+
+    /**
+     * Starts a batch on the delegate if it is a {@link QueueingDataStore}. Batches belong to the thread that started
+     * them: while a thread has a batch in progress, the "after" events for the writes it makes are held back until its
+     * outermost batch has ended. Writes made by other threads in the meantime publish their events right away.
+     * @return the batch
+     */
+    @Override
+    public Object startBatch() {
+        final Object batch = delegate instanceof QueueingDataStore ? ((QueueingDataStore) delegate).startBatch() : new Object();
+        Batches current = batches.get();
+        if (current == null) {
+            current = new Batches();
+            batches.set(current);
+        }
+        current.open.push(batch);
+        return batch;
+    }
+
+    /**
+     * Ends the batch, first on the delegate so that it can apply its queue, and then here, publishing the events held
+     * back during the batch if it was the outermost one. The batch is ended here even if the delegate fails to end it,
+     * so that a failed batch does not hold back events for good.
+     * @param batch    the batch
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void endBatch(Object batch) {
+        final Batches current = batches.get();
+        try {
+            if (delegate instanceof QueueingDataStore) {
+                ((QueueingDataStore) delegate).endBatch(batch);
+            }
+        } finally {
+            if (current == null || !current.open.remove(batch)) {
+                log.warn("Attempted to end a batch that was not started by this thread: " + batch);
+            } else if (current.open.isEmpty()) {
+                batches.remove();
+                log.info("Publishing " + current.deferred.size() + " events held back during the batch");
+                for (DataStoreEvent event : current.deferred) {
+                    publishEvent(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forwarded to the delegate if it is a {@link SavepointDataStore}. Otherwise, this data store keeps an
+     * {@link UndoLog} of its own, so that any delegate can be rolled back. While the undo log has savepoints in place,
+     * the entities read from this data store are copies of the ones it holds, so that retrieving an entity, changing it,
+     * and saving it does not change the state recorded for rolling back. Entities saved through this data store are
+     * still held as they are, so an entity that is changed in place after it has been saved must be saved again before
+     * rolling back to a savepoint marked in the meantime.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object mark() {
+        return undoLog == null ? ((SavepointDataStore) delegate).mark() : undoLog.mark();
+    }
+
+    /**
+     * Rolling back does not publish any events
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void rollback(Object savepoint) {
+        if (undoLog == null) {
+            ((SavepointDataStore) delegate).rollback(savepoint);
+        } else {
+            undoLog.rollback(savepoint);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void release(Object savepoint) {
+        if (undoLog == null) {
+            ((SavepointDataStore) delegate).release(savepoint);
+        } else {
+            undoLog.release(savepoint);
+        }
+    }
+
+    /**
+     * Wraps a fork of the delegate, which has to be a {@link ForkableDataStore}, and publishes its events to the same
+     * listeners
+     */
+    @Override
+    public EventPublishingDataStore<K, E> fork() {
+        if (!(delegate instanceof ForkableDataStore)) {
+            log.error("Cannot fork a data store backed by " + delegate.getClass());
+            throw new DataStoreException(getEntityType(), "The underlying data store cannot be forked: " + delegate.getClass().getName());
+        }
+        final ForkableDataStore<K, E> forkable = (ForkableDataStore<K, E>) delegate;
+        final ChangeLog<K, E> forkedLog = changeLog == null ? null : new ChangeLog<K, E>(getEntityType(), changeLog.getCapacity(), changeLog.getTimeout(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        return new EventPublishingDataStore<>(forkable.fork(), repositoryMetadata, listenerContext, forkedLog);
     }
 
     @Override
@@ -112,4 +714,212 @@ public class EventPublishingDataStore<K extends Serializable, E> implements Data
          listenerContext.trigger(event);
     }
 
+    /**
+     * @return {@literal true} if the entities handed out should be copies, because the undo log has savepoints in place
+     */
+    private boolean isIsolating() {
+        return undoLog != null && undoLog.isActive();
+    }
+
+    /**
+     * @param entities    the entities
+     * @return copies of the entities, if the entities handed out should be copies, or else the entities themselves
+     */
+    private List<E> isolate(Collection<E> entities) {
+        if (!isIsolating()) {
+            return entities instanceof List ? (List<E>) entities : new ArrayList<>(entities);
+        }
+        final List<E> copies = new ArrayList<>(entities.size());
+        for (E entity : entities) {
+            copies.add(undoLog.copy(entity));
+        }
+        return copies;
+    }
+
+    private DataStoreVisitor<K, E> isolate(final DataStoreVisitor<K, E> visitor) {
+        if (!isIsolating()) {
+            return visitor;
+        }
+        return new DataStoreVisitor<K, E>() {
+            @Override
+            public boolean visit(K key, E entity) {
+                return visitor.visit(key, undoLog.copy(entity));
+            }
+        };
+    }
+
+    private void record(ChangeType type, K key, E previous, E current) {
+        if (changeLog != null) {
+            changeLog.append(type, key, previous, current);
+        }
+    }
+
+    /**
+     * Takes the lock picked by the key, if there is a change log or anyone listening for the "before" events
+     * @param key    the key
+     * @return the lock taken, or {@literal null} if no lock was needed
+     */
+    private Lock lock(K key) {
+        if (!isLocking()) {
+            return null;
+        }
+        final Lock lock = locks[stripe(key)];
+        lock.lock();
+        return lock;
+    }
+
+    private static void unlock(Lock held) {
+        if (held != null) {
+            held.unlock();
+        }
+    }
+
+    private boolean isLocking() {
+        return changeLog != null || hasListeners(BeforeInsertDataStoreEvent.class) || hasListeners(BeforeUpdateDataStoreEvent.class) || hasListeners(BeforeDeleteDataStoreEvent.class);
+    }
+
+    /**
+     * Takes the locks for all the given keys, in a fixed order, so that bulk writes cannot wait on each other
+     * @param keys    the keys, or {@literal null} to take all the locks
+     * @return the locks taken
+     */
+    private List<Lock> lockAll(Collection<K> keys) {
+        if (!isLocking()) {
+            return Collections.emptyList();
+        }
+        final boolean[] needed = new boolean[locks.length];
+        if (keys == null) {
+            Arrays.fill(needed, true);
+        } else {
+            for (K key : keys) {
+                if (key != null) {
+                    needed[stripe(key)] = true;
+                }
+            }
+        }
+        final List<Lock> held = new ArrayList<>();
+        for (int i = 0; i < needed.length; i++) {
+            if (needed[i]) {
+                locks[i].lock();
+                held.add(locks[i]);
+            }
+        }
+        return held;
+    }
+
+    private static void unlockAll(List<Lock> held) {
+        for (Lock lock : held) {
+            lock.unlock();
+        }
+    }
+
+    private int stripe(K key) {
+        final int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+
+    /**
+     * If the listener context is a {@link SelectiveDataStoreEventListenerContext}, events that no listener would see
+     * are not created at all
+     */
+    private boolean hasListeners(Class<? extends DataStoreEvent> eventType) {
+        return !(listenerContext instanceof SelectiveDataStoreEventListenerContext) || ((SelectiveDataStoreEventListenerContext) listenerContext).hasListeners(eventType);
+    }
+
+    /**
+     * Publishes the event right away, unless the current thread has a batch in progress, in which case the event is held
+     * back until the batch ends.
+     * @param event    the event
+     */
+    private void publishAfterEvent(DataStoreEvent event) {
+        final Batches current = batches.get();
+        if (current != null) {
+            current.deferred.add(event);
+            return;
+        }
+        publishEvent(event);
+    }
+
+    /**
+     * The batches a thread has in progress, along with the "after" events held back until the outermost one ends
+     */
+    private static class Batches {
+
+        private final Deque<Object> open = new ArrayDeque<>();
+        private final List<DataStoreEvent> deferred = new ArrayList<>();
+
+    }
+
+    /**
+     * This is the view of the delegate through which the undo log rolls back the changes, so that whatever is undone
+     * is recorded in the change log as well
+     */
+    private class RollbackCapturingDataStore implements DataStore<K, E> {
+
+        @Override
+        public boolean hasKey(K key) {
+            return delegate.hasKey(key);
+        }
+
+        @Override
+        public boolean save(K key, E entity) {
+            if (changeLog == null) {
+                return delegate.save(key, entity);
+            }
+            final Lock held = lock(key);
+            try {
+                final E previous = delegate.retrieve(key);
+                final boolean saved = delegate.save(key, entity);
+                record(previous == null ? ChangeType.INSERT : ChangeType.UPDATE, key, previous, entity);
+                return saved;
+            } finally {
+                unlock(held);
+            }
+        }
+
+        @Override
+        public boolean delete(K key) {
+            if (changeLog == null) {
+                return delegate.delete(key);
+            }
+            final Lock held = lock(key);
+            try {
+                final E previous = delegate.retrieve(key);
+                final boolean deleted = delegate.delete(key);
+                if (previous != null) {
+                    record(ChangeType.DELETE, key, previous, null);
+                }
+                return deleted;
+            } finally {
+                unlock(held);
+            }
+        }
+
+        @Override
+        public E retrieve(K key) {
+            return delegate.retrieve(key);
+        }
+
+        @Override
+        public Collection<K> keys() {
+            return delegate.keys();
+        }
+
+        @Override
+        public Collection<E> retrieveAll() {
+            return delegate.retrieveAll();
+        }
+
+        @Override
+        public Class<E> getEntityType() {
+            return delegate.getEntityType();
+        }
+
+        @Override
+        public void truncate() {
+            delegate.truncate();
+        }
+
+    }
+
 }
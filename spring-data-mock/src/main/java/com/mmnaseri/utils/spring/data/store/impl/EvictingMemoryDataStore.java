@@ -0,0 +1,539 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityWeigher;
+import com.mmnaseri.utils.spring.data.store.EvictingDataStore;
+import com.mmnaseri.utils.spring.data.store.EvictionListener;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>This is an in-memory data store with a bounded capacity. Once the total weight of its entities goes over the
+ * capacity, entities are evicted according to the chosen {@link EvictionPolicy policy}. By default, each entity
+ * weighs exactly one, which makes the capacity the maximum number of entities; an {@link EntityWeigher} can be given
+ * to bound the data store by, for instance, the estimated size of its entities in bytes instead.</p>
+ *
+ * <p>Entities can also be given a time to live, either for the whole data store or one by one when they are saved.
+ * Expired entities are no longer visible to any of the read operations, and are removed from the data store by a
+ * hashed timer wheel, which is advanced whenever the data store is written to or {@link #cleanUp() cleaned up}.</p>
+ *
+ * <p>Reads never take a lock. Instead, the entities that were read are recorded in a small, lossy buffer, which is
+ * applied to the eviction order the next time a writer holds the lock. Under heavy load, some reads might not be
+ * recorded, which only makes the eviction order approximate.</p>
+ *
+ * <p>Listeners registered through {@link #addEvictionListener(EvictionListener)} are notified of every entity that is
+ * evicted or expires, after the lock has been released. When this data store is wrapped in an
+ * {@link EventPublishingDataStore}, this results in delete events being published for those entities.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class EvictingMemoryDataStore<K extends Serializable, E> implements EvictingDataStore<K, E>, ScanningDataStore<K, E> {
+
+    /**
+     * The time to live for entities that should never expire
+     */
+    public static final long NO_EXPIRY = 0;
+    private static final Log log = LogFactory.getLog(EvictingMemoryDataStore.class);
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int WHEEL_SIZE = 256;
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final EntityWeigher<Object> SINGLETON_WEIGHER = new EntityWeigher<Object>() {
+        @Override
+        public long weigh(Object entity) {
+            return 1;
+        }
+    };
+    private final Class<E> entityType;
+    private final EvictionPolicy policy;
+    private final long capacity;
+    private final EntityWeigher<? super E> weigher;
+    private final long timeToLive;
+    private final ConcurrentMap<K, Node<K, E>> entries = new ConcurrentHashMap<>();
+    private final List<EvictionListener<K, E>> listeners = new CopyOnWriteArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicReferenceArray<Node<K, E>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readBufferWrites = new AtomicLong();
+    private volatile long readBufferReads;
+    //everything below is guarded by the lock
+    private final Node<K, E> recency = new Node<>(null, null, 0, Long.MAX_VALUE, 0);
+    private final TreeSet<Node<K, E>> frequency = new TreeSet<>(new FrequencyComparator<K, E>());
+    private final List<Set<Node<K, E>>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private long currentTick;
+    private long weight;
+    private long sequence;
+
+    public EvictingMemoryDataStore(Class<E> entityType, EvictionPolicy policy, long maximumSize) {
+        this(entityType, policy, maximumSize, SINGLETON_WEIGHER, NO_EXPIRY, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param entityType    the entity type
+     * @param policy        the eviction policy
+     * @param capacity      the maximum total weight of the entities
+     * @param weigher       the weigher
+     * @param timeToLive    the time to live for entities saved without one, or {@link #NO_EXPIRY}
+     * @param unit          the unit of the time to live
+     */
+    public EvictingMemoryDataStore(Class<E> entityType, EvictionPolicy policy, long capacity, EntityWeigher<? super E> weigher, long timeToLive, TimeUnit unit) {
+        if (policy == null) {
+            throw new InvalidArgumentException("Eviction policy cannot be null");
+        }
+        if (weigher == null) {
+            throw new InvalidArgumentException("Weigher cannot be null");
+        }
+        if (capacity < 1) {
+            throw new InvalidArgumentException("Capacity must be a positive number: " + capacity);
+        }
+        if (timeToLive < 0) {
+            throw new InvalidArgumentException("Time to live cannot be negative: " + timeToLive);
+        }
+        this.entityType = entityType;
+        this.policy = policy;
+        this.capacity = capacity;
+        this.weigher = weigher;
+        this.timeToLive = unit.toNanos(timeToLive);
+        recency.previous = recency;
+        recency.next = recency;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new LinkedHashSet<Node<K, E>>());
+        }
+        currentTick = now() / TICK;
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        if (key == null) {
+            return false;
+        }
+        final Node<K, E> node = entries.get(key);
+        return node != null && !node.isExpired(now());
+    }
+
+    @Override
+    public boolean save(K key, E entity) {
+        return save(key, entity, timeToLive, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Saves the entity with its own time to live
+     * @param key           the key
+     * @param entity        the entity
+     * @param timeToLive    the time to live, or {@link #NO_EXPIRY}
+     * @param unit          the unit of the time to live
+     * @return {@literal true} if the entity was a new entry
+     */
+    public boolean save(K key, E entity, long timeToLive, TimeUnit unit) {
+        if (key == null) {
+            log.error("Asked to save an entity with a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        } else if (entity == null) {
+            log.error("Asked to save a null value into the data store");
+            throw new DataStoreException(entityType, "Cannot save a null entity");
+        } else if (timeToLive < 0) {
+            log.error("Asked to save an entity with a negative time to live");
+            throw new DataStoreException(entityType, "Time to live cannot be negative: " + timeToLive);
+        }
+        log.info("Attempting to save entity with key " + key);
+        final long weight = weigher.weigh(entity);
+        final List<Node<K, E>> evicted = new ArrayList<>();
+        final boolean saved;
+        lock.lock();
+        try {
+            final long now = now();
+            maintain(now, evicted);
+            final Node<K, E> previous = entries.get(key);
+            final long expiry = timeToLive == NO_EXPIRY ? Long.MAX_VALUE : now + unit.toNanos(timeToLive);
+            final Node<K, E> node = new Node<>(key, entity, weight, expiry, ++sequence);
+            saved = previous == null || previous.isExpired(now);
+            if (previous != null) {
+                unlink(previous);
+                if (saved) {
+                    evicted.add(previous);
+                } else {
+                    node.frequency = previous.frequency;
+                }
+            }
+            entries.put(key, node);
+            link(node);
+            evict(node, evicted);
+        } finally {
+            lock.unlock();
+        }
+        notifyListeners(evicted);
+        return saved;
+    }
+
+    @Override
+    public boolean delete(K key) {
+        if (key == null) {
+            log.error("Asked to delete an entity with a null key for reference");
+            throw new DataStoreException(entityType, "Cannot delete an entity with a null key");
+        }
+        final List<Node<K, E>> evicted = new ArrayList<>();
+        final boolean deleted;
+        lock.lock();
+        try {
+            final long now = now();
+            maintain(now, evicted);
+            final Node<K, E> node = entries.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+            deleted = node != null && !node.isExpired(now);
+            if (node != null && !deleted) {
+                evicted.add(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+        notifyListeners(evicted);
+        if (!deleted) {
+            log.info("No entity was found to delete under key " + key);
+        }
+        return deleted;
+    }
+
+    @Override
+    public E retrieve(K key) {
+        if (key == null) {
+            log.error("Asked to retrieve an entity from a null key");
+            throw new DataStoreException(entityType, "Cannot retrieve an entity with a null key");
+        }
+        final Node<K, E> node = entries.get(key);
+        if (node == null || node.isExpired(now())) {
+            log.info("No entity was found to return under key " + key);
+            return null;
+        }
+        recordAccess(node);
+        return node.entity;
+    }
+
+    @Override
+    public Collection<K> keys() {
+        final long now = now();
+        final List<K> keys = new ArrayList<>(entries.size());
+        for (Node<K, E> node : entries.values()) {
+            if (!node.isExpired(now)) {
+                keys.add(node.key);
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public Collection<E> retrieveAll() {
+        log.info("Retrieving all entities from the data store");
+        final long now = now();
+        final List<E> entities = new ArrayList<>(entries.size());
+        for (Node<K, E> node : entries.values()) {
+            if (!node.isExpired(now)) {
+                entities.add(node.entity);
+            }
+        }
+        return entities;
+    }
+
+    @Override
+    public void scan(DataStoreVisitor<K, E> visitor) {
+        log.info("Scanning all entities in the data store");
+        final long now = now();
+        for (Node<K, E> node : entries.values()) {
+            if (!node.isExpired(now) && !visitor.visit(node.key, node.entity)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Class<E> getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * Removes all the entities without notifying the eviction listeners
+     */
+    @Override
+    public void truncate() {
+        lock.lock();
+        try {
+            for (Node<K, E> node : entries.values()) {
+                node.alive = false;
+            }
+            drainReadBuffer();
+            entries.clear();
+            recency.previous = recency;
+            recency.next = recency;
+            frequency.clear();
+            for (Set<Node<K, E>> bucket : wheel) {
+                bucket.clear();
+            }
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void addEvictionListener(EvictionListener<K, E> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Applies the recorded reads to the eviction order and removes the expired entities, without waiting for the next
+     * write to do so
+     */
+    public void cleanUp() {
+        final List<Node<K, E>> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            maintain(now(), evicted);
+        } finally {
+            lock.unlock();
+        }
+        notifyListeners(evicted);
+    }
+
+    /**
+     * @return the number of entities in the data store, including the expired entities that have not been removed yet
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the total weight of the entities in the data store
+     */
+    public long getWeight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the current time, in nanoseconds, against which the expiry of the entities is measured
+     */
+    protected long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a read without taking the lock. If the buffer is full, the read is dropped, and the buffer is drained if
+     * the lock happens to be free.
+     */
+    private void recordAccess(Node<K, E> node) {
+        final long writes = readBufferWrites.get();
+        if (writes - readBufferReads >= READ_BUFFER_SIZE) {
+            if (lock.tryLock()) {
+                try {
+                    drainReadBuffer();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return;
+        }
+        if (readBufferWrites.compareAndSet(writes, writes + 1)) {
+            final int slot = (int) (writes % READ_BUFFER_SIZE);
+            readBuffer.set(slot, node);
+            if (readBufferReads > writes) {
+                //the buffer was drained past the slot before it was filled, so nothing is going to pick it up, and
+                //leaving it would keep the node from being collected after it has been evicted
+                readBuffer.compareAndSet(slot, node, null);
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        final long writes = readBufferWrites.get();
+        final long reads = readBufferReads;
+        //this is published before the slots are emptied, so that a reader filling a slot after it has been looked at
+        //is sure to see that it has been passed over
+        readBufferReads = writes;
+        for (long i = reads; i < writes; i++) {
+            final Node<K, E> node = readBuffer.getAndSet((int) (i % READ_BUFFER_SIZE), null);
+            //the slot might still be empty if the reader has not gotten around to filling it, in which case the read
+            //is simply lost
+            if (node != null && node.alive) {
+                touch(node);
+            }
+        }
+    }
+
+    private void maintain(long now, List<Node<K, E>> evicted) {
+        drainReadBuffer();
+        final long tick = now / TICK;
+        final long last = Math.min(tick, currentTick + WHEEL_SIZE);
+        for (long current = currentTick + 1; current <= last; current++) {
+            final Set<Node<K, E>> bucket = wheel.get((int) (current % WHEEL_SIZE));
+            final Iterator<Node<K, E>> iterator = bucket.iterator();
+            while (iterator.hasNext()) {
+                final Node<K, E> node = iterator.next();
+                //nodes that are due on a later turn of the wheel stay in the bucket
+                if (node.isExpired(now)) {
+                    iterator.remove();
+                    node.bucket = null;
+                    entries.remove(node.key, node);
+                    unlink(node);
+                    evicted.add(node);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, tick);
+    }
+
+    private void evict(Node<K, E> saved, List<Node<K, E>> evicted) {
+        while (weight > capacity) {
+            Node<K, E> victim;
+            if (policy == EvictionPolicy.LEAST_RECENTLY_USED) {
+                victim = recency.next == saved ? saved.next : recency.next;
+            } else {
+                victim = frequency.first() == saved ? frequency.higher(saved) : frequency.first();
+            }
+            if (victim == null || victim == recency) {
+                //the entity that was just saved is too heavy to fit on its own
+                victim = saved;
+            }
+            log.debug("Evicting entity under key " + victim.key);
+            entries.remove(victim.key, victim);
+            unlink(victim);
+            evicted.add(victim);
+        }
+    }
+
+    private void link(Node<K, E> node) {
+        node.alive = true;
+        weight += node.weight;
+        if (policy == EvictionPolicy.LEAST_RECENTLY_USED) {
+            appendToRecency(node);
+        } else {
+            node.frequency++;
+            frequency.add(node);
+        }
+        if (node.expiry != Long.MAX_VALUE) {
+            //entities that are already due go into the next bucket to be visited
+            final long tick = Math.max(node.expiry / TICK, currentTick + 1);
+            node.bucket = wheel.get((int) (tick % WHEEL_SIZE));
+            node.bucket.add(node);
+        }
+    }
+
+    private void unlink(Node<K, E> node) {
+        if (!node.alive) {
+            return;
+        }
+        node.alive = false;
+        weight -= node.weight;
+        if (policy == EvictionPolicy.LEAST_RECENTLY_USED) {
+            removeFromRecency(node);
+        } else {
+            frequency.remove(node);
+        }
+        if (node.bucket != null) {
+            node.bucket.remove(node);
+            node.bucket = null;
+        }
+    }
+
+    private void touch(Node<K, E> node) {
+        if (policy == EvictionPolicy.LEAST_RECENTLY_USED) {
+            removeFromRecency(node);
+            appendToRecency(node);
+        } else {
+            frequency.remove(node);
+            node.frequency++;
+            frequency.add(node);
+        }
+    }
+
+    private void appendToRecency(Node<K, E> node) {
+        node.previous = recency.previous;
+        node.next = recency;
+        recency.previous.next = node;
+        recency.previous = node;
+    }
+
+    private void removeFromRecency(Node<K, E> node) {
+        node.previous.next = node.next;
+        node.next.previous = node.previous;
+        node.previous = null;
+        node.next = null;
+    }
+
+    private void notifyListeners(List<Node<K, E>> evicted) {
+        if (evicted.isEmpty()) {
+            return;
+        }
+        log.info("Evicted " + evicted.size() + " entities from the data store");
+        for (Node<K, E> node : evicted) {
+            for (EvictionListener<K, E> listener : listeners) {
+                listener.onEviction(node.key, node.entity);
+            }
+        }
+    }
+
+    /**
+     * Holds an entity along with its bookkeeping. The entity, weight, and expiry never change; saving a new entity
+     * under the same key replaces the node.
+     */
+    private static final class Node<K, E> {
+
+        private final K key;
+        private final E entity;
+        private final long weight;
+        private final long expiry;
+        private final long sequence;
+        //guarded by the lock of the data store
+        private boolean alive;
+        private Node<K, E> previous;
+        private Node<K, E> next;
+        private long frequency;
+        private Set<Node<K, E>> bucket;
+
+        private Node(K key, E entity, long weight, long expiry, long sequence) {
+            this.key = key;
+            this.entity = entity;
+            this.weight = weight;
+            this.expiry = expiry;
+            this.sequence = sequence;
+        }
+
+        private boolean isExpired(long now) {
+            return expiry <= now;
+        }
+
+    }
+
+    /**
+     * Orders the nodes by how often they have been used, and then by how long they have been around
+     */
+    private static final class FrequencyComparator<K, E> implements Comparator<Node<K, E>> {
+
+        @Override
+        public int compare(Node<K, E> first, Node<K, E> second) {
+            if (first.frequency != second.frequency) {
+                return first.frequency < second.frequency ? -1 : 1;
+            }
+            return first.sequence < second.sequence ? -1 : (first.sequence == second.sequence ? 0 : 1);
+        }
+
+    }
+
+}
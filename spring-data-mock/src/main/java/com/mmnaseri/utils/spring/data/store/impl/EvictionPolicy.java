@@ -0,0 +1,22 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+/**
+ * The policies an {@link EvictingMemoryDataStore} can use to choose which entities to evict once it runs out of
+ * capacity.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public enum EvictionPolicy {
+
+    /**
+     * Evicts the entity that has gone the longest without being read or written
+     */
+    LEAST_RECENTLY_USED,
+    /**
+     * Evicts the entity that has been read or written the least number of times, breaking ties in favor of evicting
+     * the entity that was written first
+     */
+    LEAST_FREQUENTLY_USED
+
+}
@@ -0,0 +1,21 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import java.io.Serializable;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This index keeps a hash map from the values of the indexed property to the keys of the entities having that value.
+ * It can answer equality ({@literal Is}, {@literal EqualTo}), membership ({@literal In}), and {@literal IsNull}
+ * parameters that are not case-insensitive.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class HashPropertyIndex<K extends Serializable> extends AbstractPropertyIndex<K> {
+
+    public HashPropertyIndex(String property) {
+        super(property, new ConcurrentHashMap<Object, Set<K>>());
+    }
+
+}
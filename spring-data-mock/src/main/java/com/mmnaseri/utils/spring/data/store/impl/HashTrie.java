@@ -0,0 +1,509 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>An immutable map based on a hash array mapped trie. Each level of the trie consumes five bits of the hash of the
+ * key, and each node only allocates room for the branches it actually has. Putting and removing keys return a new
+ * trie that shares all the nodes that have not changed with the original, which means that only the nodes on the
+ * path to the key (at most seven of them) are copied, and the original trie remains valid and untouched.</p>
+ *
+ * <p>Keys whose hashes are completely equal are kept together in a collision node.</p>
+ *
+ * <p>Since the trie never changes, its {@link #keys() keys} and {@link #values() values} are handed out as unmodifiable
+ * views, which take no time to create and stay valid no matter what is done to the tries derived from this one.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public final class HashTrie<K extends Serializable, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final HashTrie<?, ?> EMPTY = new HashTrie<>(BitmapNode.EMPTY, 0);
+    private final Node root;
+    private final int size;
+    //the views are created lazily, and since they hold no state of their own, it does not matter if they are created more than once
+    private Collection<K> keys;
+    private Collection<V> values;
+
+    private HashTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @param <K>    the type of the keys
+     * @param <V>    the type of the values
+     * @return the empty trie
+     */
+    @SuppressWarnings("unchecked")
+    public static <K extends Serializable, V> HashTrie<K, V> empty() {
+        return (HashTrie<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        final Entry entry = root.find(0, hash(key), key);
+        return entry == null ? null : (V) entry.value;
+    }
+
+    /**
+     * @param key      the key
+     * @param value    the value
+     * @return a trie that maps the key to the value, which is this trie if the key was already mapped to the very
+     * same value
+     */
+    public HashTrie<K, V> put(K key, V value) {
+        final boolean[] added = new boolean[1];
+        final Node root = this.root.put(0, new Entry(hash(key), key, value), added);
+        return root == this.root ? this : new HashTrie<K, V>(root, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * @param key    the key
+     * @return a trie without the key, which is this trie if the key was not there to begin with
+     */
+    public HashTrie<K, V> remove(K key) {
+        final Node root = this.root.remove(0, hash(key), key);
+        if (root == this.root) {
+            return this;
+        }
+        return new HashTrie<>(root == null ? BitmapNode.EMPTY : root, size - 1);
+    }
+
+    /**
+     * Visits the entries in no particular order
+     * @param visitor    the visitor
+     * @return {@literal false} if the visitor asked for the iteration to stop
+     */
+    public boolean visit(DataStoreVisitor<K, V> visitor) {
+        return root.visit(visitor);
+    }
+
+    /**
+     * @return an unmodifiable view of the keys of this trie, in no particular order
+     */
+    public Collection<K> keys() {
+        if (keys == null) {
+            keys = new View<>(this, true);
+        }
+        return keys;
+    }
+
+    /**
+     * @return an unmodifiable view of the values of this trie, in the same order as the {@link #keys() keys}
+     */
+    public Collection<V> values() {
+        if (values == null) {
+            values = new View<>(this, false);
+        }
+        return values;
+    }
+
+    private static int hash(Object key) {
+        final int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Entry {
+
+        private final int hash;
+        private final Object key;
+        private final Object value;
+
+        private Entry(int hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+    }
+
+    private abstract static class Node {
+
+        /**
+         * @return the entry for the key or {@literal null}
+         */
+        abstract Entry find(int shift, int hash, Object key);
+
+        /**
+         * @return the node holding the entry, which is this node if nothing has changed
+         */
+        abstract Node put(int shift, Entry entry, boolean[] added);
+
+        /**
+         * @return the node without the key, which is this node if nothing has changed, or {@literal null} if the
+         * node is left empty
+         */
+        abstract Node remove(int shift, int hash, Object key);
+
+        /**
+         * @return the only entry held by this node, or {@literal null} if the node holds anything else
+         */
+        abstract Entry single();
+
+        /**
+         * @return the entries and child nodes held directly by this node
+         */
+        abstract Object[] items();
+
+        abstract <K extends Serializable, V> boolean visit(DataStoreVisitor<K, V> visitor);
+
+    }
+
+    /**
+     * A view of either the keys or the values of a trie
+     */
+    private static final class View<T> extends AbstractCollection<T> {
+
+        private final HashTrie<?, ?> trie;
+        private final boolean keys;
+
+        private View(HashTrie<?, ?> trie, boolean keys) {
+            this.trie = trie;
+            this.keys = keys;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new TrieIterator<>(trie.root, keys);
+        }
+
+        @Override
+        public int size() {
+            return trie.size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (keys) {
+                return o != null && trie.root.find(0, hash(o), o) != null;
+            }
+            return super.contains(o);
+        }
+
+    }
+
+    /**
+     * Walks the trie depth first, keeping the position reached in each of the nodes on the way down
+     */
+    private static final class TrieIterator<T> implements Iterator<T> {
+
+        private final Deque<Cursor> path = new ArrayDeque<>();
+        private final boolean keys;
+        private Entry next;
+
+        private TrieIterator(Node root, boolean keys) {
+            this.keys = keys;
+            path.push(new Cursor(root.items()));
+            next = advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            final Entry entry = next;
+            next = advance();
+            return (T) (keys ? entry.key : entry.value);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private Entry advance() {
+            while (!path.isEmpty()) {
+                final Cursor cursor = path.peek();
+                if (cursor.index == cursor.items.length) {
+                    path.pop();
+                    continue;
+                }
+                final Object item = cursor.items[cursor.index++];
+                if (item instanceof Entry) {
+                    return (Entry) item;
+                }
+                path.push(new Cursor(((Node) item).items()));
+            }
+            return null;
+        }
+
+    }
+
+    private static final class Cursor {
+
+        private final Object[] items;
+        private int index;
+
+        private Cursor(Object[] items) {
+            this.items = items;
+        }
+
+    }
+
+    private static final class BitmapNode extends Node {
+
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+        private final int bitmap;
+        /**
+         * Each slot holds either an {@link Entry} or a child {@link Node}
+         */
+        private final Object[] slots;
+
+        private BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        @Override
+        Entry find(int shift, int hash, Object key) {
+            final int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            final Object slot = slots[index(bit)];
+            if (slot instanceof Entry) {
+                final Entry entry = (Entry) slot;
+                return entry.hash == hash && entry.key.equals(key) ? entry : null;
+            }
+            return ((Node) slot).find(shift + BITS, hash, key);
+        }
+
+        @Override
+        Node put(int shift, Entry entry, boolean[] added) {
+            final int bit = 1 << ((entry.hash >>> shift) & MASK);
+            final int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                final Object[] slots = new Object[this.slots.length + 1];
+                System.arraycopy(this.slots, 0, slots, 0, index);
+                slots[index] = entry;
+                System.arraycopy(this.slots, index, slots, index + 1, this.slots.length - index);
+                return new BitmapNode(bitmap | bit, slots);
+            }
+            final Object slot = slots[index];
+            final Object replacement;
+            if (slot instanceof Entry) {
+                final Entry existing = (Entry) slot;
+                if (existing.hash == entry.hash && existing.key.equals(entry.key)) {
+                    if (existing.value == entry.value) {
+                        return this;
+                    }
+                    replacement = entry;
+                } else {
+                    added[0] = true;
+                    replacement = merge(shift + BITS, existing, entry);
+                }
+            } else {
+                final Node child = (Node) slot;
+                replacement = child.put(shift + BITS, entry, added);
+                if (replacement == child) {
+                    return this;
+                }
+            }
+            return new BitmapNode(bitmap, replace(index, replacement));
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            final int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            final int index = index(bit);
+            final Object slot = slots[index];
+            if (slot instanceof Entry) {
+                final Entry entry = (Entry) slot;
+                if (entry.hash != hash || !entry.key.equals(key)) {
+                    return this;
+                }
+                return without(bit, index);
+            }
+            final Node child = (Node) slot;
+            final Node replacement = child.remove(shift + BITS, hash, key);
+            if (replacement == child) {
+                return this;
+            }
+            if (replacement == null) {
+                return without(bit, index);
+            }
+            //a child that is left with a single entry is folded back into this node
+            final Entry single = replacement.single();
+            return new BitmapNode(bitmap, replace(index, single != null ? single : replacement));
+        }
+
+        @Override
+        Entry single() {
+            return slots.length == 1 && slots[0] instanceof Entry ? (Entry) slots[0] : null;
+        }
+
+        @Override
+        Object[] items() {
+            return slots;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        <K extends Serializable, V> boolean visit(DataStoreVisitor<K, V> visitor) {
+            for (Object slot : slots) {
+                if (slot instanceof Entry) {
+                    final Entry entry = (Entry) slot;
+                    if (!visitor.visit((K) entry.key, (V) entry.value)) {
+                        return false;
+                    }
+                } else if (!((Node) slot).visit(visitor)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private Object[] replace(int index, Object replacement) {
+            final Object[] slots = this.slots.clone();
+            slots[index] = replacement;
+            return slots;
+        }
+
+        private Node without(int bit, int index) {
+            if (slots.length == 1) {
+                return null;
+            }
+            final Object[] slots = new Object[this.slots.length - 1];
+            System.arraycopy(this.slots, 0, slots, 0, index);
+            System.arraycopy(this.slots, index + 1, slots, index, slots.length - index);
+            return new BitmapNode(bitmap & ~bit, slots);
+        }
+
+        /**
+         * Creates the node holding two entries whose hashes agreed up to the given shift
+         */
+        private static Node merge(int shift, Entry first, Entry second) {
+            if (first.hash == second.hash) {
+                return new CollisionNode(first.hash, new Entry[]{first, second});
+            }
+            final int firstFragment = (first.hash >>> shift) & MASK;
+            final int secondFragment = (second.hash >>> shift) & MASK;
+            if (firstFragment == secondFragment) {
+                return new BitmapNode(1 << firstFragment, new Object[]{merge(shift + BITS, first, second)});
+            }
+            final int bitmap = (1 << firstFragment) | (1 << secondFragment);
+            return new BitmapNode(bitmap, firstFragment < secondFragment ? new Object[]{first, second} : new Object[]{second, first});
+        }
+
+    }
+
+    private static final class CollisionNode extends Node {
+
+        private final int hash;
+        private final Entry[] entries;
+
+        private CollisionNode(int hash, Entry[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        @Override
+        Entry find(int shift, int hash, Object key) {
+            if (hash == this.hash) {
+                for (Entry entry : entries) {
+                    if (entry.key.equals(key)) {
+                        return entry;
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Node put(int shift, Entry entry, boolean[] added) {
+            if (entry.hash != hash) {
+                //the new key only shares part of the hash, so we have to branch out above the collision
+                final int bit = 1 << ((hash >>> shift) & MASK);
+                return new BitmapNode(bit, new Object[]{this}).put(shift, entry, added);
+            }
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].key.equals(entry.key)) {
+                    if (entries[i].value == entry.value) {
+                        return this;
+                    }
+                    final Entry[] entries = this.entries.clone();
+                    entries[i] = entry;
+                    return new CollisionNode(hash, entries);
+                }
+            }
+            added[0] = true;
+            final Entry[] entries = new Entry[this.entries.length + 1];
+            System.arraycopy(this.entries, 0, entries, 0, this.entries.length);
+            entries[this.entries.length] = entry;
+            return new CollisionNode(hash, entries);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            if (hash != this.hash) {
+                return this;
+            }
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].key.equals(key)) {
+                    if (entries.length == 1) {
+                        return null;
+                    }
+                    final Entry[] entries = new Entry[this.entries.length - 1];
+                    System.arraycopy(this.entries, 0, entries, 0, i);
+                    System.arraycopy(this.entries, i + 1, entries, i, entries.length - i);
+                    return new CollisionNode(hash, entries);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        Entry single() {
+            return entries.length == 1 ? entries[0] : null;
+        }
+
+        @Override
+        Object[] items() {
+            return entries;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        <K extends Serializable, V> boolean visit(DataStoreVisitor<K, V> visitor) {
+            for (Entry entry : entries) {
+                if (!visitor.visit((K) entry.key, (V) entry.value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.store.ChangeType;
+import com.mmnaseri.utils.spring.data.store.DataStoreChange;
+
+import java.io.Serializable;
+
+/**
+ * This is an immutable data store change.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class ImmutableDataStoreChange<K extends Serializable, E> implements DataStoreChange<K, E> {
+
+    private final long sequence;
+    private final ChangeType type;
+    private final K key;
+    private final E previous;
+    private final E current;
+
+    public ImmutableDataStoreChange(long sequence, ChangeType type, K key, E previous, E current) {
+        this.sequence = sequence;
+        this.type = type;
+        this.key = key;
+        this.previous = previous;
+        this.current = current;
+    }
+
+    @Override
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public ChangeType getType() {
+        return type;
+    }
+
+    @Override
+    public K getKey() {
+        return key;
+    }
+
+    @Override
+    public E getPrevious() {
+        return previous;
+    }
+
+    @Override
+    public E getCurrent() {
+        return current;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + type + " " + key;
+    }
+
+}
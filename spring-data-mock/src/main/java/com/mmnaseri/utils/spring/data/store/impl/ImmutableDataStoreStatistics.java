@@ -0,0 +1,62 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.store.DataStoreStatistics;
+import com.mmnaseri.utils.spring.data.store.PropertyStatistics;
+
+import java.util.*;
+
+/**
+ * This is an immutable set of statistics for a data store.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class ImmutableDataStoreStatistics implements DataStoreStatistics {
+
+    private final Class<?> entityType;
+    private final long count;
+    private final boolean sampled;
+    private final Map<String, PropertyStatistics> properties;
+
+    public ImmutableDataStoreStatistics(Class<?> entityType, long count, boolean sampled, List<PropertyStatistics> properties) {
+        this.entityType = entityType;
+        this.count = count;
+        this.sampled = sampled;
+        this.properties = new LinkedHashMap<>();
+        for (PropertyStatistics statistics : properties) {
+            this.properties.put(statistics.getProperty(), statistics);
+        }
+    }
+
+    @Override
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    @Override
+    public List<PropertyStatistics> getProperties() {
+        return Collections.unmodifiableList(new ArrayList<>(properties.values()));
+    }
+
+    @Override
+    public PropertyStatistics getProperty(String property) {
+        return properties.get(property);
+    }
+
+    @Override
+    public String toString() {
+        return entityType.getName() + ": " + count + " entities" + (sampled ? " (sampled)" : "");
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.EntitySchema;
+
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * This is an immutable entity schema, whose version is the checksum of its layouts. Since it is serializable, it can
+ * be kept alongside the data encoded with it, and {@link com.mmnaseri.utils.spring.data.store.SchemaAwareEntityCodec#registerSchema(EntitySchema)
+ * registered} again once the entity has changed.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class ImmutableEntitySchema implements EntitySchema, Serializable {
+
+    private static final long serialVersionUID = 6146239862317524716L;
+    private final String entityType;
+    private final SortedMap<String, List<String>> layouts;
+    private final int version;
+
+    public ImmutableEntitySchema(String entityType, Map<String, List<String>> layouts) {
+        if (!layouts.containsKey(entityType)) {
+            throw new InvalidArgumentException("Schema does not describe the entity type " + entityType);
+        }
+        this.entityType = entityType;
+        this.layouts = new TreeMap<>();
+        final StringBuilder canonical = new StringBuilder(entityType);
+        for (Map.Entry<String, List<String>> entry : new TreeMap<>(layouts).entrySet()) {
+            final List<String> properties = Collections.unmodifiableList(new ArrayList<>(entry.getValue()));
+            this.layouts.put(entry.getKey(), properties);
+            canonical.append('\n').append(entry.getKey()).append('{');
+            for (String property : properties) {
+                canonical.append(property).append('\n');
+            }
+            canonical.append('}');
+        }
+        final CRC32 checksum = new CRC32();
+        checksum.update(canonical.toString().getBytes(Charset.forName("UTF-8")));
+        this.version = (int) checksum.getValue();
+    }
+
+    @Override
+    public String getEntityType() {
+        return entityType;
+    }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public Set<String> getTypes() {
+        return Collections.unmodifiableSet(layouts.keySet());
+    }
+
+    @Override
+    public List<String> getProperties(String type) {
+        return layouts.get(type);
+    }
+
+    @Override
+    public String toString() {
+        return entityType + "@" + Integer.toHexString(version) + layouts;
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.store.HistogramBucket;
+
+/**
+ * This is an immutable histogram bucket.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class ImmutableHistogramBucket implements HistogramBucket {
+
+    private final Object lowerBound;
+    private final Object upperBound;
+    private final long count;
+
+    public ImmutableHistogramBucket(Object lowerBound, Object upperBound, long count) {
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.count = count;
+    }
+
+    @Override
+    public Object getLowerBound() {
+        return lowerBound;
+    }
+
+    @Override
+    public Object getUpperBound() {
+        return upperBound;
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + lowerBound + ", " + upperBound + "]: " + count;
+    }
+
+}
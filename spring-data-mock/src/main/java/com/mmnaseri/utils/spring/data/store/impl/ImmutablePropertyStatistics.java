@@ -0,0 +1,85 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.store.HistogramBucket;
+import com.mmnaseri.utils.spring.data.store.PropertyStatistics;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This is an immutable set of statistics for a property.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class ImmutablePropertyStatistics implements PropertyStatistics {
+
+    private final String property;
+    private final long count;
+    private final long nullCount;
+    private final long distinctCount;
+    private final Object minimum;
+    private final Object maximum;
+    private final List<HistogramBucket> histogram;
+
+    /**
+     * @param property         the property
+     * @param count            the number of entities, which is used to work out the fraction of {@literal null} values
+     * @param nullCount        the number of {@literal null} values
+     * @param distinctCount    the number of distinct non-null values
+     * @param minimum          the smallest value
+     * @param maximum          the largest value
+     * @param histogram        the histogram
+     */
+    public ImmutablePropertyStatistics(String property, long count, long nullCount, long distinctCount, Object minimum, Object maximum, List<HistogramBucket> histogram) {
+        this.property = property;
+        this.count = count;
+        this.nullCount = nullCount;
+        this.distinctCount = distinctCount;
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.histogram = Collections.unmodifiableList(histogram);
+    }
+
+    @Override
+    public String getProperty() {
+        return property;
+    }
+
+    @Override
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    @Override
+    public double getNullFraction() {
+        return count == 0 ? 0D : (double) nullCount / count;
+    }
+
+    @Override
+    public long getDistinctCount() {
+        return distinctCount;
+    }
+
+    @Override
+    public Object getMinimum() {
+        return minimum;
+    }
+
+    @Override
+    public Object getMaximum() {
+        return maximum;
+    }
+
+    @Override
+    public List<HistogramBucket> getHistogram() {
+        return histogram;
+    }
+
+    @Override
+    public String toString() {
+        return property + ": " + nullCount + " nulls, " + distinctCount + " distinct values in [" + minimum + ", " + maximum + "]";
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.store.Indexed;
+import com.mmnaseri.utils.spring.data.tools.GetterMethodFilter;
+import com.mmnaseri.utils.spring.data.tools.PropertyUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Utilities for discovering the properties of an entity that have been marked as {@link Indexed indexed}.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public final class IndexUtils {
+
+    private IndexUtils() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Finds all the properties of the given entity type that have been annotated with {@link Indexed}, either on
+     * the field or on the getter method.
+     * @param entityType    the entity type
+     * @return a mapping from the name of each indexed property to the annotation that marked it
+     */
+    public static Map<String, Indexed> getIndexedProperties(Class<?> entityType) {
+        final Map<String, Indexed> properties = new LinkedHashMap<>();
+        ReflectionUtils.doWithFields(entityType, new ReflectionUtils.FieldCallback() {
+            @Override
+            public void doWith(Field field) throws IllegalArgumentException, IllegalAccessException {
+                final Indexed indexed = AnnotationUtils.findAnnotation(field, Indexed.class);
+                if (indexed != null && !properties.containsKey(field.getName())) {
+                    properties.put(field.getName(), indexed);
+                }
+            }
+        });
+        ReflectionUtils.doWithMethods(entityType, new ReflectionUtils.MethodCallback() {
+            @Override
+            public void doWith(Method method) throws IllegalArgumentException, IllegalAccessException {
+                final Indexed indexed = AnnotationUtils.findAnnotation(method, Indexed.class);
+                final String name = PropertyUtils.getPropertyName(method);
+                if (indexed != null && !properties.containsKey(name)) {
+                    properties.put(name, indexed);
+                }
+            }
+        }, new GetterMethodFilter());
+        return properties;
+    }
+
+}
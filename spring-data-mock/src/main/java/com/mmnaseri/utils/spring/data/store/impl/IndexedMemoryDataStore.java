@@ -0,0 +1,355 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.domain.Parameter;
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.query.Order;
+import com.mmnaseri.utils.spring.data.store.AtomicDataStore;
+import com.mmnaseri.utils.spring.data.store.BulkDataStore;
+import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import com.mmnaseri.utils.spring.data.store.Indexed;
+import com.mmnaseri.utils.spring.data.store.IndexedDataStore;
+import com.mmnaseri.utils.spring.data.store.PropertyIndex;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import com.mmnaseri.utils.spring.data.store.SortedPropertyIndex;
+import com.mmnaseri.utils.spring.data.store.VersionedDataStore;
+import com.mmnaseri.utils.spring.data.tools.PropertyUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * <p>This data store keeps in-memory secondary indexes for a set of properties on top of a delegate data store. The
+ * indexes are maintained as entities are saved, deleted, or the data store is truncated, and can be used to answer
+ * query parameters without scanning the whole data store.</p>
+ *
+ * <p>The properties to be indexed are the ones explicitly passed to the constructor, plus all the properties on the
+ * entity that have been annotated with {@link Indexed}. Properties marked as {@link Indexed#sorted() sorted} are
+ * indexed using a {@link SkipListPropertyIndex}, and the rest using a {@link HashPropertyIndex}. Other indexes can
+ * be added through {@link #register(PropertyIndex)}.</p>
+ *
+ * <p>Note that since the indexes are only updated when the data store is modified, entities that are changed
+ * in place must be saved again for the changes to be reflected by the indexes.</p>
+ *
+ * <p>Writes are serialized so that the indexes move in step with the data, and go through the delegate's
+ * {@link AtomicDataStore atomic}, {@link BulkDataStore bulk}, and {@link VersionedDataStore versioned} operations
+ * where it supports them. Reads are left to the delegate.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class IndexedMemoryDataStore<K extends Serializable, E> implements IndexedDataStore<K, E>, ScanningDataStore<K, E>,
+        AtomicDataStore<K, E>, BulkDataStore<K, E>, VersionedDataStore<K, E> {
+
+    private static final Log log = LogFactory.getLog(IndexedMemoryDataStore.class);
+    private final DataStore<K, E> delegate;
+    private volatile Map<String, PropertyIndex<K>> indexes;
+
+    public IndexedMemoryDataStore(Class<E> entityType, String... properties) {
+        this(new MemoryDataStore<K, E>(entityType), properties);
+    }
+
+    public IndexedMemoryDataStore(DataStore<K, E> delegate, String... properties) {
+        this.delegate = delegate;
+        this.indexes = new LinkedHashMap<>();
+        for (Map.Entry<String, Indexed> entry : IndexUtils.getIndexedProperties(delegate.getEntityType()).entrySet()) {
+            if (entry.getValue().sorted()) {
+                register(new SkipListPropertyIndex<K>(entry.getKey()));
+            } else {
+                register(new HashPropertyIndex<K>(entry.getKey()));
+            }
+        }
+        for (String property : properties) {
+            if (!indexes.containsKey(property)) {
+                register(new HashPropertyIndex<K>(property));
+            }
+        }
+    }
+
+    /**
+     * Registers a new index with this data store, replacing any index previously registered for the same property.
+     * All the entities already in the data store will be indexed by the new index.
+     * @param index    the index
+     */
+    public synchronized void register(PropertyIndex<K> index) {
+        log.info("Indexing property " + index.getProperty() + " of " + delegate.getEntityType());
+        index.clear();
+        for (K key : delegate.keys()) {
+            final E entity = delegate.retrieve(key);
+            if (entity != null) {
+                index.index(key, read(entity, index.getProperty()));
+            }
+        }
+        //the indexes are copied on write so that lookups can go ahead without synchronization
+        final Map<String, PropertyIndex<K>> copy = new LinkedHashMap<>(indexes);
+        copy.put(index.getProperty(), index);
+        indexes = copy;
+    }
+
+    /**
+     * @return the properties that are being indexed by this data store
+     */
+    public Set<String> getIndexedProperties() {
+        return Collections.unmodifiableSet(indexes.keySet());
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        return delegate.hasKey(key);
+    }
+
+    @Override
+    public boolean save(K key, E entity) {
+        return put(key, entity) == null;
+    }
+
+    @Override
+    public synchronized E put(K key, E entity) {
+        //we read the values first so that a failure will not leave the indexes out of sync with the data
+        final Object[] values = read(entity);
+        final E previous = DataStoreUtils.put(delegate, key, entity);
+        index(key, values, previous);
+        return previous;
+    }
+
+    @Override
+    public synchronized E putIfAbsent(K key, E entity) {
+        final Object[] values = read(entity);
+        final E existing = DataStoreUtils.putIfAbsent(delegate, key, entity);
+        if (existing == null) {
+            index(key, values, null);
+        }
+        return existing;
+    }
+
+    @Override
+    public boolean save(K key, E entity, String versionProperty) {
+        return put(key, entity, versionProperty) == null;
+    }
+
+    @Override
+    public synchronized E put(K key, E entity, String versionProperty) {
+        final Object version = PropertyUtils.getPropertyValue(entity, versionProperty);
+        final E previous = DataStoreUtils.put(delegate, key, entity, versionProperty);
+        //the version might be one of the indexed properties, so the values are read once it has been advanced
+        final Object[] values;
+        try {
+            values = read(entity);
+        } catch (DataStoreException e) {
+            revert(key, previous);
+            PropertyUtils.setPropertyValue(entity, versionProperty, version);
+            throw e;
+        }
+        index(key, values, previous);
+        return previous;
+    }
+
+    @Override
+    public boolean delete(K key) {
+        return remove(key) != null;
+    }
+
+    @Override
+    public synchronized E remove(K key) {
+        final E removed = DataStoreUtils.remove(delegate, key);
+        if (removed != null) {
+            unindex(key);
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized E compute(K key, final EntityRemappingFunction<K, E> function) {
+        final List<E> current = new ArrayList<>(1);
+        final E computed = DataStoreUtils.compute(delegate, key, new EntityRemappingFunction<K, E>() {
+            @Override
+            public E apply(K key, E entity) {
+                current.clear();
+                current.add(entity);
+                return function.apply(key, entity);
+            }
+        });
+        final E previous = current.isEmpty() ? null : current.get(0);
+        if (computed == null) {
+            if (previous != null) {
+                unindex(key);
+            }
+            return null;
+        }
+        final Object[] values;
+        try {
+            values = read(computed);
+        } catch (DataStoreException e) {
+            revert(key, previous);
+            throw e;
+        }
+        index(key, values, previous);
+        return computed;
+    }
+
+    @Override
+    public synchronized int saveAll(Map<K, E> entities) {
+        final List<Object[]> values = new ArrayList<>(entities.size());
+        final List<E> previous = new ArrayList<>(entities.size());
+        for (Map.Entry<K, E> entry : entities.entrySet()) {
+            values.add(read(entry.getValue()));
+            previous.add(delegate.retrieve(entry.getKey()));
+        }
+        final int inserted = DataStoreUtils.saveAll(delegate, entities);
+        int i = 0;
+        try {
+            for (K key : entities.keySet()) {
+                index(key, values.get(i++));
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to index the entities being saved; reverting the changes");
+            i = 0;
+            for (K key : entities.keySet()) {
+                revert(key, previous.get(i++));
+            }
+            throw new DataStoreException(getEntityType(), "Failed to index the entities being saved: " + e.getMessage());
+        }
+        return inserted;
+    }
+
+    @Override
+    public synchronized Map<K, E> deleteAll(Collection<K> keys) {
+        final Map<K, E> deleted = DataStoreUtils.deleteAll(delegate, keys);
+        for (K key : deleted.keySet()) {
+            unindex(key);
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<E> retrieveAll(Collection<K> keys) {
+        return DataStoreUtils.retrieveAll(delegate, keys);
+    }
+
+    @Override
+    public E retrieve(K key) {
+        return delegate.retrieve(key);
+    }
+
+    @Override
+    public Collection<K> keys() {
+        return delegate.keys();
+    }
+
+    @Override
+    public Collection<E> retrieveAll() {
+        return delegate.retrieveAll();
+    }
+
+    @Override
+    public void scan(DataStoreVisitor<K, E> visitor) {
+        DataStoreUtils.scan(delegate, visitor);
+    }
+
+    @Override
+    public Class<E> getEntityType() {
+        return delegate.getEntityType();
+    }
+
+    @Override
+    public synchronized void truncate() {
+        delegate.truncate();
+        for (PropertyIndex<K> index : indexes.values()) {
+            index.clear();
+        }
+    }
+
+    @Override
+    public Set<K> lookup(Parameter parameter, Object... operands) {
+        final PropertyIndex<K> index = indexes.get(parameter.getPath());
+        if (index == null) {
+            return null;
+        }
+        return index.lookup(parameter, operands);
+    }
+
+    @Override
+    public List<K> sort(Order order) {
+        final PropertyIndex<K> index = indexes.get(order.getProperty());
+        if (!(index instanceof SortedPropertyIndex)) {
+            return null;
+        }
+        return ((SortedPropertyIndex<K>) index).sort(order);
+    }
+
+    /**
+     * Reads the values of all the indexed properties from the given entity
+     * @param entity    the entity
+     * @return the values, in the order in which the indexes were defined
+     */
+    private Object[] read(E entity) {
+        final Object[] values = new Object[indexes.size()];
+        if (entity == null) {
+            //the delegate is responsible for rejecting null entities
+            return values;
+        }
+        int i = 0;
+        for (PropertyIndex<K> index : indexes.values()) {
+            values[i++] = read(entity, index.getProperty());
+        }
+        return values;
+    }
+
+    private Object read(E entity, String property) {
+        try {
+            return PropertyUtils.getPropertyValue(entity, property);
+        } catch (Exception e) {
+            log.error("Failed to read the value of indexed property " + property);
+            throw new DataStoreException(getEntityType(), "Failed to read the value of indexed property " + property + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes the entity that was just saved under the key, putting back the entity that was there before if the
+     * indexes cannot take it
+     * @param key         the key
+     * @param values      the values of the entity that was saved
+     * @param previous    the entity previously stored under the key, or {@literal null} if there was none
+     */
+    private void index(K key, Object[] values, E previous) {
+        try {
+            index(key, values);
+        } catch (RuntimeException e) {
+            log.error("Failed to index entity with key " + key + "; reverting the change");
+            revert(key, previous);
+            throw new DataStoreException(getEntityType(), "Failed to index entity with key " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Puts back the entity that was stored under the key before a failed save, and indexes it again
+     * @param key         the key
+     * @param previous    the previous entity, or {@literal null} if there was none
+     */
+    private void revert(K key, E previous) {
+        unindex(key);
+        if (previous == null) {
+            delegate.delete(key);
+        } else {
+            delegate.save(key, previous);
+            index(key, read(previous));
+        }
+    }
+
+    private void index(K key, Object[] values) {
+        int i = 0;
+        for (PropertyIndex<K> index : indexes.values()) {
+            index.index(key, values[i++]);
+        }
+    }
+
+    private void unindex(K key) {
+        for (PropertyIndex<K> index : indexes.values()) {
+            index.remove(key);
+        }
+    }
+
+}
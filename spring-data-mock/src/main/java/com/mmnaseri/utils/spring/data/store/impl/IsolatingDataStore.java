@@ -0,0 +1,198 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.store.AtomicDataStore;
+import com.mmnaseri.utils.spring.data.store.BulkDataStore;
+import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityCopier;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import com.mmnaseri.utils.spring.data.store.ForkableDataStore;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import com.mmnaseri.utils.spring.data.store.VersionedDataStore;
+import com.mmnaseri.utils.spring.data.tools.PropertyUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>This data store isolates the entities held by a delegate data store from its callers. Entities are copied before
+ * they are saved, and again whenever they are read, so that changing an entity after it has been saved, or changing
+ * an entity that has been read, never changes what is in the data store, or any indexes or other structures the
+ * delegate has built around it. The only way to change a stored entity is to save it again.</p>
+ *
+ * <p>Entities are copied using a {@link MethodHandleEntityCopier} unless another {@link EntityCopier} is given.</p>
+ *
+ * <p>All the writes go through the delegate's {@link AtomicDataStore atomic}, {@link BulkDataStore bulk}, and
+ * {@link VersionedDataStore versioned} operations where it supports them. Versioned saves check and advance the
+ * version of the copy being saved, and then hand the new version back to the entity that was passed in.</p>
+ *
+ * <p>This data store can be {@link #fork() forked} if its delegate is a {@link ForkableDataStore}. Since no caller
+ * ever gets hold of the entities held by the delegate, it is safe for the fork of the delegate to share them with the
+ * original, as the {@link PersistentMemoryDataStore} does.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class IsolatingDataStore<K extends Serializable, E> implements ScanningDataStore<K, E>, ForkableDataStore<K, E>,
+        AtomicDataStore<K, E>, BulkDataStore<K, E>, VersionedDataStore<K, E> {
+
+    private static final Log log = LogFactory.getLog(IsolatingDataStore.class);
+    private final DataStore<K, E> delegate;
+    private final EntityCopier<E> copier;
+
+    public IsolatingDataStore(Class<E> entityType) {
+        this(new MemoryDataStore<K, E>(entityType));
+    }
+
+    public IsolatingDataStore(DataStore<K, E> delegate) {
+        this(delegate, new MethodHandleEntityCopier<>(delegate.getEntityType()));
+    }
+
+    public IsolatingDataStore(DataStore<K, E> delegate, EntityCopier<E> copier) {
+        this.delegate = delegate;
+        this.copier = copier;
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        return delegate.hasKey(key);
+    }
+
+    @Override
+    public boolean save(K key, E entity) {
+        return delegate.save(key, copier.copy(entity));
+    }
+
+    @Override
+    public boolean save(K key, E entity, String versionProperty) {
+        return put(key, entity, versionProperty) == null;
+    }
+
+    @Override
+    public E put(K key, E entity, String versionProperty) {
+        final E copy = copier.copy(entity);
+        final E previous = DataStoreUtils.put(delegate, key, copy, versionProperty);
+        PropertyUtils.setPropertyValue(entity, versionProperty, PropertyUtils.getPropertyValue(copy, versionProperty));
+        return copier.copy(previous);
+    }
+
+    @Override
+    public E put(K key, E entity) {
+        return copier.copy(DataStoreUtils.put(delegate, key, copier.copy(entity)));
+    }
+
+    @Override
+    public E putIfAbsent(K key, E entity) {
+        return copier.copy(DataStoreUtils.putIfAbsent(delegate, key, copier.copy(entity)));
+    }
+
+    @Override
+    public E compute(K key, final EntityRemappingFunction<K, E> function) {
+        final List<E> computed = new ArrayList<>(1);
+        DataStoreUtils.compute(delegate, key, new EntityRemappingFunction<K, E>() {
+            @Override
+            public E apply(K key, E current) {
+                computed.clear();
+                computed.add(function.apply(key, copier.copy(current)));
+                return copier.copy(computed.get(0));
+            }
+        });
+        return computed.isEmpty() ? null : computed.get(0);
+    }
+
+    @Override
+    public int saveAll(Map<K, E> entities) {
+        final Map<K, E> copies = DataStoreUtils.newLinkedHashMap(entities.size());
+        for (Map.Entry<K, E> entry : entities.entrySet()) {
+            copies.put(entry.getKey(), copier.copy(entry.getValue()));
+        }
+        return DataStoreUtils.saveAll(delegate, copies);
+    }
+
+    @Override
+    public boolean delete(K key) {
+        return delegate.delete(key);
+    }
+
+    @Override
+    public E remove(K key) {
+        return copier.copy(DataStoreUtils.remove(delegate, key));
+    }
+
+    @Override
+    public Map<K, E> deleteAll(Collection<K> keys) {
+        final Map<K, E> deleted = DataStoreUtils.deleteAll(delegate, keys);
+        final Map<K, E> copies = DataStoreUtils.newLinkedHashMap(deleted.size());
+        for (Map.Entry<K, E> entry : deleted.entrySet()) {
+            copies.put(entry.getKey(), copier.copy(entry.getValue()));
+        }
+        return copies;
+    }
+
+    @Override
+    public E retrieve(K key) {
+        return copier.copy(delegate.retrieve(key));
+    }
+
+    @Override
+    public List<E> retrieveAll(Collection<K> keys) {
+        final List<E> entities = DataStoreUtils.retrieveAll(delegate, keys);
+        final List<E> copies = new ArrayList<>(entities.size());
+        for (E entity : entities) {
+            copies.add(copier.copy(entity));
+        }
+        return copies;
+    }
+
+    @Override
+    public Collection<K> keys() {
+        return delegate.keys();
+    }
+
+    @Override
+    public Collection<E> retrieveAll() {
+        final Collection<E> entities = delegate.retrieveAll();
+        final List<E> copies = new ArrayList<>(entities.size());
+        for (E entity : entities) {
+            copies.add(copier.copy(entity));
+        }
+        return copies;
+    }
+
+    @Override
+    public void scan(final DataStoreVisitor<K, E> visitor) {
+        DataStoreUtils.scan(delegate, new DataStoreVisitor<K, E>() {
+            @Override
+            public boolean visit(K key, E entity) {
+                return visitor.visit(key, copier.copy(entity));
+            }
+        });
+    }
+
+    @Override
+    public Class<E> getEntityType() {
+        return delegate.getEntityType();
+    }
+
+    @Override
+    public void truncate() {
+        delegate.truncate();
+    }
+
+    @Override
+    public IsolatingDataStore<K, E> fork() {
+        if (!(delegate instanceof ForkableDataStore)) {
+            log.error("Cannot fork a data store backed by " + delegate.getClass());
+            throw new DataStoreException(getEntityType(), "The underlying data store cannot be forked: " + delegate.getClass().getName());
+        }
+        return new IsolatingDataStore<>(((ForkableDataStore<K, E>) delegate).fork(), copier);
+    }
+
+}
@@ -0,0 +1,553 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.AtomicDataStore;
+import com.mmnaseri.utils.spring.data.store.BulkDataStore;
+import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityCodec;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import com.mmnaseri.utils.spring.data.store.QueueingDataStore;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import com.mmnaseri.utils.spring.data.store.VersionedDataStore;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * <p>This data store makes any other data store durable by keeping a journal of all the writes made to it. Every
+ * save, delete, and truncate is first recorded in the journal and then applied to the delegate. When the data store
+ * is created, the contents of the delegate are recovered from the files in its directory: the latest snapshot is
+ * loaded, and the journal is replayed on top of it. Anything the delegate held before that is discarded.</p>
+ *
+ * <p>To keep writes close to the speed of the delegate, the journal is committed in groups: records are collected in
+ * memory and written and forced to disk all at once when the group is full, when the data store is
+ * {@link #flush() flushed} or {@link #close() closed}, or when the outermost {@link #startBatch() batch} ends. While a
+ * batch is in progress, the group is extended to hold all the writes in the batch. Writes that have not been
+ * committed yet are lost if the JVM goes away.</p>
+ *
+ * <p>Once enough records have been committed since the last snapshot, a new snapshot of the delegate is written and the
+ * journal is started over, so that recovery does not have to replay the whole history of the data store. Snapshots
+ * are written to a temporary file which then replaces the previous snapshot, so that there is always one complete
+ * snapshot in place. Since every record sets the state of a key (or of the whole data store) rather than changing it,
+ * replaying a journal on top of a snapshot that already reflects it leaves the data unchanged.</p>
+ *
+ * <p>The {@link AtomicDataStore atomic}, {@link BulkDataStore bulk}, and {@link VersionedDataStore versioned} writes
+ * are made up of the same records as the other writes, and are atomic with respect to all the other writes made
+ * through this data store. Bulk writes are committed together, as if they were made in a batch of their own.</p>
+ *
+ * <p>Every record carries a checksum. Recovery stops at the first record that does not match its checksum, and that
+ * record along with everything after it is discarded, since it can only be the result of a commit that was cut
+ * short.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class JournalingDataStore<K extends Serializable, E> implements QueueingDataStore<K, E, Object>, ScanningDataStore<K, E>,
+        AtomicDataStore<K, E>, BulkDataStore<K, E>, VersionedDataStore<K, E>, Closeable {
+
+    private static final Log log = LogFactory.getLog(JournalingDataStore.class);
+    /**
+     * The default number of records committed together
+     */
+    public static final int DEFAULT_GROUP_SIZE = 100;
+    /**
+     * The default number of committed records after which a new snapshot is taken
+     */
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 10000;
+    /**
+     * The name of the journal file in the directory of the data store
+     */
+    public static final String JOURNAL_FILE = "journal";
+    /**
+     * The name of the snapshot file in the directory of the data store
+     */
+    public static final String SNAPSHOT_FILE = "snapshot";
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+    private static final byte TRUNCATE = 3;
+    /**
+     * Operation, key length, and entity length
+     */
+    private static final int RECORD_HEADER_SIZE = 9;
+    private static final int CHECKSUM_SIZE = 8;
+    private static final int ABSENT = -1;
+    private final DataStore<K, E> delegate;
+    private final File directory;
+    private final EntityCodec<K> keyCodec;
+    private final EntityCodec<E> codec;
+    private final int groupSize;
+    private final int snapshotInterval;
+    private final ByteArrayOutputStream group = new ByteArrayOutputStream();
+    private final Deque<Object> batches = new ArrayDeque<>();
+    private FileChannel journal;
+    private int pending;
+    private int committed;
+
+    public JournalingDataStore(DataStore<K, E> delegate, File directory) {
+        this(delegate, directory, JournalingDataStore.<K>serializingKeyCodec(), new SerializingEntityCodec<>(delegate.getEntityType()));
+    }
+
+    public JournalingDataStore(DataStore<K, E> delegate, File directory, EntityCodec<K> keyCodec, EntityCodec<E> codec) {
+        this(delegate, directory, keyCodec, codec, DEFAULT_GROUP_SIZE, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public JournalingDataStore(DataStore<K, E> delegate, File directory, EntityCodec<K> keyCodec, EntityCodec<E> codec, int groupSize, int snapshotInterval) {
+        if (groupSize < 1) {
+            throw new InvalidArgumentException("Group size must be a positive number: " + groupSize);
+        }
+        if (snapshotInterval < 1) {
+            throw new InvalidArgumentException("Snapshot interval must be a positive number: " + snapshotInterval);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new InvalidArgumentException("Could not create the journal directory: " + directory);
+        }
+        this.delegate = delegate;
+        this.directory = directory;
+        this.keyCodec = keyCodec;
+        this.codec = codec;
+        this.groupSize = groupSize;
+        this.snapshotInterval = snapshotInterval;
+        recover();
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        return delegate.hasKey(key);
+    }
+
+    @Override
+    public synchronized boolean save(K key, E entity) {
+        if (key == null) {
+            log.error("Asked to save an entity with a null key");
+            throw new DataStoreException(getEntityType(), "Cannot save an entity with a null key");
+        } else if (entity == null) {
+            log.error("Asked to save a null value into the data store");
+            throw new DataStoreException(getEntityType(), "Cannot save a null entity");
+        }
+        assertOpen();
+        append(SAVE, keyCodec.encode(key), codec.encode(entity));
+        final boolean saved = delegate.save(key, entity);
+        commitIfNeeded();
+        return saved;
+    }
+
+    @Override
+    public synchronized boolean delete(K key) {
+        if (key == null) {
+            log.error("Asked to delete an entity with a null key for reference");
+            throw new DataStoreException(getEntityType(), "Cannot delete an entity with a null key");
+        }
+        assertOpen();
+        if (!delegate.hasKey(key)) {
+            log.info("No entity was found to delete under key " + key);
+            return false;
+        }
+        append(DELETE, keyCodec.encode(key), null);
+        final boolean deleted = delegate.delete(key);
+        commitIfNeeded();
+        return deleted;
+    }
+
+    @Override
+    public synchronized E put(K key, E entity) {
+        final E previous = key == null ? null : delegate.retrieve(key);
+        save(key, entity);
+        return previous;
+    }
+
+    @Override
+    public synchronized E putIfAbsent(K key, E entity) {
+        final E existing = key == null ? null : delegate.retrieve(key);
+        if (existing == null) {
+            save(key, entity);
+        }
+        return existing;
+    }
+
+    @Override
+    public synchronized E remove(K key) {
+        final E entity = key == null ? null : delegate.retrieve(key);
+        return delete(key) ? entity : null;
+    }
+
+    @Override
+    public synchronized E compute(K key, EntityRemappingFunction<K, E> function) {
+        if (key == null) {
+            log.error("Asked to compute an entity for a null key");
+            throw new DataStoreException(getEntityType(), "Cannot save an entity with a null key");
+        }
+        final E current = delegate.retrieve(key);
+        final E computed = function.apply(key, current);
+        if (computed != null) {
+            save(key, computed);
+        } else if (current != null) {
+            delete(key);
+        }
+        return computed;
+    }
+
+    @Override
+    public boolean save(K key, E entity, String versionProperty) {
+        return put(key, entity, versionProperty) == null;
+    }
+
+    @Override
+    public E put(K key, E entity, String versionProperty) {
+        //computing the entity holds the monitor throughout, so checking the version and saving the entity are atomic
+        return DataStoreUtils.putVersioned(this, key, entity, versionProperty);
+    }
+
+    @Override
+    public synchronized int saveAll(Map<K, E> entities) {
+        final Object batch = startBatch();
+        try {
+            int inserted = 0;
+            for (Map.Entry<K, E> entry : entities.entrySet()) {
+                if (save(entry.getKey(), entry.getValue())) {
+                    inserted++;
+                }
+            }
+            return inserted;
+        } finally {
+            endBatch(batch);
+        }
+    }
+
+    @Override
+    public synchronized Map<K, E> deleteAll(Collection<K> keys) {
+        final Object batch = startBatch();
+        try {
+            final Map<K, E> deleted = DataStoreUtils.newLinkedHashMap(keys.size());
+            for (K key : keys) {
+                final E entity = remove(key);
+                if (entity != null) {
+                    deleted.put(key, entity);
+                }
+            }
+            return deleted;
+        } finally {
+            endBatch(batch);
+        }
+    }
+
+    @Override
+    public E retrieve(K key) {
+        return delegate.retrieve(key);
+    }
+
+    @Override
+    public List<E> retrieveAll(Collection<K> keys) {
+        return DataStoreUtils.retrieveAll(delegate, keys);
+    }
+
+    @Override
+    public Collection<K> keys() {
+        return delegate.keys();
+    }
+
+    @Override
+    public Collection<E> retrieveAll() {
+        return delegate.retrieveAll();
+    }
+
+    @Override
+    public void scan(DataStoreVisitor<K, E> visitor) {
+        DataStoreUtils.scan(delegate, visitor);
+    }
+
+    @Override
+    public Class<E> getEntityType() {
+        return delegate.getEntityType();
+    }
+
+    @Override
+    public synchronized void truncate() {
+        assertOpen();
+        append(TRUNCATE, null, null);
+        delegate.truncate();
+        commitIfNeeded();
+    }
+
+    /**
+     * Commits all the records that have been collected so far, even if a batch is in progress
+     */
+    @Override
+    public synchronized void flush() {
+        assertOpen();
+        commit();
+    }
+
+    @Override
+    public synchronized Object startBatch() {
+        final Object batch = new Object();
+        batches.push(batch);
+        log.info("Started a new batch; there are " + batches.size() + " batches in progress");
+        return batch;
+    }
+
+    @Override
+    public synchronized void endBatch(Object batch) {
+        if (batches.isEmpty() || batches.peek() != batch) {
+            log.error("Attempted to end a batch that is not the latest batch in progress");
+            throw new DataStoreException(getEntityType(), "Batches must be ended in the reverse order in which they were started");
+        }
+        batches.pop();
+        if (batches.isEmpty() && journal != null) {
+            log.info("The outermost batch has ended; committing the journal");
+            commit();
+        }
+    }
+
+    /**
+     * Commits the journal and writes a snapshot of the delegate, after which the journal is started over
+     */
+    public synchronized void snapshot() {
+        assertOpen();
+        commit();
+        final File snapshot = new File(directory, SNAPSHOT_FILE);
+        final File temporary = new File(directory, SNAPSHOT_FILE + ".tmp");
+        log.info("Writing a snapshot of the data store to " + snapshot);
+        try {
+            try (FileOutputStream file = new FileOutputStream(temporary)) {
+                final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(file));
+                final IOException[] failure = new IOException[1];
+                DataStoreUtils.scan(delegate, new DataStoreVisitor<K, E>() {
+                    @Override
+                    public boolean visit(K key, E entity) {
+                        try {
+                            write(output, SAVE, keyCodec.encode(key), codec.encode(entity));
+                            return true;
+                        } catch (IOException e) {
+                            failure[0] = e;
+                            return false;
+                        }
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                output.flush();
+                file.getFD().sync();
+            }
+            Files.move(temporary.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal.truncate(0);
+            journal.force(true);
+            committed = 0;
+        } catch (IOException e) {
+            log.error("Failed to write a snapshot to " + snapshot);
+            throw new DataStoreException(getEntityType(), "Failed to write a snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Commits the journal and releases the journal file. A closed data store cannot be written to anymore, but the
+     * same directory can be used to recover the data by a new data store.
+     */
+    @Override
+    public synchronized void close() {
+        if (journal == null) {
+            return;
+        }
+        log.info("Closing the journal in " + directory);
+        commit();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.error("Failed to close the journal in " + directory);
+            throw new DataStoreException(getEntityType(), "Failed to close the journal: " + e.getMessage());
+        } finally {
+            journal = null;
+        }
+    }
+
+    /**
+     * @return the directory holding the journal and the snapshot
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the number of records waiting to be committed
+     */
+    public synchronized int getPendingCount() {
+        return pending;
+    }
+
+    /**
+     * Loads the latest snapshot into the delegate, replays the journal on top of it, and opens the journal for
+     * appending new records
+     */
+    private void recover() {
+        final File snapshot = new File(directory, SNAPSHOT_FILE);
+        final File file = new File(directory, JOURNAL_FILE);
+        log.info("Recovering data store from " + directory);
+        delegate.truncate();
+        try {
+            if (snapshot.exists()) {
+                final long read = replay(snapshot);
+                if (read != snapshot.length()) {
+                    log.error("Snapshot " + snapshot + " is corrupted after " + read + " bytes");
+                    throw new DataStoreException(getEntityType(), "Snapshot is corrupted: " + snapshot);
+                }
+            }
+            committed = 0;
+            final long valid = file.exists() ? replay(file) : 0;
+            journal = new RandomAccessFile(file, "rw").getChannel();
+            if (valid < journal.size()) {
+                log.warn("Discarding " + (journal.size() - valid) + " bytes of incomplete records from " + file);
+                journal.truncate(valid);
+                journal.force(true);
+            }
+            journal.position(valid);
+        } catch (IOException e) {
+            log.error("Failed to recover data store from " + directory);
+            throw new DataStoreException(getEntityType(), "Failed to recover the data store: " + e.getMessage());
+        }
+        log.info("Recovered " + delegate.keys().size() + " entities, replaying " + committed + " journal records");
+    }
+
+    /**
+     * Applies the records in the file to the delegate
+     * @param file    the file
+     * @return the number of bytes taken up by the valid records at the start of the file
+     */
+    private long replay(File file) throws IOException {
+        long valid = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            final long length = file.length();
+            while (length - valid >= RECORD_HEADER_SIZE + CHECKSUM_SIZE) {
+                final CRC32 checksum = new CRC32();
+                final byte operation = input.readByte();
+                final int keyLength = input.readInt();
+                final int entityLength = input.readInt();
+                final long size = (long) RECORD_HEADER_SIZE + Math.max(keyLength, 0) + Math.max(entityLength, 0) + CHECKSUM_SIZE;
+                if (keyLength < ABSENT || entityLength < ABSENT || valid + size > length) {
+                    break;
+                }
+                final byte[] key = keyLength == ABSENT ? null : new byte[keyLength];
+                final byte[] entity = entityLength == ABSENT ? null : new byte[entityLength];
+                if (key != null) {
+                    input.readFully(key);
+                }
+                if (entity != null) {
+                    input.readFully(entity);
+                }
+                update(checksum, operation, key, entity);
+                if (input.readLong() != checksum.getValue() || !apply(operation, key, entity)) {
+                    break;
+                }
+                valid += size;
+                committed++;
+            }
+        }
+        return valid;
+    }
+
+    private boolean apply(byte operation, byte[] key, byte[] entity) {
+        if (operation == SAVE && key != null && entity != null) {
+            delegate.save(keyCodec.decode(key), codec.decode(entity));
+        } else if (operation == DELETE && key != null && entity == null) {
+            delegate.delete(keyCodec.decode(key));
+        } else if (operation == TRUNCATE && key == null && entity == null) {
+            delegate.truncate();
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void append(byte operation, byte[] key, byte[] entity) {
+        try {
+            write(new DataOutputStream(group), operation, key, entity);
+        } catch (IOException e) {
+            //writing to memory does not fail
+            throw new IllegalStateException(e);
+        }
+        pending++;
+    }
+
+    private void commitIfNeeded() {
+        if (batches.isEmpty() && pending >= groupSize) {
+            commit();
+        }
+    }
+
+    private void commit() {
+        if (pending == 0) {
+            return;
+        }
+        log.debug("Committing " + pending + " records to the journal in " + directory);
+        try {
+            final ByteBuffer records = ByteBuffer.wrap(group.toByteArray());
+            while (records.hasRemaining()) {
+                journal.write(records);
+            }
+            journal.force(false);
+        } catch (IOException e) {
+            log.error("Failed to commit " + pending + " records to the journal in " + directory);
+            throw new DataStoreException(getEntityType(), "Failed to commit the journal: " + e.getMessage());
+        }
+        committed += pending;
+        pending = 0;
+        group.reset();
+        if (committed >= snapshotInterval) {
+            snapshot();
+        }
+    }
+
+    private void assertOpen() {
+        if (journal == null) {
+            throw new DataStoreException(getEntityType(), "The journal in " + directory + " has been closed");
+        }
+    }
+
+    private static void write(DataOutputStream output, byte operation, byte[] key, byte[] entity) throws IOException {
+        final CRC32 checksum = new CRC32();
+        update(checksum, operation, key, entity);
+        output.writeByte(operation);
+        output.writeInt(key == null ? ABSENT : key.length);
+        output.writeInt(entity == null ? ABSENT : entity.length);
+        if (key != null) {
+            output.write(key);
+        }
+        if (entity != null) {
+            output.write(entity);
+        }
+        output.writeLong(checksum.getValue());
+    }
+
+    private static void update(CRC32 checksum, byte operation, byte[] key, byte[] entity) {
+        checksum.update(operation);
+        if (key != null) {
+            checksum.update(key);
+        }
+        if (entity != null) {
+            checksum.update(entity);
+        }
+    }
+
+    /**
+     * @return a codec that serializes keys of any type
+     */
+    @SuppressWarnings("unchecked")
+    private static <K extends Serializable> EntityCodec<K> serializingKeyCodec() {
+        //the key type is not known here; the codec only uses it to cast what it reads back, and it only ever reads keys
+        return new SerializingEntityCodec<>((Class<K>) (Class<?>) Serializable.class);
+    }
+
+}
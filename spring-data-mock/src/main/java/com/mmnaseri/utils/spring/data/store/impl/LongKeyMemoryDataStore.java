@@ -0,0 +1,53 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import java.io.Serializable;
+
+/**
+ * <p>This data store keeps its entities in an open-addressing hash map keyed by primitive {@literal long} values,
+ * which avoids boxing the keys and allocating an entry object for each entity. The map can be read while it is being
+ * written to, so reads do not take a lock. This data store suits integral keys that do not follow any particular
+ * pattern, such as the ones produced by the {@link com.mmnaseri.utils.spring.data.domain.impl.key.RandomLongKeyGenerator random key generators}.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class LongKeyMemoryDataStore<K extends Serializable, E> extends AbstractLongKeyDataStore<K, E> {
+
+    private final LongObjectMap<E> entities = new LongObjectMap<>();
+
+    public LongKeyMemoryDataStore(Class<K> keyType, Class<E> entityType) {
+        super(keyType, entityType);
+    }
+
+    @Override
+    protected E get(long key) {
+        return entities.get(key);
+    }
+
+    @Override
+    protected E put(long key, E entity) {
+        return entities.put(key, entity);
+    }
+
+    @Override
+    protected E remove(long key) {
+        return entities.remove(key);
+    }
+
+    @Override
+    protected void clear() {
+        entities.clear();
+    }
+
+    @Override
+    protected int count() {
+        return entities.size();
+    }
+
+    @Override
+    protected void visit(LongObjectMap.Visitor<E> visitor) {
+        entities.visit(visitor);
+    }
+
+}
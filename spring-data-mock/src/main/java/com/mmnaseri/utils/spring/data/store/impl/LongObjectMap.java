@@ -0,0 +1,200 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>A map from primitive {@literal long} keys to non-null values that uses open addressing with linear probing, so
+ * that keys are neither boxed nor wrapped in entry objects.</p>
+ *
+ * <p>Reads need no locking and can go on while the map is being written to. Writes, however, must not overlap, so
+ * callers writing from more than one thread have to serialize the writes themselves. To make this work, a slot is
+ * never handed to another key once a key has claimed it: removing a key only marks its slot as empty, and the slots
+ * are reclaimed by moving the live entries over to a new table, which is then swapped in as a whole. Readers still
+ * holding on to the old table keep reading it as it was at the time of the swap.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public final class LongObjectMap<V> {
+
+    private static final int MINIMUM_CAPACITY = 16;
+    /**
+     * Marks the slot of a removed key
+     */
+    private static final Object REMOVED = new Object();
+    private volatile Table table = new Table(MINIMUM_CAPACITY);
+    private volatile int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        final Table table = this.table;
+        final int mask = table.mask();
+        int slot = slot(key, mask);
+        for (int i = 0; i <= mask; i++) {
+            //the value is read first, since the key of a slot is always set before its value
+            final Object value = table.values.get(slot);
+            if (value == null) {
+                return null;
+            }
+            if (table.keys.get(slot) == key) {
+                return value == REMOVED ? null : (V) value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Maps the key to the value
+     * @param key      the key
+     * @param value    the value, which must not be {@literal null}
+     * @return the value previously mapped to the key, or {@literal null} if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        final Table table = this.table;
+        final int slot = table.find(key);
+        final Object previous = table.values.get(slot);
+        if (previous == null) {
+            //claiming a new slot
+            table.keys.set(slot, key);
+            table.values.set(slot, value);
+            table.used++;
+        } else {
+            table.values.set(slot, value);
+        }
+        if (previous == null || previous == REMOVED) {
+            size++;
+            if (table.used > table.values.length() / 2) {
+                rebuild();
+            }
+            return null;
+        }
+        return (V) previous;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        final Table table = this.table;
+        final int slot = table.find(key);
+        final Object previous = table.values.get(slot);
+        if (previous == null || previous == REMOVED) {
+            return null;
+        }
+        table.values.set(slot, REMOVED);
+        size--;
+        return (V) previous;
+    }
+
+    public void clear() {
+        table = new Table(MINIMUM_CAPACITY);
+        size = 0;
+    }
+
+    /**
+     * Visits the entries in no particular order. Entries written while the visit is in progress might or might not be
+     * visited.
+     * @param visitor    the visitor
+     * @return {@literal false} if the visitor asked for the iteration to stop
+     */
+    @SuppressWarnings("unchecked")
+    public boolean visit(Visitor<V> visitor) {
+        final Table table = this.table;
+        for (int i = 0; i < table.values.length(); i++) {
+            final Object value = table.values.get(i);
+            if (value != null && value != REMOVED && !visitor.visit(table.keys.get(i), (V) value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves the live entries over to a new table with room for at least as many again, leaving the removed ones behind
+     */
+    private void rebuild() {
+        final Table table = this.table;
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < size * 4) {
+            capacity <<= 1;
+        }
+        final Table rebuilt = new Table(capacity);
+        for (int i = 0; i < table.values.length(); i++) {
+            final Object value = table.values.get(i);
+            if (value != null && value != REMOVED) {
+                final long key = table.keys.get(i);
+                final int slot = rebuilt.find(key);
+                rebuilt.keys.set(slot, key);
+                rebuilt.values.set(slot, value);
+                rebuilt.used++;
+            }
+        }
+        this.table = rebuilt;
+    }
+
+    private static int slot(long key, int mask) {
+        //sequential keys would otherwise cluster into runs
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * The slots of the map, along with the number of slots that have been claimed by a key
+     */
+    private static final class Table {
+
+        private final AtomicLongArray keys;
+        private final AtomicReferenceArray<Object> values;
+        /**
+         * Only ever touched by the writer
+         */
+        private int used;
+
+        private Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            values = new AtomicReferenceArray<>(capacity);
+        }
+
+        private int mask() {
+            return values.length() - 1;
+        }
+
+        /**
+         * @return the slot claimed by the key, or the empty slot it would claim
+         */
+        private int find(long key) {
+            final int mask = mask();
+            int slot = slot(key, mask);
+            while (values.get(slot) != null && keys.get(slot) != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+    }
+
+    /**
+     * Visits the entries of the map
+     */
+    public interface Visitor<V> {
+
+        /**
+         * @param key      the key
+         * @param value    the value
+         * @return {@literal true} if the iteration should continue
+         */
+        boolean visit(long key, V value);
+
+    }
+
+}
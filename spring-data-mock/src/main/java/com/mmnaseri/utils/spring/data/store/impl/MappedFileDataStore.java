@@ -0,0 +1,658 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityCodec;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>This data store keeps its entities in a file that is mapped into memory, so that the data survives the JVM and
+ * can be picked up again simply by opening the same file. Entities and their keys are encoded using
+ * {@link EntityCodec codecs} and appended to the file as records, with saves and deletes both being written as new
+ * records. The layout of the file is:</p>
+ *
+ * <ul>
+ *     <li>A header holding a marker, the version of the layout, the offset at which the next record is to be written,
+ *     where the directory of keys is, how many entities there are, and how many bytes are taken up by records that are
+ *     no longer needed. Anything past the end offset is ignored, so that a record is only ever seen once it has been
+ *     written completely.</li>
+ *     <li>A sequence of records, each holding the length of the key, the length of the entity (or {@literal -1} for
+ *     deletes), followed by the encoded key and the encoded entity.</li>
+ *     <li>The directory of keys, which is a hash table with open addressing, kept among the records. Each slot holds
+ *     the offset of the latest record for a key along with the hash of the encoded key. The directory is written to
+ *     in place, and once it fills up, a directory twice as large is written after the records and takes its
+ *     place.</li>
+ * </ul>
+ *
+ * <p>Opening the data store only maps the file and reads the header, no matter how many entities there are, since
+ * the directory is already in the file. Keys are found by hashing and comparing their encoded forms, so neither the
+ * keys nor the entities are decoded until they are read. This means that the key codec must encode equal keys into
+ * equal bytes, which is the case for strings, numbers, and the other usual key types when they are serialized. It also
+ * means that every read returns a new copy of the entity, and that changes to an entity are only seen by the data
+ * store once the entity is saved again.</p>
+ *
+ * <p>Since the file is never rewritten in place, overwritten and deleted entities, as well as directories that have
+ * been outgrown, keep taking up space until the data store is {@link #compact() compacted}. The file is mapped in
+ * segments, so it can grow past {@link Integer#MAX_VALUE} bytes, although each encoded entity has to fit in a single
+ * array.</p>
+ *
+ * <p>Writes go to the memory mapping, and are handed to the operating system right away; they are only guaranteed to
+ * be on disk once the data store has been {@link #sync() synced} or {@link #close() closed}.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class MappedFileDataStore<K extends Serializable, E> implements ScanningDataStore<K, E>, Closeable {
+
+    private static final Log log = LogFactory.getLog(MappedFileDataStore.class);
+    /**
+     * The number of bytes initially mapped for a new file
+     */
+    public static final int DEFAULT_INITIAL_SIZE = 1 << 16;
+    /**
+     * The size of each of the segments in which the file is mapped
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+    /**
+     * Marks the file as having been written by this data store
+     */
+    private static final int MAGIC = 0x53444d46;
+    /**
+     * The version of the layout of the file
+     */
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int END_OFFSET = 8;
+    private static final int DIRECTORY_OFFSET = 16;
+    private static final int DIRECTORY_CAPACITY_OFFSET = 24;
+    private static final int USED_SLOTS_OFFSET = 28;
+    private static final int SIZE_OFFSET = 32;
+    private static final int GARBAGE_OFFSET = 40;
+    /**
+     * Key length and entity length
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int DELETED = -1;
+    /**
+     * The offset of the record and the hash of the key
+     */
+    private static final int SLOT_SIZE = 16;
+    private static final int INITIAL_DIRECTORY_CAPACITY = 64;
+    private final Class<E> entityType;
+    private final File file;
+    private final EntityCodec<K> keyCodec;
+    private final EntityCodec<E> codec;
+    private final int segmentSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private SegmentedMapping mapping;
+
+    public MappedFileDataStore(Class<E> entityType, File file) {
+        this(entityType, file, MappedFileDataStore.<K>serializingKeyCodec(), new SerializingEntityCodec<>(entityType));
+    }
+
+    public MappedFileDataStore(Class<E> entityType, File file, EntityCodec<K> keyCodec, EntityCodec<E> codec) {
+        this(entityType, file, keyCodec, codec, DEFAULT_SEGMENT_SIZE);
+    }
+
+    MappedFileDataStore(Class<E> entityType, File file, EntityCodec<K> keyCodec, EntityCodec<E> codec, int segmentSize) {
+        if (segmentSize < HEADER_SIZE || segmentSize % SLOT_SIZE != 0) {
+            throw new InvalidArgumentException("Segment size must be a multiple of " + SLOT_SIZE + " no smaller than " + HEADER_SIZE + ": " + segmentSize);
+        }
+        this.entityType = entityType;
+        this.file = file;
+        this.keyCodec = keyCodec;
+        this.codec = codec;
+        this.segmentSize = segmentSize;
+        open();
+    }
+
+    /**
+     * Keys are serialized as they are, so the codec only has to know that they are serializable
+     */
+    @SuppressWarnings("unchecked")
+    private static <K extends Serializable> EntityCodec<K> serializingKeyCodec() {
+        return (EntityCodec<K>) new SerializingEntityCodec<>(Serializable.class);
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        final byte[] encodedKey = keyCodec.encode(key);
+        lock.readLock().lock();
+        try {
+            assertOpen();
+            return find(encodedKey, hash(encodedKey)) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean save(K key, E entity) {
+        if (key == null) {
+            log.error("Asked to save an entity with a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        } else if (entity == null) {
+            log.error("Asked to save a null value into the data store");
+            throw new DataStoreException(entityType, "Cannot save a null entity");
+        }
+        final byte[] encodedKey = keyCodec.encode(key);
+        final byte[] data = codec.encode(entity);
+        final int hash = hash(encodedKey);
+        log.info("Attempting to save entity with key " + key + " using " + data.length + " bytes");
+        lock.writeLock().lock();
+        try {
+            assertOpen();
+            long slot = findSlot(encodedKey, hash);
+            final long previous = slot < 0 ? 0 : mapping.getLong(slot);
+            final boolean inserted = previous == 0 || isDeleted(previous);
+            if (previous == 0 && mapping.getInt(USED_SLOTS_OFFSET) + 1 > getDirectoryCapacity() / 4 * 3) {
+                growDirectory();
+                slot = findSlot(encodedKey, hash);
+            }
+            final long offset = append(encodedKey, data);
+            if (previous == 0) {
+                mapping.putInt(slot + 8, hash);
+                mapping.putInt(USED_SLOTS_OFFSET, mapping.getInt(USED_SLOTS_OFFSET) + 1);
+            } else if (!inserted) {
+                addGarbage(recordSize(previous));
+            }
+            mapping.putLong(slot, offset);
+            if (inserted) {
+                mapping.putInt(SIZE_OFFSET, mapping.getInt(SIZE_OFFSET) + 1);
+            }
+            return inserted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(K key) {
+        if (key == null) {
+            log.error("Asked to delete an entity with a null key for reference");
+            throw new DataStoreException(entityType, "Cannot delete an entity with a null key");
+        }
+        final byte[] encodedKey = keyCodec.encode(key);
+        lock.writeLock().lock();
+        try {
+            assertOpen();
+            final long slot = find(encodedKey, hash(encodedKey));
+            if (slot < 0) {
+                log.info("No entity was found to delete under key " + key);
+                return false;
+            }
+            log.info("Deleting entity under key " + key);
+            final long previous = mapping.getLong(slot);
+            //the slot keeps pointing to the tombstone, so that the keys that were placed after it can still be found
+            final long tombstone = append(encodedKey, null);
+            mapping.putLong(slot, tombstone);
+            mapping.putInt(SIZE_OFFSET, mapping.getInt(SIZE_OFFSET) - 1);
+            addGarbage(recordSize(previous) + recordSize(tombstone));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public E retrieve(K key) {
+        if (key == null) {
+            log.error("Asked to retrieve an entity from a null key");
+            throw new DataStoreException(entityType, "Cannot retrieve an entity with a null key");
+        }
+        final byte[] encodedKey = keyCodec.encode(key);
+        final byte[] data;
+        lock.readLock().lock();
+        try {
+            assertOpen();
+            final long slot = find(encodedKey, hash(encodedKey));
+            if (slot < 0) {
+                log.info("No entity was found to return under key " + key);
+                return null;
+            }
+            final long offset = mapping.getLong(slot);
+            data = mapping.get(offset + RECORD_HEADER_SIZE + mapping.getInt(offset), mapping.getInt(offset + 4));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return codec.decode(data);
+    }
+
+    /**
+     * Decodes the keys of all the entities in the data store. This goes through the whole directory, and is the only
+     * place where keys are decoded.
+     * @return the keys
+     */
+    @Override
+    public Collection<K> keys() {
+        final List<byte[]> encodedKeys;
+        lock.readLock().lock();
+        try {
+            assertOpen();
+            encodedKeys = new ArrayList<>(mapping.getInt(SIZE_OFFSET));
+            final long directory = mapping.getLong(DIRECTORY_OFFSET);
+            for (int i = 0; i < getDirectoryCapacity(); i++) {
+                final long offset = mapping.getLong(directory + (long) i * SLOT_SIZE);
+                if (offset != 0 && !isDeleted(offset)) {
+                    encodedKeys.add(mapping.get(offset + RECORD_HEADER_SIZE, mapping.getInt(offset)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        final List<K> keys = new ArrayList<>(encodedKeys.size());
+        for (byte[] encodedKey : encodedKeys) {
+            keys.add(keyCodec.decode(encodedKey));
+        }
+        return keys;
+    }
+
+    @Override
+    public Collection<E> retrieveAll() {
+        log.info("Retrieving all entities from the data store");
+        final List<E> entities = new ArrayList<>();
+        scan(new DataStoreVisitor<K, E>() {
+            @Override
+            public boolean visit(K key, E entity) {
+                entities.add(entity);
+                return true;
+            }
+        });
+        return entities;
+    }
+
+    /**
+     * Visits the entities one at a time, decoding each entity only when it is about to be visited. The lock on the
+     * data store is not held while the visitor is running.
+     * @param visitor    the visitor
+     */
+    @Override
+    public void scan(DataStoreVisitor<K, E> visitor) {
+        DataStoreUtils.scan(this, keys(), visitor);
+    }
+
+    @Override
+    public Class<E> getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * Discards all the records in the file. The space already mapped is kept for the records that will follow.
+     */
+    @Override
+    public void truncate() {
+        lock.writeLock().lock();
+        try {
+            assertOpen();
+            log.info("Truncating data store backed by " + file);
+            initialize();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the file so that it only holds the records for the entities currently in the data store, followed by
+     * a directory just large enough for them. The records are first written to a temporary file next to the data
+     * file, which then replaces the data file, so that the data is never left half-compacted.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            assertOpen();
+            log.info("Compacting data store backed by " + file + " to reclaim " + getGarbageBytes() + " bytes");
+            final File compacted = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".compact");
+            final int size = mapping.getInt(SIZE_OFFSET);
+            final long directory = mapping.getLong(DIRECTORY_OFFSET);
+            final int capacity = getDirectoryCapacity(size);
+            long recordsSize = 0;
+            for (int i = 0; i < getDirectoryCapacity(); i++) {
+                final long offset = mapping.getLong(directory + (long) i * SLOT_SIZE);
+                if (offset != 0 && !isDeleted(offset)) {
+                    recordsSize += recordSize(offset);
+                }
+            }
+            final long target = align(HEADER_SIZE + recordsSize);
+            final long end = target + (long) capacity * SLOT_SIZE;
+            try {
+                //noinspection ResultOfMethodCallIgnored
+                compacted.delete();
+                try (SegmentedMapping copy = new SegmentedMapping(compacted, end, segmentSize)) {
+                    long position = HEADER_SIZE;
+                    for (int i = 0; i < getDirectoryCapacity(); i++) {
+                        final long slot = directory + (long) i * SLOT_SIZE;
+                        final long offset = mapping.getLong(slot);
+                        if (offset == 0 || isDeleted(offset)) {
+                            continue;
+                        }
+                        final long recordSize = recordSize(offset);
+                        copy.put(position, mapping.get(offset, (int) recordSize));
+                        final int hash = mapping.getInt(slot + 8);
+                        long index = hash & (capacity - 1);
+                        while (copy.getLong(target + index * SLOT_SIZE) != 0) {
+                            index = (index + 1) & (capacity - 1);
+                        }
+                        copy.putLong(target + index * SLOT_SIZE, position);
+                        copy.putInt(target + index * SLOT_SIZE + 8, hash);
+                        position += recordSize;
+                    }
+                    writeHeader(copy, end, target, capacity, size, size);
+                    copy.force();
+                }
+                release();
+                Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.error("Failed to compact data store backed by " + file);
+                //noinspection ResultOfMethodCallIgnored
+                compacted.delete();
+                if (mapping == null) {
+                    //the data file itself has not been touched
+                    open();
+                }
+                throw new DataStoreException(entityType, "Failed to compact the data file: " + e.getMessage());
+            }
+            open();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forces all the changes made so far to be written to the disk
+     */
+    public void sync() {
+        lock.writeLock().lock();
+        try {
+            assertOpen();
+            mapping.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes all the changes to the disk and releases the file. A closed data store cannot be used anymore, but the
+     * same file can be opened again by a new data store.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (mapping == null) {
+                return;
+            }
+            log.info("Closing data store backed by " + file);
+            mapping.force();
+            release();
+        } catch (IOException e) {
+            log.error("Failed to close data store backed by " + file);
+            throw new DataStoreException(entityType, "Failed to close the data file: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the file backing this data store
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of bytes taken up by records for entities that have since been overwritten or deleted, and
+     * by directories that have been outgrown
+     */
+    public long getGarbageBytes() {
+        lock.readLock().lock();
+        try {
+            assertOpen();
+            return mapping.getLong(GARBAGE_OFFSET);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Maps the file and checks its header, setting up an empty data file if the file is empty.
+     */
+    private void open() {
+        try {
+            final boolean fresh = !file.exists() || file.length() == 0;
+            if (!fresh && file.length() < HEADER_SIZE) {
+                throw new DataStoreException(entityType, "File is too short to be a data file: " + file);
+            }
+            mapping = new SegmentedMapping(file, DEFAULT_INITIAL_SIZE, segmentSize);
+            if (fresh) {
+                log.info("Initializing new data file " + file);
+                initialize();
+            } else {
+                if (mapping.getInt(0) != MAGIC) {
+                    throw new DataStoreException(entityType, "File is not a data file: " + file);
+                }
+                if (mapping.getInt(4) != VERSION) {
+                    throw new DataStoreException(entityType, "Unsupported data file version " + mapping.getInt(4) + ": " + file);
+                }
+                final long end = mapping.getLong(END_OFFSET);
+                final long directory = mapping.getLong(DIRECTORY_OFFSET);
+                final int capacity = getDirectoryCapacity();
+                if (end < HEADER_SIZE || end > mapping.getCapacity() || capacity < 1 || Integer.bitCount(capacity) != 1
+                        || directory < HEADER_SIZE || directory + (long) capacity * SLOT_SIZE > end) {
+                    throw new DataStoreException(entityType, "Data file is corrupted: " + file);
+                }
+                log.info("Opened data file " + file + " with " + mapping.getInt(SIZE_OFFSET) + " entities");
+            }
+        } catch (IOException e) {
+            log.error("Failed to open data file " + file);
+            quietlyRelease();
+            throw new DataStoreException(entityType, "Failed to open the data file: " + e.getMessage());
+        } catch (DataStoreException e) {
+            quietlyRelease();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the header for an empty data store, followed by an empty directory
+     */
+    private void initialize() {
+        final long directory = align(HEADER_SIZE);
+        final long end = directory + (long) INITIAL_DIRECTORY_CAPACITY * SLOT_SIZE;
+        ensureCapacity(end);
+        mapping.clear(directory, end - directory);
+        writeHeader(mapping, end, directory, INITIAL_DIRECTORY_CAPACITY, 0, 0);
+    }
+
+    private static void writeHeader(SegmentedMapping mapping, long end, long directory, int capacity, int size, int used) {
+        mapping.putInt(0, MAGIC);
+        mapping.putInt(4, VERSION);
+        mapping.putLong(DIRECTORY_OFFSET, directory);
+        mapping.putInt(DIRECTORY_CAPACITY_OFFSET, capacity);
+        mapping.putInt(USED_SLOTS_OFFSET, used);
+        mapping.putInt(SIZE_OFFSET, size);
+        mapping.putLong(GARBAGE_OFFSET, 0);
+        mapping.putLong(END_OFFSET, end);
+    }
+
+    /**
+     * Writes a new directory after the records and moves the live keys over to it. The slots that point to deletes are
+     * not carried over, so the new directory is sized after the number of entities rather than the number of slots in
+     * use.
+     */
+    private void growDirectory() {
+        final long previous = mapping.getLong(DIRECTORY_OFFSET);
+        final int previousCapacity = getDirectoryCapacity();
+        final int size = mapping.getInt(SIZE_OFFSET);
+        //we leave room for as many keys again, so that the directory does not have to move again any time soon
+        final int capacity = getDirectoryCapacity(2 * (size + 1));
+        log.debug("Moving the directory of " + file + " to one with " + capacity + " slots");
+        final long directory = align(mapping.getLong(END_OFFSET));
+        final long end = directory + (long) capacity * SLOT_SIZE;
+        ensureCapacity(end);
+        mapping.clear(directory, end - directory);
+        for (int i = 0; i < previousCapacity; i++) {
+            final long slot = previous + (long) i * SLOT_SIZE;
+            final long offset = mapping.getLong(slot);
+            if (offset == 0 || isDeleted(offset)) {
+                continue;
+            }
+            final int hash = mapping.getInt(slot + 8);
+            long index = hash & (capacity - 1);
+            while (mapping.getLong(directory + index * SLOT_SIZE) != 0) {
+                index = (index + 1) & (capacity - 1);
+            }
+            mapping.putLong(directory + index * SLOT_SIZE, offset);
+            mapping.putInt(directory + index * SLOT_SIZE + 8, hash);
+        }
+        mapping.putLong(END_OFFSET, end);
+        //the new directory only takes over once it is complete
+        mapping.putInt(DIRECTORY_CAPACITY_OFFSET, capacity);
+        mapping.putLong(DIRECTORY_OFFSET, directory);
+        mapping.putInt(USED_SLOTS_OFFSET, size);
+        addGarbage((long) previousCapacity * SLOT_SIZE);
+    }
+
+    /**
+     * @return the position of the slot holding the latest record for the key, if the key has not been deleted, or
+     * {@literal -1} otherwise
+     */
+    private long find(byte[] encodedKey, int hash) {
+        final long slot = findSlot(encodedKey, hash);
+        if (slot < 0) {
+            return -1;
+        }
+        final long offset = mapping.getLong(slot);
+        return offset == 0 || isDeleted(offset) ? -1 : slot;
+    }
+
+    /**
+     * @return the position of the slot for the key, which is either the slot already used for the key, or the empty
+     * slot where the key would go
+     */
+    private long findSlot(byte[] encodedKey, int hash) {
+        final long directory = mapping.getLong(DIRECTORY_OFFSET);
+        final int mask = getDirectoryCapacity() - 1;
+        long index = hash & mask;
+        while (true) {
+            final long slot = directory + index * SLOT_SIZE;
+            final long offset = mapping.getLong(slot);
+            if (offset == 0) {
+                return slot;
+            }
+            if (mapping.getInt(slot + 8) == hash && mapping.getInt(offset) == encodedKey.length
+                    && mapping.matches(offset + RECORD_HEADER_SIZE, encodedKey)) {
+                return slot;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Appends a record to the end of the file, growing the mapping if there is not enough room left.
+     * @param key       the encoded key
+     * @param entity    the encoded entity or {@literal null} if the record is for a delete
+     * @return the offset of the record
+     */
+    private long append(byte[] key, byte[] entity) {
+        final long offset = mapping.getLong(END_OFFSET);
+        final long end = offset + RECORD_HEADER_SIZE + key.length + (entity == null ? 0 : entity.length);
+        ensureCapacity(end);
+        mapping.putInt(offset, key.length);
+        mapping.putInt(offset + 4, entity == null ? DELETED : entity.length);
+        mapping.put(offset + RECORD_HEADER_SIZE, key);
+        if (entity != null) {
+            mapping.put(offset + RECORD_HEADER_SIZE + key.length, entity);
+        }
+        //the record only becomes visible once the header points past it
+        mapping.putLong(END_OFFSET, end);
+        return offset;
+    }
+
+    private void ensureCapacity(long required) {
+        try {
+            if (required > mapping.getCapacity()) {
+                log.debug("Growing the mapping for " + file + " to hold " + required + " bytes");
+            }
+            mapping.ensureCapacity(required);
+        } catch (IOException e) {
+            log.error("Failed to grow data file " + file);
+            throw new DataStoreException(entityType, "Failed to grow the data file: " + e.getMessage());
+        }
+    }
+
+    private void addGarbage(long bytes) {
+        mapping.putLong(GARBAGE_OFFSET, mapping.getLong(GARBAGE_OFFSET) + bytes);
+    }
+
+    private int getDirectoryCapacity() {
+        return mapping.getInt(DIRECTORY_CAPACITY_OFFSET);
+    }
+
+    /**
+     * @return the smallest directory capacity that can hold the given number of keys without filling up past three
+     * quarters of its slots
+     */
+    private static int getDirectoryCapacity(int size) {
+        int capacity = INITIAL_DIRECTORY_CAPACITY;
+        while (capacity / 4 * 3 < size) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private boolean isDeleted(long offset) {
+        return mapping.getInt(offset + 4) == DELETED;
+    }
+
+    private long recordSize(long offset) {
+        final int entityLength = mapping.getInt(offset + 4);
+        return RECORD_HEADER_SIZE + mapping.getInt(offset) + (entityLength == DELETED ? 0 : entityLength);
+    }
+
+    private static long align(long position) {
+        return (position + SLOT_SIZE - 1) / SLOT_SIZE * SLOT_SIZE;
+    }
+
+    private static int hash(byte[] encodedKey) {
+        final int hash = Arrays.hashCode(encodedKey);
+        return hash ^ (hash >>> 16);
+    }
+
+    private void assertOpen() {
+        if (mapping == null) {
+            throw new DataStoreException(entityType, "Data store backed by " + file + " has been closed");
+        }
+    }
+
+    private void release() throws IOException {
+        final SegmentedMapping mapping = this.mapping;
+        this.mapping = null;
+        mapping.close();
+    }
+
+    private void quietlyRelease() {
+        if (mapping == null) {
+            return;
+        }
+        try {
+            release();
+        } catch (IOException ignored) {
+            //we are already failing
+        }
+    }
+
+}
@@ -1,27 +1,44 @@
 package com.mmnaseri.utils.spring.data.store.impl;
 
 import com.mmnaseri.utils.spring.data.error.DataStoreException;
-import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.AtomicDataStore;
+import com.mmnaseri.utils.spring.data.store.BulkDataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import com.mmnaseri.utils.spring.data.store.VersionedDataStore;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * This is the default, most basic implementation provided for a data store that stores entities in an in-memory
- * {@link java.util.Map map} by mapping entity keys to entities.
+ * <p>This is the default, most basic implementation provided for a data store that stores entities in an in-memory
+ * {@link java.util.Map map} by mapping entity keys to entities.</p>
+ *
+ * <p>The map is an immutable {@link HashTrie hash trie}, and every write publishes a new version of it by swapping
+ * out the current version for one that shares all the unchanged nodes with it, trying again if another write got there
+ * first. Neither readers nor writers ever block, except for {@link VersionedDataStore versioned saves}, which are made
+ * one at a time. Each read sees a single version of the data store, so the collections returned by {@link #keys()} and
+ * {@link #retrieveAll()} are consistent snapshots. They are unmodifiable views rather than copies, which take no time
+ * to create and are shared by all readers until the next write, so callers that need to change them have to copy them
+ * first.</p>
+ *
+ * <p>{@link BulkDataStore Bulk operations} and {@link AtomicDataStore atomic writes} are published as a single new
+ * version, so other threads either see all of their changes or none of them.</p>
  *
  * @author Milad Naseri (mmnaseri@programmer.net)
  * @since 1.0 (9/17/15)
  */
-public class MemoryDataStore<K extends Serializable, E> implements DataStore<K, E> {
+public class MemoryDataStore<K extends Serializable, E> implements ScanningDataStore<K, E>, BulkDataStore<K, E>, AtomicDataStore<K, E>, VersionedDataStore<K, E> {
 
     private static final Log log = LogFactory.getLog(MemoryDataStore.class);
-    private final ConcurrentMap<K, E> store = new ConcurrentHashMap<>();
+    private final AtomicReference<HashTrie<K, E>> store = new AtomicReference<>(HashTrie.<K, E>empty());
     private final Class<E> entityType;
 
     public MemoryDataStore(Class<E> entityType) {
@@ -31,7 +48,7 @@ public class MemoryDataStore<K extends Serializable, E> implements DataStore<K,
     @Override
     public boolean hasKey(K key) {
         log.info("Looking for an object with key " + key);
-        return store.containsKey(key);
+        return key != null && store.get().get(key) != null;
     }
 
     @Override
@@ -44,7 +61,7 @@ public class MemoryDataStore<K extends Serializable, E> implements DataStore<K,
             throw new DataStoreException(entityType, "Cannot save a null entity");
         }
         log.info("Attempting to save entity with key " + key);
-        boolean saved = store.put(key, entity) == null;
+        boolean saved = swap(key, entity) == null;
         log.debug("Entity was " + (!saved ? "not " : "") + "saved under key " + key);
         return saved;
     }
@@ -55,9 +72,8 @@ public class MemoryDataStore<K extends Serializable, E> implements DataStore<K,
             log.error("Asked to delete an entity with a null key for reference");
             throw new DataStoreException(entityType, "Cannot delete an entity with a null key");
         }
-        if (store.containsKey(key)) {
-            log.info("Deleting entity under key " + key);
-            store.remove(key);
+        if (swap(key, null) != null) {
+            log.info("Deleted entity under key " + key);
             return true;
         } else {
             log.info("No entity was found to delete under key " + key);
@@ -65,30 +81,201 @@ public class MemoryDataStore<K extends Serializable, E> implements DataStore<K,
         return false;
     }
 
+    @Override
+    public E put(K key, E entity) {
+        if (key == null) {
+            log.error("Asked to save an entity with a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        } else if (entity == null) {
+            log.error("Asked to save a null value into the data store");
+            throw new DataStoreException(entityType, "Cannot save a null entity");
+        }
+        log.info("Attempting to put entity under key " + key);
+        return swap(key, entity);
+    }
+
+    @Override
+    public E putIfAbsent(K key, E entity) {
+        if (key == null) {
+            log.error("Asked to save an entity with a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        } else if (entity == null) {
+            log.error("Asked to save a null value into the data store");
+            throw new DataStoreException(entityType, "Cannot save a null entity");
+        }
+        while (true) {
+            final HashTrie<K, E> current = store.get();
+            final E existing = current.get(key);
+            if (existing != null) {
+                log.info("Did not save entity since there already is one under key " + key);
+                return existing;
+            }
+            if (store.compareAndSet(current, current.put(key, entity))) {
+                log.info("Saved entity under key " + key);
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public E remove(K key) {
+        if (key == null) {
+            log.error("Asked to delete an entity with a null key for reference");
+            throw new DataStoreException(entityType, "Cannot delete an entity with a null key");
+        }
+        final E removed = swap(key, null);
+        if (removed == null) {
+            log.info("No entity was found to delete under key " + key);
+            return null;
+        }
+        log.info("Deleted entity under key " + key);
+        return removed;
+    }
+
+    @Override
+    public E compute(K key, EntityRemappingFunction<K, E> function) {
+        if (key == null) {
+            log.error("Asked to compute an entity for a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        }
+        while (true) {
+            final HashTrie<K, E> current = store.get();
+            final E computed = function.apply(key, current.get(key));
+            if (store.compareAndSet(current, computed == null ? current.remove(key) : current.put(key, computed))) {
+                return computed;
+            }
+            log.debug("Entity under key " + key + " changed while computing its replacement; trying again");
+        }
+    }
+
+    @Override
+    public int saveAll(Map<K, E> entities) {
+        for (Map.Entry<K, E> entry : entities.entrySet()) {
+            if (entry.getKey() == null) {
+                log.error("Asked to save an entity with a null key");
+                throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+            } else if (entry.getValue() == null) {
+                log.error("Asked to save a null value into the data store");
+                throw new DataStoreException(entityType, "Cannot save a null entity");
+            }
+        }
+        log.info("Attempting to save " + entities.size() + " entities");
+        while (true) {
+            final HashTrie<K, E> current = store.get();
+            HashTrie<K, E> updated = current;
+            for (Map.Entry<K, E> entry : entities.entrySet()) {
+                updated = updated.put(entry.getKey(), entry.getValue());
+            }
+            if (store.compareAndSet(current, updated)) {
+                final int inserted = updated.size() - current.size();
+                log.debug(inserted + " of the entities were new entries");
+                return inserted;
+            }
+        }
+    }
+
+    @Override
+    public Map<K, E> deleteAll(Collection<K> keys) {
+        for (K key : keys) {
+            if (key == null) {
+                log.error("Asked to delete an entity with a null key for reference");
+                throw new DataStoreException(entityType, "Cannot delete an entity with a null key");
+            }
+        }
+        log.info("Deleting entities under " + keys.size() + " keys");
+        while (true) {
+            final HashTrie<K, E> current = store.get();
+            final Map<K, E> deleted = DataStoreUtils.newLinkedHashMap(keys.size());
+            HashTrie<K, E> updated = current;
+            for (K key : keys) {
+                final E entity = updated.get(key);
+                if (entity != null) {
+                    deleted.put(key, entity);
+                    updated = updated.remove(key);
+                }
+            }
+            if (store.compareAndSet(current, updated)) {
+                return deleted;
+            }
+        }
+    }
+
     @Override
     public E retrieve(K key) {
         if (key == null) {
             log.error("Asked to retrieve an entity from a null key");
             throw new DataStoreException(entityType, "Cannot retrieve an entity with a null key");
         }
-        if (store.containsKey(key)) {
+        final E entity = store.get().get(key);
+        if (entity != null) {
             log.info("Retrieving entity from key " + key);
-            return store.get(key);
+            return entity;
         } else {
             log.info("No entity was found to return under key " + key);
         }
         return null;
     }
 
+    /**
+     * @return an unmodifiable snapshot of the keys in the data store
+     */
     @Override
     public Collection<K> keys() {
-        return new LinkedList<>(store.keySet());
+        return store.get().keys();
     }
 
+    /**
+     * @return an unmodifiable snapshot of the entities in the data store
+     */
     @Override
-    public synchronized Collection<E> retrieveAll() {
+    public Collection<E> retrieveAll() {
         log.info("Retrieving all entities from the data store");
-        return new LinkedList<>(store.values());
+        return store.get().values();
+    }
+
+    @Override
+    public List<E> retrieveAll(Collection<K> keys) {
+        log.info("Retrieving entities under " + keys.size() + " keys");
+        final HashTrie<K, E> current = store.get();
+        final List<E> entities = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            if (key == null) {
+                log.error("Asked to retrieve an entity from a null key");
+                throw new DataStoreException(entityType, "Cannot retrieve an entity with a null key");
+            }
+            final E entity = current.get(key);
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    @Override
+    public void scan(DataStoreVisitor<K, E> visitor) {
+        log.info("Scanning all entities in the data store");
+        if (!store.get().visit(visitor)) {
+            log.debug("The visitor has asked for the scan to stop");
+        }
+    }
+
+    @Override
+    public boolean save(K key, E entity, String versionProperty) {
+        return put(key, entity, versionProperty) == null;
+    }
+
+    @Override
+    public E put(K key, E entity, String versionProperty) {
+        if (key == null) {
+            log.error("Asked to save an entity with a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        } else if (entity == null) {
+            log.error("Asked to save a null value into the data store");
+            throw new DataStoreException(entityType, "Cannot save a null entity");
+        }
+        log.info("Attempting to save versioned entity with key " + key);
+        //the version is checked against the data store as it is when the entity is swapped in
+        return DataStoreUtils.putVersioned(this, key, entity, versionProperty);
     }
 
     @Override
@@ -98,7 +285,24 @@ public class MemoryDataStore<K extends Serializable, E> implements DataStore<K,
 
     @Override
     public void truncate() {
-        store.clear();
+        store.set(HashTrie.<K, E>empty());
+    }
+
+    /**
+     * Saves the entity under the key, or deletes the key if the entity is {@literal null}
+     * @return the entity that was stored under the key before
+     */
+    private E swap(K key, E entity) {
+        while (true) {
+            final HashTrie<K, E> current = store.get();
+            final E previous = current.get(key);
+            if (previous == null && entity == null) {
+                return null;
+            }
+            if (store.compareAndSet(current, entity == null ? current.remove(key) : current.put(key, entity))) {
+                return previous;
+            }
+        }
     }
 
 }
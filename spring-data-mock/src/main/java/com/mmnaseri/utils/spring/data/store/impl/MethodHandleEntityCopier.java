@@ -0,0 +1,319 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.store.EntityCopier;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * <p>This copier makes deep copies of entities by copying their fields one by one. The first time an instance of a
+ * type is copied, the fields of the type are looked up and turned into {@link MethodHandle method handles}, which
+ * are kept for all later copies, so that copying does not go through reflection or serialization.</p>
+ *
+ * <p>Fields holding primitives or values that cannot change, such as strings, numbers, enums, or dates and times from
+ * {@literal java.time}, are copied as they are. Arrays, collections, maps, {@link Date dates}, and
+ * {@link Calendar calendars} are copied along with their contents, and any other object is copied field by field in
+ * turn. Objects that are referenced more than once within the same entity are copied only once, so the copy has the
+ * same shape as the original, cycles included.</p>
+ *
+ * <p>Collections and maps are copied into new instances of the same class if the class has a public default
+ * constructor, and otherwise into a plain {@link ArrayList}, {@link LinkedHashSet}, {@link LinkedList}, or
+ * {@link LinkedHashMap}, which means that the copies of unmodifiable collections can be modified. Sorted collections
+ * keep their comparators. All other objects must have a default constructor, which does not need to be public.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class MethodHandleEntityCopier<E> implements EntityCopier<E> {
+
+    private static final Log log = LogFactory.getLog(MethodHandleEntityCopier.class);
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(Object.class);
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.<Class<?>>asList(String.class,
+            Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class, Float.class,
+            Double.class, BigInteger.class, BigDecimal.class, Class.class, UUID.class, Locale.class, Currency.class,
+            URI.class, URL.class, File.class, Pattern.class));
+    private static final ConcurrentMap<Class<?>, TypeCopier> copiers = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, MethodHandle> containers = new ConcurrentHashMap<>();
+    private final Class<E> entityType;
+
+    public MethodHandleEntityCopier(Class<E> entityType) {
+        this.entityType = entityType;
+        if (!entityType.isInterface() && !Modifier.isAbstract(entityType.getModifiers())) {
+            //this reports entities that cannot be copied right away, instead of on the first copy
+            getCopier(entityType);
+        }
+    }
+
+    public Class<E> getEntityType() {
+        return entityType;
+    }
+
+    @Override
+    public E copy(E entity) {
+        if (entity == null) {
+            return null;
+        }
+        return entityType.cast(copy(entity, new IdentityHashMap<Object, Object>(4)));
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return type.isPrimitive() || Enum.class.isAssignableFrom(type) || IMMUTABLE_TYPES.contains(type)
+                || type.getName().startsWith("java.time.");
+    }
+
+    private static Object copy(Object value, Map<Object, Object> copies) {
+        if (value == null || value instanceof Enum || isImmutable(value.getClass())) {
+            return value;
+        }
+        final Object existing = copies.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (value instanceof Object[]) {
+            final Object[] source = (Object[]) value;
+            final Object[] target = source.clone();
+            copies.put(source, target);
+            for (int i = 0; i < target.length; i++) {
+                target[i] = copy(source[i], copies);
+            }
+            return target;
+        } else if (value.getClass().isArray()) {
+            return copyPrimitiveArray(value);
+        } else if (value instanceof Date) {
+            final Object target = ((Date) value).clone();
+            copies.put(value, target);
+            return target;
+        } else if (value instanceof Calendar) {
+            final Object target = ((Calendar) value).clone();
+            copies.put(value, target);
+            return target;
+        } else if (value instanceof Collection) {
+            return copyCollection((Collection<?>) value, copies);
+        } else if (value instanceof Map) {
+            return copyMap((Map<?, ?>) value, copies);
+        }
+        return getCopier(value.getClass()).copy(value, copies);
+    }
+
+    private static Object copyPrimitiveArray(Object value) {
+        if (value instanceof int[]) {
+            return ((int[]) value).clone();
+        } else if (value instanceof long[]) {
+            return ((long[]) value).clone();
+        } else if (value instanceof double[]) {
+            return ((double[]) value).clone();
+        } else if (value instanceof float[]) {
+            return ((float[]) value).clone();
+        } else if (value instanceof short[]) {
+            return ((short[]) value).clone();
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        } else if (value instanceof char[]) {
+            return ((char[]) value).clone();
+        }
+        return ((boolean[]) value).clone();
+    }
+
+    private static Object copyCollection(Collection<?> source, Map<Object, Object> copies) {
+        final Collection<Object> target;
+        if (source instanceof EnumSet) {
+            //enums are never copied, so there is nothing else to do
+            final EnumSet<?> clone = ((EnumSet<?>) source).clone();
+            copies.put(source, clone);
+            return clone;
+        } else if (source instanceof SortedSet) {
+            //the copy holds copies of the same elements, so the comparator applies to them as well
+            @SuppressWarnings("unchecked")
+            final Comparator<Object> comparator = (Comparator<Object>) ((SortedSet<?>) source).comparator();
+            target = new TreeSet<>(comparator);
+        } else if (source instanceof PriorityQueue) {
+            @SuppressWarnings("unchecked")
+            final Comparator<Object> comparator = (Comparator<Object>) ((PriorityQueue<?>) source).comparator();
+            target = new PriorityQueue<>(Math.max(1, source.size()), comparator);
+        } else {
+            final Class<?> fallback = source instanceof List ? ArrayList.class : (source instanceof Set ? LinkedHashSet.class : LinkedList.class);
+            @SuppressWarnings("unchecked")
+            final Collection<Object> instance = (Collection<Object>) instantiate(source.getClass(), fallback);
+            target = instance;
+        }
+        copies.put(source, target);
+        for (Object item : source) {
+            target.add(copy(item, copies));
+        }
+        return target;
+    }
+
+    private static Object copyMap(Map<?, ?> source, Map<Object, Object> copies) {
+        final Map<Object, Object> target;
+        if (source instanceof EnumMap) {
+            //the clone has the same keys, and its values are only ever replaced with copies of themselves
+            @SuppressWarnings("unchecked")
+            final Map<Object, Object> clone = (Map<Object, Object>) ((EnumMap<?, ?>) source).clone();
+            copies.put(source, clone);
+            for (Map.Entry<Object, Object> entry : clone.entrySet()) {
+                entry.setValue(copy(entry.getValue(), copies));
+            }
+            return clone;
+        } else if (source instanceof SortedMap) {
+            @SuppressWarnings("unchecked")
+            final Comparator<Object> comparator = (Comparator<Object>) ((SortedMap<?, ?>) source).comparator();
+            target = new TreeMap<>(comparator);
+        } else {
+            @SuppressWarnings("unchecked")
+            final Map<Object, Object> instance = (Map<Object, Object>) instantiate(source.getClass(), LinkedHashMap.class);
+            target = instance;
+        }
+        copies.put(source, target);
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            target.put(copy(entry.getKey(), copies), copy(entry.getValue(), copies));
+        }
+        return target;
+    }
+
+    /**
+     * Creates a new instance of a collection or map type, or of the fallback type if the type cannot be instantiated
+     * through a public default constructor
+     */
+    private static Object instantiate(Class<?> type, Class<?> fallback) {
+        MethodHandle constructor = containers.get(type);
+        if (constructor == null) {
+            try {
+                constructor = MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                log.debug("Collection type " + type + " cannot be instantiated; copying it as a " + fallback);
+                try {
+                    constructor = MethodHandles.publicLookup().findConstructor(fallback, MethodType.methodType(void.class));
+                } catch (NoSuchMethodException | IllegalAccessException impossible) {
+                    throw new IllegalStateException(impossible);
+                }
+            }
+            constructor = constructor.asType(CONSTRUCTOR);
+            containers.putIfAbsent(type, constructor);
+        }
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static TypeCopier getCopier(Class<?> type) {
+        TypeCopier copier = copiers.get(type);
+        if (copier == null) {
+            copier = new TypeCopier(type);
+            final TypeCopier existing = copiers.putIfAbsent(type, copier);
+            if (existing != null) {
+                copier = existing;
+            }
+        }
+        return copier;
+    }
+
+    /**
+     * Copies instances of a single type, field by field
+     */
+    private static final class TypeCopier {
+
+        private final Class<?> type;
+        private final MethodHandle constructor;
+        /**
+         * Handles taking the target and the source, and copying the value of a field that does not need to be copied
+         * itself from the source to the target, without boxing primitives along the way
+         */
+        private final MethodHandle[] transfers;
+        private final MethodHandle[] getters;
+        private final MethodHandle[] setters;
+
+        private TypeCopier(Class<?> type) {
+            log.info("Preparing to copy instances of " + type);
+            this.type = type;
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+                throw new DataStoreException(type, "Cannot copy instances of an abstract type");
+            }
+            try {
+                final Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                this.constructor = LOOKUP.unreflectConstructor(constructor).asType(CONSTRUCTOR);
+            } catch (NoSuchMethodException e) {
+                throw new DataStoreException(type, "Cannot copy instances of a type without a default constructor");
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new DataStoreException(type, "Cannot access the default constructor: " + e.getMessage());
+            }
+            final List<MethodHandle> transfers = new ArrayList<>();
+            final List<MethodHandle> getters = new ArrayList<>();
+            final List<MethodHandle> setters = new ArrayList<>();
+            final List<Field> fields = new ArrayList<>();
+            ReflectionUtils.doWithFields(type, new ReflectionUtils.FieldCallback() {
+                @Override
+                public void doWith(Field field) throws IllegalArgumentException, IllegalAccessException {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        fields.add(field);
+                    }
+                }
+            });
+            for (Field field : fields) {
+                try {
+                    field.setAccessible(true);
+                    final MethodHandle getter = LOOKUP.unreflectGetter(field);
+                    final MethodHandle setter = LOOKUP.unreflectSetter(field);
+                    if (field.isSynthetic() || isImmutable(field.getType())) {
+                        //references to enclosing instances are shared rather than copied
+                        transfers.add(MethodHandles.filterArguments(setter, 1, getter).asType(SETTER));
+                    } else {
+                        getters.add(getter.asType(GETTER));
+                        setters.add(setter.asType(SETTER));
+                    }
+                } catch (IllegalAccessException | RuntimeException e) {
+                    throw new DataStoreException(type, "Cannot access field " + field.getName() + ": " + e.getMessage());
+                }
+            }
+            this.transfers = transfers.toArray(new MethodHandle[transfers.size()]);
+            this.getters = getters.toArray(new MethodHandle[getters.size()]);
+            this.setters = setters.toArray(new MethodHandle[setters.size()]);
+        }
+
+        private Object copy(Object source, Map<Object, Object> copies) {
+            try {
+                final Object target = (Object) constructor.invokeExact();
+                copies.put(source, target);
+                for (MethodHandle transfer : transfers) {
+                    transfer.invokeExact(target, source);
+                }
+                for (int i = 0; i < getters.length; i++) {
+                    final Object value = (Object) getters[i].invokeExact(source);
+                    setters[i].invokeExact(target, MethodHandleEntityCopier.copy(value, copies));
+                }
+                return target;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new DataStoreException(type, "Failed to copy instance: " + e.getMessage());
+            }
+        }
+
+    }
+
+}
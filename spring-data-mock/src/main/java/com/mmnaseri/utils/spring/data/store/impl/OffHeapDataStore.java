@@ -0,0 +1,275 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityCodec;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>This data store keeps its entities outside of the Java heap. Entities are encoded using an {@link EntityCodec}
+ * and appended to direct memory slabs, while an on-heap index maps each key to the location of its entity. Entities
+ * are decoded every time they are read, which means that every read returns a new copy of the entity, and that
+ * changes to an entity are only seen by the data store once the entity is saved again.</p>
+ *
+ * <p>Space taken up by entities that have been overwritten or deleted is reclaimed by copying the live entities to
+ * new slabs once the wasted space outgrows both a single slab and the live data.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class OffHeapDataStore<K extends Serializable, E> implements ScanningDataStore<K, E> {
+
+    private static final Log log = LogFactory.getLog(OffHeapDataStore.class);
+    /**
+     * The default size for each slab of memory, in bytes
+     */
+    public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+    /**
+     * The number of bytes used to record the length of each entity
+     */
+    private static final int HEADER_SIZE = 4;
+    private final Class<E> entityType;
+    private final EntityCodec<E> codec;
+    private final int slabSize;
+    private final Map<K, Long> locations = new HashMap<>();
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long liveBytes;
+    private long garbageBytes;
+
+    public OffHeapDataStore(Class<E> entityType) {
+        this(entityType, new SerializingEntityCodec<>(entityType));
+    }
+
+    public OffHeapDataStore(Class<E> entityType, EntityCodec<E> codec) {
+        this(entityType, codec, DEFAULT_SLAB_SIZE);
+    }
+
+    public OffHeapDataStore(Class<E> entityType, EntityCodec<E> codec, int slabSize) {
+        if (slabSize <= HEADER_SIZE) {
+            throw new InvalidArgumentException("Slab size must be larger than " + HEADER_SIZE + " bytes: " + slabSize);
+        }
+        this.entityType = entityType;
+        this.codec = codec;
+        this.slabSize = slabSize;
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        lock.readLock().lock();
+        try {
+            return locations.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean save(K key, E entity) {
+        if (key == null) {
+            log.error("Asked to save an entity with a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        } else if (entity == null) {
+            log.error("Asked to save a null value into the data store");
+            throw new DataStoreException(entityType, "Cannot save a null entity");
+        }
+        final byte[] data = codec.encode(entity);
+        log.info("Attempting to save entity with key " + key + " using " + data.length + " bytes");
+        lock.writeLock().lock();
+        try {
+            final Long previous = locations.put(key, write(data));
+            if (previous != null) {
+                release(previous);
+                compactIfNeeded();
+            }
+            return previous == null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(K key) {
+        if (key == null) {
+            log.error("Asked to delete an entity with a null key for reference");
+            throw new DataStoreException(entityType, "Cannot delete an entity with a null key");
+        }
+        lock.writeLock().lock();
+        try {
+            final Long location = locations.remove(key);
+            if (location == null) {
+                log.info("No entity was found to delete under key " + key);
+                return false;
+            }
+            log.info("Deleting entity under key " + key);
+            release(location);
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public E retrieve(K key) {
+        if (key == null) {
+            log.error("Asked to retrieve an entity from a null key");
+            throw new DataStoreException(entityType, "Cannot retrieve an entity with a null key");
+        }
+        final byte[] data;
+        lock.readLock().lock();
+        try {
+            final Long location = locations.get(key);
+            if (location == null) {
+                log.info("No entity was found to return under key " + key);
+                return null;
+            }
+            data = read(slabs, location);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return codec.decode(data);
+    }
+
+    @Override
+    public Collection<K> keys() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(locations.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<E> retrieveAll() {
+        log.info("Retrieving all entities from the data store");
+        final List<E> entities = new ArrayList<>();
+        scan(new DataStoreVisitor<K, E>() {
+            @Override
+            public boolean visit(K key, E entity) {
+                entities.add(entity);
+                return true;
+            }
+        });
+        return entities;
+    }
+
+    /**
+     * Visits the entities one at a time, decoding each entity only when it is about to be visited. The lock on the
+     * data store is not held while the visitor is running.
+     * @param visitor    the visitor
+     */
+    @Override
+    public void scan(DataStoreVisitor<K, E> visitor) {
+        DataStoreUtils.scan(this, keys(), visitor);
+    }
+
+    @Override
+    public Class<E> getEntityType() {
+        return entityType;
+    }
+
+    @Override
+    public void truncate() {
+        lock.writeLock().lock();
+        try {
+            locations.clear();
+            slabs.clear();
+            liveBytes = 0;
+            garbageBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the total amount of direct memory currently allocated by this data store, in bytes
+     */
+    public long getAllocatedBytes() {
+        lock.readLock().lock();
+        try {
+            long allocated = 0;
+            for (ByteBuffer slab : slabs) {
+                allocated += slab.capacity();
+            }
+            return allocated;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the amount of direct memory taken up by the entities currently in the data store, in bytes
+     */
+    public long getLiveBytes() {
+        lock.readLock().lock();
+        try {
+            return liveBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends the data to the last slab, allocating a new slab if there is not enough room left.
+     * @param data    the data
+     * @return the location of the data, with the index of the slab in the upper and the offset in the lower half
+     */
+    private long write(byte[] data) {
+        final int size = HEADER_SIZE + data.length;
+        ByteBuffer slab = slabs.isEmpty() ? null : slabs.get(slabs.size() - 1);
+        if (slab == null || slab.remaining() < size) {
+            //entities that do not fit in a regular slab get a slab of their own
+            slab = ByteBuffer.allocateDirect(Math.max(slabSize, size));
+            slabs.add(slab);
+            log.debug("Allocated slab #" + slabs.size() + " with " + slab.capacity() + " bytes");
+        }
+        final int offset = slab.position();
+        slab.putInt(data.length);
+        slab.put(data);
+        liveBytes += size;
+        return ((long) (slabs.size() - 1) << 32) | offset;
+    }
+
+    private static byte[] read(List<ByteBuffer> slabs, long location) {
+        //we duplicate the buffer so that concurrent readers do not step on each other's positions
+        final ByteBuffer slab = slabs.get((int) (location >>> 32)).duplicate();
+        final int offset = (int) location;
+        final byte[] data = new byte[slab.getInt(offset)];
+        slab.position(offset + HEADER_SIZE);
+        slab.get(data);
+        return data;
+    }
+
+    private void release(long location) {
+        final int size = HEADER_SIZE + slabs.get((int) (location >>> 32)).getInt((int) location);
+        liveBytes -= size;
+        garbageBytes += size;
+    }
+
+    private void compactIfNeeded() {
+        if (garbageBytes <= slabSize || garbageBytes <= liveBytes) {
+            return;
+        }
+        log.info("Compacting the data store to reclaim " + garbageBytes + " bytes");
+        final List<ByteBuffer> previous = new ArrayList<>(slabs);
+        slabs.clear();
+        liveBytes = 0;
+        garbageBytes = 0;
+        for (Map.Entry<K, Long> entry : locations.entrySet()) {
+            entry.setValue(write(read(previous, entry.getValue())));
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.ForkableDataStore;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <p>This data store keeps its entities in an immutable {@link HashTrie hash trie}. Every write replaces the trie
+ * with a new version that shares all of its unchanged nodes with the previous one, which means that
+ * {@link #fork() forking} the data store only takes a reference to the current version: it takes constant time no
+ * matter how many entities are held, and writes to either the fork or the original only ever copy the few nodes on
+ * the path to the key they touch.</p>
+ *
+ * <p>Reads never block, and {@link #keys()}, {@link #retrieveAll()}, and {@link #scan(DataStoreVisitor)} all see a
+ * single, consistent version of the data store. Writes are serialized.</p>
+ *
+ * <p>The fork and the original share the entities they held at the time of forking, so an entity that is changed in
+ * place, rather than saved again, changes in both. To keep the forks apart, wrap this data store in an
+ * {@link IsolatingDataStore}, which can be forked in turn, and which never hands out the entities held here.</p>
+ *
+ * <p>To use this data store with repositories, it should be registered with the
+ * {@link com.mmnaseri.utils.spring.data.store.DataStoreRegistry data store registry} before the repositories are
+ * created.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class PersistentMemoryDataStore<K extends Serializable, E> implements ForkableDataStore<K, E>, ScanningDataStore<K, E> {
+
+    private static final Log log = LogFactory.getLog(PersistentMemoryDataStore.class);
+    private final Class<E> entityType;
+    private volatile HashTrie<K, E> trie;
+
+    public PersistentMemoryDataStore(Class<E> entityType) {
+        this(entityType, HashTrie.<K, E>empty());
+    }
+
+    private PersistentMemoryDataStore(Class<E> entityType, HashTrie<K, E> trie) {
+        this.entityType = entityType;
+        this.trie = trie;
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        return key != null && trie.get(key) != null;
+    }
+
+    @Override
+    public synchronized boolean save(K key, E entity) {
+        if (key == null) {
+            log.error("Asked to save an entity with a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        } else if (entity == null) {
+            log.error("Asked to save a null value into the data store");
+            throw new DataStoreException(entityType, "Cannot save a null entity");
+        }
+        log.info("Attempting to save entity with key " + key);
+        final HashTrie<K, E> trie = this.trie;
+        final boolean saved = trie.get(key) == null;
+        this.trie = trie.put(key, entity);
+        return saved;
+    }
+
+    @Override
+    public synchronized boolean delete(K key) {
+        if (key == null) {
+            log.error("Asked to delete an entity with a null key for reference");
+            throw new DataStoreException(entityType, "Cannot delete an entity with a null key");
+        }
+        final HashTrie<K, E> trie = this.trie;
+        final HashTrie<K, E> removed = trie.remove(key);
+        if (removed == trie) {
+            log.info("No entity was found to delete under key " + key);
+            return false;
+        }
+        log.info("Deleting entity under key " + key);
+        this.trie = removed;
+        return true;
+    }
+
+    @Override
+    public E retrieve(K key) {
+        if (key == null) {
+            log.error("Asked to retrieve an entity from a null key");
+            throw new DataStoreException(entityType, "Cannot retrieve an entity with a null key");
+        }
+        return trie.get(key);
+    }
+
+    @Override
+    public Collection<K> keys() {
+        final HashTrie<K, E> trie = this.trie;
+        final List<K> keys = new ArrayList<>(trie.size());
+        trie.visit(new DataStoreVisitor<K, E>() {
+            @Override
+            public boolean visit(K key, E entity) {
+                keys.add(key);
+                return true;
+            }
+        });
+        return keys;
+    }
+
+    @Override
+    public Collection<E> retrieveAll() {
+        log.info("Retrieving all entities from the data store");
+        final HashTrie<K, E> trie = this.trie;
+        final List<E> entities = new ArrayList<>(trie.size());
+        trie.visit(new DataStoreVisitor<K, E>() {
+            @Override
+            public boolean visit(K key, E entity) {
+                entities.add(entity);
+                return true;
+            }
+        });
+        return entities;
+    }
+
+    @Override
+    public void scan(DataStoreVisitor<K, E> visitor) {
+        log.info("Scanning all entities in the data store");
+        trie.visit(visitor);
+    }
+
+    @Override
+    public Class<E> getEntityType() {
+        return entityType;
+    }
+
+    @Override
+    public synchronized void truncate() {
+        trie = HashTrie.empty();
+    }
+
+    @Override
+    public PersistentMemoryDataStore<K, E> fork() {
+        log.info("Forking the data store for " + entityType);
+        return new PersistentMemoryDataStore<>(entityType, trie);
+    }
+
+    /**
+     * @return the number of entities in the data store
+     */
+    public int size() {
+        return trie.size();
+    }
+
+}
@@ -0,0 +1,269 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.QueueingDataStore;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * <p>This is a write-behind data store that queues saves and deletes instead of applying them to its delegate right
+ * away. Repeated writes to the same key are coalesced, so that only the last write is applied. The queue is applied to
+ * the delegate in one pass when {@link #flush() flushed}, when the outermost {@link #startBatch() batch} ends, or,
+ * outside of batches, as soon as the number of queued writes reaches the threshold for this data store.</p>
+ *
+ * <p>Batches belong to the thread that started them, so that threads can run their own batches side by side. Writes
+ * made by a thread with a batch in progress never trigger a flush on their own, but the queue is shared, and so ending
+ * a batch applies whatever the other threads have queued as well.</p>
+ *
+ * <p>Reads always take the queued writes into account, so that the data store looks the same to its users whether
+ * or not the queue has been flushed.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class QueueingMemoryDataStore<K extends Serializable, E> implements QueueingDataStore<K, E, Object>, ScanningDataStore<K, E> {
+
+    private static final Log log = LogFactory.getLog(QueueingMemoryDataStore.class);
+    /**
+     * The default number of writes that can be queued outside of a batch before the queue is flushed
+     */
+    public static final int DEFAULT_THRESHOLD = 1000;
+    /**
+     * Marks a queued delete
+     */
+    private static final Object DELETED = new Object();
+    private final DataStore<K, E> delegate;
+    private final int threshold;
+    private final Map<K, Object> queue = new LinkedHashMap<>();
+    private final ThreadLocal<Deque<Object>> batches = new ThreadLocal<>();
+
+    public QueueingMemoryDataStore(Class<E> entityType) {
+        this(new MemoryDataStore<K, E>(entityType));
+    }
+
+    public QueueingMemoryDataStore(DataStore<K, E> delegate) {
+        this(delegate, DEFAULT_THRESHOLD);
+    }
+
+    public QueueingMemoryDataStore(DataStore<K, E> delegate, int threshold) {
+        if (threshold < 1) {
+            throw new InvalidArgumentException("Queue threshold must be a positive number: " + threshold);
+        }
+        this.delegate = delegate;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public synchronized boolean hasKey(K key) {
+        if (queue.containsKey(key)) {
+            return queue.get(key) != DELETED;
+        }
+        return delegate.hasKey(key);
+    }
+
+    @Override
+    public synchronized boolean save(K key, E entity) {
+        if (key == null) {
+            log.error("Asked to save an entity with a null key");
+            throw new DataStoreException(getEntityType(), "Cannot save an entity with a null key");
+        } else if (entity == null) {
+            log.error("Asked to save a null value into the data store");
+            throw new DataStoreException(getEntityType(), "Cannot save a null entity");
+        }
+        final boolean saved = !hasKey(key);
+        log.info("Queueing entity for saving under key " + key);
+        queue.put(key, entity);
+        flushIfNeeded();
+        return saved;
+    }
+
+    @Override
+    public synchronized boolean delete(K key) {
+        if (key == null) {
+            log.error("Asked to delete an entity with a null key for reference");
+            throw new DataStoreException(getEntityType(), "Cannot delete an entity with a null key");
+        }
+        if (!hasKey(key)) {
+            log.info("No entity was found to delete under key " + key);
+            return false;
+        }
+        log.info("Queueing entity under key " + key + " for deletion");
+        if (delegate.hasKey(key)) {
+            queue.put(key, DELETED);
+        } else {
+            //the entity has never made it to the delegate, so we can simply forget about it
+            queue.remove(key);
+        }
+        flushIfNeeded();
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public synchronized E retrieve(K key) {
+        if (key == null) {
+            log.error("Asked to retrieve an entity from a null key");
+            throw new DataStoreException(getEntityType(), "Cannot retrieve an entity with a null key");
+        }
+        if (queue.containsKey(key)) {
+            final Object value = queue.get(key);
+            return value == DELETED ? null : (E) value;
+        }
+        return delegate.retrieve(key);
+    }
+
+    @Override
+    public synchronized Collection<K> keys() {
+        final Set<K> keys = new LinkedHashSet<>(delegate.keys());
+        for (Map.Entry<K, Object> entry : queue.entrySet()) {
+            if (entry.getValue() == DELETED) {
+                keys.remove(entry.getKey());
+            } else {
+                keys.add(entry.getKey());
+            }
+        }
+        return new LinkedList<>(keys);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public synchronized Collection<E> retrieveAll() {
+        if (queue.isEmpty()) {
+            return delegate.retrieveAll();
+        }
+        final List<E> entities = new LinkedList<>();
+        for (K key : delegate.keys()) {
+            if (!queue.containsKey(key)) {
+                final E entity = delegate.retrieve(key);
+                if (entity != null) {
+                    entities.add(entity);
+                }
+            }
+        }
+        for (Object value : queue.values()) {
+            if (value != DELETED) {
+                entities.add((E) value);
+            }
+        }
+        return entities;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public synchronized void scan(final DataStoreVisitor<K, E> visitor) {
+        if (queue.isEmpty()) {
+            DataStoreUtils.scan(delegate, visitor);
+            return;
+        }
+        final boolean[] stopped = new boolean[1];
+        DataStoreUtils.scan(delegate, new DataStoreVisitor<K, E>() {
+            @Override
+            public boolean visit(K key, E entity) {
+                //queued writes are visited separately
+                if (queue.containsKey(key)) {
+                    return true;
+                }
+                stopped[0] = !visitor.visit(key, entity);
+                return !stopped[0];
+            }
+        });
+        if (stopped[0]) {
+            return;
+        }
+        for (Map.Entry<K, Object> entry : queue.entrySet()) {
+            if (entry.getValue() != DELETED && !visitor.visit(entry.getKey(), (E) entry.getValue())) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Class<E> getEntityType() {
+        return delegate.getEntityType();
+    }
+
+    /**
+     * Truncates the delegate data store and discards all the queued writes
+     */
+    @Override
+    public synchronized void truncate() {
+        queue.clear();
+        delegate.truncate();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public synchronized void flush() {
+        if (queue.isEmpty()) {
+            return;
+        }
+        log.info("Flushing " + queue.size() + " queued writes to the data store");
+        //every key is queued at most once, so the deletes and the saves can be applied as two separate groups
+        final List<K> deletes = new ArrayList<>();
+        final Map<K, E> saves = DataStoreUtils.newLinkedHashMap(queue.size());
+        for (Map.Entry<K, Object> entry : queue.entrySet()) {
+            if (entry.getValue() == DELETED) {
+                deletes.add(entry.getKey());
+            } else {
+                saves.put(entry.getKey(), (E) entry.getValue());
+            }
+        }
+        if (!deletes.isEmpty()) {
+            DataStoreUtils.deleteAll(delegate, deletes);
+        }
+        if (!saves.isEmpty()) {
+            DataStoreUtils.saveAll(delegate, saves);
+        }
+        queue.clear();
+    }
+
+    @Override
+    public Object startBatch() {
+        Deque<Object> current = batches.get();
+        if (current == null) {
+            current = new ArrayDeque<>();
+            batches.set(current);
+        }
+        final Object batch = new Object();
+        current.push(batch);
+        log.info("Started a new batch; this thread has " + current.size() + " batches in progress");
+        return batch;
+    }
+
+    @Override
+    public void endBatch(Object batch) {
+        final Deque<Object> current = batches.get();
+        if (current == null || current.peek() != batch) {
+            log.error("Attempted to end a batch that is not the latest batch in progress on this thread");
+            throw new DataStoreException(getEntityType(), "Batches must be ended in the reverse order in which they were started, by the thread that started them");
+        }
+        current.pop();
+        if (current.isEmpty()) {
+            batches.remove();
+            log.info("The outermost batch has ended; flushing the queue");
+            flush();
+        }
+    }
+
+    /**
+     * @return the number of writes currently waiting in the queue
+     */
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    private void flushIfNeeded() {
+        if (batches.get() == null && queue.size() >= threshold) {
+            flush();
+        }
+    }
+
+}
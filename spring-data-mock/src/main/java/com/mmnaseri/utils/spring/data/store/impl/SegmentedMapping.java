@@ -0,0 +1,215 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>This class maps a file into memory as a sequence of segments, so that files larger than a single
+ * {@link MappedByteBuffer} can hold, which is {@link Integer#MAX_VALUE} bytes, can be addressed through {@literal long}
+ * positions. All the segments but the last one are of the same size, and the mapping grows by growing the last segment
+ * until it is full, and then adding new segments after it. Values that straddle two segments are read and written one
+ * byte at a time.</p>
+ *
+ * <p>This class is not thread-safe for writes. Reads can be made concurrently, as long as nothing is written or the
+ * mapping is not grown in the meantime.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+final class SegmentedMapping implements Closeable {
+
+    private final FileChannel channel;
+    private final int segmentSize;
+    private MappedByteBuffer[] segments;
+    private long capacity;
+
+    /**
+     * Maps the file, creating it if need be
+     * @param file           the file
+     * @param size           the number of bytes to map if the file is shorter than that
+     * @param segmentSize    the size of each segment
+     */
+    SegmentedMapping(File file, long size, int segmentSize) throws IOException {
+        this.segmentSize = segmentSize;
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        this.segments = new MappedByteBuffer[0];
+        try {
+            map(Math.max(size, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of bytes currently mapped
+     */
+    long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Makes sure that at least the given number of bytes are mapped, by at least doubling the mapping if it has to
+     * grow
+     * @param required    the number of bytes needed
+     */
+    void ensureCapacity(long required) throws IOException {
+        if (required > capacity) {
+            map(Math.max(required, 2 * capacity));
+        }
+    }
+
+    private void map(long size) throws IOException {
+        final int count = (int) ((size + segmentSize - 1) / segmentSize);
+        final MappedByteBuffer[] mapped = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            final long start = (long) i * segmentSize;
+            final long length = Math.min(segmentSize, size - start);
+            if (i < segments.length && segments[i].capacity() == length) {
+                mapped[i] = segments[i];
+            } else {
+                mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, length);
+            }
+        }
+        segments = mapped;
+        capacity = size;
+    }
+
+    int getInt(long position) {
+        final int offset = offset(position);
+        if (offset <= segmentSize - 4) {
+            return segment(position).getInt(offset);
+        }
+        return (int) getNumber(position, 4);
+    }
+
+    long getLong(long position) {
+        final int offset = offset(position);
+        if (offset <= segmentSize - 8) {
+            return segment(position).getLong(offset);
+        }
+        return getNumber(position, 8);
+    }
+
+    void putInt(long position, int value) {
+        final int offset = offset(position);
+        if (offset <= segmentSize - 4) {
+            segment(position).putInt(offset, value);
+        } else {
+            putNumber(position, value, 4);
+        }
+    }
+
+    void putLong(long position, long value) {
+        final int offset = offset(position);
+        if (offset <= segmentSize - 8) {
+            segment(position).putLong(offset, value);
+        } else {
+            putNumber(position, value, 8);
+        }
+    }
+
+    /**
+     * Reads the given number of bytes
+     * @param position    where to start reading
+     * @param length      the number of bytes to read
+     * @return the bytes
+     */
+    byte[] get(long position, int length) {
+        final byte[] data = new byte[length];
+        int done = 0;
+        while (done < length) {
+            //we duplicate the segment so that concurrent readers do not step on each other's positions
+            final ByteBuffer segment = segment(position + done).duplicate();
+            segment.position(offset(position + done));
+            final int chunk = Math.min(length - done, segment.remaining());
+            segment.get(data, done, chunk);
+            done += chunk;
+        }
+        return data;
+    }
+
+    void put(long position, byte[] data) {
+        int done = 0;
+        while (done < data.length) {
+            final ByteBuffer segment = segment(position + done).duplicate();
+            segment.position(offset(position + done));
+            final int chunk = Math.min(data.length - done, segment.remaining());
+            segment.put(data, done, chunk);
+            done += chunk;
+        }
+    }
+
+    /**
+     * @return {@literal true} if the bytes at the given position are the same as the given bytes
+     */
+    boolean matches(long position, byte[] data) {
+        for (int i = 0; i < data.length; i++) {
+            if (segment(position + i).get(offset(position + i)) != data[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes zeros over the given range
+     */
+    void clear(long position, long length) {
+        final byte[] zeros = new byte[(int) Math.min(length, 1 << 16)];
+        long done = 0;
+        while (done < length) {
+            final int chunk = (int) Math.min(zeros.length, length - done);
+            final ByteBuffer segment = segment(position + done).duplicate();
+            segment.position(offset(position + done));
+            final int written = Math.min(chunk, segment.remaining());
+            segment.put(zeros, 0, written);
+            done += written;
+        }
+    }
+
+    /**
+     * Forces the changes made so far to be written to the disk
+     */
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        segments = new MappedByteBuffer[0];
+        capacity = 0;
+        channel.close();
+    }
+
+    private MappedByteBuffer segment(long position) {
+        return segments[(int) (position / segmentSize)];
+    }
+
+    private int offset(long position) {
+        return (int) (position % segmentSize);
+    }
+
+    private long getNumber(long position, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (segment(position + i).get(offset(position + i)) & 0xFF);
+        }
+        return value;
+    }
+
+    private void putNumber(long position, long value, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            segment(position + i).put(offset(position + i), (byte) value);
+            value >>>= 8;
+        }
+    }
+
+}
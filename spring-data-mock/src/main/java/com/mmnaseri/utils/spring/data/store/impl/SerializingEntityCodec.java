@@ -0,0 +1,73 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.store.EntityCodec;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.*;
+
+/**
+ * This codec uses standard Java serialization to encode and decode entities. It therefore requires the entities, and
+ * everything reachable from them, to be {@link Serializable}.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class SerializingEntityCodec<E> implements EntityCodec<E> {
+
+    private static final Log log = LogFactory.getLog(SerializingEntityCodec.class);
+    private final Class<E> entityType;
+
+    public SerializingEntityCodec(Class<E> entityType) {
+        this.entityType = entityType;
+    }
+
+    @Override
+    public byte[] encode(E entity) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(entity);
+        } catch (IOException e) {
+            log.error("Failed to serialize entity " + entity);
+            throw new DataStoreException(entityType, "Failed to serialize entity: " + e.getMessage());
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public E decode(byte[] data) {
+        try (ObjectInputStream input = new EntityInputStream(new ByteArrayInputStream(data))) {
+            return entityType.cast(input.readObject());
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            log.error("Failed to deserialize entity of type " + entityType);
+            throw new DataStoreException(entityType, "Failed to deserialize entity: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resolves classes through the class loader of the entity type, so that entities defined in application class
+     * loaders can be read back
+     */
+    private class EntityInputStream extends ObjectInputStream {
+
+        private EntityInputStream(InputStream input) throws IOException {
+            super(input);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+            final ClassLoader classLoader = entityType.getClassLoader();
+            if (classLoader != null) {
+                try {
+                    return Class.forName(description.getName(), false, classLoader);
+                } catch (ClassNotFoundException ignored) {
+                    //we will fall back to the default resolution
+                }
+            }
+            return super.resolveClass(description);
+        }
+
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.PartitionedDataStore;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>This is an in-memory data store that spreads its entities over a fixed number of shards by the hash of their
+ * keys. Each shard is a map of its own, so writes to different shards never contend with each other, and each shard
+ * can be {@link #scan(int, DataStoreVisitor) scanned} separately, which lets queries look at the shards in
+ * parallel.</p>
+ *
+ * <p>By default, there are as many shards as there are processors available to the JVM.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class ShardedMemoryDataStore<K extends Serializable, E> implements PartitionedDataStore<K, E> {
+
+    private static final Log log = LogFactory.getLog(ShardedMemoryDataStore.class);
+    private final List<ConcurrentMap<K, E>> shards;
+    private final Class<E> entityType;
+
+    public ShardedMemoryDataStore(Class<E> entityType) {
+        this(entityType, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ShardedMemoryDataStore(Class<E> entityType, int shards) {
+        if (shards < 1) {
+            throw new InvalidArgumentException("Number of shards must be a positive number: " + shards);
+        }
+        this.entityType = entityType;
+        this.shards = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            this.shards.add(new ConcurrentHashMap<K, E>());
+        }
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        log.info("Looking for an object with key " + key);
+        return key != null && shard(key).containsKey(key);
+    }
+
+    @Override
+    public boolean save(K key, E entity) {
+        if (key == null) {
+            log.error("Asked to save an entity with a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        } else if (entity == null) {
+            log.error("Asked to save a null value into the data store");
+            throw new DataStoreException(entityType, "Cannot save a null entity");
+        }
+        log.info("Attempting to save entity with key " + key);
+        final boolean saved = shard(key).put(key, entity) == null;
+        log.debug("Entity was " + (!saved ? "not " : "") + "saved under key " + key);
+        return saved;
+    }
+
+    @Override
+    public boolean delete(K key) {
+        if (key == null) {
+            log.error("Asked to delete an entity with a null key for reference");
+            throw new DataStoreException(entityType, "Cannot delete an entity with a null key");
+        }
+        if (shard(key).remove(key) != null) {
+            log.info("Deleted entity under key " + key);
+            return true;
+        }
+        log.info("No entity was found to delete under key " + key);
+        return false;
+    }
+
+    @Override
+    public E retrieve(K key) {
+        if (key == null) {
+            log.error("Asked to retrieve an entity from a null key");
+            throw new DataStoreException(entityType, "Cannot retrieve an entity with a null key");
+        }
+        final E entity = shard(key).get(key);
+        if (entity == null) {
+            log.info("No entity was found to return under key " + key);
+        }
+        return entity;
+    }
+
+    @Override
+    public Collection<K> keys() {
+        final List<K> keys = new ArrayList<>();
+        for (ConcurrentMap<K, E> shard : shards) {
+            keys.addAll(shard.keySet());
+        }
+        return keys;
+    }
+
+    @Override
+    public Collection<E> retrieveAll() {
+        log.info("Retrieving all entities from the data store");
+        final List<E> entities = new ArrayList<>();
+        for (ConcurrentMap<K, E> shard : shards) {
+            entities.addAll(shard.values());
+        }
+        return entities;
+    }
+
+    @Override
+    public void scan(DataStoreVisitor<K, E> visitor) {
+        log.info("Scanning all entities in the data store");
+        for (ConcurrentMap<K, E> shard : shards) {
+            if (!scan(shard, visitor)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int getPartitionCount() {
+        return shards.size();
+    }
+
+    @Override
+    public void scan(int partition, DataStoreVisitor<K, E> visitor) {
+        if (partition < 0 || partition >= shards.size()) {
+            throw new InvalidArgumentException("No such partition: " + partition);
+        }
+        log.info("Scanning the entities in shard " + partition);
+        scan(shards.get(partition), visitor);
+    }
+
+    @Override
+    public Class<E> getEntityType() {
+        return entityType;
+    }
+
+    @Override
+    public void truncate() {
+        for (ConcurrentMap<K, E> shard : shards) {
+            shard.clear();
+        }
+    }
+
+    private ConcurrentMap<K, E> shard(K key) {
+        final int hash = key.hashCode();
+        //spread the high bits, since keys with regular hashes would otherwise pile up in a few shards
+        final int spread = (hash ^ (hash >>> 16)) & Integer.MAX_VALUE;
+        return shards.get(spread % shards.size());
+    }
+
+    private static <K extends Serializable, E> boolean scan(ConcurrentMap<K, E> shard, DataStoreVisitor<K, E> visitor) {
+        for (Map.Entry<K, E> entry : shard.entrySet()) {
+            if (!visitor.visit(entry.getKey(), entry.getValue())) {
+                log.debug("The visitor has asked for the scan to stop");
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.domain.Matcher;
+import com.mmnaseri.utils.spring.data.domain.Parameter;
+import com.mmnaseri.utils.spring.data.domain.impl.matchers.*;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.query.NullHandling;
+import com.mmnaseri.utils.spring.data.query.Order;
+import com.mmnaseri.utils.spring.data.query.SortDirection;
+import com.mmnaseri.utils.spring.data.store.SortedPropertyIndex;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * <p>This index keeps a skip list from the values of the indexed property to the keys of the entities having that
+ * value. In addition to what the {@link HashPropertyIndex} can do, it can answer {@literal GreaterThan},
+ * {@literal GreaterThanEqual}, {@literal LessThan}, {@literal LessThanEqual} (as well as their aliases
+ * {@literal After} and {@literal Before}) and {@literal Between} parameters by walking a sub-map of the values,
+ * and it can list the indexed keys in the order of the indexed property.</p>
+ *
+ * <p>All non-null values of the property must be {@link Comparable} with each other.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class SkipListPropertyIndex<K extends Serializable> extends AbstractPropertyIndex<K> implements SortedPropertyIndex<K> {
+
+    private static final Log log = LogFactory.getLog(SkipListPropertyIndex.class);
+    private final ConcurrentNavigableMap<Object, Set<K>> buckets;
+
+    public SkipListPropertyIndex(String property) {
+        this(property, new ConcurrentSkipListMap<Object, Set<K>>(new ValueComparator()));
+    }
+
+    private SkipListPropertyIndex(String property, ConcurrentNavigableMap<Object, Set<K>> buckets) {
+        super(property, buckets);
+        this.buckets = buckets;
+    }
+
+    @Override
+    public synchronized void index(K key, Object value) {
+        if (value != null && !(value instanceof Comparable)) {
+            throw new InvalidArgumentException("Expected the value of sorted index " + getProperty() + " to be comparable: " + value);
+        }
+        try {
+            super.index(key, value);
+        } catch (ClassCastException e) {
+            throw new InvalidArgumentException("Value " + value + " cannot be compared to the other values of sorted index " + getProperty(), e);
+        }
+    }
+
+    @Override
+    public Set<K> lookup(Parameter parameter, Object... operands) {
+        try {
+            return super.lookup(parameter, operands);
+        } catch (ClassCastException e) {
+            log.warn("Operands " + Arrays.toString(operands) + " cannot be compared to the values of sorted index " + getProperty());
+            return null;
+        }
+    }
+
+    @Override
+    protected Set<K> lookup(Matcher matcher, Parameter parameter, Object... operands) {
+        if (operands.length == 1 && operands[0] instanceof Comparable) {
+            final Object pivot = operands[0];
+            if (matcher instanceof IsGreaterThanMatcher) {
+                return collect(buckets.tailMap(pivot, false));
+            } else if (matcher instanceof IsGreaterThanOrEqualToMatcher) {
+                return collect(buckets.tailMap(pivot, true));
+            } else if (matcher instanceof IsLessThanMatcher) {
+                return collect(buckets.subMap(NULL, false, pivot, false));
+            } else if (matcher instanceof IsLessThanOrEqualToMatcher) {
+                return collect(buckets.subMap(NULL, false, pivot, true));
+            }
+        } else if (operands.length == 2 && operands[0] instanceof Comparable && operands[1] instanceof Comparable && matcher instanceof IsBetweenMatcher) {
+            if (buckets.comparator().compare(operands[0], operands[1]) > 0) {
+                //just like the matcher, we do not swap the boundaries
+                return new HashSet<>();
+            }
+            return collect(buckets.subMap(operands[0], true, operands[1], true));
+        }
+        return null;
+    }
+
+    @Override
+    public List<K> sort(Order order) {
+        if (!getProperty().equals(order.getProperty())) {
+            return null;
+        }
+        final boolean descending = SortDirection.DESCENDING.equals(order.getDirection());
+        //the property comparator reverses the null handling along with the rest of the ordering for descending sorts
+        final boolean nullsFirst = NullHandling.NULLS_FIRST.equals(order.getNullHandling()) != descending;
+        final List<K> keys = new ArrayList<>();
+        final Set<K> nulls = buckets.get(NULL);
+        if (nullsFirst && nulls != null) {
+            keys.addAll(nulls);
+        }
+        final Map<Object, Set<K>> values = descending ? buckets.tailMap(NULL, false).descendingMap() : buckets.tailMap(NULL, false);
+        for (Set<K> bucket : values.values()) {
+            keys.addAll(bucket);
+        }
+        if (!nullsFirst && nulls != null) {
+            keys.addAll(nulls);
+        }
+        return keys;
+    }
+
+    private static <K> Set<K> collect(Map<Object, Set<K>> range) {
+        final Set<K> keys = new HashSet<>();
+        for (Set<K> bucket : range.values()) {
+            keys.addAll(bucket);
+        }
+        return keys;
+    }
+
+    /**
+     * Compares the values of the property in their natural order, placing the marker for {@literal null} values
+     * before everything else
+     */
+    private static class ValueComparator implements Comparator<Object> {
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public int compare(Object first, Object second) {
+            if (first == NULL || second == NULL) {
+                return first == second ? 0 : (first == NULL ? -1 : 1);
+            }
+            return ((Comparable) first).compareTo(second);
+        }
+
+    }
+
+}
@@ -0,0 +1,363 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.DataStoreStatistics;
+import com.mmnaseri.utils.spring.data.store.HistogramBucket;
+import com.mmnaseri.utils.spring.data.store.PropertyStatistics;
+import com.mmnaseri.utils.spring.data.tools.GetterMethodFilter;
+import com.mmnaseri.utils.spring.data.tools.PropertyUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * <p>This class keeps count of the values of a set of properties across a group of entities, and describes their
+ * distribution as {@link DataStoreStatistics}. Values can be added and removed one entity at a time, which makes it
+ * possible to keep the statistics up to date as a data store changes.</p>
+ *
+ * <p>The accumulator remembers how many times it has seen each distinct value, so the properties being tracked should
+ * hold values that are not changed in place, such as numbers, strings, enums, or dates. The statistics themselves are
+ * only worked out when they are asked for.</p>
+ *
+ * <p>To keep the memory it takes up bounded, the accumulator remembers no more than a given number of distinct values
+ * for each property. Once a property goes over that, it switches to distinct sampling: a value is only remembered if
+ * its hash ends in at least a certain number of zero bits, and that number goes up by one, halving the share of the
+ * values that are remembered, every time the values remembered go over the limit again. Since whether a value is
+ * remembered only depends on the value, all of its occurrences are either counted or ignored, which means values can
+ * still be removed, and the values that are remembered can stand in for the ones that are not. The distinct count,
+ * the histogram, and the smallest and largest values of such a property are estimates, while the number of entities
+ * and of null values are always exact.</p>
+ *
+ * <p>The accumulator can also be fed a sample of the entities, in which case the statistics are extrapolated to the
+ * whole population. The number of distinct values is then estimated using the guaranteed-error estimator, which scales
+ * up the values seen only once in the sample, since those are the ones that stand in for the values that were never
+ * seen at all.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class StatisticsAccumulator {
+
+    public static final int DEFAULT_BUCKETS = 10;
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final Log log = LogFactory.getLog(StatisticsAccumulator.class);
+    private final Class<?> entityType;
+    private final List<PropertyAccumulator> properties;
+    private final int buckets;
+    private final int capacity;
+    private long count;
+
+    public StatisticsAccumulator(Class<?> entityType, Collection<String> properties) {
+        this(entityType, properties, DEFAULT_BUCKETS);
+    }
+
+    public StatisticsAccumulator(Class<?> entityType, Collection<String> properties, int buckets) {
+        this(entityType, properties, buckets, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param entityType    the entity type
+     * @param properties    the properties to track
+     * @param buckets       the number of buckets in the histograms
+     * @param capacity      the largest number of distinct values remembered for each property
+     */
+    public StatisticsAccumulator(Class<?> entityType, Collection<String> properties, int buckets, int capacity) {
+        if (buckets < 1) {
+            throw new InvalidArgumentException("Number of histogram buckets must be a positive number: " + buckets);
+        }
+        if (capacity < 1) {
+            throw new InvalidArgumentException("Capacity must be a positive number: " + capacity);
+        }
+        this.entityType = entityType;
+        this.buckets = buckets;
+        this.capacity = capacity;
+        this.properties = new ArrayList<>();
+        for (String property : properties) {
+            this.properties.add(new PropertyAccumulator(property));
+        }
+    }
+
+    /**
+     * Finds all the properties declared directly on the entity type whose values are simple values, such as numbers,
+     * strings, enums, or dates, through either a getter or a field
+     * @param entityType    the entity type
+     * @return the names of the properties
+     */
+    public static List<String> getSimpleProperties(Class<?> entityType) {
+        final Set<String> properties = new LinkedHashSet<>();
+        ReflectionUtils.doWithMethods(entityType, new ReflectionUtils.MethodCallback() {
+            @Override
+            public void doWith(Method method) throws IllegalArgumentException, IllegalAccessException {
+                if (!Object.class.equals(method.getDeclaringClass()) && !Modifier.isStatic(method.getModifiers())
+                        && BeanUtils.isSimpleValueType(method.getReturnType())) {
+                    properties.add(PropertyUtils.getPropertyName(method));
+                }
+            }
+        }, new GetterMethodFilter());
+        ReflectionUtils.doWithFields(entityType, new ReflectionUtils.FieldCallback() {
+            @Override
+            public void doWith(Field field) throws IllegalArgumentException, IllegalAccessException {
+                if (!field.isSynthetic() && !Modifier.isStatic(field.getModifiers()) && BeanUtils.isSimpleValueType(field.getType())) {
+                    properties.add(field.getName());
+                }
+            }
+        });
+        return new ArrayList<>(properties);
+    }
+
+    /**
+     * Reads the values of the tracked properties off of the entity
+     * @param entity    the entity
+     * @return the values, which can be handed back to {@link #add(Object[])} and {@link #remove(Object[])}
+     */
+    public Object[] read(Object entity) {
+        final Object[] values = new Object[properties.size()];
+        for (int i = 0; i < values.length; i++) {
+            final String property = properties.get(i).property;
+            try {
+                values[i] = PropertyUtils.getPropertyValue(entity, property);
+            } catch (Exception e) {
+                log.error("Failed to read the value of property " + property);
+                throw new DataStoreException(entityType, "Failed to read the value of property " + property + ": " + e.getMessage());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Counts the values of an entity
+     * @param values    the values, as {@link #read(Object) read} from the entity
+     */
+    public void add(Object[] values) {
+        count++;
+        for (int i = 0; i < values.length; i++) {
+            properties.get(i).add(values[i]);
+        }
+    }
+
+    /**
+     * Stops counting the values of an entity that was previously added
+     * @param values    the values that were added for the entity
+     */
+    public void remove(Object[] values) {
+        count--;
+        for (int i = 0; i < values.length; i++) {
+            properties.get(i).remove(values[i]);
+        }
+    }
+
+    public void clear() {
+        count = 0;
+        for (PropertyAccumulator property : properties) {
+            property.clear();
+        }
+    }
+
+    /**
+     * @return the number of entities that have been added and not removed
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the statistics for the entities that have been added
+     */
+    public DataStoreStatistics getStatistics() {
+        return getStatistics(count);
+    }
+
+    /**
+     * Extrapolates the statistics for the whole population from the entities that have been added, which are taken
+     * to be a uniform sample of the population
+     * @param population    the number of entities in the whole population
+     * @return the statistics, which are exact if the sample is in fact the whole population
+     */
+    public DataStoreStatistics getStatistics(long population) {
+        final List<PropertyStatistics> statistics = new ArrayList<>();
+        for (PropertyAccumulator property : properties) {
+            statistics.add(property.describe(population));
+        }
+        return new ImmutableDataStoreStatistics(entityType, population, population != count, statistics);
+    }
+
+    /**
+     * Counts the values of a single property
+     */
+    private class PropertyAccumulator {
+
+        private final String property;
+        private final Map<Object, Frequency> frequencies = new HashMap<>();
+        private long nulls;
+        /**
+         * The number of zero bits the hash of a value has to end in for the value to be remembered
+         */
+        private int level;
+
+        private PropertyAccumulator(String property) {
+            this.property = property;
+        }
+
+        private void add(Object value) {
+            if (value == null) {
+                nulls++;
+                return;
+            }
+            if (levelOf(value) < level) {
+                return;
+            }
+            final Frequency frequency = frequencies.get(value);
+            if (frequency == null) {
+                frequencies.put(value, new Frequency());
+                if (frequencies.size() > capacity) {
+                    raise();
+                }
+            } else {
+                frequency.count++;
+            }
+        }
+
+        private void remove(Object value) {
+            if (value == null) {
+                nulls--;
+                return;
+            }
+            if (levelOf(value) < level) {
+                return;
+            }
+            final Frequency frequency = frequencies.get(value);
+            if (frequency == null) {
+                log.warn("Value " + value + " of property " + property + " was not counted; it must have been changed in place");
+            } else if (--frequency.count == 0) {
+                frequencies.remove(value);
+            }
+        }
+
+        private void clear() {
+            nulls = 0;
+            level = 0;
+            frequencies.clear();
+        }
+
+        /**
+         * Forgets the values that are not to be remembered anymore, until no more than the capacity are left
+         */
+        private void raise() {
+            while (frequencies.size() > capacity) {
+                level++;
+                final Iterator<Object> values = frequencies.keySet().iterator();
+                while (values.hasNext()) {
+                    if (levelOf(values.next()) < level) {
+                        values.remove();
+                    }
+                }
+            }
+            log.debug("Property " + property + " has too many distinct values; keeping one in every " + weight() + " of them");
+        }
+
+        /**
+         * @return the number of distinct values each value remembered stands for
+         */
+        private double weight() {
+            return Math.scalb(1D, level);
+        }
+
+        private PropertyStatistics describe(long population) {
+            //how many entities in the population each entity in the sample stands for
+            final double scale = count == 0 ? 0D : (double) population / count;
+            final double weight = weight();
+            final List<Object> values = sort(frequencies.keySet());
+            final List<HistogramBucket> histogram = new ArrayList<>();
+            if (values != null && !values.isEmpty()) {
+                final long depth = ((count - nulls) + buckets - 1) / buckets;
+                Object lowerBound = null;
+                double bucket = 0;
+                for (Object value : values) {
+                    if (bucket == 0) {
+                        lowerBound = value;
+                    }
+                    bucket += frequencies.get(value).count * weight;
+                    if (bucket >= depth) {
+                        histogram.add(new ImmutableHistogramBucket(lowerBound, value, Math.round(bucket * scale)));
+                        bucket = 0;
+                    }
+                }
+                if (bucket > 0) {
+                    histogram.add(new ImmutableHistogramBucket(lowerBound, values.get(values.size() - 1), Math.round(bucket * scale)));
+                }
+            }
+            return new ImmutablePropertyStatistics(property, population, Math.round(nulls * scale), estimateDistinctCount(population, scale, weight),
+                    values == null || values.isEmpty() ? null : values.get(0),
+                    values == null || values.isEmpty() ? null : values.get(values.size() - 1), histogram);
+        }
+
+        private long estimateDistinctCount(long population, double scale, double weight) {
+            final double estimate;
+            if (population == count) {
+                estimate = frequencies.size() * weight;
+            } else {
+                long singletons = 0;
+                for (Frequency frequency : frequencies.values()) {
+                    if (frequency.count == 1) {
+                        singletons++;
+                    }
+                }
+                estimate = (Math.sqrt(scale) * singletons + (frequencies.size() - singletons)) * weight;
+            }
+            //there cannot be more distinct values than there are non-null values
+            return Math.min(Math.round(estimate), Math.round((count - nulls) * scale));
+        }
+
+        /**
+         * @return the values in their natural order, or {@literal null} if they cannot be compared to each other
+         */
+        @SuppressWarnings("unchecked")
+        private List<Object> sort(Collection<Object> values) {
+            final List<Comparable<Object>> sorted = new ArrayList<>();
+            for (Object value : values) {
+                if (!(value instanceof Comparable)) {
+                    return null;
+                }
+                sorted.add((Comparable<Object>) value);
+            }
+            try {
+                Collections.sort(sorted);
+            } catch (ClassCastException e) {
+                log.debug("Values of property " + property + " are not comparable to each other");
+                return null;
+            }
+            return new ArrayList<Object>(sorted);
+        }
+
+    }
+
+    /**
+     * @return the number of zero bits the hash of the value ends in, once the bits of the hash are spread out
+     */
+    private static int levelOf(Object value) {
+        int hash = value.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Integer.numberOfTrailingZeros(hash);
+    }
+
+    private static class Frequency {
+
+        private long count = 1;
+
+    }
+
+}
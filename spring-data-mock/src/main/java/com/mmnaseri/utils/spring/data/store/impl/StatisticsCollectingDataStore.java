@@ -0,0 +1,263 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.store.AtomicDataStore;
+import com.mmnaseri.utils.spring.data.store.BulkDataStore;
+import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreStatistics;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import com.mmnaseri.utils.spring.data.store.ForkableDataStore;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import com.mmnaseri.utils.spring.data.store.StatisticsDataStore;
+import com.mmnaseri.utils.spring.data.store.VersionedDataStore;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>This data store keeps {@link DataStoreStatistics statistics} about the entities of a delegate data store up to
+ * date as entities are saved and deleted, so that they never have to be collected by looking at all the entities.</p>
+ *
+ * <p>The properties tracked are the ones explicitly passed to the constructor, or if there are none, all the
+ * {@link StatisticsAccumulator#getSimpleProperties(Class) simple properties} of the entity. The values of an entity
+ * are taken out of the statistics by reading them off of the entity it replaces, or the entity being deleted, as
+ * handed back by the delegate, so no values are kept for the entities themselves. If the entity being saved is the
+ * very same instance the delegate holds, it might have been changed in place and its old values cannot be known
+ * anymore. Such entities are counted as stale, and once they make up a large enough share of all the entities, the
+ * statistics are collected again from scratch the next time they are asked for. Entities that are changed in place
+ * and then deleted without being saved leave their old values behind until then.</p>
+ *
+ * <p>All the writes go through the delegate's {@link AtomicDataStore atomic}, {@link BulkDataStore bulk}, and
+ * {@link VersionedDataStore versioned} operations where it supports them, and this data store can be
+ * {@link #fork() forked} if the delegate is a {@link ForkableDataStore}, in which case the statistics of the fork
+ * are collected from the forked delegate.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class StatisticsCollectingDataStore<K extends Serializable, E> implements StatisticsDataStore<K, E>, ScanningDataStore<K, E>,
+        AtomicDataStore<K, E>, BulkDataStore<K, E>, VersionedDataStore<K, E>, ForkableDataStore<K, E> {
+
+    /**
+     * The statistics are collected again once at least one in this many entities might be stale
+     */
+    private static final int STALE_RATIO = 8;
+    private static final Log log = LogFactory.getLog(StatisticsCollectingDataStore.class);
+    private final DataStore<K, E> delegate;
+    private final String[] properties;
+    private final StatisticsAccumulator accumulator;
+    private long stale;
+    private DataStoreStatistics statistics;
+
+    public StatisticsCollectingDataStore(Class<E> entityType, String... properties) {
+        this(new MemoryDataStore<K, E>(entityType), properties);
+    }
+
+    public StatisticsCollectingDataStore(DataStore<K, E> delegate, String... properties) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.accumulator = new StatisticsAccumulator(delegate.getEntityType(), properties.length == 0 ? StatisticsAccumulator.getSimpleProperties(delegate.getEntityType()) : Arrays.asList(properties));
+        log.info("Collecting statistics for the entities already in the data store");
+        collect();
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        return delegate.hasKey(key);
+    }
+
+    @Override
+    public boolean save(K key, E entity) {
+        return put(key, entity) == null;
+    }
+
+    @Override
+    public synchronized E put(K key, E entity) {
+        //we read the values first so that a failure will not leave the statistics out of sync with the data
+        //null entities are left for the delegate to reject
+        final Object[] read = entity == null ? null : accumulator.read(entity);
+        final E previous = DataStoreUtils.put(delegate, key, entity);
+        replace(previous, entity, read);
+        return previous;
+    }
+
+    @Override
+    public synchronized E putIfAbsent(K key, E entity) {
+        final Object[] read = entity == null ? null : accumulator.read(entity);
+        final E existing = DataStoreUtils.putIfAbsent(delegate, key, entity);
+        if (existing == null) {
+            replace(null, entity, read);
+        }
+        return existing;
+    }
+
+    @Override
+    public boolean save(K key, E entity, String versionProperty) {
+        return put(key, entity, versionProperty) == null;
+    }
+
+    @Override
+    public synchronized E put(K key, E entity, String versionProperty) {
+        final E previous = DataStoreUtils.put(delegate, key, entity, versionProperty);
+        //the version might be one of the properties, so the values are read once it has been advanced
+        replace(previous, entity, accumulator.read(entity));
+        return previous;
+    }
+
+    @Override
+    public boolean delete(K key) {
+        return remove(key) != null;
+    }
+
+    @Override
+    public synchronized E remove(K key) {
+        final E removed = DataStoreUtils.remove(delegate, key);
+        replace(removed, null, null);
+        return removed;
+    }
+
+    @Override
+    public synchronized E compute(K key, final EntityRemappingFunction<K, E> function) {
+        final List<E> current = new ArrayList<>(1);
+        final E computed = DataStoreUtils.compute(delegate, key, new EntityRemappingFunction<K, E>() {
+            @Override
+            public E apply(K key, E entity) {
+                current.clear();
+                current.add(entity);
+                return function.apply(key, entity);
+            }
+        });
+        replace(current.isEmpty() ? null : current.get(0), computed, computed == null ? null : accumulator.read(computed));
+        return computed;
+    }
+
+    @Override
+    public synchronized int saveAll(Map<K, E> entities) {
+        final List<Object[]> read = new ArrayList<>(entities.size());
+        final List<E> previous = new ArrayList<>(entities.size());
+        for (Map.Entry<K, E> entry : entities.entrySet()) {
+            read.add(entry.getValue() == null ? null : accumulator.read(entry.getValue()));
+            previous.add(delegate.retrieve(entry.getKey()));
+        }
+        final int inserted = DataStoreUtils.saveAll(delegate, entities);
+        int i = 0;
+        for (E entity : entities.values()) {
+            replace(previous.get(i), entity, read.get(i));
+            i++;
+        }
+        return inserted;
+    }
+
+    @Override
+    public synchronized Map<K, E> deleteAll(Collection<K> keys) {
+        final Map<K, E> deleted = DataStoreUtils.deleteAll(delegate, keys);
+        for (E entity : deleted.values()) {
+            replace(entity, null, null);
+        }
+        return deleted;
+    }
+
+    @Override
+    public E retrieve(K key) {
+        return delegate.retrieve(key);
+    }
+
+    @Override
+    public List<E> retrieveAll(Collection<K> keys) {
+        return DataStoreUtils.retrieveAll(delegate, keys);
+    }
+
+    @Override
+    public Collection<K> keys() {
+        return delegate.keys();
+    }
+
+    @Override
+    public Collection<E> retrieveAll() {
+        return delegate.retrieveAll();
+    }
+
+    @Override
+    public void scan(DataStoreVisitor<K, E> visitor) {
+        DataStoreUtils.scan(delegate, visitor);
+    }
+
+    @Override
+    public Class<E> getEntityType() {
+        return delegate.getEntityType();
+    }
+
+    @Override
+    public synchronized void truncate() {
+        delegate.truncate();
+        accumulator.clear();
+        stale = 0;
+        statistics = null;
+    }
+
+    @Override
+    public synchronized DataStoreStatistics getStatistics() {
+        if (stale > 0 && stale * STALE_RATIO >= accumulator.getCount()) {
+            log.info("Collecting the statistics again, since " + stale + " entities might have been changed in place");
+            accumulator.clear();
+            collect();
+            statistics = null;
+        }
+        if (statistics == null) {
+            statistics = accumulator.getStatistics();
+        }
+        return statistics;
+    }
+
+    @Override
+    public synchronized StatisticsCollectingDataStore<K, E> fork() {
+        if (!(delegate instanceof ForkableDataStore)) {
+            log.error("Cannot fork a data store backed by " + delegate.getClass());
+            throw new DataStoreException(getEntityType(), "The underlying data store cannot be forked: " + delegate.getClass().getName());
+        }
+        return new StatisticsCollectingDataStore<>(((ForkableDataStore<K, E>) delegate).fork(), properties);
+    }
+
+    private void collect() {
+        stale = 0;
+        DataStoreUtils.scan(delegate, new DataStoreVisitor<K, E>() {
+            @Override
+            public boolean visit(K key, E entity) {
+                accumulator.add(accumulator.read(entity));
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Takes the values of the entity that was replaced out of the statistics and puts in the values of the entity that
+     * replaced it
+     * @param previous    the entity that was replaced, if any
+     * @param entity      the entity that replaced it, if any
+     * @param read        the values of the new entity
+     */
+    private void replace(E previous, E entity, Object[] read) {
+        if (previous != null && previous == entity) {
+            stale++;
+        } else {
+            if (previous != null) {
+                accumulator.remove(accumulator.read(previous));
+            }
+            if (entity != null) {
+                accumulator.add(read);
+            }
+        }
+        if (previous != null || entity != null) {
+            statistics = null;
+        }
+    }
+
+}
@@ -0,0 +1,443 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.AtomicDataStore;
+import com.mmnaseri.utils.spring.data.store.BulkDataStore;
+import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import com.mmnaseri.utils.spring.data.store.EntityWeigher;
+import com.mmnaseri.utils.spring.data.store.EvictionListener;
+import com.mmnaseri.utils.spring.data.store.ScanningDataStore;
+import com.mmnaseri.utils.spring.data.store.VersionedDataStore;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>This data store keeps the entities that have been used recently on the heap, and spills the rest to a cold tier,
+ * so that it can hold more data than the heap budget allows. The hot tier is an {@link EvictingMemoryDataStore}
+ * bounded by a memory ceiling, which by default is measured in the number of bytes each entity takes up when
+ * {@link BinaryEntityCodec encoded}. Entities evicted from the hot tier are saved to the cold tier, which by default is an
+ * {@link OffHeapDataStore} holding entities {@link CompressingEntityCodec compressed} with {@link java.util.zip}. Any
+ * other data store can be used as the cold tier, for instance a {@link MappedFileDataStore} to spill to disk.</p>
+ *
+ * <p>An entity is only ever in one of the tiers. Reading an entity from the cold tier, either by
+ * {@link #retrieve(Serializable) retrieving} it or by coming across it in a {@link #scan(DataStoreVisitor) scan},
+ * promotes it back to the hot tier, which may in turn spill other entities. Since entities in the cold tier are
+ * decoded when they are promoted, changes made to an entity that has since been spilled are lost unless the entity
+ * is saved again.</p>
+ *
+ * <p>Reads that are served by the hot tier share a lock with each other, while writes, promotions, and spills hold
+ * the lock exclusively. The number of reads served by each tier is kept, so that the {@link #getHitRate() hit rate}
+ * of the hot tier can be used to size the memory ceiling.</p>
+ *
+ * <p>The {@link AtomicDataStore atomic}, {@link BulkDataStore bulk}, and {@link VersionedDataStore versioned} writes
+ * hold the lock exclusively for as long as they take, which makes them atomic with respect to all the other writes.
+ * Looking up the entity they replace does not count as a read served by either tier, and does not promote it.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class TieredDataStore<K extends Serializable, E> implements ScanningDataStore<K, E>, AtomicDataStore<K, E>,
+        BulkDataStore<K, E>, VersionedDataStore<K, E> {
+
+    private static final Log log = LogFactory.getLog(TieredDataStore.class);
+    private final Class<E> entityType;
+    private final long memoryCeiling;
+    private final EvictingMemoryDataStore<K, E> hot;
+    private final DataStore<K, E> cold;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong spills = new AtomicLong();
+
+    /**
+     * @param entityType       the entity type
+     * @param memoryCeiling    the maximum number of bytes the entities in the hot tier take up when encoded
+     */
+    public TieredDataStore(Class<E> entityType, long memoryCeiling) {
+        this(entityType, memoryCeiling, new OffHeapDataStore<K, E>(entityType, new CompressingEntityCodec<>(entityType)));
+    }
+
+    /**
+     * @param entityType       the entity type
+     * @param memoryCeiling    the maximum number of bytes the entities in the hot tier take up when encoded
+     * @param cold             the data store to spill entities to
+     */
+    public TieredDataStore(Class<E> entityType, long memoryCeiling, DataStore<K, E> cold) {
+        this(entityType, memoryCeiling, new CodecEntityWeigher<>(new BinaryEntityCodec<>(entityType)), EvictionPolicy.LEAST_RECENTLY_USED, cold);
+    }
+
+    /**
+     * @param entityType       the entity type
+     * @param memoryCeiling    the maximum total weight of the entities in the hot tier
+     * @param weigher          the weigher for the entities in the hot tier
+     * @param policy           the policy for choosing the entities to spill
+     * @param cold             the data store to spill entities to
+     */
+    public TieredDataStore(Class<E> entityType, long memoryCeiling, EntityWeigher<? super E> weigher, EvictionPolicy policy, DataStore<K, E> cold) {
+        if (cold == null) {
+            throw new InvalidArgumentException("Cold tier cannot be null");
+        }
+        if (!entityType.equals(cold.getEntityType())) {
+            throw new InvalidArgumentException("Cold tier holds entities of type " + cold.getEntityType() + " instead of " + entityType);
+        }
+        this.entityType = entityType;
+        this.memoryCeiling = memoryCeiling;
+        this.hot = new EvictingMemoryDataStore<>(entityType, policy, memoryCeiling, weigher, EvictingMemoryDataStore.NO_EXPIRY, TimeUnit.NANOSECONDS);
+        this.cold = cold;
+        //evictions happen while a write to the hot tier is in progress, so the lock is already being held
+        this.hot.addEvictionListener(new EvictionListener<K, E>() {
+            @Override
+            public void onEviction(K key, E entity) {
+                log.debug("Spilling entity with key " + key + " to the cold tier");
+                TieredDataStore.this.cold.save(key, entity);
+                spills.incrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public boolean hasKey(K key) {
+        lock.readLock().lock();
+        try {
+            return hot.hasKey(key) || cold.hasKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean save(K key, E entity) {
+        checkSave(key, entity);
+        lock.writeLock().lock();
+        try {
+            final boolean spilled = cold.hasKey(key) && cold.delete(key);
+            return hot.save(key, entity) && !spilled;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public E put(K key, E entity) {
+        checkSave(key, entity);
+        lock.writeLock().lock();
+        try {
+            final E previous = find(key);
+            save(key, entity);
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public E putIfAbsent(K key, E entity) {
+        checkSave(key, entity);
+        lock.writeLock().lock();
+        try {
+            final E existing = find(key);
+            if (existing == null) {
+                save(key, entity);
+            }
+            return existing;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean save(K key, E entity, String versionProperty) {
+        return put(key, entity, versionProperty) == null;
+    }
+
+    @Override
+    public E put(K key, E entity, String versionProperty) {
+        //computing the entity holds the lock throughout, so checking the version and saving the entity are atomic
+        return DataStoreUtils.putVersioned(this, key, entity, versionProperty);
+    }
+
+    @Override
+    public E compute(K key, EntityRemappingFunction<K, E> function) {
+        if (key == null) {
+            log.error("Asked to compute an entity for a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        }
+        lock.writeLock().lock();
+        try {
+            final E current = find(key);
+            final E computed = function.apply(key, current);
+            if (computed != null) {
+                save(key, computed);
+            } else if (current != null) {
+                delete(key);
+            }
+            return computed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int saveAll(Map<K, E> entities) {
+        lock.writeLock().lock();
+        try {
+            int inserted = 0;
+            for (Map.Entry<K, E> entry : entities.entrySet()) {
+                if (save(entry.getKey(), entry.getValue())) {
+                    inserted++;
+                }
+            }
+            return inserted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(K key) {
+        if (key == null) {
+            log.error("Asked to delete an entity with a null key for reference");
+            throw new DataStoreException(entityType, "Cannot delete an entity with a null key");
+        }
+        lock.writeLock().lock();
+        try {
+            return hot.delete(key) || cold.delete(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public E remove(K key) {
+        if (key == null) {
+            log.error("Asked to delete an entity with a null key for reference");
+            throw new DataStoreException(entityType, "Cannot delete an entity with a null key");
+        }
+        lock.writeLock().lock();
+        try {
+            final E entity = find(key);
+            return entity != null && delete(key) ? entity : null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<K, E> deleteAll(Collection<K> keys) {
+        lock.writeLock().lock();
+        try {
+            final Map<K, E> deleted = DataStoreUtils.newLinkedHashMap(keys.size());
+            for (K key : keys) {
+                final E entity = remove(key);
+                if (entity != null) {
+                    deleted.put(key, entity);
+                }
+            }
+            return deleted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public E retrieve(K key) {
+        if (key == null) {
+            log.error("Asked to retrieve an entity from a null key");
+            throw new DataStoreException(entityType, "Cannot retrieve an entity with a null key");
+        }
+        lock.readLock().lock();
+        try {
+            final E entity = hot.retrieve(key);
+            if (entity != null) {
+                hits.incrementAndGet();
+                return entity;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            //the entity might have been promoted while we were waiting for the lock
+            E entity = hot.retrieve(key);
+            if (entity != null) {
+                hits.incrementAndGet();
+                return entity;
+            }
+            entity = cold.retrieve(key);
+            if (entity == null) {
+                return null;
+            }
+            misses.incrementAndGet();
+            log.debug("Promoting entity with key " + key + " to the hot tier");
+            cold.delete(key);
+            hot.save(key, entity);
+            return entity;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the entities one at a time, promoting the entities found in the cold tier
+     */
+    @Override
+    public List<E> retrieveAll(Collection<K> keys) {
+        final List<E> entities = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            final E entity = retrieve(key);
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    @Override
+    public Collection<K> keys() {
+        lock.readLock().lock();
+        try {
+            final List<K> keys = new ArrayList<>(hot.keys());
+            keys.addAll(cold.keys());
+            return keys;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<E> retrieveAll() {
+        log.info("Retrieving all entities from the data store");
+        final List<E> entities = new ArrayList<>();
+        scan(new DataStoreVisitor<K, E>() {
+            @Override
+            public boolean visit(K key, E entity) {
+                entities.add(entity);
+                return true;
+            }
+        });
+        return entities;
+    }
+
+    /**
+     * Visits the entities one at a time, promoting the entities found in the cold tier as they are visited. The lock
+     * on the data store is not held while the visitor is running.
+     * @param visitor    the visitor
+     */
+    @Override
+    public void scan(DataStoreVisitor<K, E> visitor) {
+        DataStoreUtils.scan(this, keys(), visitor);
+    }
+
+    @Override
+    public Class<E> getEntityType() {
+        return entityType;
+    }
+
+    @Override
+    public void truncate() {
+        lock.writeLock().lock();
+        try {
+            hot.truncate();
+            cold.truncate();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the maximum total weight of the entities in the hot tier
+     */
+    public long getMemoryCeiling() {
+        return memoryCeiling;
+    }
+
+    /**
+     * @return the total weight of the entities currently in the hot tier
+     */
+    public long getHotWeight() {
+        return hot.getWeight();
+    }
+
+    /**
+     * @return the number of entities currently in the hot tier
+     */
+    public int getHotCount() {
+        return hot.size();
+    }
+
+    /**
+     * @return the number of entities currently in the cold tier
+     */
+    public int getColdCount() {
+        lock.readLock().lock();
+        try {
+            return cold.keys().size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of reads that were served by the hot tier
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of reads that had to go to the cold tier, each of which promoted an entity
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of entities that have been spilled to the cold tier
+     */
+    public long getSpills() {
+        return spills.get();
+    }
+
+    /**
+     * @return the share of the reads of existing entities that were served by the hot tier, or {@literal 0} if
+     * nothing has been read yet
+     */
+    public double getHitRate() {
+        final long hits = this.hits.get();
+        final long total = hits + misses.get();
+        return total == 0 ? 0D : (double) hits / total;
+    }
+
+    /**
+     * Looks up the entity in either tier without promoting it. Called while holding the lock.
+     */
+    private E find(K key) {
+        final E entity = hot.retrieve(key);
+        return entity != null ? entity : cold.retrieve(key);
+    }
+
+    private void checkSave(K key, E entity) {
+        if (key == null) {
+            log.error("Asked to save an entity with a null key");
+            throw new DataStoreException(entityType, "Cannot save an entity with a null key");
+        } else if (entity == null) {
+            log.error("Asked to save a null value into the data store");
+            throw new DataStoreException(entityType, "Cannot save a null entity");
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.tools.GetterMethodFilter;
+import com.mmnaseri.utils.spring.data.tools.PropertyUtils;
+import com.mmnaseri.utils.spring.data.tools.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>This class holds the properties of a type as they are laid out by the {@link BinaryEntityCodec}, along with the
+ * {@link MethodHandle method handles} used to read and write them, which are looked up once per type.</p>
+ *
+ * <p>Properties are found the same way {@link PropertyUtils} finds them: through getters, or through fields for
+ * properties without a getter, and are written back through setters, or through fields for properties without a
+ * setter. Properties that can be read but not written back, as well as transient fields, are left out. Properties
+ * are laid out in the order of their names, so that the layout does not depend on the order in which the class
+ * declares them.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+final class TypeLayout {
+
+    private static final Log log = LogFactory.getLog(TypeLayout.class);
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(Object.class);
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final ConcurrentMap<Class<?>, TypeLayout> layouts = new ConcurrentHashMap<>();
+    final Class<?> type;
+    final String[] names;
+    final ValueDescriptor[] descriptors;
+    /**
+     * The properties as they are recorded in a schema, each written as {@literal name:signature}
+     */
+    final List<String> properties;
+    private final Class<?>[] types;
+    private final MethodHandle constructor;
+    private final MethodHandle[] getters;
+    private final MethodHandle[] setters;
+
+    private TypeLayout(final Class<?> type) {
+        log.info("Working out the binary layout of " + type);
+        this.type = type;
+        try {
+            final Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            this.constructor = LOOKUP.unreflectConstructor(constructor).asType(CONSTRUCTOR);
+        } catch (NoSuchMethodException e) {
+            throw new DataStoreException(type, "Cannot encode instances of a type without a default constructor");
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new DataStoreException(type, "Cannot access the default constructor: " + e.getMessage());
+        }
+        final Map<String, Method> getters = new HashMap<>();
+        final Map<String, Field> fields = new HashMap<>();
+        final Set<String> transients = new HashSet<>();
+        ReflectionUtils.doWithMethods(type, new ReflectionUtils.MethodCallback() {
+            @Override
+            public void doWith(Method method) throws IllegalArgumentException, IllegalAccessException {
+                final String name = PropertyUtils.getPropertyName(method);
+                if (!Object.class.equals(method.getDeclaringClass()) && !Modifier.isStatic(method.getModifiers())
+                        && !method.isBridge() && !getters.containsKey(name)) {
+                    getters.put(name, method);
+                }
+            }
+        }, new GetterMethodFilter());
+        ReflectionUtils.doWithFields(type, new ReflectionUtils.FieldCallback() {
+            @Override
+            public void doWith(Field field) throws IllegalArgumentException, IllegalAccessException {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic() || fields.containsKey(field.getName())) {
+                    return;
+                }
+                if (Modifier.isTransient(field.getModifiers())) {
+                    transients.add(field.getName());
+                }
+                fields.put(field.getName(), field);
+            }
+        });
+        final SortedSet<String> candidates = new TreeSet<>(getters.keySet());
+        candidates.addAll(fields.keySet());
+        candidates.removeAll(transients);
+        final List<String> names = new ArrayList<>();
+        final List<ValueDescriptor> descriptors = new ArrayList<>();
+        final List<Class<?>> types = new ArrayList<>();
+        final List<MethodHandle> readers = new ArrayList<>();
+        final List<MethodHandle> writers = new ArrayList<>();
+        for (String name : candidates) {
+            final Method getter = getters.get(name);
+            final Field field = fields.get(name);
+            final Class<?> propertyType = getter != null ? getter.getReturnType() : field.getType();
+            final Method setter = ReflectionUtils.findMethod(type, "set" + StringUtils.capitalize(name), propertyType);
+            if (setter == null && (field == null || !field.getType().equals(propertyType))) {
+                log.debug("Property " + name + " of " + type + " cannot be written back, so it will not be encoded");
+                continue;
+            }
+            try {
+                final MethodHandle reader;
+                if (getter != null) {
+                    getter.setAccessible(true);
+                    reader = LOOKUP.unreflect(getter);
+                } else {
+                    field.setAccessible(true);
+                    reader = LOOKUP.unreflectGetter(field);
+                }
+                final MethodHandle writer;
+                if (setter != null) {
+                    setter.setAccessible(true);
+                    writer = LOOKUP.unreflect(setter);
+                } else {
+                    field.setAccessible(true);
+                    writer = LOOKUP.unreflectSetter(field);
+                }
+                readers.add(reader.asType(GETTER));
+                writers.add(writer.asType(SETTER));
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new DataStoreException(type, "Cannot access property " + name + ": " + e.getMessage());
+            }
+            names.add(name);
+            descriptors.add(ValueDescriptor.of(getter != null ? getter.getGenericReturnType() : field.getGenericType()));
+            types.add(PropertyUtils.getTypeOf(propertyType));
+        }
+        this.names = names.toArray(new String[names.size()]);
+        this.descriptors = descriptors.toArray(new ValueDescriptor[descriptors.size()]);
+        this.types = types.toArray(new Class<?>[types.size()]);
+        this.getters = readers.toArray(new MethodHandle[readers.size()]);
+        this.setters = writers.toArray(new MethodHandle[writers.size()]);
+        final List<String> properties = new ArrayList<>();
+        for (int i = 0; i < this.names.length; i++) {
+            properties.add(this.names[i] + ":" + this.descriptors[i].signature);
+        }
+        this.properties = Collections.unmodifiableList(properties);
+    }
+
+    static TypeLayout of(Class<?> type) {
+        TypeLayout layout = layouts.get(type);
+        if (layout == null) {
+            layout = new TypeLayout(type);
+            final TypeLayout existing = layouts.putIfAbsent(type, layout);
+            if (existing != null) {
+                layout = existing;
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * @param name    the name of the property
+     * @return the index of the property, or {@literal -1} if there is no such property
+     */
+    int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return {@literal true} if the value can be written to the property
+     */
+    boolean accepts(int property, Object value) {
+        //only primitive properties are not nullable
+        return value == null ? descriptors[property].nullable : types[property].isInstance(value);
+    }
+
+    Object newInstance() {
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new DataStoreException(type, "Failed to create instance: " + e.getMessage());
+        }
+    }
+
+    Object get(Object target, int property) {
+        try {
+            return (Object) getters[property].invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new DataStoreException(type, "Failed to read property " + names[property] + ": " + e.getMessage());
+        }
+    }
+
+    void set(Object target, int property, Object value) {
+        try {
+            setters[property].invokeExact(target, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new DataStoreException(type, "Failed to write property " + names[property] + ": " + e.getMessage());
+        }
+    }
+
+}
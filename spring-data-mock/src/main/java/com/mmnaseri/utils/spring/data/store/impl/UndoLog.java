@@ -0,0 +1,197 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityCopier;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * <p>This class keeps track of the changes made to a data store while there are savepoints in place, so that the data
+ * store can be {@link #rollback(Object) rolled back} to any of the savepoints. Before a key is written, its current
+ * state is recorded, and rolling back restores the recorded states in reverse order. Only the first change to a key
+ * after the latest savepoint is recorded, since that is all that is needed to restore the key, which means that
+ * rolling back takes time proportional to the number of keys that have changed, rather than the size of the data
+ * store. Nothing is recorded while there are no savepoints in place.</p>
+ *
+ * <p>The recorded states are copies of the entities, made with an {@link EntityCopier}, since the entities held by the
+ * data store might be changed in place by their holders afterwards. Unless told otherwise, the log uses a
+ * {@link MethodHandleEntityCopier}, which is only created once the first copy is needed. Note that a state that was
+ * changed in place before it was recorded cannot be brought back; see {@link EventPublishingDataStore} for how the
+ * entities are kept from being changed in place while there are savepoints.</p>
+ *
+ * <p>The log expects to be told about the writes by whatever is writing to the data store, and does not guard against
+ * writes made by other threads in between recording and writing.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public class UndoLog<K extends Serializable, E> {
+
+    private static final Log log = LogFactory.getLog(UndoLog.class);
+    private final DataStore<K, E> dataStore;
+    private volatile EntityCopier<E> copier;
+    private volatile boolean active;
+    private final List<Change<K, E>> changes = new ArrayList<>();
+    private final List<Savepoint<K>> savepoints = new ArrayList<>();
+
+    public UndoLog(DataStore<K, E> dataStore) {
+        this(dataStore, null);
+    }
+
+    public UndoLog(DataStore<K, E> dataStore, EntityCopier<E> copier) {
+        this.dataStore = dataStore;
+        this.copier = copier;
+    }
+
+    /**
+     * Marks the current state of the data store
+     * @return the savepoint
+     */
+    public synchronized Object mark() {
+        final Savepoint<K> savepoint = new Savepoint<>(changes.size());
+        savepoints.add(savepoint);
+        active = true;
+        log.info("Marked savepoint #" + savepoints.size() + " for data store of " + dataStore.getEntityType());
+        return savepoint;
+    }
+
+    /**
+     * Records the current state of the key, if needed, before it is saved or deleted
+     * @param key    the key
+     */
+    public synchronized void record(K key) {
+        if (savepoints.isEmpty()) {
+            return;
+        }
+        final Set<K> touched = savepoints.get(savepoints.size() - 1).touched;
+        if (touched.add(key)) {
+            changes.add(new Change<>(key, copy(dataStore.retrieve(key))));
+        }
+    }
+
+    /**
+     * Records the current state of all the keys, if needed, before the data store is truncated
+     */
+    public synchronized void recordAll() {
+        if (savepoints.isEmpty()) {
+            return;
+        }
+        final Set<K> touched = savepoints.get(savepoints.size() - 1).touched;
+        DataStoreUtils.scan(dataStore, new DataStoreVisitor<K, E>() {
+            @Override
+            public boolean visit(K key, E entity) {
+                if (touched.add(key)) {
+                    changes.add(new Change<>(key, copy(entity)));
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Restores the data store to the state it was in when the savepoint was marked. The savepoint stays in place,
+     * while all the savepoints marked after it are discarded.
+     * @param savepoint    the savepoint
+     */
+    public synchronized void rollback(Object savepoint) {
+        final int index = indexOf(savepoint);
+        final Savepoint<K> target = savepoints.get(index);
+        log.info("Rolling back " + (changes.size() - target.position) + " changes to data store of " + dataStore.getEntityType());
+        for (int i = changes.size() - 1; i >= target.position; i--) {
+            final Change<K, E> change = changes.remove(i);
+            if (change.entity == null) {
+                dataStore.delete(change.key);
+            } else {
+                dataStore.save(change.key, change.entity);
+            }
+        }
+        savepoints.subList(index + 1, savepoints.size()).clear();
+        target.touched.clear();
+    }
+
+    /**
+     * Releases the savepoint and all the savepoints marked after it. The changes recorded since remain available for
+     * rolling back to earlier savepoints.
+     * @param savepoint    the savepoint
+     */
+    public synchronized void release(Object savepoint) {
+        final int index = indexOf(savepoint);
+        if (index == 0) {
+            savepoints.clear();
+            changes.clear();
+            active = false;
+            return;
+        }
+        //the keys touched since the released savepoints now count as touched since the savepoint before them
+        final Set<K> touched = savepoints.get(index - 1).touched;
+        for (Savepoint<K> released : savepoints.subList(index, savepoints.size())) {
+            touched.addAll(released.touched);
+        }
+        savepoints.subList(index, savepoints.size()).clear();
+    }
+
+    /**
+     * @return {@literal true} if there are savepoints in place
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Copies the entity the same way the recorded states are copied
+     * @param entity    the entity
+     * @return the copy, or {@literal null} if the entity was {@literal null}
+     */
+    public E copy(E entity) {
+        if (entity == null) {
+            return null;
+        }
+        EntityCopier<E> copier = this.copier;
+        if (copier == null) {
+            //creating more than one copier by accident does no harm
+            copier = new MethodHandleEntityCopier<>(dataStore.getEntityType());
+            this.copier = copier;
+        }
+        return copier.copy(entity);
+    }
+
+    private int indexOf(Object savepoint) {
+        for (int i = 0; i < savepoints.size(); i++) {
+            if (savepoints.get(i) == savepoint) {
+                return i;
+            }
+        }
+        log.error("Savepoint " + savepoint + " is not active");
+        throw new DataStoreException(dataStore.getEntityType(), "The savepoint is not active; it has either been released or rolled back past");
+    }
+
+    private static class Savepoint<K> {
+
+        private final int position;
+        private final Set<K> touched = new HashSet<>();
+
+        private Savepoint(int position) {
+            this.position = position;
+        }
+
+    }
+
+    private static class Change<K, E> {
+
+        private final K key;
+        private final E entity;
+
+        private Change(K key, E entity) {
+            this.key = key;
+            this.entity = entity;
+        }
+
+    }
+
+}
@@ -0,0 +1,299 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+
+import java.io.Serializable;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>This class describes how a value is laid out by the {@link BinaryEntityCodec}. Descriptors are worked out from
+ * the declared types of properties, from the classes of the values themselves for properties whose declared type
+ * does not say enough, or from their signatures as recorded in an {@link com.mmnaseri.utils.spring.data.store.EntitySchema
+ * entity schema}.</p>
+ *
+ * <p>A signature is the lower-case name of the {@link Kind kind} of the value, followed by the name of the class and
+ * the signatures of the elements in angle brackets for the kinds that need them, and a question mark if the value
+ * can be {@literal null}; for instance, {@literal int}, {@literal string?}, or
+ * {@literal collection<java.util.ArrayList,object<com.example.Address>?>?}.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+final class ValueDescriptor {
+
+    enum Kind {
+        BOOLEAN, BYTE, SHORT, CHAR, INT, LONG, FLOAT, DOUBLE, STRING, DATE, ENUM, ARRAY, COLLECTION, MAP, OBJECT,
+        SERIALIZED, DYNAMIC
+    }
+
+    private static final EnumSet<Kind> CLASS_BEARING = EnumSet.of(Kind.ENUM, Kind.ARRAY, Kind.COLLECTION, Kind.MAP, Kind.OBJECT, Kind.SERIALIZED);
+    /**
+     * Describes values whose layout is only known once the value is there to look at
+     */
+    static final ValueDescriptor DYNAMIC = new ValueDescriptor(Kind.DYNAMIC, true, Object.class);
+    private static final Map<Class<?>, Kind> SCALARS = new HashMap<>();
+    private static final Map<Kind, Class<?>[]> SCALAR_TYPES = new EnumMap<>(Kind.class);
+    private static final ConcurrentMap<Class<?>, ValueDescriptor> runtimeDescriptors = new ConcurrentHashMap<>();
+    final Kind kind;
+    final boolean nullable;
+    final Class<?> type;
+    final ValueDescriptor[] elements;
+    final String signature;
+    /**
+     * The codec for {@link Kind#SERIALIZED serialized} values
+     */
+    final SerializingEntityCodec<Object> codec;
+
+    static {
+        scalar(Kind.BOOLEAN, boolean.class, Boolean.class);
+        scalar(Kind.BYTE, byte.class, Byte.class);
+        scalar(Kind.SHORT, short.class, Short.class);
+        scalar(Kind.CHAR, char.class, Character.class);
+        scalar(Kind.INT, int.class, Integer.class);
+        scalar(Kind.LONG, long.class, Long.class);
+        scalar(Kind.FLOAT, float.class, Float.class);
+        scalar(Kind.DOUBLE, double.class, Double.class);
+        scalar(Kind.STRING, String.class, String.class);
+        scalar(Kind.DATE, Date.class, Date.class);
+    }
+
+    private static void scalar(Kind kind, Class<?> primitive, Class<?> boxed) {
+        SCALARS.put(primitive, kind);
+        SCALARS.put(boxed, kind);
+        SCALAR_TYPES.put(kind, new Class<?>[]{primitive, boxed});
+    }
+
+    @SuppressWarnings("unchecked")
+    private ValueDescriptor(Kind kind, boolean nullable, Class<?> type, ValueDescriptor... elements) {
+        this.kind = kind;
+        this.nullable = nullable;
+        this.type = type;
+        this.elements = elements;
+        this.codec = kind == Kind.SERIALIZED ? new SerializingEntityCodec<>((Class<Object>) type) : null;
+        final StringBuilder signature = new StringBuilder(kind.name().toLowerCase(Locale.ENGLISH));
+        if (CLASS_BEARING.contains(kind)) {
+            signature.append('<').append(type.getName());
+            for (ValueDescriptor element : elements) {
+                signature.append(',').append(element.signature);
+            }
+            signature.append('>');
+        }
+        if (nullable && kind != Kind.DYNAMIC) {
+            signature.append('?');
+        }
+        this.signature = signature.toString();
+    }
+
+    @Override
+    public String toString() {
+        return signature;
+    }
+
+    /**
+     * Describes the values of a property with the given declared type
+     * @param type    the declared type
+     * @return the descriptor
+     */
+    static ValueDescriptor of(Type type) {
+        if (type instanceof Class) {
+            return of((Class<?>) type);
+        }
+        if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() instanceof Class) {
+            final Class<?> raw = (Class<?>) ((ParameterizedType) type).getRawType();
+            final Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (Collection.class.isAssignableFrom(raw) && arguments.length == 1) {
+                return new ValueDescriptor(Kind.COLLECTION, true, getContainerType(raw), of(arguments[0]));
+            }
+            if (Map.class.isAssignableFrom(raw) && arguments.length == 2) {
+                return new ValueDescriptor(Kind.MAP, true, getContainerType(raw), of(arguments[0]), of(arguments[1]));
+            }
+            return of(raw);
+        }
+        //type variables and wildcards tell us nothing about the layout
+        return DYNAMIC;
+    }
+
+    private static ValueDescriptor of(Class<?> type) {
+        final Kind scalar = SCALARS.get(type);
+        if (scalar != null) {
+            return new ValueDescriptor(scalar, !type.isPrimitive(), type);
+        } else if (type.isEnum()) {
+            return new ValueDescriptor(Kind.ENUM, true, type);
+        } else if (type.isArray()) {
+            return new ValueDescriptor(Kind.ARRAY, true, type, of(type.getComponentType()));
+        } else if (Collection.class.isAssignableFrom(type)) {
+            return new ValueDescriptor(Kind.COLLECTION, true, getContainerType(type), DYNAMIC);
+        } else if (Map.class.isAssignableFrom(type)) {
+            return new ValueDescriptor(Kind.MAP, true, getContainerType(type), DYNAMIC, DYNAMIC);
+        } else if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            return DYNAMIC;
+        } else if (isBean(type)) {
+            return new ValueDescriptor(Kind.OBJECT, true, type);
+        } else if (Serializable.class.isAssignableFrom(type)) {
+            return new ValueDescriptor(Kind.SERIALIZED, true, type);
+        }
+        return DYNAMIC;
+    }
+
+    /**
+     * Describes a value through its own class, for values of {@link #DYNAMIC dynamic} properties
+     * @param type    the class of the value
+     * @return the descriptor
+     */
+    static ValueDescriptor ofValue(Class<?> type) {
+        ValueDescriptor descriptor = runtimeDescriptors.get(type);
+        if (descriptor == null) {
+            //constants with bodies of their own are subclasses of their enum
+            descriptor = of(Enum.class.isAssignableFrom(type) && !type.isEnum() ? type.getSuperclass() : type);
+            if (descriptor.kind == Kind.DYNAMIC) {
+                throw new DataStoreException(type, "Cannot encode values that are neither serializable nor have a default constructor");
+            }
+            runtimeDescriptors.putIfAbsent(type, descriptor);
+        }
+        return descriptor;
+    }
+
+    /**
+     * Describes the values of the given kind that can be {@literal null}
+     * @param kind    a kind of value that does not name a class, such as {@link Kind#INT} or {@link Kind#STRING}
+     * @return the descriptor
+     */
+    static ValueDescriptor ofKind(Kind kind) {
+        return ofValue(SCALAR_TYPES.get(kind)[1]);
+    }
+
+    /**
+     * @return {@literal true} if the signature of the descriptor names a class
+     */
+    boolean isNamed() {
+        return CLASS_BEARING.contains(kind);
+    }
+
+    /**
+     * Describes the values with the given signature
+     * @param signature      the signature
+     * @param classLoader    the class loader for the classes named in the signature
+     * @return the descriptor
+     */
+    static ValueDescriptor parse(String signature, ClassLoader classLoader) {
+        final int[] position = new int[1];
+        final ValueDescriptor descriptor;
+        try {
+            descriptor = parse(signature, position, classLoader);
+        } catch (IndexOutOfBoundsException e) {
+            throw new InvalidArgumentException("Signature ended unexpectedly: " + signature);
+        }
+        if (position[0] != signature.length()) {
+            throw new InvalidArgumentException("Unexpected characters at " + position[0] + " in signature " + signature);
+        }
+        return descriptor;
+    }
+
+    private static ValueDescriptor parse(String signature, int[] position, ClassLoader classLoader) {
+        int start = position[0];
+        while (position[0] < signature.length() && Character.isLowerCase(signature.charAt(position[0]))) {
+            position[0]++;
+        }
+        final Kind kind;
+        try {
+            kind = Kind.valueOf(signature.substring(start, position[0]).toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidArgumentException("Unknown kind of value at " + start + " in signature " + signature);
+        }
+        if (!CLASS_BEARING.contains(kind)) {
+            final boolean nullable = kind == Kind.DYNAMIC || optional(signature, position);
+            if (kind == Kind.DYNAMIC) {
+                return DYNAMIC;
+            }
+            return new ValueDescriptor(kind, nullable, SCALAR_TYPES.get(kind)[nullable ? 1 : 0]);
+        }
+        expect(signature, position, '<');
+        start = position[0];
+        while (signature.charAt(position[0]) != ',' && signature.charAt(position[0]) != '>') {
+            position[0]++;
+        }
+        final Class<?> type = load(signature.substring(start, position[0]), classLoader);
+        final List<ValueDescriptor> elements = new ArrayList<>();
+        while (signature.charAt(position[0]) == ',') {
+            position[0]++;
+            elements.add(parse(signature, position, classLoader));
+        }
+        expect(signature, position, '>');
+        final int expected = kind == Kind.MAP ? 2 : (kind == Kind.ARRAY || kind == Kind.COLLECTION ? 1 : 0);
+        if (elements.size() != expected) {
+            throw new InvalidArgumentException("Expected " + expected + " element signatures for " + kind + " in signature " + signature);
+        }
+        return new ValueDescriptor(kind, optional(signature, position), type, elements.toArray(new ValueDescriptor[elements.size()]));
+    }
+
+    private static boolean optional(String signature, int[] position) {
+        if (position[0] < signature.length() && signature.charAt(position[0]) == '?') {
+            position[0]++;
+            return true;
+        }
+        return false;
+    }
+
+    private static void expect(String signature, int[] position, char expected) {
+        if (signature.charAt(position[0]) != expected) {
+            throw new InvalidArgumentException("Expected `" + expected + "` at " + position[0] + " in signature " + signature);
+        }
+        position[0]++;
+    }
+
+    private static Class<?> load(String name, ClassLoader classLoader) {
+        try {
+            return Class.forName(name, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new InvalidArgumentException("Cannot find class " + name);
+        }
+    }
+
+    /**
+     * Objects are encoded property by property if they are not part of the platform and can be created through a
+     * default constructor
+     */
+    private static boolean isBean(Class<?> type) {
+        if (type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+            return false;
+        }
+        try {
+            type.getDeclaredConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the type itself if it can be created through a public default constructor, or the closest general
+     * purpose collection or map otherwise
+     */
+    private static Class<?> getContainerType(Class<?> type) {
+        if (!type.isInterface() && !Modifier.isAbstract(type.getModifiers()) && Modifier.isPublic(type.getModifiers())) {
+            try {
+                type.getConstructor();
+                return type;
+            } catch (NoSuchMethodException ignored) {
+                //we will fall back to a general purpose type
+            }
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return SortedMap.class.isAssignableFrom(type) ? TreeMap.class : LinkedHashMap.class;
+        } else if (SortedSet.class.isAssignableFrom(type)) {
+            return TreeSet.class;
+        } else if (Set.class.isAssignableFrom(type)) {
+            return LinkedHashSet.class;
+        } else if (Queue.class.isAssignableFrom(type) && !List.class.isAssignableFrom(type)) {
+            return LinkedList.class;
+        }
+        return ArrayList.class;
+    }
+
+}
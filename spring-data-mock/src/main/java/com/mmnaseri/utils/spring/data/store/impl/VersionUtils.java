@@ -0,0 +1,166 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.OptimisticLockException;
+import com.mmnaseri.utils.spring.data.tools.GetterMethodFilter;
+import com.mmnaseri.utils.spring.data.tools.PropertyUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Utilities for discovering and advancing the version property of an entity, which is the property marked with
+ * either Spring Data's or JPA's {@literal @Version} annotation, whichever is present in the classpath. Versions can be
+ * {@link Long longs}, {@link Integer integers}, or {@link Short shorts}, or their primitive counterparts.
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+@SuppressWarnings("WeakerAccess")
+public final class VersionUtils {
+
+    private static final Log log = LogFactory.getLog(VersionUtils.class);
+    private static final String[] VERSION_ANNOTATIONS = {"org.springframework.data.annotation.Version", "javax.persistence.Version"};
+    private static final String NONE = "";
+    private static final ConcurrentMap<Class<?>, String> properties = new ConcurrentHashMap<>();
+
+    private VersionUtils() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Finds the version property of the entity type, either through the field or the getter method
+     * @param entityType    the entity type
+     * @return the name of the version property, or {@literal null} if the entity is not versioned
+     */
+    public static String getVersionProperty(Class<?> entityType) {
+        String property = properties.get(entityType);
+        if (property == null) {
+            property = findVersionProperty(entityType);
+            properties.putIfAbsent(entityType, property);
+        }
+        return NONE.equals(property) ? null : property;
+    }
+
+    /**
+     * Checks the version of an entity that is about to replace a stored one, and works out the version it should have
+     * once it has been saved. The entity itself is left as it is, so that its version can be set only once the save has
+     * gone through.
+     * @param entityType         the entity type
+     * @param key                the key under which the entity is being saved
+     * @param stored             the entity currently stored under the key, if any
+     * @param entity             the entity being saved
+     * @param versionProperty    the version property
+     * @return the version the entity should have once it has been saved
+     * @throws OptimisticLockException if the stored entity has a different version
+     */
+    public static Object getNextVersion(Class<?> entityType, Object key, Object stored, Object entity, String versionProperty) {
+        final Object version = check(entityType, key, stored, entity, versionProperty);
+        if (stored == null) {
+            return version == null ? getInitialVersion(entityType, versionProperty) : version;
+        }
+        return increment(entityType, versionProperty, version);
+    }
+
+    /**
+     * Checks the version of an entity that is about to replace a stored one, without changing it
+     * @param entityType         the entity type
+     * @param key                the key under which the entity is being saved
+     * @param stored             the entity currently stored under the key, if any
+     * @param entity             the entity being saved
+     * @param versionProperty    the version property
+     * @return the version of the entity
+     * @throws OptimisticLockException if the stored entity has a different version
+     */
+    public static Object check(Class<?> entityType, Object key, Object stored, Object entity, String versionProperty) {
+        final Object version = PropertyUtils.getPropertyValue(entity, versionProperty);
+        if (stored == null) {
+            return version;
+        }
+        final Object current = PropertyUtils.getPropertyValue(stored, versionProperty);
+        if (current == null ? version != null : !current.equals(version)) {
+            log.error("Version " + version + " of entity with key " + key + " does not match stored version " + current);
+            throw new OptimisticLockException(entityType, key, version, current);
+        }
+        return version;
+    }
+
+    private static Object getInitialVersion(Class<?> entityType, String versionProperty) {
+        final Class<?> type = PropertyUtils.getTypeOf(PropertyUtils.getPropertyType(entityType, versionProperty));
+        if (Long.class.equals(type)) {
+            return 0L;
+        } else if (Integer.class.equals(type)) {
+            return 0;
+        } else if (Short.class.equals(type)) {
+            return (short) 0;
+        }
+        throw new DataStoreException(entityType, "Unsupported type for version property " + versionProperty + ": " + type);
+    }
+
+    private static Object increment(Class<?> entityType, String versionProperty, Object version) {
+        if (version == null) {
+            return getInitialVersion(entityType, versionProperty);
+        } else if (version instanceof Long) {
+            return (Long) version + 1;
+        } else if (version instanceof Integer) {
+            return (Integer) version + 1;
+        } else if (version instanceof Short) {
+            return (short) ((Short) version + 1);
+        }
+        throw new DataStoreException(entityType, "Unsupported type for version property " + versionProperty + ": " + version.getClass());
+    }
+
+    private static String findVersionProperty(Class<?> entityType) {
+        final List<Class<? extends Annotation>> annotations = getVersionAnnotations();
+        final List<String> found = new ArrayList<>();
+        ReflectionUtils.doWithFields(entityType, new ReflectionUtils.FieldCallback() {
+            @Override
+            public void doWith(Field field) throws IllegalArgumentException, IllegalAccessException {
+                for (Class<? extends Annotation> annotation : annotations) {
+                    if (found.isEmpty() && AnnotationUtils.findAnnotation(field, annotation) != null) {
+                        found.add(field.getName());
+                    }
+                }
+            }
+        });
+        ReflectionUtils.doWithMethods(entityType, new ReflectionUtils.MethodCallback() {
+            @Override
+            public void doWith(Method method) throws IllegalArgumentException, IllegalAccessException {
+                for (Class<? extends Annotation> annotation : annotations) {
+                    if (found.isEmpty() && AnnotationUtils.findAnnotation(method, annotation) != null) {
+                        found.add(PropertyUtils.getPropertyName(method));
+                    }
+                }
+            }
+        }, new GetterMethodFilter());
+        if (found.isEmpty()) {
+            return NONE;
+        }
+        log.info("Entity " + entityType + " is versioned through property " + found.get(0));
+        return found.get(0);
+    }
+
+    private static List<Class<? extends Annotation>> getVersionAnnotations() {
+        final List<Class<? extends Annotation>> annotations = new ArrayList<>();
+        for (String annotation : VERSION_ANNOTATIONS) {
+            try {
+                annotations.add(ClassUtils.forName(annotation, ClassUtils.getDefaultClassLoader()).asSubclass(Annotation.class));
+            } catch (ClassNotFoundException ignored) {
+                //if the class for the annotation wasn't found, we just ignore it
+                log.debug("Version annotation type " + annotation + " is not present in the classpath");
+            }
+        }
+        return annotations;
+    }
+
+}
@@ -102,6 +102,36 @@ public final class PropertyUtils {
         return result;
     }
 
+    /**
+     * Finds out the declared type of the property at the end of the given path, resolving each step of the path the
+     * same way as {@link #getPropertyValue(Object, String)} does.
+     *
+     * @param type        the type against which the property path will be evaluated
+     * @param property    the property path
+     * @return the declared type of the property, which might be a primitive type
+     */
+    public static Class<?> getPropertyType(Class<?> type, String property) {
+        Class<?> current = type;
+        final StringBuilder path = new StringBuilder();
+        for (String name : property.split("\\.")) {
+            if (path.length() > 0) {
+                path.append('.');
+            }
+            path.append(name);
+            final Method getter = ReflectionUtils.findMethod(current, "get" + StringUtils.capitalize(name));
+            if (getter != null) {
+                current = getter.getReturnType();
+            } else {
+                final Field field = ReflectionUtils.findField(current, name);
+                if (field == null) {
+                    throw new IllegalStateException("Cannot find property `" + path + "` on type `" + type + "`");
+                }
+                current = field.getType();
+            }
+        }
+        return current;
+    }
+
     /**
      * Sets the value of the given property to the provided value. The property path will follow
      * the same rules as defined in {@link #getPropertyValue(Object, String)}, with the exception that if any
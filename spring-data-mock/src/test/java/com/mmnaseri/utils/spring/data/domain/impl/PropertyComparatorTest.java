@@ -2,11 +2,18 @@ package com.mmnaseri.utils.spring.data.domain.impl;
 
 import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
 import com.mmnaseri.utils.spring.data.query.NullHandling;
+import com.mmnaseri.utils.spring.data.query.Order;
 import com.mmnaseri.utils.spring.data.query.SortDirection;
 import com.mmnaseri.utils.spring.data.query.impl.ImmutableOrder;
+import com.mmnaseri.utils.spring.data.query.impl.ImmutableSort;
 import com.mmnaseri.utils.spring.data.sample.models.*;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
@@ -74,4 +81,22 @@ public class PropertyComparatorTest {
         comparator.compare(new Person().setAddressZip(new ChildZip().setPrefix("b")), new Person().setAddressZip(new OtherChildZip().setPrefix("a")));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testComparatorForTheWholeSort() throws Exception {
+        final ImmutableSort sort = new ImmutableSort(Arrays.<Order>asList(
+                new ImmutableOrder(SortDirection.ASCENDING, "lastName", NullHandling.DEFAULT),
+                new ImmutableOrder(SortDirection.DESCENDING, "age", NullHandling.DEFAULT)));
+        final List<Person> people = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            people.add(new Person().setId(String.valueOf(i)).setLastName(String.valueOf(i % 3)).setAge(i % 7));
+        }
+        final List<Person> expected = new ArrayList<>(people);
+        PropertyComparator.sort(expected, sort);
+        Collections.sort(people, PropertyComparator.forSort(sort));
+        assertThat(people, is(expected));
+        for (int i = 0; i < 50; i++) {
+            assertThat(people.get(i).getId(), is(expected.get(i).getId()));
+        }
+    }
+
+}
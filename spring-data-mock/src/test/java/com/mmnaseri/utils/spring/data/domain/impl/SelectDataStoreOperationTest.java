@@ -12,7 +12,13 @@ import com.mmnaseri.utils.spring.data.sample.models.Person;
 import com.mmnaseri.utils.spring.data.sample.repositories.RepositoryWithValidMethods;
 import com.mmnaseri.utils.spring.data.store.DataStore;
 import com.mmnaseri.utils.spring.data.store.DataStoreOperation;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.impl.ColumnarMemoryDataStore;
+import com.mmnaseri.utils.spring.data.store.impl.IndexedMemoryDataStore;
 import com.mmnaseri.utils.spring.data.store.impl.MemoryDataStore;
+import com.mmnaseri.utils.spring.data.store.impl.ShardedMemoryDataStore;
+import com.mmnaseri.utils.spring.data.store.impl.SkipListPropertyIndex;
+import com.mmnaseri.utils.spring.data.store.impl.StatisticsCollectingDataStore;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.testng.annotations.BeforeMethod;
@@ -20,8 +26,11 @@ import org.testng.annotations.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -131,6 +140,270 @@ public class SelectDataStoreOperationTest {
         assertThat(selectedDistinct, hasSize(4));
     }
 
+    @Test
+    public void testSelectionUsingIndexes() throws Exception {
+        final MemoryDataStore<String, Person> delegate = new MemoryDataStore<String, Person>(Person.class) {
+            @Override
+            public Collection<Person> retrieveAll() {
+                throw new AssertionError("Indexed selection should not scan the data store");
+            }
+        };
+        final IndexedMemoryDataStore<String, Person> indexed = new IndexedMemoryDataStore<>(delegate, "firstName", "address.city");
+        for (Person person : dataStore.retrieveAll()) {
+            indexed.save(person.getId(), person);
+        }
+        final List<List<Parameter>> branches = new ArrayList<>();
+        final DefaultOperatorContext operatorContext = new DefaultOperatorContext();
+        branches.add(Arrays.<Parameter>asList(
+                new ImmutableParameter("firstName", Collections.<Modifier>emptySet(), new int[]{0}, operatorContext.getBySuffix("Is")),
+                new ImmutableParameter("lastName", Collections.<Modifier>emptySet(), new int[]{1}, operatorContext.getBySuffix("Is"))
+        ));
+        branches.add(Collections.<Parameter>singletonList(
+                new ImmutableParameter("address.city", Collections.<Modifier>emptySet(), new int[]{2}, operatorContext.getBySuffix("Is"))
+        ));
+        final DefaultQueryDescriptor descriptor = new DefaultQueryDescriptor(false, null, 0, null, null, branches, null, null);
+        final DataStoreOperation<List<Person>, String, Person> operation = new SelectDataStoreOperation<>(descriptor);
+        final List<Person> selected = operation.execute(indexed, null, new ImmutableInvocation(RepositoryWithValidMethods.class.getMethod("findByFirstNameAndLastNameOrAddressCityOrAgeGreaterThan", String.class, String.class, String.class, Integer.class), new Object[]{"Milad", "Naseri", "Seattle", 100}));
+        assertThat(selected, hasSize(3));
+        assertThat(selected, containsInAnyOrder(dataStore.retrieve("k1"), dataStore.retrieve("k2"), dataStore.retrieve("k3")));
+    }
+
+    @Test
+    public void testSelectionUsingColumns() throws Exception {
+        final ColumnarMemoryDataStore<String, Person> columnar = new ColumnarMemoryDataStore<String, Person>(Person.class, "firstName", "lastName", "age") {
+            @Override
+            public void scan(DataStoreVisitor<String, Person> visitor) {
+                throw new AssertionError("Columnar selection should not scan the data store");
+            }
+        };
+        for (Person person : dataStore.retrieveAll()) {
+            columnar.save(person.getId(), person);
+        }
+        final List<List<Parameter>> branches = new ArrayList<>();
+        final DefaultOperatorContext operatorContext = new DefaultOperatorContext();
+        branches.add(Arrays.<Parameter>asList(
+                new ImmutableParameter("firstName", Collections.<Modifier>emptySet(), new int[]{0}, operatorContext.getBySuffix("Is")),
+                new ImmutableParameter("lastName", Collections.<Modifier>emptySet(), new int[]{1}, operatorContext.getBySuffix("Is"))
+        ));
+        branches.add(Collections.<Parameter>singletonList(
+                new ImmutableParameter("age", Collections.<Modifier>emptySet(), new int[]{3}, operatorContext.getBySuffix("GreaterThan"))
+        ));
+        final ImmutableSort sort = new ImmutableSort(Collections.<Order>singletonList(new ImmutableOrder(SortDirection.DESCENDING, "age", NullHandling.DEFAULT)));
+        final ImmutableInvocation invocation = new ImmutableInvocation(RepositoryWithValidMethods.class.getMethod("findByFirstNameAndLastNameOrAddressCityOrAgeGreaterThan", String.class, String.class, String.class, Integer.class), new Object[]{"Milad", "Naseri", null, 20});
+        for (WrappedSortParameterExtractor sortExtractor : Arrays.asList(null, new WrappedSortParameterExtractor(sort))) {
+            final DefaultQueryDescriptor descriptor = new DefaultQueryDescriptor(false, null, 0, null, sortExtractor, branches, null, null);
+            final List<Person> expected = new SelectDataStoreOperation<String, Person>(descriptor).execute(dataStore, null, invocation);
+            final List<Person> selected = new SelectDataStoreOperation<String, Person>(descriptor).execute(columnar, null, invocation);
+            assertThat(expected, is(not(empty())));
+            if (sortExtractor == null) {
+                assertThat(selected, containsInAnyOrder(expected.toArray()));
+            } else {
+                assertThat(selected, is(expected));
+            }
+        }
+    }
+
+    @Test
+    public void testSelectionFallsBackToScanning() throws Exception {
+        final IndexedMemoryDataStore<String, Person> indexed = new IndexedMemoryDataStore<>(Person.class, "firstName");
+        for (Person person : dataStore.retrieveAll()) {
+            indexed.save(person.getId(), person);
+        }
+        final List<List<Parameter>> branches = new ArrayList<>();
+        final DefaultOperatorContext operatorContext = new DefaultOperatorContext();
+        branches.add(Collections.<Parameter>singletonList(
+                new ImmutableParameter("firstName", Collections.<Modifier>emptySet(), new int[]{0}, operatorContext.getBySuffix("Is"))
+        ));
+        branches.add(Collections.<Parameter>singletonList(
+                new ImmutableParameter("lastName", Collections.<Modifier>emptySet(), new int[]{1}, operatorContext.getBySuffix("Is"))
+        ));
+        final DefaultQueryDescriptor descriptor = new DefaultQueryDescriptor(false, null, 0, null, null, branches, null, null);
+        final DataStoreOperation<List<Person>, String, Person> operation = new SelectDataStoreOperation<>(descriptor);
+        final List<Person> selected = operation.execute(indexed, null, new ImmutableInvocation(RepositoryWithValidMethods.class.getMethod("findByFirstNameOrLastName", String.class, String.class), new Object[]{"Milad", "Sadeghi"}));
+        assertThat(selected, hasSize(4));
+    }
+
+    @Test
+    public void testSortingUsingIndexes() throws Exception {
+        final MemoryDataStore<String, Person> delegate = new MemoryDataStore<String, Person>(Person.class) {
+            @Override
+            public Collection<Person> retrieveAll() {
+                throw new AssertionError("Sorted selection should read the data in the order of the index");
+            }
+        };
+        final IndexedMemoryDataStore<String, Person> indexed = new IndexedMemoryDataStore<>(delegate);
+        indexed.register(new SkipListPropertyIndex<String>("age"));
+        for (Person person : dataStore.retrieveAll()) {
+            indexed.save(person.getId(), person);
+        }
+        final ImmutableSort sort = new ImmutableSort(Collections.<Order>singletonList(new ImmutableOrder(SortDirection.DESCENDING, "age", NullHandling.DEFAULT)));
+        final List<List<Parameter>> branches = new ArrayList<>();
+        branches.add(Collections.<Parameter>singletonList(
+                new ImmutableParameter("lastName", Collections.<Modifier>emptySet(), new int[]{0}, new DefaultOperatorContext().getBySuffix("Is"))
+        ));
+        final DefaultQueryDescriptor descriptor = new DefaultQueryDescriptor(false, null, 0, null, new WrappedSortParameterExtractor(sort), branches, null, null);
+        final DataStoreOperation<List<Person>, String, Person> operation = new SelectDataStoreOperation<>(descriptor);
+        final List<Person> selected = operation.execute(indexed, null, new ImmutableInvocation(RepositoryWithValidMethods.class.getMethod("findByFirstNameOrLastName", String.class, String.class), new Object[]{"Sadeghi", null}));
+        assertThat(selected, contains(dataStore.retrieve("k4"), dataStore.retrieve("k2")));
+    }
+
+    @Test
+    public void testRangeSelectionUsingIndexes() throws Exception {
+        final MemoryDataStore<String, Person> delegate = new MemoryDataStore<String, Person>(Person.class) {
+            @Override
+            public Collection<Person> retrieveAll() {
+                throw new AssertionError("Indexed selection should not scan the data store");
+            }
+        };
+        final IndexedMemoryDataStore<String, Person> indexed = new IndexedMemoryDataStore<>(delegate);
+        indexed.register(new SkipListPropertyIndex<String>("age"));
+        for (Person person : dataStore.retrieveAll()) {
+            indexed.save(person.getId(), person);
+        }
+        final List<List<Parameter>> branches = new ArrayList<>();
+        branches.add(Collections.<Parameter>singletonList(
+                new ImmutableParameter("age", Collections.<Modifier>emptySet(), new int[]{0, 1}, new DefaultOperatorContext().getBySuffix("Between"))
+        ));
+        final ImmutableSort sort = new ImmutableSort(Collections.<Order>singletonList(new ImmutableOrder(SortDirection.ASCENDING, "age", NullHandling.DEFAULT)));
+        final DefaultQueryDescriptor descriptor = new DefaultQueryDescriptor(false, null, 0, null, new WrappedSortParameterExtractor(sort), branches, null, null);
+        final DataStoreOperation<List<Person>, String, Person> operation = new SelectDataStoreOperation<>(descriptor);
+        final List<Person> selected = operation.execute(indexed, null, new ImmutableInvocation(RepositoryWithValidMethods.class.getMethod("findByFirstNameOrLastName", String.class, String.class), new Object[]{12, 40}));
+        assertThat(selected, contains(dataStore.retrieve("k2"), dataStore.retrieve("k4"), dataStore.retrieve("k3")));
+    }
+
+    @Test
+    public void testScanningStopsOnceTheLimitIsReached() throws Exception {
+        final AtomicInteger visits = new AtomicInteger();
+        final MemoryDataStore<String, Person> counting = new MemoryDataStore<String, Person>(Person.class) {
+            @Override
+            public void scan(final DataStoreVisitor<String, Person> visitor) {
+                super.scan(new DataStoreVisitor<String, Person>() {
+                    @Override
+                    public boolean visit(String key, Person entity) {
+                        visits.incrementAndGet();
+                        return visitor.visit(key, entity);
+                    }
+                });
+            }
+
+            @Override
+            public Collection<Person> retrieveAll() {
+                throw new AssertionError("Selection should scan the data store");
+            }
+        };
+        for (Person person : dataStore.retrieveAll()) {
+            counting.save(person.getId(), person);
+        }
+        final List<List<Parameter>> branches = Collections.emptyList();
+        final DefaultQueryDescriptor descriptor = new DefaultQueryDescriptor(false, null, 2, null, null, branches, null, null);
+        final DataStoreOperation<List<Person>, String, Person> operation = new SelectDataStoreOperation<>(descriptor);
+        final List<Person> selected = operation.execute(counting, null, new ImmutableInvocation(RepositoryWithValidMethods.class.getMethod("findAll"), new Object[]{}));
+        assertThat(selected, hasSize(2));
+        assertThat(visits.get(), is(2));
+    }
+
+    @Test
+    public void testSelectingFromPartitionsInParallel() throws Exception {
+        final ShardedMemoryDataStore<String, Person> sharded = new ShardedMemoryDataStore<>(Person.class, 4);
+        for (int i = 0; i < 100; i++) {
+            sharded.save("k" + i, new Person().setId("k" + i).setAge(i % 10));
+        }
+        final List<Person> scanned = new ArrayList<>();
+        sharded.scan(new DataStoreVisitor<String, Person>() {
+            @Override
+            public boolean visit(String key, Person entity) {
+                scanned.add(entity);
+                return true;
+            }
+        });
+        final List<List<Parameter>> branches = Collections.emptyList();
+        final ImmutableInvocation findAll = new ImmutableInvocation(RepositoryWithValidMethods.class.getMethod("findAll"), new Object[]{});
+        final List<Person> all = new SelectDataStoreOperation<String, Person>(new DefaultQueryDescriptor(false, null, 0, null, null, branches, null, null)).execute(sharded, null, findAll);
+        assertThat(all, is(scanned));
+        final List<Person> limited = new SelectDataStoreOperation<String, Person>(new DefaultQueryDescriptor(false, null, 30, null, null, branches, null, null)).execute(sharded, null, findAll);
+        assertThat(limited, is(scanned.subList(0, 30)));
+        final PageParameterExtractor pageExtractor = new PageablePageParameterExtractor(0);
+        final List<Person> page = new SelectDataStoreOperation<String, Person>(new DefaultQueryDescriptor(false, null, 0, pageExtractor, null, branches, null, null)).execute(sharded, null, new ImmutableInvocation(RepositoryWithValidMethods.class.getMethod("findAll", Pageable.class), new Object[]{new PageRequest(2, 15)}));
+        assertThat(page, is(scanned.subList(30, 45)));
+        final WrappedSortParameterExtractor sortExtractor = new WrappedSortParameterExtractor(new ImmutableSort(Collections.<Order>singletonList(new ImmutableOrder(SortDirection.DESCENDING, "age", NullHandling.DEFAULT))));
+        final List<Person> sorted = new SelectDataStoreOperation<String, Person>(new DefaultQueryDescriptor(false, null, 0, null, sortExtractor, branches, null, null)).execute(sharded, null, findAll);
+        assertThat(sorted, hasSize(100));
+        for (int i = 0; i < 100; i++) {
+            assertThat(sorted.get(i).getAge(), is(9 - i / 10));
+        }
+    }
+
+    @Test
+    public void testSelectingDistinctValuesFromPartitions() throws Exception {
+        final ShardedMemoryDataStore<String, Person> sharded = new ShardedMemoryDataStore<>(Person.class, 4);
+        for (int i = 0; i < 20; i++) {
+            sharded.save("k" + i, new Person().setId("p" + (i % 5)));
+        }
+        final List<List<Parameter>> branches = Collections.emptyList();
+        final DefaultQueryDescriptor descriptor = new DefaultQueryDescriptor(true, null, 0, null, null, branches, null, null);
+        final List<Person> selected = new SelectDataStoreOperation<String, Person>(descriptor).execute(sharded, null, new ImmutableInvocation(RepositoryWithValidMethods.class.getMethod("findAll"), new Object[]{}));
+        assertThat(selected, hasSize(5));
+    }
+
+    @Test
+    public void testMatchingAndSortingInParallel() throws Exception {
+        //the statistics tell the operation how many entities there are, which it needs to know to match them in parallel
+        final StatisticsCollectingDataStore<String, Person> large = new StatisticsCollectingDataStore<>(Person.class, "age");
+        for (int i = 0; i < 5000; i++) {
+            large.save("k" + i, new Person().setId("p" + (i % 2000)).setFirstName("Milad").setLastName(String.valueOf(i % 13)).setAge(i % 97));
+        }
+        final List<List<Parameter>> branches = new ArrayList<>();
+        final DefaultOperatorContext operatorContext = new DefaultOperatorContext();
+        branches.add(Collections.<Parameter>singletonList(
+                new ImmutableParameter("age", Collections.<Modifier>emptySet(), new int[]{3}, operatorContext.getBySuffix("GreaterThan"))
+        ));
+        final ImmutableSort sort = new ImmutableSort(Arrays.<Order>asList(
+                new ImmutableOrder(SortDirection.ASCENDING, "lastName", NullHandling.DEFAULT),
+                new ImmutableOrder(SortDirection.DESCENDING, "age", NullHandling.DEFAULT)));
+        final ImmutableInvocation invocation = new ImmutableInvocation(RepositoryWithValidMethods.class.getMethod("findByFirstNameAndLastNameOrAddressCityOrAgeGreaterThan", String.class, String.class, String.class, Integer.class), new Object[]{null, null, null, 40});
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (boolean distinct : new boolean[]{false, true}) {
+                for (WrappedSortParameterExtractor sortExtractor : Arrays.asList(null, new WrappedSortParameterExtractor(sort))) {
+                    final DefaultQueryDescriptor descriptor = new DefaultQueryDescriptor(distinct, null, 0, null, sortExtractor, branches, null, null);
+                    final List<Person> sequential = new SelectDataStoreOperation<String, Person>(descriptor, SelectionParallelism.DISABLED).execute(large, null, invocation);
+                    final List<Person> parallel = new SelectDataStoreOperation<String, Person>(descriptor, new SelectionParallelism(100, pool)).execute(large, null, invocation);
+                    assertThat(sequential, is(not(empty())));
+                    assertThat(parallel, hasSize(sequential.size()));
+                    for (int i = 0; i < sequential.size(); i++) {
+                        assertThat(parallel.get(i), is(sameInstance(sequential.get(i))));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testMatchingSelectionsOfUnknownSizeAsTheyAreRead() throws Exception {
+        final MemoryDataStore<String, Person> large = new MemoryDataStore<>(Person.class);
+        for (int i = 0; i < 5000; i++) {
+            large.save("k" + i, new Person().setId("p" + i).setAge(i % 97));
+        }
+        final List<List<Parameter>> branches = new ArrayList<>();
+        final DefaultOperatorContext operatorContext = new DefaultOperatorContext();
+        branches.add(Collections.<Parameter>singletonList(
+                new ImmutableParameter("age", Collections.<Modifier>emptySet(), new int[]{3}, operatorContext.getBySuffix("GreaterThan"))
+        ));
+        final ImmutableInvocation invocation = new ImmutableInvocation(RepositoryWithValidMethods.class.getMethod("findByFirstNameAndLastNameOrAddressCityOrAgeGreaterThan", String.class, String.class, String.class, Integer.class), new Object[]{null, null, null, 40});
+        final DefaultQueryDescriptor descriptor = new DefaultQueryDescriptor(false, null, 0, null, null, branches, null, null);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final List<Person> selected = new SelectDataStoreOperation<String, Person>(descriptor, new SelectionParallelism(100, pool)).execute(large, null, invocation);
+            assertThat(selected, hasSize(5000 / 97 * 56 + Math.max(0, 5000 % 97 - 41)));
+            //the size of the data store is not known up front, so nothing was handed to the pool
+            assertThat(pool.getPoolSize(), is(0));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     @Test
     public void testToString() throws Exception {
         final List<List<Parameter>> branches = Collections.emptyList();
@@ -0,0 +1,200 @@
+package com.mmnaseri.utils.spring.data.domain.impl;
+
+import com.mmnaseri.utils.spring.data.domain.Modifier;
+import com.mmnaseri.utils.spring.data.domain.Parameter;
+import com.mmnaseri.utils.spring.data.query.NullHandling;
+import com.mmnaseri.utils.spring.data.query.Order;
+import com.mmnaseri.utils.spring.data.query.SortDirection;
+import com.mmnaseri.utils.spring.data.query.impl.DefaultQueryDescriptor;
+import com.mmnaseri.utils.spring.data.query.impl.ImmutableOrder;
+import com.mmnaseri.utils.spring.data.query.impl.ImmutableSort;
+import com.mmnaseri.utils.spring.data.query.impl.WrappedSortParameterExtractor;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.repositories.RepositoryWithValidMethods;
+import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.impl.DataStoreUtils;
+import com.mmnaseri.utils.spring.data.store.impl.MemoryDataStore;
+import com.mmnaseri.utils.spring.data.store.impl.StatisticsCollectingDataStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * <p>This is a rough benchmark comparing sequential and parallel selections made through a
+ * {@link SelectDataStoreOperation}, which is what {@link SelectionParallelism#DEFAULT_THRESHOLD} is derived from. It is
+ * not a test, and is meant to be run by hand:</p>
+ *
+ * <pre>
+ *     java -cp ... com.mmnaseri.utils.spring.data.domain.impl.SelectionParallelismBenchmark [entities per run]
+ * </pre>
+ *
+ * <p>Besides the timings, it measures the cost of matching an entity, the cost of reading it up front so that it can be
+ * matched in parallel, and the fixed cost of handing the work out to the pool, and from those estimates the number of
+ * entities at which a parallel selection starts paying off for a given number of workers. The estimate is what
+ * matters on machines with few processors, where the timings themselves might never cross over.</p>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class SelectionParallelismBenchmark {
+
+    private static final int[] SIZES = {256, 1024, 4096, 16384, 65536};
+    private static final int WARM_UP = 10;
+
+    public static void main(String[] args) throws Exception {
+        final int budget = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        //the operation logs every entity it matches, which would otherwise be most of what is measured
+        LogManager.getLogManager().reset();
+        Logger.getLogger("").setLevel(Level.OFF);
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final ForkJoinPool pool = new ForkJoinPool(Math.max(2, processors));
+        try {
+            final SelectionParallelism parallel = new SelectionParallelism(1, pool);
+            final DefaultQueryDescriptor descriptor = createDescriptor();
+            final ImmutableInvocation invocation = new ImmutableInvocation(RepositoryWithValidMethods.class.getMethod("findByFirstNameAndLastNameOrAddressCityOrAgeGreaterThan", String.class, String.class, String.class, Integer.class), new Object[]{null, null, null, 40});
+            System.out.printf("%d processors, %d workers%n", processors, pool.getParallelism());
+            for (int i = 0; i < SIZES.length; i++) {
+                final DataStore<String, Person> store = createStore(SIZES[i]);
+                final int iterations = Math.max(10, budget / SIZES[i]);
+                final double sequential = run(new SelectDataStoreOperation<String, Person>(descriptor, SelectionParallelism.DISABLED), store, invocation, iterations);
+                final double inParallel = run(new SelectDataStoreOperation<String, Person>(descriptor, parallel), store, invocation, iterations);
+                System.out.printf("%8d entities %12.0f ns sequential %12.0f ns parallel%n", SIZES[i], sequential, inParallel);
+            }
+            final int size = SIZES[SIZES.length / 2];
+            estimate(createStore(size), size, new SelectDataStoreOperation<String, Person>(descriptor, SelectionParallelism.DISABLED), invocation, parallel, budget);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Measures the cost of matching an entity, the cost of reading an entity up front instead of matching it as it is
+     * read, and the fixed cost of handing the matching out to the pool, and prints the number of entities from which a
+     * parallel selection would pay off for a few worker counts, which is where {@code n * matching * (1 - 1 / workers)}
+     * exceeds {@code n * reading + handing out}
+     */
+    private static void estimate(DataStore<String, Person> store, int size, SelectDataStoreOperation<String, Person> sequential, ImmutableInvocation invocation, SelectionParallelism parallel, int budget) {
+        final int iterations = Math.max(10, budget / size);
+        final double matching = run(sequential, store, invocation, iterations) / size;
+        final double reading = read(store, iterations) / size;
+        final double handingOut = handOut(parallel, iterations);
+        System.out.printf("matching: %.1f ns/entity, reading up front: %.1f ns/entity, handing out: %.0f ns%n", matching, reading, handingOut);
+        for (int workers : new int[]{2, 4, 8}) {
+            final double saved = matching * (1 - 1D / workers) - reading;
+            if (saved <= 0) {
+                System.out.printf("%d workers: never pays off%n", workers);
+            } else {
+                System.out.printf("%d workers: pays off from %.0f entities%n", workers, Math.ceil(handingOut / saved));
+            }
+        }
+    }
+
+    private static double read(DataStore<String, Person> store, int iterations) {
+        long checksum = 0;
+        long elapsed = 0;
+        for (int i = 0; i < WARM_UP + iterations; i++) {
+            final long started = System.nanoTime();
+            final List<Person> entities = new ArrayList<>();
+            DataStoreUtils.scan(store, new DataStoreVisitor<String, Person>() {
+                @Override
+                public boolean visit(String key, Person entity) {
+                    entities.add(entity);
+                    return true;
+                }
+            });
+            checksum += entities.size();
+            if (i >= WARM_UP) {
+                elapsed += System.nanoTime() - started;
+            }
+        }
+        if (checksum < 0) {
+            throw new IllegalStateException();
+        }
+        return (double) elapsed / iterations;
+    }
+
+    /**
+     * Times a parallel filter that does next to nothing against the same filter run on the calling thread
+     */
+    private static double handOut(SelectionParallelism parallel, int iterations) {
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 4096; i++) {
+            items.add(i);
+        }
+        final SelectionParallelism.Filter<Integer> filter = new SelectionParallelism.Filter<Integer>() {
+            @Override
+            public boolean accept(Integer item) {
+                return (item & 1) == 0;
+            }
+        };
+        long checksum = 0;
+        long inParallel = 0;
+        long inSequence = 0;
+        for (int i = 0; i < WARM_UP + iterations * 10; i++) {
+            long started = System.nanoTime();
+            checksum += parallel.filter(items, filter).size();
+            final long parallelTime = System.nanoTime() - started;
+            started = System.nanoTime();
+            final List<Integer> selected = new ArrayList<>();
+            for (Integer item : items) {
+                if (filter.accept(item)) {
+                    selected.add(item);
+                }
+            }
+            checksum += selected.size();
+            if (i >= WARM_UP) {
+                inParallel += parallelTime;
+                inSequence += System.nanoTime() - started;
+            }
+        }
+        if (checksum < 0) {
+            throw new IllegalStateException();
+        }
+        return Math.max(0, (double) (inParallel - inSequence) / (iterations * 10));
+    }
+
+    private static double run(SelectDataStoreOperation<String, Person> operation, DataStore<String, Person> store, ImmutableInvocation invocation, int iterations) {
+        long checksum = 0;
+        for (int i = 0; i < WARM_UP; i++) {
+            checksum += operation.execute(store, null, invocation).size();
+        }
+        final long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            checksum += operation.execute(store, null, invocation).size();
+        }
+        final long elapsed = System.nanoTime() - started;
+        if (checksum < 0) {
+            throw new IllegalStateException();
+        }
+        return (double) elapsed / iterations;
+    }
+
+    private static DefaultQueryDescriptor createDescriptor() {
+        final List<List<Parameter>> branches = new ArrayList<>();
+        final DefaultOperatorContext operatorContext = new DefaultOperatorContext();
+        branches.add(Collections.<Parameter>singletonList(
+                new ImmutableParameter("age", Collections.<Modifier>emptySet(), new int[]{3}, operatorContext.getBySuffix("GreaterThan"))
+        ));
+        final ImmutableSort sort = new ImmutableSort(Arrays.<Order>asList(
+                new ImmutableOrder(SortDirection.ASCENDING, "lastName", NullHandling.DEFAULT),
+                new ImmutableOrder(SortDirection.DESCENDING, "age", NullHandling.DEFAULT)));
+        return new DefaultQueryDescriptor(false, null, 0, null, new WrappedSortParameterExtractor(sort), branches, null, null);
+    }
+
+    private static DataStore<String, Person> createStore(int size) {
+        //the statistics let the operation know how many entities there are before it reads them
+        final StatisticsCollectingDataStore<String, Person> store = new StatisticsCollectingDataStore<>(new MemoryDataStore<String, Person>(Person.class), "age");
+        for (int i = 0; i < size; i++) {
+            store.save("k" + i, new Person().setId("k" + i).setFirstName("Milad").setLastName(String.valueOf(i % 13)).setAge(i % 97));
+        }
+        return store;
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.mmnaseri.utils.spring.data.domain.impl;
+
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.store.impl.DataStoreUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class SelectionParallelismTest {
+
+    private ForkJoinPool pool;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        pool.shutdown();
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testInvalidThreshold() throws Exception {
+        new SelectionParallelism(0, pool);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testMissingPool() throws Exception {
+        new SelectionParallelism(1, null);
+    }
+
+    @Test
+    public void testDefaults() throws Exception {
+        final SelectionParallelism parallelism = SelectionParallelism.defaultParallelism();
+        if (DataStoreUtils.getSharedPool().getParallelism() > 1) {
+            assertThat(parallelism.getThreshold(), is(SelectionParallelism.DEFAULT_THRESHOLD));
+            assertThat(parallelism.getPool(), is(sameInstance(DataStoreUtils.getSharedPool())));
+            assertThat(parallelism.isEnabled(), is(true));
+            assertThat(parallelism.appliesTo(SelectionParallelism.DEFAULT_THRESHOLD - 1), is(false));
+            assertThat(parallelism.appliesTo(SelectionParallelism.DEFAULT_THRESHOLD), is(true));
+        } else {
+            assertThat(parallelism, is(sameInstance(SelectionParallelism.DISABLED)));
+        }
+        assertThat(SelectionParallelism.DISABLED.isEnabled(), is(false));
+        assertThat(SelectionParallelism.DISABLED.appliesTo(Integer.MAX_VALUE), is(false));
+    }
+
+    @Test
+    public void testFilteringKeepsTheOriginalOrder() throws Exception {
+        final SelectionParallelism parallelism = new SelectionParallelism(1, pool);
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            items.add(i);
+        }
+        final List<Integer> even = parallelism.filter(items, new SelectionParallelism.Filter<Integer>() {
+            @Override
+            public boolean accept(Integer item) {
+                return item % 2 == 0;
+            }
+        });
+        assertThat(even, hasSize(5000));
+        for (int i = 0; i < even.size(); i++) {
+            assertThat(even.get(i), is(i * 2));
+        }
+    }
+
+    @Test
+    public void testSortingIsStable() throws Exception {
+        final SelectionParallelism parallelism = new SelectionParallelism(1, pool);
+        final Random random = new Random(42);
+        final List<int[]> items = new LinkedList<>();
+        for (int i = 0; i < 10000; i++) {
+            items.add(new int[]{random.nextInt(100), i});
+        }
+        final Comparator<int[]> comparator = new Comparator<int[]>() {
+            @Override
+            public int compare(int[] first, int[] second) {
+                return first[0] < second[0] ? -1 : (first[0] == second[0] ? 0 : 1);
+            }
+        };
+        final List<int[]> expected = new ArrayList<>(items);
+        Collections.sort(expected, comparator);
+        parallelism.sort(items, comparator);
+        assertThat(items, is(expected));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testFailuresAreRethrown() throws Exception {
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            items.add(i);
+        }
+        new SelectionParallelism(1, pool).filter(items, new SelectionParallelism.Filter<Integer>() {
+            @Override
+            public boolean accept(Integer item) {
+                if (item == 1500) {
+                    throw new IllegalStateException();
+                }
+                return true;
+            }
+        });
+    }
+
+}
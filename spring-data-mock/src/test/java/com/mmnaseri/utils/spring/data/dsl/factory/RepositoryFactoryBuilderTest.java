@@ -10,6 +10,7 @@ import com.mmnaseri.utils.spring.data.domain.impl.ImmutableOperator;
 import com.mmnaseri.utils.spring.data.domain.impl.MethodQueryDescriptionExtractor;
 import com.mmnaseri.utils.spring.data.domain.impl.key.NoOpKeyGenerator;
 import com.mmnaseri.utils.spring.data.domain.impl.key.UUIDKeyGenerator;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
 import com.mmnaseri.utils.spring.data.proxy.RepositoryFactory;
 import com.mmnaseri.utils.spring.data.proxy.RepositoryFactoryConfiguration;
 import com.mmnaseri.utils.spring.data.proxy.ResultAdapterContext;
@@ -28,6 +29,7 @@ import com.mmnaseri.utils.spring.data.sample.mocks.SpyingHandler;
 import com.mmnaseri.utils.spring.data.sample.repositories.*;
 import com.mmnaseri.utils.spring.data.store.*;
 import com.mmnaseri.utils.spring.data.store.impl.AuditDataEventListener;
+import com.mmnaseri.utils.spring.data.store.impl.ChangeLog;
 import com.mmnaseri.utils.spring.data.store.impl.DefaultDataStoreEventListenerContext;
 import com.mmnaseri.utils.spring.data.store.impl.DefaultDataStoreRegistry;
 import com.mmnaseri.utils.spring.data.store.impl.MemoryDataStore;
@@ -283,6 +285,20 @@ public class RepositoryFactoryBuilderTest {
         assertThat(listeners.get(0), is(instanceOf(AuditDataEventListener.class)));
     }
 
+    @Test
+    public void testRecordingChanges() throws Exception {
+        assertThat(RepositoryFactoryBuilder.builder().configure().getChangeLogCapacity(), is(0));
+        assertThat(RepositoryFactoryBuilder.builder().recordChanges().configure().getChangeLogCapacity(), is(ChangeLog.DEFAULT_CAPACITY));
+        final RepositoryFactoryConfiguration configuration = RepositoryFactoryBuilder.builder().enableAuditing().recordChanges(16).configure();
+        assertThat(configuration.getChangeLogCapacity(), is(16));
+        assertThat(RepositoryFactoryBuilder.given(configuration).configure().getChangeLogCapacity(), is(16));
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testRecordingChangesWithoutRoom() throws Exception {
+        RepositoryFactoryBuilder.builder().recordChanges(0);
+    }
+
     @Test
     public void testEnablingAuditingWithCustomAuditorAware() throws Exception {
         final AuditorAware auditorAware = new RepositoryFactoryBuilder.DefaultAuditorAware();
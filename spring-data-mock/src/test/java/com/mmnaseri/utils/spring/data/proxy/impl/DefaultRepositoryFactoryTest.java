@@ -4,19 +4,32 @@ import com.mmnaseri.utils.spring.data.domain.impl.DefaultOperatorContext;
 import com.mmnaseri.utils.spring.data.domain.impl.DefaultRepositoryMetadataResolver;
 import com.mmnaseri.utils.spring.data.domain.impl.MethodQueryDescriptionExtractor;
 import com.mmnaseri.utils.spring.data.domain.impl.key.NoOpKeyGenerator;
+import com.mmnaseri.utils.spring.data.domain.impl.key.RandomLongKeyGenerator;
+import com.mmnaseri.utils.spring.data.domain.impl.key.SequentialLongKeyGenerator;
 import com.mmnaseri.utils.spring.data.proxy.RepositoryFactoryConfiguration;
 import com.mmnaseri.utils.spring.data.query.impl.DefaultDataFunctionRegistry;
+import com.mmnaseri.utils.spring.data.sample.models.EntityWithIndexedProperties;
+import com.mmnaseri.utils.spring.data.sample.models.Note;
 import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.models.Ticket;
 import com.mmnaseri.utils.spring.data.sample.repositories.ClearableSimpleCrudPersonRepository;
+import com.mmnaseri.utils.spring.data.sample.repositories.IndexedEntityRepository;
+import com.mmnaseri.utils.spring.data.sample.repositories.NoteRepository;
 import com.mmnaseri.utils.spring.data.sample.repositories.RepositoryClearerMapping;
+import com.mmnaseri.utils.spring.data.sample.repositories.TicketRepository;
+import com.mmnaseri.utils.spring.data.store.ChangeCursor;
+import com.mmnaseri.utils.spring.data.store.ChangeFeed;
+import com.mmnaseri.utils.spring.data.store.ChangeType;
 import com.mmnaseri.utils.spring.data.store.DataStore;
-import com.mmnaseri.utils.spring.data.store.impl.DefaultDataStoreEventListenerContext;
-import com.mmnaseri.utils.spring.data.store.impl.DefaultDataStoreRegistry;
+import com.mmnaseri.utils.spring.data.store.DataStoreChange;
+import com.mmnaseri.utils.spring.data.store.impl.*;
 import org.hamcrest.Matchers;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -105,4 +118,146 @@ public class DefaultRepositoryFactoryTest {
         assertThat(dataStore.retrieveAll(), is(empty()));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testRepositoryInstanceWithPreRegisteredDataStore() throws Exception {
+        final File file = File.createTempFile("notes", ".dat");
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+        file.deleteOnExit();
+        final MappedFileDataStore<String, Note> previous = new MappedFileDataStore<>(Note.class, file);
+        previous.save("1", new Note().setId("1").setText("Hello"));
+        previous.save("2", new Note().setId("2").setText("Goodbye"));
+        previous.close();
+        final DefaultRepositoryFactoryConfiguration configuration = new DefaultRepositoryFactoryConfiguration();
+        final DefaultDataStoreRegistry dataStoreRegistry = new DefaultDataStoreRegistry();
+        final MappedFileDataStore<String, Note> dataStore = new MappedFileDataStore<>(Note.class, file);
+        dataStoreRegistry.register(dataStore);
+        configuration.setDataStoreRegistry(dataStoreRegistry);
+        configuration.setDescriptionExtractor(new MethodQueryDescriptionExtractor(new DefaultOperatorContext()));
+        configuration.setEventListenerContext(new DefaultDataStoreEventListenerContext());
+        configuration.setFunctionRegistry(new DefaultDataFunctionRegistry());
+        configuration.setOperationInvocationHandler(new NonDataOperationInvocationHandler());
+        configuration.setRepositoryMetadataResolver(new DefaultRepositoryMetadataResolver());
+        configuration.setResultAdapterContext(new DefaultResultAdapterContext());
+        configuration.setTypeMappingContext(new DefaultTypeMappingContext());
+        configuration.setDefaultKeyGenerator(null);
+        final DefaultRepositoryFactory factory = new DefaultRepositoryFactory(configuration);
+        final NoteRepository repository = factory.getInstance(null, NoteRepository.class);
+        try {
+            assertThat(repository.findAll(), hasSize(2));
+            assertThat(repository.findByText("Hello"), contains(new Note().setId("1").setText("Hello")));
+            repository.save(new Note().setId("3").setText("Hello"));
+            assertThat(dataStore.keys(), containsInAnyOrder("1", "2", "3"));
+        } finally {
+            dataStore.close();
+        }
+    }
+
+    @Test
+    public void testPickingIndexedDataStores() throws Exception {
+        final DefaultRepositoryFactoryConfiguration configuration = new DefaultRepositoryFactoryConfiguration();
+        configuration.setDescriptionExtractor(new MethodQueryDescriptionExtractor(new DefaultOperatorContext()));
+        configuration.setEventListenerContext(new DefaultDataStoreEventListenerContext());
+        configuration.setFunctionRegistry(new DefaultDataFunctionRegistry());
+        configuration.setOperationInvocationHandler(new NonDataOperationInvocationHandler());
+        configuration.setRepositoryMetadataResolver(new DefaultRepositoryMetadataResolver());
+        configuration.setResultAdapterContext(new DefaultResultAdapterContext());
+        configuration.setTypeMappingContext(new DefaultTypeMappingContext());
+        configuration.setDataStoreRegistry(new DefaultDataStoreRegistry());
+        final IndexedEntityRepository repository = new DefaultRepositoryFactory(configuration).getInstance(null, IndexedEntityRepository.class);
+        final DataStore<String, EntityWithIndexedProperties> dataStore = configuration.getDataStoreRegistry().getDataStore(EntityWithIndexedProperties.class);
+        assertThat(((EventPublishingDataStore<String, EntityWithIndexedProperties>) dataStore).getDelegate(), is(instanceOf(IndexedMemoryDataStore.class)));
+        final EntityWithIndexedProperties saved = repository.save(new EntityWithIndexedProperties().setId("k1").setEmail("milad@example.com"));
+        repository.save(new EntityWithIndexedProperties().setId("k2").setEmail("zohreh@example.com"));
+        assertThat(repository.findByEmail("milad@example.com"), contains(saved));
+    }
+
+    @Test
+    public void testRecordingChanges() throws Exception {
+        final DefaultRepositoryFactoryConfiguration configuration = new DefaultRepositoryFactoryConfiguration();
+        configuration.setDescriptionExtractor(new MethodQueryDescriptionExtractor(new DefaultOperatorContext()));
+        configuration.setEventListenerContext(new DefaultDataStoreEventListenerContext());
+        configuration.setFunctionRegistry(new DefaultDataFunctionRegistry());
+        configuration.setOperationInvocationHandler(new NonDataOperationInvocationHandler());
+        configuration.setRepositoryMetadataResolver(new DefaultRepositoryMetadataResolver());
+        configuration.setResultAdapterContext(new DefaultResultAdapterContext());
+        configuration.setTypeMappingContext(new DefaultTypeMappingContext());
+        configuration.setDataStoreRegistry(new DefaultDataStoreRegistry());
+        configuration.setChangeLogCapacity(16);
+        final TicketRepository repository = new DefaultRepositoryFactory(configuration).getInstance(new SequentialLongKeyGenerator(), TicketRepository.class);
+        final DataStore<Long, Ticket> dataStore = configuration.getDataStoreRegistry().getDataStore(Ticket.class);
+        final ChangeFeed<Long, Ticket> changes = ((EventPublishingDataStore<Long, Ticket>) dataStore).getChanges();
+        assertThat(changes, is(instanceOf(ChangeLog.class)));
+        assertThat(((ChangeLog<Long, Ticket>) changes).getCapacity(), is(16));
+        final ChangeCursor<Long, Ticket> cursor = changes.openCursor();
+        final Ticket saved = repository.save(new Ticket().setTitle("first"));
+        final List<DataStoreChange<Long, Ticket>> recorded = cursor.poll(2);
+        assertThat(recorded, hasSize(1));
+        assertThat(recorded.get(0).getType(), is(ChangeType.INSERT));
+        assertThat(recorded.get(0).getCurrent(), is(sameInstance(saved)));
+        configuration.setChangeLogCapacity(0);
+        configuration.setDataStoreRegistry(new DefaultDataStoreRegistry());
+        new DefaultRepositoryFactory(configuration).getInstance(new SequentialLongKeyGenerator(), TicketRepository.class);
+        final DataStore<Long, Ticket> unrecorded = configuration.getDataStoreRegistry().getDataStore(Ticket.class);
+        assertThat(((EventPublishingDataStore<Long, Ticket>) unrecorded).getChanges(), is(nullValue()));
+    }
+
+    @Test
+    public void testPickingDataStoresForIntegralKeys() throws Exception {
+        final DefaultRepositoryFactoryConfiguration configuration = new DefaultRepositoryFactoryConfiguration();
+        configuration.setDescriptionExtractor(new MethodQueryDescriptionExtractor(new DefaultOperatorContext()));
+        configuration.setEventListenerContext(new DefaultDataStoreEventListenerContext());
+        configuration.setFunctionRegistry(new DefaultDataFunctionRegistry());
+        configuration.setOperationInvocationHandler(new NonDataOperationInvocationHandler());
+        configuration.setRepositoryMetadataResolver(new DefaultRepositoryMetadataResolver());
+        configuration.setResultAdapterContext(new DefaultResultAdapterContext());
+        configuration.setTypeMappingContext(new DefaultTypeMappingContext());
+        configuration.setDataStoreRegistry(new DefaultDataStoreRegistry());
+        final TicketRepository sequential = new DefaultRepositoryFactory(configuration).getInstance(new SequentialLongKeyGenerator(), TicketRepository.class);
+        final DataStore<Long, Ticket> denseStore = configuration.getDataStoreRegistry().getDataStore(Ticket.class);
+        assertThat(((EventPublishingDataStore<Long, Ticket>) denseStore).getDelegate(), is(instanceOf(DenseMemoryDataStore.class)));
+        final Ticket saved = sequential.save(new Ticket().setTitle("first"));
+        assertThat(saved.getId(), is(1L));
+        assertThat(sequential.findOne(1L), is(sameInstance(saved)));
+        assertThat(sequential.findByTitle("first"), contains(saved));
+        configuration.setDataStoreRegistry(new DefaultDataStoreRegistry());
+        final TicketRepository random = new DefaultRepositoryFactory(configuration).getInstance(new RandomLongKeyGenerator(), TicketRepository.class);
+        final DataStore<Long, Ticket> hashedStore = configuration.getDataStoreRegistry().getDataStore(Ticket.class);
+        assertThat(((EventPublishingDataStore<Long, Ticket>) hashedStore).getDelegate(), is(instanceOf(LongKeyMemoryDataStore.class)));
+        final Ticket another = random.save(new Ticket().setTitle("second"));
+        assertThat(random.findOne(another.getId()), is(sameInstance(another)));
+    }
+
+    @Test
+    public void testRollingBackChangesMadeThroughRepositories() throws Exception {
+        final DefaultRepositoryFactoryConfiguration configuration = new DefaultRepositoryFactoryConfiguration();
+        final DefaultDataStoreRegistry dataStoreRegistry = new DefaultDataStoreRegistry();
+        configuration.setDataStoreRegistry(dataStoreRegistry);
+        configuration.setDescriptionExtractor(new MethodQueryDescriptionExtractor(new DefaultOperatorContext()));
+        configuration.setEventListenerContext(new DefaultDataStoreEventListenerContext());
+        configuration.setFunctionRegistry(new DefaultDataFunctionRegistry());
+        configuration.setOperationInvocationHandler(new NonDataOperationInvocationHandler());
+        configuration.setRepositoryMetadataResolver(new DefaultRepositoryMetadataResolver());
+        configuration.setResultAdapterContext(new DefaultResultAdapterContext());
+        configuration.setTypeMappingContext(new DefaultTypeMappingContext());
+        final ClearableSimpleCrudPersonRepository repository = new DefaultRepositoryFactory(configuration).getInstance(null, ClearableSimpleCrudPersonRepository.class, RepositoryClearerMapping.class);
+        final Person fixture = repository.save(new Person().setId("k1").setLastName("Naseri"));
+        final Object savepoint = dataStoreRegistry.mark();
+        repository.save(new Person().setId("k2").setLastName("Sadeghi"));
+        repository.delete(fixture);
+        assertThat(repository.findAll(), hasSize(1));
+        dataStoreRegistry.rollback(savepoint);
+        assertThat(repository.findAll(), contains(fixture));
+        repository.clearRepo();
+        dataStoreRegistry.rollback(savepoint);
+        assertThat(repository.findByLastName("Naseri"), contains(fixture));
+        //the usual way of updating an entity changes the very instance held by the data store
+        final Person found = repository.findByLastName("Naseri").get(0);
+        found.setLastName("Sadeghi");
+        repository.save(found);
+        dataStoreRegistry.rollback(savepoint);
+        assertThat(repository.findByLastName("Naseri"), contains(fixture));
+        assertThat(repository.findByLastName("Sadeghi"), is(empty()));
+    }
+
+}
@@ -5,9 +5,11 @@ import com.mmnaseri.utils.spring.data.domain.RepositoryMetadata;
 import com.mmnaseri.utils.spring.data.domain.impl.ImmutableRepositoryMetadata;
 import com.mmnaseri.utils.spring.data.domain.impl.key.UUIDKeyGenerator;
 import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.OptimisticLockException;
 import com.mmnaseri.utils.spring.data.sample.mocks.Operation;
 import com.mmnaseri.utils.spring.data.sample.mocks.SpyingDataStore;
 import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.models.VersionedPerson;
 import com.mmnaseri.utils.spring.data.sample.repositories.SimplePersonRepository;
 import com.mmnaseri.utils.spring.data.store.DataStore;
 import com.mmnaseri.utils.spring.data.store.impl.MemoryDataStore;
@@ -86,4 +88,38 @@ public class CrudRepositorySupportTest {
         assertThat(dataStore.getRequests().get(0).getKey(), is(notNullValue()));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSavingVersionedEntities() throws Exception {
+        final CrudRepositorySupport support = new CrudRepositorySupport();
+        final MemoryDataStore<String, VersionedPerson> dataStore = new MemoryDataStore<>(VersionedPerson.class);
+        support.setDataStore(dataStore);
+        support.setRepositoryMetadata(new ImmutableRepositoryMetadata(String.class, VersionedPerson.class, SimplePersonRepository.class, "id"));
+        support.setKeyGenerator(new UUIDKeyGenerator());
+        final VersionedPerson person = (VersionedPerson) support.save(new VersionedPerson());
+        assertThat(person.getVersion(), is(0L));
+        final VersionedPerson stale = new VersionedPerson().setId(person.getId()).setVersion(0L);
+        support.save(person);
+        assertThat(person.getVersion(), is(1L));
+        try {
+            support.save(stale);
+            throw new AssertionError("Expected a version conflict");
+        } catch (OptimisticLockException e) {
+            assertThat(e.getKey(), Matchers.<Object>is(person.getId()));
+        }
+        assertThat(dataStore.retrieve(person.getId()), is(sameInstance(person)));
+    }
+
+    @Test
+    public void testSavingVersionedEntitiesWithoutVersionSupport() throws Exception {
+        final CrudRepositorySupport support = new CrudRepositorySupport();
+        final SpyingDataStore<Serializable, Object> dataStore = new SpyingDataStore<>(null, new AtomicLong());
+        support.setDataStore(dataStore);
+        support.setRepositoryMetadata(new ImmutableRepositoryMetadata(String.class, VersionedPerson.class, SimplePersonRepository.class, "id"));
+        final VersionedPerson person = new VersionedPerson().setId("k1");
+        support.save(person);
+        assertThat(dataStore.getRequests(), hasSize(1));
+        assertThat(dataStore.getRequests().get(0).getOperation(), is(Operation.SAVE));
+        assertThat(person.getVersion(), is(nullValue()));
+    }
+
+}
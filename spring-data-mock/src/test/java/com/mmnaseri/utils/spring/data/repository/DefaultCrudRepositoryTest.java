@@ -2,22 +2,35 @@ package com.mmnaseri.utils.spring.data.repository;
 
 import com.mmnaseri.utils.spring.data.domain.impl.ImmutableRepositoryMetadata;
 import com.mmnaseri.utils.spring.data.domain.impl.key.UUIDKeyGenerator;
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
 import com.mmnaseri.utils.spring.data.error.EntityMissingKeyException;
 import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.models.VersionedPerson;
 import com.mmnaseri.utils.spring.data.sample.repositories.SimplePersonRepository;
 import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.sample.mocks.Operation;
+import com.mmnaseri.utils.spring.data.sample.mocks.SpyingDataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreEvent;
+import com.mmnaseri.utils.spring.data.store.DataStoreEventListener;
+import com.mmnaseri.utils.spring.data.store.impl.AfterInsertDataStoreEvent;
+import com.mmnaseri.utils.spring.data.store.impl.AfterUpdateDataStoreEvent;
+import com.mmnaseri.utils.spring.data.store.impl.DefaultDataStoreEventListenerContext;
+import com.mmnaseri.utils.spring.data.store.impl.EventPublishingDataStore;
 import com.mmnaseri.utils.spring.data.store.impl.MemoryDataStore;
 import org.hamcrest.Matchers;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.mmnaseri.utils.spring.data.utils.TestUtils.iterableToList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.testng.Assert.fail;
 
 /**
  * @author Milad Naseri (mmnaseri@programmer.net)
@@ -61,6 +74,49 @@ public class DefaultCrudRepositoryTest {
         assertThat(dataStore.retrieveAll(), hasSize(entities.size()));
     }
 
+    @Test
+    public void testSavingTheSameKeyMoreThanOnce() throws Exception {
+        final DefaultDataStoreEventListenerContext listenerContext = new DefaultDataStoreEventListenerContext();
+        final List<DataStoreEvent> events = new ArrayList<>();
+        listenerContext.register(new DataStoreEventListener<AfterInsertDataStoreEvent>() {
+            @Override
+            public void onEvent(AfterInsertDataStoreEvent event) {
+                events.add(event);
+            }
+        });
+        listenerContext.register(new DataStoreEventListener<AfterUpdateDataStoreEvent>() {
+            @Override
+            public void onEvent(AfterUpdateDataStoreEvent event) {
+                events.add(event);
+            }
+        });
+        repository.setDataStore(new EventPublishingDataStore<>(dataStore, repository.getRepositoryMetadata(), listenerContext));
+        final Person first = new Person().setId("1").setFirstName("first");
+        final Person second = new Person().setId("2");
+        final Person third = new Person().setId("1").setFirstName("third");
+        final List<?> saved = iterableToList(repository.save(Arrays.asList(first, second, third)));
+        assertThat(saved, hasSize(3));
+        assertThat(events, hasSize(3));
+        assertThat(events.get(0), is(instanceOf(AfterInsertDataStoreEvent.class)));
+        assertThat(events.get(1), is(instanceOf(AfterInsertDataStoreEvent.class)));
+        assertThat(events.get(2), is(instanceOf(AfterUpdateDataStoreEvent.class)));
+        assertThat(dataStore.retrieve("1"), is(sameInstance(third)));
+    }
+
+    @Test
+    public void testSavingAnEntityWithoutAKey() throws Exception {
+        repository.setKeyGenerator(null);
+        final Person first = new Person().setId("1");
+        final Person third = new Person().setId("3");
+        try {
+            repository.save(Arrays.asList(first, new Person(), third));
+            fail("Expected the entity without a key to be turned down");
+        } catch (DataStoreException ignored) {
+        }
+        assertThat(dataStore.retrieve("1"), is(sameInstance(first)));
+        assertThat(dataStore.hasKey("3"), is(false));
+    }
+
     @Test
     public void testFindOne() throws Exception {
         final String key = "1234";
@@ -107,6 +163,15 @@ public class DefaultCrudRepositoryTest {
         assertThat(deleted, is(nullValue()));
     }
 
+    @Test
+    public void testDeleteByExistingKey() throws Exception {
+        final Person original = new Person();
+        dataStore.save("1", original);
+        final Object deleted = repository.delete("1");
+        assertThat(deleted, Matchers.<Object>is(original));
+        assertThat(dataStore.hasKey("1"), is(false));
+    }
+
     @Test
     public void testDeleteByEntityWhenEntityHasKey() throws Exception {
         final Person original = new Person();
@@ -153,6 +218,16 @@ public class DefaultCrudRepositoryTest {
         }
     }
 
+    @Test
+    public void testDeleteManyByTheIdentifierPropertyOfTheirKeys() throws Exception {
+        final Person original = new Person();
+        dataStore.save("1", original);
+        dataStore.save("2", new Person());
+        final List<?> deleted = iterableToList((Iterable<?>) repository.delete(Arrays.asList(new Handle(new Handle("1")), new Person().setId("3"))));
+        assertThat(deleted, contains((Object) original));
+        assertThat(dataStore.keys(), contains("2"));
+    }
+
     @Test
     public void testDeleteAll() throws Exception {
         dataStore.save("1", new Person());
@@ -164,4 +239,63 @@ public class DefaultCrudRepositoryTest {
         assertThat(dataStore.keys(), is(empty()));
     }
 
-}
\ No newline at end of file
+    @Test(expectedExceptions = EntityMissingKeyException.class)
+    public void testDeleteManyWhenAnEntityHasNoKey() throws Exception {
+        dataStore.save("1", new Person());
+        try {
+            repository.delete(Arrays.asList(new Person().setId("1"), new Person()));
+        } finally {
+            assertThat(dataStore.hasKey("1"), is(true));
+        }
+    }
+
+    @Test
+    public void testOperatingOnANonBulkDataStore() throws Exception {
+        final SpyingDataStore<String, Person> spy = new SpyingDataStore<>(dataStore, new AtomicLong());
+        repository.setDataStore(spy);
+        repository.save(Arrays.asList(new Person().setId("1"), new Person().setId("2")));
+        assertThat(spy.getRequests(), hasSize(2));
+        assertThat(spy.getRequests().get(0).getOperation(), is(Operation.SAVE));
+        final List<?> found = iterableToList((Iterable<?>) repository.findAll(Arrays.asList("2", "3")));
+        assertThat(found, hasSize(1));
+        final List<?> deleted = iterableToList((Iterable<?>) repository.delete(Arrays.asList(new Person().setId("1"))));
+        assertThat(deleted, hasSize(1));
+        assertThat(dataStore.keys(), contains("2"));
+    }
+
+    @Test
+    public void testSavingVersionedEntities() throws Exception {
+        final MemoryDataStore<String, VersionedPerson> store = new MemoryDataStore<>(VersionedPerson.class);
+        final DefaultCrudRepository versioned = new DefaultCrudRepository();
+        versioned.setRepositoryMetadata(new ImmutableRepositoryMetadata(String.class, VersionedPerson.class, SimplePersonRepository.class, "id"));
+        versioned.setDataStore(store);
+        versioned.setKeyGenerator(new UUIDKeyGenerator());
+        final List<VersionedPerson> entities = Arrays.asList(new VersionedPerson(), new VersionedPerson());
+        versioned.save(entities);
+        versioned.save(entities);
+        for (VersionedPerson entity : entities) {
+            assertThat(entity.getVersion(), is(1L));
+            assertThat(store.retrieve(entity.getId()), is(sameInstance(entity)));
+        }
+    }
+
+    /**
+     * An object whose identifier is another object, which in turn holds the actual key
+     */
+    public static class Handle implements Serializable {
+
+        private static final long serialVersionUID = -1907325346405219352L;
+
+        private final Serializable id;
+
+        public Handle(Serializable id) {
+            this.id = id;
+        }
+
+        public Serializable getId() {
+            return id;
+        }
+
+    }
+
+}
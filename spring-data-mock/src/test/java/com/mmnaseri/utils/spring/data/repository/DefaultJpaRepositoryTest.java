@@ -9,6 +9,12 @@ import com.mmnaseri.utils.spring.data.sample.mocks.SpyingDataStore;
 import com.mmnaseri.utils.spring.data.sample.models.Person;
 import com.mmnaseri.utils.spring.data.sample.repositories.SimplePersonRepository;
 import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreEvent;
+import com.mmnaseri.utils.spring.data.store.DataStoreEventListener;
+import com.mmnaseri.utils.spring.data.store.impl.AfterInsertDataStoreEvent;
+import com.mmnaseri.utils.spring.data.store.impl.BeforeDeleteDataStoreEvent;
+import com.mmnaseri.utils.spring.data.store.impl.DefaultDataStoreEventListenerContext;
+import com.mmnaseri.utils.spring.data.store.impl.EventPublishingDataStore;
 import com.mmnaseri.utils.spring.data.store.impl.MemoryDataStore;
 import org.hamcrest.Matchers;
 import org.testng.annotations.BeforeMethod;
@@ -117,6 +123,35 @@ public class DefaultJpaRepositoryTest {
 
     }
 
+    @Test
+    public void testDeleteInBatchEndsTheBatchWhenItFails() throws Exception {
+        final DefaultDataStoreEventListenerContext listenerContext = new DefaultDataStoreEventListenerContext();
+        final List<DataStoreEvent> events = new ArrayList<>();
+        listenerContext.register(new DataStoreEventListener<BeforeDeleteDataStoreEvent>() {
+            @Override
+            public void onEvent(BeforeDeleteDataStoreEvent event) {
+                throw new IllegalStateException();
+            }
+        });
+        listenerContext.register(new DataStoreEventListener<AfterInsertDataStoreEvent>() {
+            @Override
+            public void onEvent(AfterInsertDataStoreEvent event) {
+                events.add(event);
+            }
+        });
+        final EventPublishingDataStore<String, Person> dataStore = new EventPublishingDataStore<>(new MemoryDataStore<String, Person>(Person.class), repositoryMetadata, listenerContext);
+        dataStore.save("1", new Person());
+        repository.setDataStore(dataStore);
+        try {
+            repository.deleteAllInBatch();
+            throw new AssertionError("Expected the listener to fail the delete");
+        } catch (IllegalStateException ignored) {
+            //this is expected
+        }
+        dataStore.save("2", new Person());
+        assertThat(events, hasSize(2));
+    }
+
     @Test
     public void testGetOne() throws Exception {
         final String key = "1234";
@@ -0,0 +1,67 @@
+package com.mmnaseri.utils.spring.data.sample.models;
+
+import com.mmnaseri.utils.spring.data.store.Indexed;
+
+import java.util.Date;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class EntityWithIndexedProperties {
+
+    private String id;
+    @Indexed
+    private String email;
+    private String lastName;
+    private Integer age;
+    @Indexed(sorted = true)
+    private Date birthday;
+
+    public String getId() {
+        return id;
+    }
+
+    public EntityWithIndexedProperties setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public EntityWithIndexedProperties setEmail(String email) {
+        this.email = email;
+        return this;
+    }
+
+    @Indexed
+    public String getLastName() {
+        return lastName;
+    }
+
+    public EntityWithIndexedProperties setLastName(String lastName) {
+        this.lastName = lastName;
+        return this;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public EntityWithIndexedProperties setAge(Integer age) {
+        this.age = age;
+        return this;
+    }
+
+    public Date getBirthday() {
+        return birthday;
+    }
+
+    public EntityWithIndexedProperties setBirthday(Date birthday) {
+        this.birthday = birthday;
+        return this;
+    }
+
+}
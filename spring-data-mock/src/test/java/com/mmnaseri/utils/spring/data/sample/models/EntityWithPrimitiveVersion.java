@@ -0,0 +1,31 @@
+package com.mmnaseri.utils.spring.data.sample.models;
+
+import javax.persistence.Version;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class EntityWithPrimitiveVersion {
+
+    private String id;
+    private int revision;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @Version
+    public int getRevision() {
+        return revision;
+    }
+
+    public void setRevision(int revision) {
+        this.revision = revision;
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.mmnaseri.utils.spring.data.sample.models;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class Invoice implements Serializable {
+
+    private static final long serialVersionUID = 6791043673938259462L;
+    private String id;
+    private long number;
+    private int year;
+    private double total;
+    private boolean paid;
+    private Date issued;
+    private Status status;
+    private List<InvoiceLine> lines;
+    private Map<String, String> attributes;
+
+    public enum Status {
+
+        DRAFT, SENT, PAID
+
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Invoice setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public long getNumber() {
+        return number;
+    }
+
+    public Invoice setNumber(long number) {
+        this.number = number;
+        return this;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public Invoice setYear(int year) {
+        this.year = year;
+        return this;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public Invoice setTotal(double total) {
+        this.total = total;
+        return this;
+    }
+
+    public boolean getPaid() {
+        return paid;
+    }
+
+    public Invoice setPaid(boolean paid) {
+        this.paid = paid;
+        return this;
+    }
+
+    public Date getIssued() {
+        return issued;
+    }
+
+    public Invoice setIssued(Date issued) {
+        this.issued = issued;
+        return this;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Invoice setStatus(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    public List<InvoiceLine> getLines() {
+        return lines;
+    }
+
+    public Invoice setLines(List<InvoiceLine> lines) {
+        this.lines = lines;
+        return this;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    public Invoice setAttributes(Map<String, String> attributes) {
+        this.attributes = attributes;
+        return this;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.mmnaseri.utils.spring.data.sample.models;
+
+import java.io.Serializable;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class InvoiceLine implements Serializable {
+
+    private static final long serialVersionUID = 1086390183240738139L;
+    private String product;
+    private int quantity;
+    private long priceInCents;
+
+    public String getProduct() {
+        return product;
+    }
+
+    public InvoiceLine setProduct(String product) {
+        this.product = product;
+        return this;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public InvoiceLine setQuantity(int quantity) {
+        this.quantity = quantity;
+        return this;
+    }
+
+    public long getPriceInCents() {
+        return priceInCents;
+    }
+
+    public InvoiceLine setPriceInCents(long priceInCents) {
+        this.priceInCents = priceInCents;
+        return this;
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.mmnaseri.utils.spring.data.sample.models;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class Measurement {
+
+    private String id;
+    private long sequence;
+    private Double value;
+    private Boolean valid;
+    private TimeUnit unit;
+    private Date taken;
+
+    public String getId() {
+        return id;
+    }
+
+    public Measurement setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Measurement setSequence(long sequence) {
+        this.sequence = sequence;
+        return this;
+    }
+
+    public Double getValue() {
+        return value;
+    }
+
+    public Measurement setValue(Double value) {
+        this.value = value;
+        return this;
+    }
+
+    public Boolean getValid() {
+        return valid;
+    }
+
+    public Measurement setValid(Boolean valid) {
+        this.valid = valid;
+        return this;
+    }
+
+    public TimeUnit getUnit() {
+        return unit;
+    }
+
+    public Measurement setUnit(TimeUnit unit) {
+        this.unit = unit;
+        return this;
+    }
+
+    public Date getTaken() {
+        return taken;
+    }
+
+    public Measurement setTaken(Date taken) {
+        this.taken = taken;
+        return this;
+    }
+
+}
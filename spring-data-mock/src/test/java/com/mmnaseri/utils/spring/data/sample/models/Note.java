@@ -0,0 +1,52 @@
+package com.mmnaseri.utils.spring.data.sample.models;
+
+import java.io.Serializable;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class Note implements Serializable {
+
+    private static final long serialVersionUID = -2830198210587302374L;
+    private String id;
+    private String text;
+
+    public String getId() {
+        return id;
+    }
+
+    public Note setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Note setText(String text) {
+        this.text = text;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Note)) {
+            return false;
+        }
+        final Note note = (Note) o;
+        return (id != null ? id.equals(note.id) : note.id == null) && (text != null ? text.equals(note.text) : note.text == null);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = id != null ? id.hashCode() : 0;
+        result = 31 * result + (text != null ? text.hashCode() : 0);
+        return result;
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.mmnaseri.utils.spring.data.sample.models;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class Parcel {
+
+    private Object payload;
+    private List<?> contents;
+    private Number count;
+    private BigDecimal value;
+    private Zip zip;
+    private char grade;
+    private byte[] checksum;
+    private Short priority;
+    private Float ratio;
+
+    public Object getPayload() {
+        return payload;
+    }
+
+    public Parcel setPayload(Object payload) {
+        this.payload = payload;
+        return this;
+    }
+
+    public List<?> getContents() {
+        return contents;
+    }
+
+    public Parcel setContents(List<?> contents) {
+        this.contents = contents;
+        return this;
+    }
+
+    public Number getCount() {
+        return count;
+    }
+
+    public Parcel setCount(Number count) {
+        this.count = count;
+        return this;
+    }
+
+    public BigDecimal getValue() {
+        return value;
+    }
+
+    public Parcel setValue(BigDecimal value) {
+        this.value = value;
+        return this;
+    }
+
+    public Zip getZip() {
+        return zip;
+    }
+
+    public Parcel setZip(Zip zip) {
+        this.zip = zip;
+        return this;
+    }
+
+    public char getGrade() {
+        return grade;
+    }
+
+    public Parcel setGrade(char grade) {
+        this.grade = grade;
+        return this;
+    }
+
+    public byte[] getChecksum() {
+        return checksum;
+    }
+
+    public Parcel setChecksum(byte[] checksum) {
+        this.checksum = checksum;
+        return this;
+    }
+
+    public Short getPriority() {
+        return priority;
+    }
+
+    public Parcel setPriority(Short priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    public Float getRatio() {
+        return ratio;
+    }
+
+    public Parcel setRatio(Float ratio) {
+        this.ratio = ratio;
+        return this;
+    }
+
+}
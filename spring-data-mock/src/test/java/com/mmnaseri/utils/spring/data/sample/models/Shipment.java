@@ -0,0 +1,118 @@
+package com.mmnaseri.utils.spring.data.sample.models;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class Shipment {
+
+    private final List<String> notes = new ArrayList<>();
+    private String id;
+    private long weight;
+    private int[] dimensions;
+    private String[] labels;
+    private List<Address> stops;
+    private Map<String, Zip> zones;
+    private Set<TimeUnit> units;
+    private SortedSet<String> tags;
+    private Date shipped;
+    private Shipment parent;
+
+    public List<String> getNotes() {
+        return notes;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Shipment setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    public Shipment setWeight(long weight) {
+        this.weight = weight;
+        return this;
+    }
+
+    public int[] getDimensions() {
+        return dimensions;
+    }
+
+    public Shipment setDimensions(int[] dimensions) {
+        this.dimensions = dimensions;
+        return this;
+    }
+
+    public String[] getLabels() {
+        return labels;
+    }
+
+    public Shipment setLabels(String[] labels) {
+        this.labels = labels;
+        return this;
+    }
+
+    public List<Address> getStops() {
+        return stops;
+    }
+
+    public Shipment setStops(List<Address> stops) {
+        this.stops = stops;
+        return this;
+    }
+
+    public Map<String, Zip> getZones() {
+        return zones;
+    }
+
+    public Shipment setZones(Map<String, Zip> zones) {
+        this.zones = zones;
+        return this;
+    }
+
+    public Set<TimeUnit> getUnits() {
+        return units;
+    }
+
+    public Shipment setUnits(Set<TimeUnit> units) {
+        this.units = units;
+        return this;
+    }
+
+    public SortedSet<String> getTags() {
+        return tags;
+    }
+
+    public Shipment setTags(SortedSet<String> tags) {
+        this.tags = tags;
+        return this;
+    }
+
+    public Date getShipped() {
+        return shipped;
+    }
+
+    public Shipment setShipped(Date shipped) {
+        this.shipped = shipped;
+        return this;
+    }
+
+    public Shipment getParent() {
+        return parent;
+    }
+
+    public Shipment setParent(Shipment parent) {
+        this.parent = parent;
+        return this;
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.mmnaseri.utils.spring.data.sample.models;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class Ticket {
+
+    private Long id;
+    private String title;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Ticket setId(Long id) {
+        this.id = id;
+        return this;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Ticket setTitle(String title) {
+        this.title = title;
+        return this;
+    }
+
+}
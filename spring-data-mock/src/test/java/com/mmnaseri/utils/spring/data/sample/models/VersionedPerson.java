@@ -0,0 +1,53 @@
+package com.mmnaseri.utils.spring.data.sample.models;
+
+import org.springframework.data.annotation.Version;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class VersionedPerson {
+
+    private String id;
+    @Version
+    private Long version;
+    private String name;
+
+    public String getId() {
+        return id;
+    }
+
+    public VersionedPerson setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public VersionedPerson setVersion(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public VersionedPerson setName(String name) {
+        this.name = name;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof VersionedPerson && id != null && id.equals(((VersionedPerson) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id == null ? 0 : id.hashCode();
+    }
+
+}
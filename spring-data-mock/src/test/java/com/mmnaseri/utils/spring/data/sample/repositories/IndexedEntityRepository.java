@@ -0,0 +1,18 @@
+package com.mmnaseri.utils.spring.data.sample.repositories;
+
+import com.mmnaseri.utils.spring.data.sample.models.EntityWithIndexedProperties;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface IndexedEntityRepository extends Repository<EntityWithIndexedProperties, String> {
+
+    EntityWithIndexedProperties save(EntityWithIndexedProperties entity);
+
+    List<EntityWithIndexedProperties> findByEmail(String email);
+
+}
@@ -0,0 +1,20 @@
+package com.mmnaseri.utils.spring.data.sample.repositories;
+
+import com.mmnaseri.utils.spring.data.sample.models.Note;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface NoteRepository extends Repository<Note, String> {
+
+    Note save(Note note);
+
+    List<Note> findAll();
+
+    List<Note> findByText(String text);
+
+}
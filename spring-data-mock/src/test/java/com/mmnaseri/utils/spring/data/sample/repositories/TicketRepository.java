@@ -0,0 +1,20 @@
+package com.mmnaseri.utils.spring.data.sample.repositories;
+
+import com.mmnaseri.utils.spring.data.sample.models.Ticket;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public interface TicketRepository extends Repository<Ticket, Long> {
+
+    Ticket save(Ticket ticket);
+
+    Ticket findOne(Long id);
+
+    List<Ticket> findByTitle(String title);
+
+}
@@ -0,0 +1,375 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.mocks.AfterInsertEventListener;
+import com.mmnaseri.utils.spring.data.store.BatchDataStoreEventListener;
+import com.mmnaseri.utils.spring.data.store.DataStoreEvent;
+import com.mmnaseri.utils.spring.data.store.DataStoreEventListener;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class AsynchronousDataStoreEventListenerContextTest {
+
+    private DefaultDataStoreEventListenerContext delegate;
+    private AsynchronousDataStoreEventListenerContext context;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        delegate = new DefaultDataStoreEventListenerContext();
+        context = new AsynchronousDataStoreEventListenerContext(delegate, 4, 2);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        context.close();
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testInvalidCapacity() throws Exception {
+        new AsynchronousDataStoreEventListenerContext(delegate, 0, 1);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testInvalidBatchSize() throws Exception {
+        new AsynchronousDataStoreEventListenerContext(delegate, 1, 0);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testTriggeringNullEvent() throws Exception {
+        context.trigger(null);
+    }
+
+    @Test
+    public void testRegisteringWithTheDelegate() throws Exception {
+        final AfterInsertEventListener listener = new AfterInsertEventListener();
+        context.register(listener);
+        assertThat(delegate.getListeners(AfterInsertDataStoreEvent.class), contains((Object) listener));
+        assertThat(context.getListeners(AfterInsertDataStoreEvent.class), contains((Object) listener));
+    }
+
+    @Test
+    public void testDispatchingAfterEventsInTheBackground() throws Exception {
+        final ThreadRecordingListener listener = new ThreadRecordingListener();
+        context.register(listener);
+        context.trigger(new BeforeInsertDataStoreEvent(null, null, null));
+        assertThat(listener.threads, contains(Thread.currentThread()));
+        final List<DataStoreEvent> published = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final DataStoreEvent event = i % 2 == 0 ? new AfterInsertDataStoreEvent(null, null, i) : new AfterUpdateDataStoreEvent(null, null, i);
+            published.add(event);
+            context.trigger(event);
+        }
+        context.trigger(new AfterDeleteDataStoreEvent(null, null, 10));
+        context.drain();
+        assertThat(context.getPendingCount(), is(0));
+        assertThat(listener.events, hasSize(12));
+        assertThat(listener.events.subList(1, 11), is(published));
+        assertThat(listener.threads.get(1), is(not(Thread.currentThread())));
+        assertThat(listener.threads.subList(1, 12), everyItem(is(listener.threads.get(1))));
+    }
+
+    @Test
+    public void testHoldingEventsWhileTheListenerIsBusy() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<DataStoreEvent> events = new CopyOnWriteArrayList<>();
+        context.register(new DataStoreEventListener<AfterInsertDataStoreEvent>() {
+            @Override
+            public void onEvent(AfterInsertDataStoreEvent event) {
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+                events.add(event);
+            }
+        });
+        context.trigger(new AfterInsertDataStoreEvent(null, null, 1));
+        context.trigger(new AfterInsertDataStoreEvent(null, null, 2));
+        context.trigger(new AfterInsertDataStoreEvent(null, null, 3));
+        assertThat(context.getPendingCount(), is(3));
+        assertThat(events, is(empty()));
+        latch.countDown();
+        context.drain();
+        assertThat(events, hasSize(3));
+    }
+
+    @Test
+    public void testWaitingForRoomInTheQueue() throws Exception {
+        final List<DataStoreEvent> events = new CopyOnWriteArrayList<>();
+        context.register(new DataStoreEventListener<AfterInsertDataStoreEvent>() {
+            @Override
+            public void onEvent(AfterInsertDataStoreEvent event) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException ignored) {
+                }
+                events.add(event);
+            }
+        });
+        for (int i = 0; i < 50; i++) {
+            context.trigger(new AfterInsertDataStoreEvent(null, null, i));
+        }
+        context.drain();
+        assertThat(events, hasSize(50));
+        for (int i = 0; i < 50; i++) {
+            assertThat(((AfterInsertDataStoreEvent) events.get(i)).getEntity(), is((Object) i));
+        }
+    }
+
+    @Test
+    public void testTriggeringEventsFromTheListeners() throws Exception {
+        final List<Object> entities = new CopyOnWriteArrayList<>();
+        context.register(new DataStoreEventListener<AfterInsertDataStoreEvent>() {
+            @Override
+            public void onEvent(AfterInsertDataStoreEvent event) {
+                if (event.getEntity() instanceof Integer) {
+                    for (int i = 0; i < 10; i++) {
+                        context.trigger(new AfterUpdateDataStoreEvent(null, null, event.getEntity()));
+                    }
+                }
+            }
+        });
+        context.register(new DataStoreEventListener<AfterUpdateDataStoreEvent>() {
+            @Override
+            public void onEvent(AfterUpdateDataStoreEvent event) {
+                entities.add(event.getEntity());
+            }
+        });
+        context.trigger(new AfterInsertDataStoreEvent(null, null, 1));
+        context.drain();
+        assertThat(entities, hasSize(10));
+    }
+
+    @Test
+    public void testReportingListenerFailuresOnDrain() throws Exception {
+        final IllegalStateException failure = new IllegalStateException();
+        context.register(new DataStoreEventListener<AfterInsertDataStoreEvent>() {
+            @Override
+            public void onEvent(AfterInsertDataStoreEvent event) {
+                throw failure;
+            }
+        });
+        context.trigger(new AfterInsertDataStoreEvent(null, null, null));
+        try {
+            context.drain();
+            throw new AssertionError("Expected the failure to be reported");
+        } catch (IllegalStateException e) {
+            assertThat(e, is(failure));
+        }
+        context.drain();
+    }
+
+    @Test
+    public void testDispatchingTheRestOfABatchWhenAListenerFails() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final IllegalStateException failure = new IllegalStateException();
+        final ThreadRecordingListener listener = new ThreadRecordingListener();
+        context.register(new BlockingListener(entered, latch));
+        context.register(new DataStoreEventListener<AfterInsertDataStoreEvent>() {
+            @Override
+            public void onEvent(AfterInsertDataStoreEvent event) {
+                if (Integer.valueOf(1).equals(event.getEntity())) {
+                    throw failure;
+                }
+            }
+        });
+        context.register(listener);
+        context.trigger(new AfterInsertDataStoreEvent(null, null, 0));
+        assertThat(entered.await(10, TimeUnit.SECONDS), is(true));
+        context.trigger(new AfterInsertDataStoreEvent(null, null, 1));
+        context.trigger(new AfterInsertDataStoreEvent(null, null, 2));
+        latch.countDown();
+        try {
+            context.drain();
+            throw new AssertionError("Expected the failure to be reported");
+        } catch (IllegalStateException e) {
+            assertThat(e, is(failure));
+        }
+        assertThat(entitiesOf(listener.events), contains((Object) 0, 1, 2));
+    }
+
+    @Test
+    public void testClosing() throws Exception {
+        final ThreadRecordingListener listener = new ThreadRecordingListener();
+        context.register(listener);
+        context.trigger(new AfterInsertDataStoreEvent(null, null, null));
+        context.close();
+        assertThat(listener.events, hasSize(1));
+        context.trigger(new AfterInsertDataStoreEvent(null, null, null));
+        assertThat(listener.events, hasSize(2));
+        assertThat(listener.threads.get(1), is(Thread.currentThread()));
+        context.drain();
+    }
+
+    @Test
+    public void testDispatchingBatchesToBatchListeners() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        context.register(new BlockingListener(entered, latch));
+        final List<Integer> sizes = new CopyOnWriteArrayList<>();
+        final List<Object> entities = new CopyOnWriteArrayList<>();
+        context.register(new BatchDataStoreEventListener<AfterInsertDataStoreEvent>() {
+            @Override
+            public void onEvents(List<AfterInsertDataStoreEvent> events) {
+                sizes.add(events.size());
+                for (AfterInsertDataStoreEvent event : events) {
+                    entities.add(event.getEntity());
+                }
+            }
+
+            @Override
+            public void onEvent(AfterInsertDataStoreEvent event) {
+                throw new AssertionError("Expected the events to be dispatched in batches");
+            }
+        });
+        context.trigger(new AfterInsertDataStoreEvent(null, null, 0));
+        assertThat(entered.await(10, TimeUnit.SECONDS), is(true));
+        for (int i = 1; i < 5; i++) {
+            context.trigger(new AfterInsertDataStoreEvent(null, null, i));
+        }
+        latch.countDown();
+        context.drain();
+        assertThat(entities, contains((Object) 0, 1, 2, 3, 4));
+        assertThat(sizes, contains(1, 2, 2));
+    }
+
+    @Test
+    public void testKeepingEventsInOrderWhenTheWriterIsInterrupted() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ThreadRecordingListener listener = new ThreadRecordingListener();
+        context.register(new BlockingListener(entered, latch));
+        context.register(listener);
+        context.trigger(new AfterInsertDataStoreEvent(null, null, 0));
+        assertThat(entered.await(10, TimeUnit.SECONDS), is(true));
+        for (int i = 1; i < 5; i++) {
+            context.trigger(new AfterInsertDataStoreEvent(null, null, i));
+        }
+        final List<Boolean> interrupted = new CopyOnWriteArrayList<>();
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                context.trigger(new AfterInsertDataStoreEvent(null, null, 5));
+                interrupted.add(Thread.currentThread().isInterrupted());
+            }
+        });
+        writer.start();
+        awaitWaiting(writer);
+        writer.interrupt();
+        writer.join(100);
+        assertThat(writer.isAlive(), is(true));
+        latch.countDown();
+        writer.join(10000);
+        context.drain();
+        assertThat(interrupted, contains(true));
+        assertThat(entitiesOf(listener.events), contains((Object) 0, 1, 2, 3, 4, 5));
+    }
+
+    @Test
+    public void testKeepingEventsInOrderWhileClosing() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ThreadRecordingListener listener = new ThreadRecordingListener();
+        context.register(new BlockingListener(entered, latch));
+        context.register(listener);
+        context.trigger(new AfterInsertDataStoreEvent(null, null, 0));
+        assertThat(entered.await(10, TimeUnit.SECONDS), is(true));
+        context.trigger(new AfterInsertDataStoreEvent(null, null, 1));
+        final Thread closer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                context.close();
+            }
+        });
+        closer.start();
+        awaitWaiting(closer);
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                context.trigger(new AfterInsertDataStoreEvent(null, null, 2));
+            }
+        });
+        writer.start();
+        awaitWaiting(writer);
+        assertThat(listener.events, is(empty()));
+        latch.countDown();
+        closer.join(10000);
+        writer.join(10000);
+        assertThat(entitiesOf(listener.events), contains((Object) 0, 1, 2));
+    }
+
+    @Test
+    public void testFindingOutWhetherThereAreListeners() throws Exception {
+        assertThat(context.hasListeners(AfterInsertDataStoreEvent.class), is(false));
+        context.register(new AfterInsertEventListener());
+        assertThat(context.hasListeners(AfterInsertDataStoreEvent.class), is(true));
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(thread.getState(), is(Thread.State.WAITING));
+    }
+
+    private static List<Object> entitiesOf(List<DataStoreEvent> events) {
+        final List<Object> entities = new ArrayList<>();
+        for (DataStoreEvent event : events) {
+            entities.add(((AfterInsertDataStoreEvent) event).getEntity());
+        }
+        return entities;
+    }
+
+    /**
+     * Holds up the dispatcher on the first event, until it is let go
+     */
+    private static class BlockingListener implements DataStoreEventListener<AfterInsertDataStoreEvent> {
+
+        private final CountDownLatch entered;
+        private final CountDownLatch latch;
+
+        private BlockingListener(CountDownLatch entered, CountDownLatch latch) {
+            this.entered = entered;
+            this.latch = latch;
+        }
+
+        @Override
+        public void onEvent(AfterInsertDataStoreEvent event) {
+            entered.countDown();
+            try {
+                latch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+        }
+
+    }
+
+    private static class ThreadRecordingListener implements DataStoreEventListener<DataStoreEvent> {
+
+        private final List<DataStoreEvent> events = new CopyOnWriteArrayList<>();
+        private final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onEvent(DataStoreEvent event) {
+            events.add(event);
+            threads.add(Thread.currentThread());
+        }
+
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.sample.models.Invoice;
+import com.mmnaseri.utils.spring.data.sample.models.InvoiceLine;
+import com.mmnaseri.utils.spring.data.store.EntityCodec;
+
+import java.util.*;
+
+/**
+ * <p>This is a rough benchmark comparing the {@link BinaryEntityCodec} with the {@link SerializingEntityCodec} on a
+ * typical entity. It is not a test, and is meant to be run by hand:</p>
+ *
+ * <pre>
+ *     java -cp ... com.mmnaseri.utils.spring.data.store.impl.BinaryEntityCodecBenchmark [iterations]
+ * </pre>
+ *
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class BinaryEntityCodecBenchmark {
+
+    private static final int WARM_UP = 20000;
+
+    public static void main(String[] args) {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        final Invoice[] invoices = new Invoice[64];
+        for (int i = 0; i < invoices.length; i++) {
+            invoices[i] = createInvoice(i);
+        }
+        run("java serialization", new SerializingEntityCodec<>(Invoice.class), invoices, iterations);
+        run("binary", new BinaryEntityCodec<>(Invoice.class), invoices, iterations);
+    }
+
+    private static void run(String name, EntityCodec<Invoice> codec, Invoice[] invoices, int iterations) {
+        long size = 0;
+        for (Invoice invoice : invoices) {
+            size += codec.encode(invoice).length;
+        }
+        for (int i = 0; i < WARM_UP; i++) {
+            codec.decode(codec.encode(invoices[i % invoices.length]));
+        }
+        final byte[][] encoded = new byte[invoices.length][];
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            encoded[i % invoices.length] = codec.encode(invoices[i % invoices.length]);
+        }
+        final long encoding = System.nanoTime() - started;
+        long checksum = 0;
+        started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            checksum += codec.decode(encoded[i % encoded.length]).getNumber();
+        }
+        final long decoding = System.nanoTime() - started;
+        System.out.printf("%-20s %8d bytes/entity %10.1f ns/encode %10.1f ns/decode (%d)%n", name,
+                size / invoices.length, (double) encoding / iterations, (double) decoding / iterations, checksum);
+    }
+
+    static Invoice createInvoice(int index) {
+        final List<InvoiceLine> lines = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            lines.add(new InvoiceLine().setProduct("product-" + (index * 5 + i)).setQuantity(i + 1).setPriceInCents(1999L * (i + 1)));
+        }
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("currency", "USD");
+        attributes.put("channel", index % 2 == 0 ? "web" : "store");
+        return new Invoice().setId("invoice-" + index).setNumber(100000L + index).setYear(2026).setTotal(index * 10.5D)
+                .setPaid(index % 3 == 0).setIssued(new Date(1790000000000L + index)).setStatus(Invoice.Status.SENT)
+                .setLines(lines).setAttributes(attributes);
+    }
+
+}
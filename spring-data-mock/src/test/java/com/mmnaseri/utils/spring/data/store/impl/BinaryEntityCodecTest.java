@@ -0,0 +1,233 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.models.*;
+import com.mmnaseri.utils.spring.data.store.EntitySchema;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class BinaryEntityCodecTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final BinaryEntityCodec<Note> codec = new BinaryEntityCodec<>(Note.class);
+        assertThat(codec.getEntityType(), is(equalTo(Note.class)));
+        final Note note = new Note().setId("1").setText("Hello, دنیا");
+        final Note decoded = codec.decode(codec.encode(note));
+        assertThat(decoded, is(not(sameInstance(note))));
+        assertThat(decoded, is(note));
+    }
+
+    @Test
+    public void testRoundTripOfNull() throws Exception {
+        final BinaryEntityCodec<Note> codec = new BinaryEntityCodec<>(Note.class);
+        assertThat(codec.decode(codec.encode(null)), is(nullValue()));
+    }
+
+    @Test
+    public void testRoundTripOfNestedObjectsAndCollections() throws Exception {
+        final BinaryEntityCodec<Shipment> codec = new BinaryEntityCodec<>(Shipment.class);
+        final Date shipped = new Date();
+        final Shipment original = new Shipment().setId("s1").setWeight(-12345678901L)
+                .setDimensions(new int[]{1, -2, Integer.MAX_VALUE}).setLabels(new String[]{"fragile", null})
+                .setStops(Arrays.asList(new Address().setCity("Tehran").setState(new State().setName("Tehran").setAbbreviation("TH"))
+                        .setZip(new Zip().setPrefix("123").setRegion(4L)), null))
+                .setZones(Collections.singletonMap("north", new Zip().setArea("north")))
+                .setUnits(EnumSet.of(TimeUnit.DAYS, TimeUnit.HOURS))
+                .setTags(new TreeSet<>(Arrays.asList("b", "a")))
+                .setShipped(shipped)
+                .setParent(new Shipment().setId("s0"));
+        original.getNotes().add("first");
+        final Shipment copy = codec.decode(codec.encode(original));
+        assertThat(copy.getId(), is("s1"));
+        assertThat(copy.getWeight(), is(-12345678901L));
+        assertThat(copy.getDimensions(), is(new int[]{1, -2, Integer.MAX_VALUE}));
+        assertThat(copy.getLabels(), is(arrayContaining("fragile", null)));
+        assertThat(copy.getStops(), hasSize(2));
+        assertThat(copy.getStops().get(0).getCity(), is("Tehran"));
+        assertThat(copy.getStops().get(0).getStreet(), is(nullValue()));
+        assertThat(copy.getStops().get(0).getState().getAbbreviation(), is("TH"));
+        assertThat(copy.getStops().get(0).getZip().getRegion(), is(4L));
+        assertThat(copy.getStops().get(1), is(nullValue()));
+        assertThat(copy.getZones().keySet(), contains("north"));
+        assertThat(copy.getZones().get("north").getArea(), is("north"));
+        assertThat(copy.getUnits(), containsInAnyOrder(TimeUnit.DAYS, TimeUnit.HOURS));
+        assertThat(copy.getTags(), is(instanceOf(TreeSet.class)));
+        assertThat(copy.getTags(), contains("a", "b"));
+        assertThat(copy.getShipped(), is(shipped));
+        assertThat(copy.getParent().getId(), is("s0"));
+        assertThat(copy.getParent().getParent(), is(nullValue()));
+        assertThat(copy.getNotes(), contains("first"));
+    }
+
+    @Test
+    public void testRoundTripOfDynamicValues() throws Exception {
+        final BinaryEntityCodec<Parcel> codec = new BinaryEntityCodec<>(Parcel.class);
+        final Parcel original = new Parcel().setPayload(new Note().setId("n").setText("payload"))
+                .setContents(Arrays.asList(1, "two", 3L, TimeUnit.SECONDS, new Address().setCity("Shiraz"), null, new Date(0), Collections.singletonMap("k", 'v')))
+                .setCount(2.5D).setValue(new BigDecimal("12.34")).setZip(new ChildZip()).setGrade('A')
+                .setChecksum(new byte[]{1, 2, 3}).setPriority((short) -7).setRatio(0.5F);
+        original.getZip().setPrefix("child");
+        final Parcel copy = codec.decode(codec.encode(original));
+        assertThat(copy.getPayload(), is(instanceOf(Note.class)));
+        assertThat(copy.getPayload(), is(original.getPayload()));
+        assertThat(copy.getContents(), hasSize(8));
+        assertThat(copy.getContents().get(0), is((Object) 1));
+        assertThat(copy.getContents().get(1), is((Object) "two"));
+        assertThat(copy.getContents().get(2), is((Object) 3L));
+        assertThat(copy.getContents().get(3), is((Object) TimeUnit.SECONDS));
+        assertThat(((Address) copy.getContents().get(4)).getCity(), is("Shiraz"));
+        assertThat(copy.getContents().get(5), is(nullValue()));
+        assertThat(copy.getContents().get(6), is((Object) new Date(0)));
+        assertThat(copy.getContents().get(7), is((Object) Collections.singletonMap("k", 'v')));
+        assertThat(copy.getCount(), is((Number) 2.5D));
+        assertThat(copy.getValue(), is(new BigDecimal("12.34")));
+        assertThat(copy.getZip(), is(instanceOf(ChildZip.class)));
+        assertThat(copy.getZip().getPrefix(), is("child"));
+        assertThat(copy.getGrade(), is('A'));
+        assertThat(copy.getChecksum(), is(new byte[]{1, 2, 3}));
+        assertThat(copy.getPriority(), is((short) -7));
+        assertThat(copy.getRatio(), is(0.5F));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testEncodingACycle() throws Exception {
+        final Shipment shipment = new Shipment();
+        shipment.setParent(shipment);
+        new BinaryEntityCodec<>(Shipment.class).encode(shipment);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testEncodingAValueThatCannotBeEncoded() throws Exception {
+        new BinaryEntityCodec<>(Parcel.class).encode(new Parcel().setPayload(new Object()));
+    }
+
+    @Test
+    public void testSchema() throws Exception {
+        final EntitySchema schema = new BinaryEntityCodec<>(Shipment.class).getSchema();
+        assertThat(schema.getEntityType(), is(Shipment.class.getName()));
+        assertThat(schema.getTypes(), containsInAnyOrder(Shipment.class.getName(), Address.class.getName(), State.class.getName(), Zip.class.getName()));
+        assertThat(schema.getProperties(Zip.class.getName()), contains("area:string?", "prefix:string?", "region:long?"));
+        assertThat(schema.getProperties(Shipment.class.getName()), hasItems("weight:long", "dimensions:array<[I,int>?",
+                "stops:collection<java.util.ArrayList,object<" + Address.class.getName() + ">?>?",
+                "tags:collection<java.util.TreeSet,string?>?", "shipped:date?"));
+        assertThat(schema.getProperties(Note.class.getName()), is(nullValue()));
+        assertThat(new BinaryEntityCodec<>(Shipment.class).getSchema().getVersion(), is(schema.getVersion()));
+        assertThat(new BinaryEntityCodec<>(Note.class).getSchema().getVersion(), is(not(schema.getVersion())));
+    }
+
+    @Test
+    public void testDecodingWithAnEarlierSchema() throws Exception {
+        final BinaryEntityCodec<Note> codec = new BinaryEntityCodec<>(Note.class);
+        final EntitySchema earlier = new ImmutableEntitySchema(Note.class.getName(), Collections.singletonMap(Note.class.getName(),
+                Arrays.asList("id:string?", "pages:int", "text:int?")));
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(earlier.getVersion());
+        output.write(1);
+        //id
+        output.write(1);
+        output.write(2);
+        output.writeBytes("n1");
+        //pages, which no longer exists
+        output.write(84);
+        //text, which is no longer a number
+        output.write(1);
+        output.write(14);
+        final byte[] data = bytes.toByteArray();
+        try {
+            codec.decode(data);
+            throw new AssertionError("Expected the earlier schema to be unknown");
+        } catch (DataStoreException ignored) {
+            //this is expected
+        }
+        codec.registerSchema(earlier);
+        final Note note = codec.decode(data);
+        assertThat(note.getId(), is("n1"));
+        assertThat(note.getText(), is(nullValue()));
+        assertThat(codec.decode(codec.encode(new Note().setText("current"))).getText(), is("current"));
+    }
+
+    @Test
+    public void testDecodingWithAnEarlierLayoutOfANestedType() throws Exception {
+        final BinaryEntityCodec<Person> codec = new BinaryEntityCodec<>(Person.class);
+        final Map<String, List<String>> layouts = new HashMap<>();
+        layouts.put(Person.class.getName(), Collections.singletonList("addressZip:object<" + Zip.class.getName() + ">?"));
+        layouts.put(Zip.class.getName(), Arrays.asList("code:string?", "region:long?"));
+        final EntitySchema earlier = new ImmutableEntitySchema(Person.class.getName(), layouts);
+        codec.registerSchema(earlier);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(earlier.getVersion());
+        output.write(1);
+        output.write(1);
+        output.write(1);
+        output.write(3);
+        output.writeBytes("123");
+        output.write(1);
+        output.write(8);
+        final Person person = codec.decode(bytes.toByteArray());
+        assertThat(person.getAddressZip().getPrefix(), is(nullValue()));
+        assertThat(person.getAddressZip().getRegion(), is(4L));
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testRegisteringTheSchemaOfAnotherEntity() throws Exception {
+        new BinaryEntityCodec<>(Note.class).registerSchema(new BinaryEntityCodec<>(Zip.class).getSchema());
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testRegisteringAMalformedSchema() throws Exception {
+        new BinaryEntityCodec<>(Note.class).registerSchema(new ImmutableEntitySchema(Note.class.getName(),
+                Collections.singletonMap(Note.class.getName(), Collections.singletonList("id:collection<java.util.ArrayList"))));
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testRegisteringASchemaWithUnknownClasses() throws Exception {
+        new BinaryEntityCodec<>(Note.class).registerSchema(new ImmutableEntitySchema(Note.class.getName(),
+                Collections.singletonMap(Note.class.getName(), Collections.singletonList("id:object<com.example.Missing>?"))));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDecodingTruncatedData() throws Exception {
+        final BinaryEntityCodec<Note> codec = new BinaryEntityCodec<>(Note.class);
+        final byte[] data = codec.encode(new Note().setId("1").setText("Hello"));
+        codec.decode(Arrays.copyOf(data, data.length - 2));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDecodingDataWithTrailingBytes() throws Exception {
+        final BinaryEntityCodec<Note> codec = new BinaryEntityCodec<>(Note.class);
+        final byte[] data = codec.encode(new Note().setId("1").setText("Hello"));
+        codec.decode(Arrays.copyOf(data, data.length + 1));
+    }
+
+    @Test
+    public void testBeingSmallerThanJavaSerialization() throws Exception {
+        final Invoice invoice = BinaryEntityCodecBenchmark.createInvoice(1);
+        final byte[] serialized = new SerializingEntityCodec<>(Invoice.class).encode(invoice);
+        final BinaryEntityCodec<Invoice> codec = new BinaryEntityCodec<>(Invoice.class);
+        final byte[] encoded = codec.encode(invoice);
+        assertThat(encoded.length * 4, is(lessThan(serialized.length)));
+        final Invoice decoded = codec.decode(encoded);
+        assertThat(decoded.getLines(), hasSize(invoice.getLines().size()));
+        assertThat(decoded.getLines().get(2).getPriceInCents(), is(invoice.getLines().get(2).getPriceInCents()));
+        assertThat(decoded.getAttributes(), is(invoice.getAttributes()));
+        assertThat(decoded.getStatus(), is(invoice.getStatus()));
+        assertThat(decoded.getTotal(), is(invoice.getTotal()));
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.store.ChangeCursor;
+import com.mmnaseri.utils.spring.data.store.ChangeType;
+import com.mmnaseri.utils.spring.data.store.DataStoreChange;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class ChangeLogTest {
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testNonPositiveCapacity() throws Exception {
+        new ChangeLog<>(Person.class, 0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testNegativeTimeout() throws Exception {
+        new ChangeLog<>(Person.class, 1, -1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testEmptyLog() throws Exception {
+        final ChangeLog<String, Person> changeLog = new ChangeLog<>(Person.class);
+        assertThat(changeLog.getCapacity(), is(ChangeLog.DEFAULT_CAPACITY));
+        assertThat(changeLog.getFirstSequence(), is(1L));
+        assertThat(changeLog.getLastSequence(), is(0L));
+        assertThat(changeLog.getMaxLag(), is(0L));
+        assertThat(changeLog.openCursor().poll(10), is(empty()));
+    }
+
+    @Test
+    public void testReadingIncrementally() throws Exception {
+        final ChangeLog<String, Person> changeLog = new ChangeLog<>(Person.class);
+        final ChangeCursor<String, Person> cursor = changeLog.openCursor();
+        final Person person = new Person();
+        assertThat(changeLog.append(ChangeType.INSERT, "k1", null, person), is(1L));
+        assertThat(changeLog.append(ChangeType.DELETE, "k1", person, null), is(2L));
+        changeLog.append(ChangeType.INSERT, "k2", null, person);
+        assertThat(cursor.getLag(), is(3L));
+        assertThat(changeLog.getMaxLag(), is(3L));
+        final List<DataStoreChange<String, Person>> first = cursor.poll(2);
+        assertThat(first, hasSize(2));
+        assertThat(first.get(0).getSequence(), is(1L));
+        assertThat(first.get(1).getType(), is(ChangeType.DELETE));
+        assertThat(first.get(1).getPrevious(), is(sameInstance(person)));
+        assertThat(cursor.getPosition(), is(3L));
+        assertThat(cursor.getLag(), is(1L));
+        final List<DataStoreChange<String, Person>> second = cursor.poll(2);
+        assertThat(second, hasSize(1));
+        assertThat(second.get(0).getKey(), is("k2"));
+        assertThat(cursor.poll(2), is(empty()));
+    }
+
+    @Test
+    public void testOpeningCursorAtSequence() throws Exception {
+        final ChangeLog<String, Person> changeLog = new ChangeLog<>(Person.class);
+        changeLog.append(ChangeType.INSERT, "k1", null, new Person());
+        changeLog.append(ChangeType.INSERT, "k2", null, new Person());
+        assertThat(changeLog.openCursor().getPosition(), is(3L));
+        final List<DataStoreChange<String, Person>> changes = changeLog.openCursor(2).poll(10);
+        assertThat(changes, hasSize(1));
+        assertThat(changes.get(0).getKey(), is("k2"));
+        assertThat(changeLog.getCursorCount(), is(2));
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testOpeningCursorInTheFuture() throws Exception {
+        new ChangeLog<>(Person.class).openCursor(2);
+    }
+
+    @Test
+    public void testRetainingOnlyLatestChanges() throws Exception {
+        final ChangeLog<String, Person> changeLog = new ChangeLog<>(Person.class, 2, 0, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 5; i++) {
+            changeLog.append(ChangeType.INSERT, "k" + i, null, new Person());
+        }
+        assertThat(changeLog.getFirstSequence(), is(4L));
+        assertThat(changeLog.getLastSequence(), is(5L));
+        //nobody was reading, so nothing counts as dropped
+        assertThat(changeLog.getDroppedCount(), is(0L));
+        final List<DataStoreChange<String, Person>> changes = changeLog.openCursor(4).poll(10);
+        assertThat(changes, hasSize(2));
+        assertThat(changes.get(0).getKey(), is("k3"));
+        assertThat(changes.get(1).getKey(), is("k4"));
+    }
+
+    @Test
+    public void testFallingBehind() throws Exception {
+        final ChangeLog<String, Person> changeLog = new ChangeLog<>(Person.class, 2, 0, TimeUnit.MILLISECONDS);
+        final ChangeCursor<String, Person> cursor = changeLog.openCursor();
+        for (int i = 0; i < 3; i++) {
+            changeLog.append(ChangeType.INSERT, "k" + i, null, new Person());
+        }
+        assertThat(changeLog.getDroppedCount(), is(1L));
+        try {
+            cursor.poll(10);
+            throw new AssertionError("Expected the cursor to have fallen behind");
+        } catch (DataStoreException e) {
+            assertThat(e.getMessage(), containsString("fallen behind"));
+        }
+        cursor.seek(changeLog.getFirstSequence());
+        assertThat(cursor.poll(10), hasSize(2));
+    }
+
+    @Test
+    public void testWaitingForCursors() throws Exception {
+        final ChangeLog<String, Person> changeLog = new ChangeLog<>(Person.class, 1, 5, TimeUnit.SECONDS);
+        final ChangeCursor<String, Person> cursor = changeLog.openCursor();
+        changeLog.append(ChangeType.INSERT, "k1", null, new Person());
+        final List<String> keys = new ArrayList<>();
+        final Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (keys.size() < 2) {
+                    for (DataStoreChange<String, Person> change : cursor.poll(1, 1, TimeUnit.SECONDS)) {
+                        keys.add(change.getKey());
+                    }
+                }
+            }
+        });
+        reader.start();
+        changeLog.append(ChangeType.INSERT, "k2", null, new Person());
+        reader.join(5000);
+        assertThat(keys, contains("k1", "k2"));
+        assertThat(changeLog.getDroppedCount(), is(0L));
+    }
+
+    @Test
+    public void testGivingUpOnSlowCursors() throws Exception {
+        final ChangeLog<String, Person> changeLog = new ChangeLog<>(Person.class, 1, 10, TimeUnit.MILLISECONDS);
+        changeLog.openCursor();
+        changeLog.append(ChangeType.INSERT, "k1", null, new Person());
+        changeLog.append(ChangeType.INSERT, "k2", null, new Person());
+        assertThat(changeLog.getStallCount(), is(1L));
+        assertThat(changeLog.getDroppedCount(), is(1L));
+        assertThat(changeLog.getTimeout(TimeUnit.MILLISECONDS), is(10L));
+    }
+
+    @Test
+    public void testWaitingForChanges() throws Exception {
+        final ChangeLog<String, Person> changeLog = new ChangeLog<>(Person.class);
+        final ChangeCursor<String, Person> cursor = changeLog.openCursor();
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                changeLog.append(ChangeType.INSERT, "k1", null, new Person());
+            }
+        });
+        writer.start();
+        final List<DataStoreChange<String, Person>> changes = cursor.poll(10, 5, TimeUnit.SECONDS);
+        writer.join();
+        assertThat(changes, hasSize(1));
+    }
+
+    @Test
+    public void testClosingCursor() throws Exception {
+        final ChangeLog<String, Person> changeLog = new ChangeLog<>(Person.class, 1, 1, TimeUnit.MINUTES);
+        final ChangeCursor<String, Person> cursor = changeLog.openCursor();
+        changeLog.append(ChangeType.INSERT, "k1", null, new Person());
+        cursor.close();
+        assertThat(changeLog.getCursorCount(), is(0));
+        //this would wait for a whole minute if the cursor were still open
+        changeLog.append(ChangeType.INSERT, "k2", null, new Person());
+        assertThat(changeLog.getStallCount(), is(0L));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class, expectedExceptionsMessageRegExp = ".*closed.*")
+    public void testReadingClosedCursor() throws Exception {
+        final ChangeCursor<String, Person> cursor = new ChangeLog<String, Person>(Person.class).openCursor();
+        cursor.close();
+        cursor.poll(1);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testReadingNothing() throws Exception {
+        new ChangeLog<String, Person>(Person.class).openCursor().poll(0);
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.sample.models.Note;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class CodecEntityWeigherTest {
+
+    @Test
+    public void testWeighingByEncodedLength() throws Exception {
+        final SerializingEntityCodec<Note> codec = new SerializingEntityCodec<>(Note.class);
+        final CodecEntityWeigher<Note> weigher = new CodecEntityWeigher<>(codec);
+        final Note small = new Note().setId("1").setText("a");
+        final Note large = new Note().setId("1").setText("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+        assertThat(weigher.weigh(small), is((long) codec.encode(small).length));
+        assertThat(weigher.weigh(large), is(greaterThan(weigher.weigh(small))));
+    }
+
+}
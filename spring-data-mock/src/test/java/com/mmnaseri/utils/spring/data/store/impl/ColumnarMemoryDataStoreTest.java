@@ -0,0 +1,253 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.domain.Invocation;
+import com.mmnaseri.utils.spring.data.domain.Modifier;
+import com.mmnaseri.utils.spring.data.domain.Parameter;
+import com.mmnaseri.utils.spring.data.domain.impl.DefaultOperatorContext;
+import com.mmnaseri.utils.spring.data.domain.impl.ImmutableInvocation;
+import com.mmnaseri.utils.spring.data.domain.impl.ImmutableParameter;
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.query.impl.DefaultQueryDescriptor;
+import com.mmnaseri.utils.spring.data.sample.models.Address;
+import com.mmnaseri.utils.spring.data.sample.models.EntityWithIndexedProperties;
+import com.mmnaseri.utils.spring.data.sample.models.Measurement;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class ColumnarMemoryDataStoreTest {
+
+    private ColumnarMemoryDataStore<String, Measurement> dataStore;
+    private DefaultOperatorContext operatorContext;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dataStore = new ColumnarMemoryDataStore<>(Measurement.class, "id", "sequence", "value", "valid", "unit", "taken");
+        operatorContext = new DefaultOperatorContext();
+        final TimeUnit[] units = {TimeUnit.SECONDS, TimeUnit.MINUTES, null};
+        for (int i = 0; i < 30; i++) {
+            dataStore.save("k" + i, new Measurement()
+                    .setId("Id-" + (i % 7))
+                    .setSequence(i - 10)
+                    .setValue(i % 5 == 0 ? null : i / 2D)
+                    .setValid(i % 4 == 0 ? null : i % 2 == 0)
+                    .setUnit(units[i % 3])
+                    .setTaken(i % 6 == 0 ? null : new Date(i * 1000L)));
+        }
+    }
+
+    private Parameter parameter(String path, String suffix, Modifier... modifiers) {
+        final int operands = operatorContext.getBySuffix(suffix).getOperands();
+        final int[] indices = new int[operands];
+        for (int i = 0; i < operands; i++) {
+            indices[i] = i;
+        }
+        return new ImmutableParameter(path, new HashSet<>(Arrays.asList(modifiers)), indices, operatorContext.getBySuffix(suffix));
+    }
+
+    private static List<List<Parameter>> branches(Parameter... parameters) {
+        final List<List<Parameter>> branches = new ArrayList<>();
+        for (Parameter parameter : parameters) {
+            branches.add(Collections.singletonList(parameter));
+        }
+        return branches;
+    }
+
+    /**
+     * Selects from the columns, and makes sure that the selection is exactly what matching the entities one by one
+     * would have produced
+     */
+    private List<Measurement> select(List<List<Parameter>> branches, Object... arguments) {
+        final Invocation invocation = new ImmutableInvocation(null, arguments);
+        final List<Measurement> selection = dataStore.select(branches, invocation);
+        assertThat(selection, is(notNullValue()));
+        final DefaultQueryDescriptor descriptor = new DefaultQueryDescriptor(false, null, 0, null, null, branches, null, null);
+        final List<Measurement> expected = new ArrayList<>();
+        for (Measurement measurement : dataStore.retrieveAll()) {
+            if (descriptor.matches(measurement, invocation)) {
+                expected.add(measurement);
+            }
+        }
+        assertThat(selection, is(expected));
+        return selection;
+    }
+
+    @Test
+    public void testColumnProperties() throws Exception {
+        assertThat(dataStore.getColumnProperties(), contains("id", "sequence", "value", "valid", "unit", "taken"));
+        final ColumnarMemoryDataStore<String, EntityWithIndexedProperties> annotated = new ColumnarMemoryDataStore<>(EntityWithIndexedProperties.class, "age");
+        assertThat(annotated.getColumnProperties(), contains("email", "birthday", "lastName", "age"));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testUnknownColumnProperty() throws Exception {
+        new ColumnarMemoryDataStore<String, Person>(Person.class, "address.xyz");
+    }
+
+    @Test
+    public void testNestedColumnProperty() throws Exception {
+        final ColumnarMemoryDataStore<String, Person> people = new ColumnarMemoryDataStore<>(Person.class, "address.city");
+        people.save("k1", new Person().setAddress(new Address().setCity("Tehran")));
+        people.save("k2", new Person().setAddress(new Address().setCity("Shiraz")));
+        final List<Person> selection = people.select(branches(parameter("address.city", "Is")), new ImmutableInvocation(null, new Object[]{"Shiraz"}));
+        assertThat(selection, contains(people.retrieve("k2")));
+    }
+
+    @Test
+    public void testBasicOperations() throws Exception {
+        assertThat(dataStore.hasKey("k1"), is(true));
+        assertThat(dataStore.hasKey("x"), is(false));
+        assertThat(dataStore.keys(), hasSize(30));
+        assertThat(dataStore.retrieveAll(), hasSize(30));
+        final Measurement measurement = new Measurement().setId("new");
+        assertThat(dataStore.save("k1", measurement), is(false));
+        assertThat(dataStore.retrieve("k1"), is(measurement));
+        assertThat(dataStore.save("x", new Measurement()), is(true));
+        assertThat(dataStore.keys(), hasSize(31));
+        assertThat(dataStore.delete("x"), is(true));
+        assertThat(dataStore.delete("x"), is(false));
+        assertThat(dataStore.retrieve("x"), is(nullValue()));
+        assertThat(dataStore.getEntityType(), is(equalTo(Measurement.class)));
+        dataStore.truncate();
+        assertThat(dataStore.keys(), is(empty()));
+        assertThat(select(branches(parameter("id", "Is")), "new"), is(empty()));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingWithNullKey() throws Exception {
+        dataStore.save(null, new Measurement());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingNullEntity() throws Exception {
+        dataStore.save("k", null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDeletingWithNullKey() throws Exception {
+        dataStore.delete(null);
+    }
+
+    @Test
+    public void testScanning() throws Exception {
+        final List<String> keys = new ArrayList<>();
+        dataStore.scan(new DataStoreVisitor<String, Measurement>() {
+            @Override
+            public boolean visit(String key, Measurement entity) {
+                assertThat(dataStore.retrieve(key), is(sameInstance(entity)));
+                keys.add(key);
+                return keys.size() < 10;
+            }
+        });
+        assertThat(keys, hasSize(10));
+    }
+
+    @Test
+    public void testDeletingMovesTheLastRowIntoTheHole() throws Exception {
+        final Measurement last = dataStore.retrieve("k29");
+        assertThat(dataStore.delete("k3"), is(true));
+        assertThat(dataStore.retrieve("k29"), is(sameInstance(last)));
+        assertThat(select(branches(parameter("sequence", "Is")), 19L), contains(last));
+        assertThat(select(branches(parameter("sequence", "Is")), -7L), is(empty()));
+        dataStore.save("k29", new Measurement().setSequence(100));
+        assertThat(select(branches(parameter("sequence", "Is")), 19L), is(empty()));
+        assertThat(select(branches(parameter("sequence", "Is")), 100L), hasSize(1));
+    }
+
+    @Test
+    public void testSelectingFromNumericColumns() throws Exception {
+        for (String suffix : Arrays.asList("Is", "IsNot", "GreaterThan", "GreaterThanEqual", "LessThan", "LessThanEqual", "In", "NotIn")) {
+            final Object operand = suffix.endsWith("In") ? Arrays.asList(3L, 4L) : 3L;
+            select(branches(parameter("sequence", suffix)), operand);
+        }
+        assertThat(select(branches(parameter("sequence", "Between")), -2L, 5L), hasSize(8));
+        assertThat(select(branches(parameter("sequence", "NotBetween")), -2L, 5L), hasSize(22));
+        assertThat(select(branches(parameter("value", "Is")), 3.5D), hasSize(1));
+        assertThat(select(branches(parameter("value", "IsNot")), 3.5D), hasSize(29));
+        //null values are held as zeros in the column, but are still not equal to zero
+        assertThat(select(branches(parameter("value", "Is")), 0D), is(empty()));
+        assertThat(select(branches(parameter("value", "IsNot")), 0D), hasSize(30));
+        assertThat(select(branches(parameter("value", "Is")), new Object[]{null}), hasSize(6));
+        assertThat(select(branches(parameter("value", "IsNull"))), hasSize(6));
+        assertThat(select(branches(parameter("value", "IsNotNull"))), hasSize(24));
+        //an operand of another type is never equal to any of the values
+        assertThat(select(branches(parameter("sequence", "Is")), 3), is(empty()));
+    }
+
+    @Test
+    public void testComparingNullValuesFallsBack() throws Exception {
+        final Invocation invocation = new ImmutableInvocation(null, new Object[]{3D});
+        assertThat(dataStore.select(branches(parameter("value", "GreaterThan")), invocation), is(nullValue()));
+        final Invocation nullOperand = new ImmutableInvocation(null, new Object[]{null});
+        assertThat(dataStore.select(branches(parameter("sequence", "GreaterThan")), nullOperand), is(nullValue()));
+    }
+
+    @Test
+    public void testSelectingFromBooleanColumns() throws Exception {
+        assertThat(select(branches(parameter("valid", "True"))), hasSize(7));
+        assertThat(select(branches(parameter("valid", "False"))), hasSize(15));
+        assertThat(select(branches(parameter("valid", "Is")), true), hasSize(7));
+        assertThat(select(branches(parameter("valid", "IsNot")), true), hasSize(23));
+        assertThat(select(branches(parameter("valid", "IsNull"))), hasSize(8));
+    }
+
+    @Test
+    public void testSelectingFromDictionaryColumns() throws Exception {
+        assertThat(select(branches(parameter("id", "Is")), "Id-3"), hasSize(4));
+        assertThat(select(branches(parameter("id", "Is", Modifier.IGNORE_CASE)), "ID-3"), hasSize(4));
+        assertThat(select(branches(parameter("id", "Is")), "ID-3"), is(empty()));
+        assertThat(select(branches(parameter("id", "StartingWith", Modifier.IGNORE_CASE)), "id-"), hasSize(30));
+        assertThat(select(branches(parameter("id", "Like")), "ID-1"), hasSize(5));
+        assertThat(select(branches(parameter("id", "GreaterThan")), "Id-4"), hasSize(8));
+        assertThat(select(branches(parameter("unit", "Is")), TimeUnit.MINUTES), hasSize(10));
+        assertThat(select(branches(parameter("unit", "IsNull"))), hasSize(10));
+        assertThat(select(branches(parameter("unit", "IsNot")), TimeUnit.MINUTES), hasSize(20));
+    }
+
+    @Test
+    public void testSelectingFromObjectColumns() throws Exception {
+        assertThat(select(branches(parameter("taken", "Is")), new Date(7000)), hasSize(1));
+        assertThat(select(branches(parameter("taken", "IsNull"))), hasSize(5));
+        assertThat(dataStore.select(branches(parameter("taken", "After")), new ImmutableInvocation(null, new Object[]{new Date(7000)})), is(nullValue()));
+    }
+
+    @Test
+    public void testCombiningBranches() throws Exception {
+        final List<List<Parameter>> branches = new ArrayList<>();
+        branches.add(Arrays.asList(parameter("sequence", "GreaterThan"), parameter("valid", "True")));
+        branches.add(Arrays.asList(parameter("unit", "Is"), parameter("id", "IsNotNull")));
+        branches.add(Collections.singletonList(parameter("sequence", "LessThan")));
+        final Invocation invocation = new ImmutableInvocation(null, new Object[]{5L});
+        //the parameters of the second branch read their operand from the first argument, too, which never matches a unit
+        final List<Measurement> selection = dataStore.select(branches, invocation);
+        final DefaultQueryDescriptor descriptor = new DefaultQueryDescriptor(false, null, 0, null, null, branches, null, null);
+        final List<Measurement> expected = new ArrayList<>();
+        for (Measurement measurement : dataStore.retrieveAll()) {
+            if (descriptor.matches(measurement, invocation)) {
+                expected.add(measurement);
+            }
+        }
+        assertThat(selection, is(expected));
+        assertThat(selection, hasSize(18));
+    }
+
+    @Test
+    public void testFallingBack() throws Exception {
+        final Invocation invocation = new ImmutableInvocation(null, new Object[]{1});
+        final ColumnarMemoryDataStore<String, Person> people = new ColumnarMemoryDataStore<>(Person.class, "lastName");
+        assertThat(people.select(branches(parameter("age", "Is")), invocation), is(nullValue()));
+        assertThat(dataStore.select(branches(parameter("taken", "Near")), invocation), is(nullValue()));
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.models.Note;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class CompressingEntityCodecTest {
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testNullCodec() throws Exception {
+        new CompressingEntityCodec<>(Note.class, null);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testInvalidLevel() throws Exception {
+        new CompressingEntityCodec<>(Note.class, new SerializingEntityCodec<>(Note.class), 10);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final CompressingEntityCodec<Note> codec = new CompressingEntityCodec<>(Note.class);
+        final Note note = new Note().setId("1").setText("Hello");
+        final Note decoded = codec.decode(codec.encode(note));
+        assertThat(decoded, is(not(sameInstance(note))));
+        assertThat(decoded, is(note));
+    }
+
+    @Test
+    public void testCompressing() throws Exception {
+        final char[] text = new char[10000];
+        Arrays.fill(text, 'a');
+        final Note note = new Note().setId("1").setText(new String(text));
+        final SerializingEntityCodec<Note> serializing = new SerializingEntityCodec<>(Note.class);
+        final CompressingEntityCodec<Note> codec = new CompressingEntityCodec<>(Note.class, serializing, Deflater.BEST_COMPRESSION);
+        final byte[] compressed = codec.encode(note);
+        assertThat(compressed.length, is(lessThan(serializing.encode(note).length / 10)));
+        assertThat(codec.decode(compressed), is(note));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDecodingDataWithoutAHeader() throws Exception {
+        new CompressingEntityCodec<>(Note.class).decode(new byte[]{1, 2});
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDecodingGarbage() throws Exception {
+        new CompressingEntityCodec<>(Note.class).decode(new byte[]{0, 0, 0, 10, 1, 2, 3, 4, 5});
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDecodingTruncatedData() throws Exception {
+        final byte[] data = new CompressingEntityCodec<>(Note.class).encode(new Note().setId("1").setText("Hello"));
+        new CompressingEntityCodec<>(Note.class).decode(Arrays.copyOf(data, data.length / 2));
+    }
+
+}
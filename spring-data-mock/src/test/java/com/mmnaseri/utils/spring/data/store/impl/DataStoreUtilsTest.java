@@ -0,0 +1,239 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.error.OptimisticLockException;
+import com.mmnaseri.utils.spring.data.sample.mocks.Operation;
+import com.mmnaseri.utils.spring.data.sample.mocks.SpyingDataStore;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.models.VersionedPerson;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import com.mmnaseri.utils.spring.data.tools.AbstractUtilityClassTest;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class DataStoreUtilsTest extends AbstractUtilityClassTest {
+
+    @Override
+    protected Class<?> getUtilityClass() {
+        return DataStoreUtils.class;
+    }
+
+    @Test
+    public void testScanningANonScanningDataStore() throws Exception {
+        final MemoryDataStore<String, Person> delegate = new MemoryDataStore<>(Person.class);
+        delegate.save("k1", new Person());
+        delegate.save("k2", new Person());
+        final SpyingDataStore<String, Person> dataStore = new SpyingDataStore<>(delegate, new AtomicLong());
+        final List<String> visited = new ArrayList<>();
+        DataStoreUtils.scan(dataStore, new CollectingVisitor(visited, 0));
+        assertThat(visited, containsInAnyOrder("k1", "k2"));
+        assertThat(dataStore.getRequests().get(0).getOperation(), is(Operation.CHECK));
+    }
+
+    @Test
+    public void testScanningKeys() throws Exception {
+        final MemoryDataStore<String, Person> dataStore = new MemoryDataStore<>(Person.class);
+        dataStore.save("k1", new Person());
+        dataStore.save("k2", new Person());
+        dataStore.save("k3", new Person());
+        final List<String> visited = new ArrayList<>();
+        DataStoreUtils.scan(dataStore, Arrays.asList("k3", "k4", "k1"), new CollectingVisitor(visited, 0));
+        assertThat(visited, contains("k3", "k1"));
+        visited.clear();
+        DataStoreUtils.scan(dataStore, Arrays.asList("k3", "k2", "k1"), new CollectingVisitor(visited, 2));
+        assertThat(visited, contains("k3", "k2"));
+    }
+
+    @Test
+    public void testScanningPartitionsInParallel() throws Exception {
+        final ShardedMemoryDataStore<String, Person> dataStore = new ShardedMemoryDataStore<>(Person.class, 3);
+        for (int i = 0; i < 30; i++) {
+            dataStore.save("k" + i, new Person());
+        }
+        final List<List<String>> visited = new ArrayList<>();
+        final List<CollectingVisitor> visitors = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final List<String> partition = new CopyOnWriteArrayList<>();
+            visited.add(partition);
+            visitors.add(new CollectingVisitor(partition, 0));
+        }
+        DataStoreUtils.scanPartitions(dataStore, visitors);
+        final List<String> all = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final List<String> expected = new ArrayList<>();
+            dataStore.scan(i, new CollectingVisitor(expected, 0));
+            assertThat(visited.get(i), is(expected));
+            all.addAll(visited.get(i));
+        }
+        assertThat(all, containsInAnyOrder(dataStore.keys().toArray()));
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testScanningPartitionsWithTheWrongNumberOfVisitors() throws Exception {
+        DataStoreUtils.scanPartitions(new ShardedMemoryDataStore<String, Person>(Person.class, 3), Collections.singletonList(new CollectingVisitor(new ArrayList<String>(), 0)));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testScanningPartitionsWithAFailingVisitor() throws Exception {
+        final ShardedMemoryDataStore<String, Person> dataStore = new ShardedMemoryDataStore<>(Person.class, 2);
+        for (int i = 0; i < 10; i++) {
+            dataStore.save("k" + i, new Person());
+        }
+        final DataStoreVisitor<String, Person> failing = new DataStoreVisitor<String, Person>() {
+            @Override
+            public boolean visit(String key, Person entity) {
+                throw new IllegalStateException();
+            }
+        };
+        DataStoreUtils.scanPartitions(dataStore, Arrays.asList(failing, failing));
+    }
+
+    private static class CollectingVisitor implements DataStoreVisitor<String, Person> {
+
+        private final List<String> visited;
+        private final int limit;
+
+        private CollectingVisitor(List<String> visited, int limit) {
+            this.visited = visited;
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean visit(String key, Person entity) {
+            visited.add(key);
+            return limit == 0 || visited.size() < limit;
+        }
+
+    }
+
+    @Test
+    public void testBulkOperationsOnANonBulkDataStore() throws Exception {
+        final MemoryDataStore<String, Person> delegate = new MemoryDataStore<>(Person.class);
+        delegate.save("k1", new Person());
+        final SpyingDataStore<String, Person> dataStore = new SpyingDataStore<>(delegate, new AtomicLong());
+        final Map<String, Person> entities = new LinkedHashMap<>();
+        entities.put("k1", new Person());
+        entities.put("k2", new Person());
+        entities.put("k3", new Person());
+        assertThat(DataStoreUtils.saveAll(dataStore, entities), is(2));
+        assertThat(dataStore.getRequests(), hasSize(3));
+        assertThat(DataStoreUtils.retrieveAll(dataStore, Arrays.asList("k3", "k4", "k1")), contains(entities.get("k3"), entities.get("k1")));
+        final Map<String, Person> deleted = DataStoreUtils.deleteAll(dataStore, Arrays.asList("k2", "k4"));
+        assertThat(deleted.keySet(), contains("k2"));
+        assertThat(delegate.keys(), containsInAnyOrder("k1", "k3"));
+    }
+
+    @Test
+    public void testBulkOperationsOnABulkDataStore() throws Exception {
+        final MemoryDataStore<String, Person> dataStore = new MemoryDataStore<>(Person.class);
+        assertThat(DataStoreUtils.saveAll(dataStore, Collections.singletonMap("k1", new Person())), is(1));
+        assertThat(DataStoreUtils.retrieveAll(dataStore, Collections.singletonList("k1")), hasSize(1));
+        assertThat(DataStoreUtils.deleteAll(dataStore, Collections.singletonList("k1")).keySet(), contains("k1"));
+        assertThat(dataStore.keys(), is(empty()));
+    }
+
+    @Test
+    public void testAtomicOperationsOnANonAtomicDataStore() throws Exception {
+        final MemoryDataStore<String, Person> delegate = new MemoryDataStore<>(Person.class);
+        final SpyingDataStore<String, Person> dataStore = new SpyingDataStore<>(delegate, new AtomicLong());
+        final Person first = new Person();
+        final Person second = new Person();
+        assertThat(DataStoreUtils.put(dataStore, "k", first), is(nullValue()));
+        assertThat(DataStoreUtils.putIfAbsent(dataStore, "k", second), is(first));
+        assertThat(DataStoreUtils.put(dataStore, "k", second), is(first));
+        assertThat(DataStoreUtils.compute(dataStore, "k", new EntityRemappingFunction<String, Person>() {
+            @Override
+            public Person apply(String key, Person current) {
+                return current.setLastName(key);
+            }
+        }).getLastName(), is("k"));
+        assertThat(DataStoreUtils.remove(dataStore, "k"), is(second));
+        assertThat(DataStoreUtils.remove(dataStore, "k"), is(nullValue()));
+        assertThat(DataStoreUtils.compute(dataStore, "k", new EntityRemappingFunction<String, Person>() {
+            @Override
+            public Person apply(String key, Person current) {
+                return null;
+            }
+        }), is(nullValue()));
+        assertThat(delegate.keys(), is(empty()));
+        assertThat(dataStore.getRequests(), is(not(empty())));
+    }
+
+    @Test
+    public void testAtomicOperationsOnAnAtomicDataStore() throws Exception {
+        final MemoryDataStore<String, Person> dataStore = new MemoryDataStore<>(Person.class);
+        final Person person = new Person();
+        assertThat(DataStoreUtils.putIfAbsent(dataStore, "k", person), is(nullValue()));
+        assertThat(DataStoreUtils.put(dataStore, "k", new Person()), is(person));
+        assertThat(DataStoreUtils.remove(dataStore, "k"), is(notNullValue()));
+        assertThat(DataStoreUtils.compute(dataStore, "k", new EntityRemappingFunction<String, Person>() {
+            @Override
+            public Person apply(String key, Person current) {
+                return person;
+            }
+        }), is(person));
+        assertThat(dataStore.retrieve("k"), is(person));
+    }
+
+    @Test
+    public void testSavingVersionedEntitiesOnAVersionedDataStore() throws Exception {
+        final MemoryDataStore<String, VersionedPerson> dataStore = new MemoryDataStore<>(VersionedPerson.class);
+        final VersionedPerson person = new VersionedPerson();
+        assertThat(DataStoreUtils.save(dataStore, "k", person, "version"), is(true));
+        assertThat(person.getVersion(), is(0L));
+        assertThat(DataStoreUtils.save(dataStore, "k", person, "version"), is(false));
+        assertThat(person.getVersion(), is(1L));
+    }
+
+    @Test
+    public void testSavingVersionedEntitiesByComputingThem() throws Exception {
+        final MemoryDataStore<String, VersionedPerson> delegate = new MemoryDataStore<>(VersionedPerson.class);
+        final SpyingDataStore<String, VersionedPerson> dataStore = new SpyingDataStore<>(delegate, new AtomicLong());
+        assertThat(DataStoreUtils.saveVersioned(dataStore, "k", new VersionedPerson(), "version"), is(true));
+        final VersionedPerson update = new VersionedPerson().setVersion(0L);
+        assertThat(DataStoreUtils.saveVersioned(dataStore, "k", update, "version"), is(false));
+        assertThat(update.getVersion(), is(1L));
+        assertThat(delegate.retrieve("k"), is(sameInstance(update)));
+        final VersionedPerson stale = new VersionedPerson().setVersion(0L);
+        try {
+            DataStoreUtils.saveVersioned(dataStore, "k", stale, "version");
+            throw new AssertionError("Expected the save to fail");
+        } catch (OptimisticLockException ignored) {
+        }
+        assertThat(stale.getVersion(), is(0L));
+        assertThat(delegate.retrieve("k"), is(sameInstance(update)));
+    }
+
+    @Test
+    public void testPuttingVersionedEntities() throws Exception {
+        final MemoryDataStore<String, VersionedPerson> delegate = new MemoryDataStore<>(VersionedPerson.class);
+        final SpyingDataStore<String, VersionedPerson> dataStore = new SpyingDataStore<>(delegate, new AtomicLong());
+        final VersionedPerson first = new VersionedPerson();
+        assertThat(DataStoreUtils.put(dataStore, "k", first, "version"), is(nullValue()));
+        final VersionedPerson second = new VersionedPerson().setVersion(0L);
+        assertThat(DataStoreUtils.put(dataStore, "k", second, "version"), is(sameInstance(first)));
+        assertThat(second.getVersion(), is(1L));
+        //the version of the replaced entity is the one it had when it was saved
+        assertThat(first.getVersion(), is(0L));
+        final VersionedPerson third = new VersionedPerson().setVersion(1L);
+        assertThat(DataStoreUtils.put(delegate, "k", third, "version"), is(sameInstance(second)));
+        assertThat(third.getVersion(), is(2L));
+    }
+
+}
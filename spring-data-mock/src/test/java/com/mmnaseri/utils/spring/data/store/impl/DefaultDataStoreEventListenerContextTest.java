@@ -3,11 +3,18 @@ package com.mmnaseri.utils.spring.data.store.impl;
 import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
 import com.mmnaseri.utils.spring.data.sample.mocks.AfterInsertEventListener;
 import com.mmnaseri.utils.spring.data.sample.mocks.AllCatchingEventListener;
+import com.mmnaseri.utils.spring.data.sample.mocks.SpyingListenerContext;
+import com.mmnaseri.utils.spring.data.store.BatchDataStoreEventListener;
 import com.mmnaseri.utils.spring.data.store.DataStoreEvent;
 import com.mmnaseri.utils.spring.data.store.DataStoreEventListener;
 import org.hamcrest.Matchers;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 
@@ -53,6 +60,38 @@ public class DefaultDataStoreEventListenerContextTest {
         assertThat(second.getEvents().get(0), is(event));
     }
 
+    @Test
+    public void testCallingListenersInTheOrderOfRegistration() throws Exception {
+        final List<Object> called = new ArrayList<>();
+        final DefaultDataStoreEventListenerContext context = new DefaultDataStoreEventListenerContext();
+        final List<DataStoreEventListener<?>> listeners = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final Integer index = i;
+            //alternating between the event type and its supertype, which would otherwise be looked up separately
+            if (i % 2 == 0) {
+                listeners.add(new DataStoreEventListener<DataStoreEvent>() {
+                    @Override
+                    public void onEvent(DataStoreEvent event) {
+                        called.add(index);
+                    }
+                });
+            } else {
+                listeners.add(new DataStoreEventListener<AfterInsertDataStoreEvent>() {
+                    @Override
+                    public void onEvent(AfterInsertDataStoreEvent event) {
+                        called.add(index);
+                    }
+                });
+            }
+        }
+        for (DataStoreEventListener<?> listener : listeners) {
+            context.register(listener);
+        }
+        context.trigger(new AfterInsertDataStoreEvent(null, null, null));
+        assertThat(called, contains((Object) 0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+        assertThat(new ArrayList<Object>(context.getListeners(AfterInsertDataStoreEvent.class)), contains(listeners.toArray()));
+    }
+
     @Test
     public void testEventPropagation() throws Exception {
         final AfterInsertDataStoreEvent firstEvent = new AfterInsertDataStoreEvent(null, null, null);
@@ -86,4 +125,108 @@ public class DefaultDataStoreEventListenerContextTest {
         assertThat(child.getListeners(AfterInsertDataStoreEvent.class).get(1), Matchers.<DataStoreEventListener>is(first));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testListenersRegisteredAfterTriggering() throws Exception {
+        final DefaultDataStoreEventListenerContext parent = new DefaultDataStoreEventListenerContext();
+        final DefaultDataStoreEventListenerContext child = new DefaultDataStoreEventListenerContext(parent);
+        child.trigger(new AfterInsertDataStoreEvent(null, null, null));
+        final AfterInsertEventListener first = new AfterInsertEventListener();
+        child.register(first);
+        child.trigger(new AfterInsertDataStoreEvent(null, null, null));
+        assertThat(first.getEvents(), hasSize(1));
+        final AllCatchingEventListener second = new AllCatchingEventListener();
+        parent.register(second);
+        child.trigger(new AfterInsertDataStoreEvent(null, null, null));
+        child.trigger(new BeforeInsertDataStoreEvent(null, null, null));
+        assertThat(first.getEvents(), hasSize(2));
+        assertThat(second.getEvents(), hasSize(2));
+    }
+
+    @Test
+    public void testFindingOutWhetherThereAreListeners() throws Exception {
+        final DefaultDataStoreEventListenerContext parent = new DefaultDataStoreEventListenerContext();
+        final DefaultDataStoreEventListenerContext child = new DefaultDataStoreEventListenerContext(parent);
+        assertThat(child.hasListeners(AfterInsertDataStoreEvent.class), is(false));
+        parent.register(new AfterInsertEventListener());
+        assertThat(child.hasListeners(AfterInsertDataStoreEvent.class), is(true));
+        assertThat(child.hasListeners(AfterDeleteDataStoreEvent.class), is(false));
+        child.register(new AllCatchingEventListener());
+        assertThat(child.hasListeners(AfterDeleteDataStoreEvent.class), is(true));
+        assertThat(parent.hasListeners(AfterDeleteDataStoreEvent.class), is(false));
+    }
+
+    @Test
+    public void testTriggeringOnAParentOfADifferentKind() throws Exception {
+        final SpyingListenerContext parent = new SpyingListenerContext(new AtomicLong());
+        final DefaultDataStoreEventListenerContext child = new DefaultDataStoreEventListenerContext(parent);
+        //we cannot know what the parent will do with the event
+        assertThat(child.hasListeners(AfterInsertDataStoreEvent.class), is(true));
+        final AfterInsertDataStoreEvent event = new AfterInsertDataStoreEvent(null, null, null);
+        child.trigger(event);
+        assertThat(parent.getEvents(), hasSize(1));
+        assertThat(parent.getEvents().get(0).getEvent(), Matchers.<DataStoreEvent>is(event));
+    }
+
+    @Test
+    public void testTriggeringEventsTogether() throws Exception {
+        final AfterInsertEventListener single = new AfterInsertEventListener();
+        final List<List<AfterInsertDataStoreEvent>> batches = new ArrayList<>();
+        final DefaultDataStoreEventListenerContext context = new DefaultDataStoreEventListenerContext();
+        context.register(single);
+        context.register(new BatchDataStoreEventListener<AfterInsertDataStoreEvent>() {
+            @Override
+            public void onEvents(List<AfterInsertDataStoreEvent> events) {
+                batches.add(events);
+            }
+
+            @Override
+            public void onEvent(AfterInsertDataStoreEvent event) {
+                throw new AssertionError("Expected the events to be handed over together");
+            }
+        });
+        final AfterInsertDataStoreEvent first = new AfterInsertDataStoreEvent(null, null, 1);
+        final AfterInsertDataStoreEvent second = new AfterInsertDataStoreEvent(null, null, 2);
+        final AfterDeleteDataStoreEvent third = new AfterDeleteDataStoreEvent(null, null, 3);
+        context.triggerAll(Arrays.asList(first, third, second));
+        assertThat(single.getEvents(), contains(first, second));
+        assertThat(batches, hasSize(1));
+        assertThat(batches.get(0), contains(first, second));
+    }
+
+    @Test
+    public void testTriggeringEventsTogetherWhenAListenerFails() throws Exception {
+        final IllegalStateException error = new IllegalStateException();
+        final AfterInsertEventListener single = new AfterInsertEventListener();
+        final List<AfterInsertDataStoreEvent> batched = new ArrayList<>();
+        final DefaultDataStoreEventListenerContext context = new DefaultDataStoreEventListenerContext();
+        context.register(new DataStoreEventListener<AfterInsertDataStoreEvent>() {
+            @Override
+            public void onEvent(AfterInsertDataStoreEvent event) {
+                throw error;
+            }
+        });
+        context.register(single);
+        context.register(new BatchDataStoreEventListener<AfterInsertDataStoreEvent>() {
+            @Override
+            public void onEvents(List<AfterInsertDataStoreEvent> events) {
+                batched.addAll(events);
+            }
+
+            @Override
+            public void onEvent(AfterInsertDataStoreEvent event) {
+                batched.add(event);
+            }
+        });
+        final AfterInsertDataStoreEvent first = new AfterInsertDataStoreEvent(null, null, 1);
+        final AfterInsertDataStoreEvent second = new AfterInsertDataStoreEvent(null, null, 2);
+        try {
+            context.triggerAll(Arrays.asList(first, second));
+            throw new AssertionError("Expected the failure to be passed on");
+        } catch (IllegalStateException e) {
+            assertThat(e, is(sameInstance(error)));
+        }
+        assertThat(single.getEvents(), contains(first, second));
+        assertThat(batched, contains(first, second));
+    }
+
+}
@@ -1,14 +1,22 @@
 package com.mmnaseri.utils.spring.data.store.impl;
 
+import com.mmnaseri.utils.spring.data.domain.RepositoryMetadata;
+import com.mmnaseri.utils.spring.data.domain.impl.ImmutableRepositoryMetadata;
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
 import com.mmnaseri.utils.spring.data.error.DataStoreNotFoundException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.models.Note;
 import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.repositories.SimplePersonRepository;
 import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreStatistics;
 import org.hamcrest.Matchers;
 import org.testng.annotations.Test;
 
 import java.io.Serializable;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
 
 /**
  * @author Milad Naseri (mmnaseri@programmer.net)
@@ -40,4 +48,143 @@ public class DefaultDataStoreRegistryTest {
         registry.getDataStore(Person.class);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testRollingBackAllDataStores() throws Exception {
+        final DefaultDataStoreRegistry registry = new DefaultDataStoreRegistry();
+        final RepositoryMetadata personMetadata = new ImmutableRepositoryMetadata(String.class, Person.class, SimplePersonRepository.class, "id");
+        final EventPublishingDataStore<String, Person> people = new EventPublishingDataStore<>(new MemoryDataStore<String, Person>(Person.class), personMetadata, new DefaultDataStoreEventListenerContext());
+        final MemoryDataStore<String, Note> notes = new MemoryDataStore<>(Note.class);
+        registry.register(people);
+        registry.register(notes);
+        people.save("1", new Person());
+        final Object savepoint = registry.mark();
+        people.save("2", new Person());
+        notes.save("1", new Note());
+        registry.rollback(savepoint);
+        assertThat(people.keys(), contains("1"));
+        //data stores that do not support savepoints are left alone
+        assertThat(notes.keys(), contains("1"));
+        people.save("3", new Person());
+        registry.release(savepoint);
+        assertThat(people.keys(), containsInAnyOrder("1", "3"));
+    }
+
+    @Test
+    public void testNestedSavepoints() throws Exception {
+        final DefaultDataStoreRegistry registry = new DefaultDataStoreRegistry();
+        final RepositoryMetadata personMetadata = new ImmutableRepositoryMetadata(String.class, Person.class, SimplePersonRepository.class, "id");
+        final EventPublishingDataStore<String, Person> people = new EventPublishingDataStore<>(new MemoryDataStore<String, Person>(Person.class), personMetadata, new DefaultDataStoreEventListenerContext());
+        registry.register(people);
+        final Object outer = registry.mark();
+        people.save("1", new Person());
+        final Object inner = registry.mark();
+        people.save("2", new Person());
+        registry.rollback(inner);
+        assertThat(people.keys(), contains("1"));
+        registry.rollback(outer);
+        assertThat(people.keys(), is(Matchers.<String>empty()));
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testRollingBackPastASavepoint() throws Exception {
+        final DefaultDataStoreRegistry registry = new DefaultDataStoreRegistry();
+        final Object outer = registry.mark();
+        final Object inner = registry.mark();
+        registry.rollback(outer);
+        registry.release(inner);
+    }
+
+    @Test
+    public void testForking() throws Exception {
+        final DefaultDataStoreRegistry registry = new DefaultDataStoreRegistry();
+        final RepositoryMetadata personMetadata = new ImmutableRepositoryMetadata(String.class, Person.class, SimplePersonRepository.class, "id");
+        final EventPublishingDataStore<String, Person> people = new EventPublishingDataStore<>(new PersistentMemoryDataStore<String, Person>(Person.class), personMetadata, new DefaultDataStoreEventListenerContext());
+        final PersistentMemoryDataStore<String, Note> notes = new PersistentMemoryDataStore<>(Note.class);
+        registry.register(people);
+        registry.register(notes);
+        people.save("1", new Person());
+        notes.save("1", new Note());
+        registry.mark();
+        final DefaultDataStoreRegistry fork = registry.fork();
+        assertThat(fork.getDataStore(Person.class), is(instanceOf(EventPublishingDataStore.class)));
+        fork.getDataStore(Person.class).delete("1");
+        fork.<Note, String>getDataStore(Note.class).save("2", new Note());
+        assertThat(people.keys(), contains("1"));
+        assertThat(notes.keys(), contains("1"));
+        assertThat(fork.getDataStore(Person.class).keys(), is(empty()));
+        assertThat(fork.getDataStore(Note.class).keys(), containsInAnyOrder((Object) "1", "2"));
+        //savepoints do not carry over to the fork
+        final Object savepoint = fork.mark();
+        fork.rollback(savepoint);
+    }
+
+    @Test
+    public void testForkingIsolatedDataStores() throws Exception {
+        final DefaultDataStoreRegistry registry = new DefaultDataStoreRegistry();
+        final RepositoryMetadata personMetadata = new ImmutableRepositoryMetadata(String.class, Person.class, SimplePersonRepository.class, "id");
+        final IsolatingDataStore<String, Person> isolated = new IsolatingDataStore<>(new PersistentMemoryDataStore<String, Person>(Person.class));
+        registry.register(new EventPublishingDataStore<>(isolated, personMetadata, new DefaultDataStoreEventListenerContext()));
+        registry.<Person, String>getDataStore(Person.class).save("1", new Person().setLastName("Naseri"));
+        final DefaultDataStoreRegistry fork = registry.fork();
+        final DataStore<String, Person> forked = fork.getDataStore(Person.class);
+        final Person person = forked.retrieve("1");
+        person.setLastName("Sadeghi");
+        assertThat(registry.<Person, String>getDataStore(Person.class).retrieve("1").getLastName(), is("Naseri"));
+        forked.save("1", person);
+        assertThat(forked.retrieve("1").getLastName(), is("Sadeghi"));
+        assertThat(registry.<Person, String>getDataStore(Person.class).retrieve("1").getLastName(), is("Naseri"));
+        assertThat(registry.fork().<Person, String>getDataStore(Person.class).retrieve("1").getLastName(), is("Naseri"));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testForkingWithDataStoresThatCannotBeForked() throws Exception {
+        final DefaultDataStoreRegistry registry = new DefaultDataStoreRegistry();
+        registry.register(new MemoryDataStore<String, Note>(Note.class));
+        registry.fork();
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testInvalidSampleSize() throws Exception {
+        new DefaultDataStoreRegistry(0);
+    }
+
+    @Test(expectedExceptions = DataStoreNotFoundException.class)
+    public void testStatisticsForInvalidDataStore() throws Exception {
+        new DefaultDataStoreRegistry().getStatistics(Person.class);
+    }
+
+    @Test
+    public void testStatisticsKeptByTheDataStore() throws Exception {
+        final DefaultDataStoreRegistry registry = new DefaultDataStoreRegistry();
+        final StatisticsCollectingDataStore<String, Person> dataStore = new StatisticsCollectingDataStore<>(Person.class, "age");
+        registry.register(dataStore);
+        dataStore.save("1", new Person().setAge(1));
+        assertThat(registry.getStatistics(Person.class), is(sameInstance(dataStore.getStatistics())));
+    }
+
+    @Test
+    public void testSamplingDataStores() throws Exception {
+        final MemoryDataStore<String, Person> dataStore = new MemoryDataStore<>(Person.class);
+        for (int i = 0; i < 100; i++) {
+            dataStore.save(String.valueOf(i), new Person().setId(String.valueOf(i)).setLastName("Name" + (i % 5)).setAge(i % 2 == 0 ? null : i));
+        }
+        final DefaultDataStoreRegistry complete = new DefaultDataStoreRegistry();
+        complete.register(dataStore);
+        final DataStoreStatistics statistics = complete.getStatistics(Person.class);
+        assertThat(statistics.isSampled(), is(false));
+        assertThat(statistics.getCount(), is(100L));
+        assertThat(statistics.getProperty("lastName").getDistinctCount(), is(5L));
+        assertThat(statistics.getProperty("age").getNullFraction(), is(0.5D));
+        assertThat(statistics.getProperty("age").getMinimum(), is((Object) 1));
+        assertThat(statistics.getProperty("address"), is(nullValue()));
+        final DefaultDataStoreRegistry sampling = new DefaultDataStoreRegistry(20);
+        sampling.register(dataStore);
+        final DataStoreStatistics sampled = sampling.getStatistics(Person.class);
+        assertThat(sampled.isSampled(), is(true));
+        assertThat(sampled.getCount(), is(100L));
+        assertThat(sampled.getProperty("id").getDistinctCount(), is(both(greaterThan(20L)).and(lessThanOrEqualTo(100L))));
+        assertThat(sampled.getProperty("age").getNullCount(), is(both(greaterThanOrEqualTo(0L)).and(lessThanOrEqualTo(100L))));
+    }
+
+
+}
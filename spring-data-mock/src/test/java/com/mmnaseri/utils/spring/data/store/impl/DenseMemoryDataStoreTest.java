@@ -0,0 +1,257 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.error.OptimisticLockException;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.models.VersionedPerson;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.testng.Assert.fail;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class DenseMemoryDataStoreTest {
+
+    private DenseMemoryDataStore<Long, Person> dataStore;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dataStore = new DenseMemoryDataStore<>(Long.class, Person.class);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testNonIntegralKeyType() throws Exception {
+        new DenseMemoryDataStore<>(String.class, Person.class);
+    }
+
+    @Test
+    public void testSupportedKeyTypes() throws Exception {
+        assertThat(AbstractLongKeyDataStore.supports(Long.class), is(true));
+        assertThat(AbstractLongKeyDataStore.supports(int.class), is(true));
+        assertThat(AbstractLongKeyDataStore.supports(Short.class), is(true));
+        assertThat(AbstractLongKeyDataStore.supports(Byte.class), is(true));
+        assertThat(AbstractLongKeyDataStore.supports(Double.class), is(false));
+        assertThat(AbstractLongKeyDataStore.supports(String.class), is(false));
+    }
+
+    @Test
+    public void testSavingAndRetrieving() throws Exception {
+        final Person person = new Person();
+        assertThat(dataStore.save(1L, person), is(true));
+        assertThat(dataStore.save(1L, person), is(false));
+        assertThat(dataStore.hasKey(1L), is(true));
+        assertThat(dataStore.hasKey(2L), is(false));
+        assertThat(dataStore.hasKey(1L << 40), is(false));
+        assertThat(dataStore.retrieve(1L), is(sameInstance(person)));
+        assertThat(dataStore.retrieve(5000L), is(nullValue()));
+        assertThat(dataStore.size(), is(1));
+        assertThat(dataStore.getEntityType(), is(equalTo(Person.class)));
+        assertThat(dataStore.getKeyType(), is(equalTo(Long.class)));
+    }
+
+    @Test
+    public void testKeysOutsideTheDenseRange() throws Exception {
+        final long large = DenseMemoryDataStore.MAXIMUM_DENSE_KEY;
+        dataStore.save(-5L, new Person().setId("negative"));
+        dataStore.save(large, new Person().setId("large"));
+        dataStore.save(3L, new Person().setId("small"));
+        assertThat(dataStore.retrieve(-5L).getId(), is("negative"));
+        assertThat(dataStore.retrieve(large).getId(), is("large"));
+        assertThat(dataStore.keys(), containsInAnyOrder(3L, -5L, large));
+        //densely held keys come first
+        assertThat(dataStore.keys().iterator().next(), is(3L));
+        assertThat(dataStore.delete(large), is(true));
+        assertThat(dataStore.delete(large), is(false));
+        assertThat(dataStore.size(), is(2));
+    }
+
+    @Test
+    public void testKeysAreListedInOrder() throws Exception {
+        for (long i = 3000; i > 0; i--) {
+            dataStore.save(i, new Person().setId(String.valueOf(i)));
+        }
+        final List<Long> keys = new ArrayList<>(dataStore.keys());
+        assertThat(keys, hasSize(3000));
+        assertThat(keys.get(0), is(1L));
+        assertThat(keys.get(2999), is(3000L));
+        assertThat(dataStore.retrieveAll().iterator().next().getId(), is("1"));
+    }
+
+    @Test
+    public void testDeleting() throws Exception {
+        dataStore.save(1L, new Person());
+        dataStore.save(2L, new Person());
+        assertThat(dataStore.delete(1L), is(true));
+        assertThat(dataStore.delete(1L), is(false));
+        assertThat(dataStore.delete(100000L), is(false));
+        assertThat(dataStore.keys(), contains(2L));
+    }
+
+    @Test
+    public void testConvertingKeys() throws Exception {
+        final DenseMemoryDataStore<Integer, Person> dataStore = new DenseMemoryDataStore<>(Integer.class, Person.class);
+        dataStore.save(1, new Person());
+        assertThat(dataStore.hasKey(1), is(true));
+        assertThat(dataStore.keys(), contains(1));
+        assertThat(dataStore.keys().iterator().next(), is(instanceOf(Integer.class)));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testNonIntegralKey() throws Exception {
+        //the key type has to be widened to get a key of the wrong type past the compiler
+        final DenseMemoryDataStore<Serializable, Person> dataStore = new DenseMemoryDataStore<>((Class<Serializable>) (Class<?>) Long.class, Person.class);
+        dataStore.save("1", new Person());
+    }
+
+    @Test
+    public void testScanning() throws Exception {
+        for (long i = 1; i <= 10; i++) {
+            dataStore.save(i, new Person().setId(String.valueOf(i)));
+        }
+        final List<Long> visited = new ArrayList<>();
+        dataStore.scan(new DataStoreVisitor<Long, Person>() {
+            @Override
+            public boolean visit(Long key, Person entity) {
+                visited.add(key);
+                return visited.size() < 3;
+            }
+        });
+        assertThat(visited, contains(1L, 2L, 3L));
+    }
+
+    @Test
+    public void testAtomicWrites() throws Exception {
+        final Person first = new Person();
+        final Person second = new Person();
+        assertThat(dataStore.put(1L, first), is(nullValue()));
+        assertThat(dataStore.put(1L, second), is(sameInstance(first)));
+        assertThat(dataStore.putIfAbsent(1L, first), is(sameInstance(second)));
+        assertThat(dataStore.putIfAbsent(-1L, first), is(nullValue()));
+        assertThat(dataStore.remove(-1L), is(sameInstance(first)));
+        assertThat(dataStore.remove(-1L), is(nullValue()));
+        final EntityRemappingFunction<Long, Person> toggle = new EntityRemappingFunction<Long, Person>() {
+            @Override
+            public Person apply(Long key, Person current) {
+                return current == null ? new Person().setId(String.valueOf(key)) : null;
+            }
+        };
+        assertThat(dataStore.compute(2L, toggle).getId(), is("2"));
+        assertThat(dataStore.hasKey(2L), is(true));
+        assertThat(dataStore.compute(2L, toggle), is(nullValue()));
+        assertThat(dataStore.hasKey(2L), is(false));
+        assertThat(dataStore.size(), is(1));
+    }
+
+    @Test
+    public void testBulkWrites() throws Exception {
+        final Map<Long, Person> entities = new LinkedHashMap<>();
+        entities.put(1L, new Person().setId("1"));
+        entities.put(2L, new Person().setId("2"));
+        entities.put(DenseMemoryDataStore.MAXIMUM_DENSE_KEY, new Person().setId("large"));
+        assertThat(dataStore.saveAll(entities), is(3));
+        assertThat(dataStore.saveAll(entities), is(0));
+        assertThat(dataStore.retrieveAll(Arrays.asList(2L, 3L, DenseMemoryDataStore.MAXIMUM_DENSE_KEY)), contains(entities.get(2L), entities.get(DenseMemoryDataStore.MAXIMUM_DENSE_KEY)));
+        assertThat(dataStore.deleteAll(Arrays.asList(2L, 3L, 1L)).keySet(), contains(2L, 1L));
+        assertThat(dataStore.keys(), contains(DenseMemoryDataStore.MAXIMUM_DENSE_KEY));
+    }
+
+    @Test
+    public void testBulkWritesWithANullEntity() throws Exception {
+        final Map<Long, Person> entities = new LinkedHashMap<>();
+        entities.put(1L, new Person());
+        entities.put(2L, null);
+        try {
+            dataStore.saveAll(entities);
+        } catch (DataStoreException ignored) {
+        }
+        assertThat(dataStore.keys(), is(empty()));
+    }
+
+    @Test
+    public void testVersionedWrites() throws Exception {
+        final DenseMemoryDataStore<Long, VersionedPerson> dataStore = new DenseMemoryDataStore<>(Long.class, VersionedPerson.class);
+        final VersionedPerson person = new VersionedPerson();
+        assertThat(dataStore.save(1L, person, "version"), is(true));
+        assertThat(dataStore.save(1L, new VersionedPerson().setVersion(person.getVersion()), "version"), is(false));
+        try {
+            dataStore.save(1L, new VersionedPerson().setVersion(person.getVersion()), "version");
+            fail("Expected the stale entity to be turned down");
+        } catch (OptimisticLockException ignored) {
+        }
+        assertThat(dataStore.retrieve(1L).getVersion(), is(person.getVersion() + 1));
+    }
+
+    @Test
+    public void testReadingWhileWriting() throws Exception {
+        for (long i = 1; i <= 100; i++) {
+            dataStore.save(i, new Person().setId(String.valueOf(i)));
+        }
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                //the keys are spread out so that new chunks keep being added
+                for (long i = 1; i <= 5000; i++) {
+                    dataStore.save(i * 1000, new Person());
+                    dataStore.save(-i, new Person());
+                    dataStore.delete(i * 1000 - 1000);
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            for (long i = 1; i <= 100; i++) {
+                assertThat(dataStore.retrieve(i).getId(), is(String.valueOf(i)));
+            }
+        }
+        writer.join();
+        assertThat(dataStore.hasKey(5000000L), is(true));
+        assertThat(dataStore.hasKey(-5000L), is(true));
+    }
+
+    @Test
+    public void testTruncating() throws Exception {
+        dataStore.save(1L, new Person());
+        dataStore.save(-1L, new Person());
+        dataStore.truncate();
+        assertThat(dataStore.keys(), is(empty()));
+        assertThat(dataStore.size(), is(0));
+        assertThat(dataStore.retrieve(1L), is(nullValue()));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingWithNullKey() throws Exception {
+        dataStore.save(null, new Person());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingNullEntity() throws Exception {
+        dataStore.save(1L, null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDeletingWithNullKey() throws Exception {
+        dataStore.delete(null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testRetrievingWithNullKey() throws Exception {
+        dataStore.retrieve(null);
+    }
+
+}
@@ -1,21 +1,51 @@
 package com.mmnaseri.utils.spring.data.store.impl;
 
+import com.mmnaseri.utils.spring.data.domain.Modifier;
+import com.mmnaseri.utils.spring.data.domain.Parameter;
 import com.mmnaseri.utils.spring.data.domain.RepositoryMetadata;
+import com.mmnaseri.utils.spring.data.domain.impl.DefaultOperatorContext;
+import com.mmnaseri.utils.spring.data.domain.impl.ImmutableInvocation;
+import com.mmnaseri.utils.spring.data.domain.impl.ImmutableParameter;
 import com.mmnaseri.utils.spring.data.domain.impl.ImmutableRepositoryMetadata;
 import com.mmnaseri.utils.spring.data.error.CorruptDataException;
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.error.OptimisticLockException;
+import com.mmnaseri.utils.spring.data.query.NullHandling;
+import com.mmnaseri.utils.spring.data.query.SortDirection;
+import com.mmnaseri.utils.spring.data.query.impl.ImmutableOrder;
 import com.mmnaseri.utils.spring.data.sample.mocks.*;
 import com.mmnaseri.utils.spring.data.sample.models.DummyEvent;
 import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.models.VersionedPerson;
 import com.mmnaseri.utils.spring.data.sample.repositories.SimplePersonRepository;
+import com.mmnaseri.utils.spring.data.store.ChangeCursor;
+import com.mmnaseri.utils.spring.data.store.ChangeType;
 import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreChange;
 import com.mmnaseri.utils.spring.data.store.DataStoreEvent;
+import com.mmnaseri.utils.spring.data.store.DataStoreEventListener;
+import com.mmnaseri.utils.spring.data.store.DataStoreEventListenerContext;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import com.mmnaseri.utils.spring.data.store.SelectiveDataStoreEventListenerContext;
 import org.hamcrest.Matchers;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -97,6 +127,117 @@ public class EventPublishingDataStoreTest {
         assertThat(called.get(), is(true));
     }
 
+    @Test
+    public void testColumnarSelectionDelegation() throws Exception {
+        final List<List<Parameter>> branches = Collections.singletonList(Collections.<Parameter>singletonList(new ImmutableParameter("lastName", Collections.<Modifier>emptySet(), new int[]{0}, new DefaultOperatorContext().getBySuffix("Is"))));
+        final ImmutableInvocation invocation = new ImmutableInvocation(null, new Object[]{"Naseri"});
+        final EventPublishingDataStore<String, Person> columnar = new EventPublishingDataStore<>(new ColumnarMemoryDataStore<String, Person>(Person.class, "lastName"), repositoryMetadata, listenerContext);
+        final Person person = new Person().setLastName("Naseri");
+        columnar.save("k1", person);
+        columnar.save("k2", new Person().setLastName("Smith"));
+        assertThat(columnar.select(branches, invocation), contains(person));
+        assertThat(((EventPublishingDataStore<String, Person>) dataStore).select(branches, invocation), is(nullValue()));
+    }
+
+    @Test
+    public void testStatisticsDelegation() throws Exception {
+        final EventPublishingDataStore<String, Person> collecting = new EventPublishingDataStore<>(new StatisticsCollectingDataStore<String, Person>(Person.class, "lastName"), repositoryMetadata, listenerContext);
+        collecting.save("k1", new Person().setLastName("Naseri"));
+        assertThat(collecting.getStatistics().getCount(), is(1L));
+        assertThat(((EventPublishingDataStore<String, Person>) dataStore).getStatistics(), is(nullValue()));
+    }
+
+    @Test
+    public void testLookupDelegation() throws Exception {
+        final ImmutableParameter parameter = new ImmutableParameter("lastName", Collections.<Modifier>emptySet(), new int[]{0}, new DefaultOperatorContext().getBySuffix("Is"));
+        final EventPublishingDataStore<String, Person> indexed = new EventPublishingDataStore<>(new IndexedMemoryDataStore<String, Person>(Person.class, "lastName"), repositoryMetadata, listenerContext);
+        indexed.save("k1", new Person().setLastName("Naseri"));
+        assertThat(indexed.lookup(parameter, "Naseri"), containsInAnyOrder("k1"));
+        assertThat(((EventPublishingDataStore<String, Person>) dataStore).lookup(parameter, "Naseri"), is(nullValue()));
+    }
+
+    @Test
+    public void testSortDelegation() throws Exception {
+        final ImmutableOrder order = new ImmutableOrder(SortDirection.ASCENDING, "age", NullHandling.DEFAULT);
+        final IndexedMemoryDataStore<String, Person> delegate = new IndexedMemoryDataStore<>(Person.class);
+        delegate.register(new SkipListPropertyIndex<String>("age"));
+        final EventPublishingDataStore<String, Person> indexed = new EventPublishingDataStore<>(delegate, repositoryMetadata, listenerContext);
+        indexed.save("k1", new Person().setAge(20));
+        indexed.save("k2", new Person().setAge(10));
+        assertThat(indexed.sort(order), contains("k2", "k1"));
+        assertThat(((EventPublishingDataStore<String, Person>) dataStore).sort(order), is(nullValue()));
+    }
+
+    @Test
+    public void testFlushDelegation() throws Exception {
+        ((EventPublishingDataStore<String, Person>) dataStore).flush();
+        assertThat(delegateSpy.getRequests(), hasSize(1));
+        assertThat(delegateSpy.getRequests().get(0).getOperation(), is(Operation.FLUSH));
+    }
+
+    @Test
+    public void testEventsAreDeferredUntilTheBatchEnds() throws Exception {
+        final EventPublishingDataStore<String, Person> store = (EventPublishingDataStore<String, Person>) dataStore;
+        final Object outer = store.startBatch();
+        final Object inner = store.startBatch();
+        store.save("k1", new Person());
+        store.save("k1", new Person());
+        store.delete("k1");
+        assertThat(listenerContext.getEvents(), hasSize(3));
+        assertThat(listenerContext.getEvents().get(0).getEvent(), is(instanceOf(BeforeInsertDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(1).getEvent(), is(instanceOf(BeforeUpdateDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(2).getEvent(), is(instanceOf(BeforeDeleteDataStoreEvent.class)));
+        store.endBatch(inner);
+        assertThat(listenerContext.getEvents(), hasSize(3));
+        store.endBatch(outer);
+        assertThat(listenerContext.getEvents(), hasSize(6));
+        assertThat(listenerContext.getEvents().get(3).getEvent(), is(instanceOf(AfterInsertDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(4).getEvent(), is(instanceOf(AfterUpdateDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(5).getEvent(), is(instanceOf(AfterDeleteDataStoreEvent.class)));
+        store.save("k2", new Person());
+        assertThat(listenerContext.getEvents(), hasSize(8));
+    }
+
+    @Test
+    public void testBatchesBelongToTheThreadThatStartedThem() throws Exception {
+        final EventPublishingDataStore<String, Person> store = (EventPublishingDataStore<String, Person>) dataStore;
+        final Object batch = store.startBatch();
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                store.save("k1", new Person());
+            }
+        });
+        thread.start();
+        thread.join();
+        assertThat(listenerContext.getEvents(), hasSize(2));
+        assertThat(listenerContext.getEvents().get(1).getEvent(), is(instanceOf(AfterInsertDataStoreEvent.class)));
+        store.save("k2", new Person());
+        assertThat(listenerContext.getEvents(), hasSize(3));
+        store.endBatch(batch);
+        assertThat(listenerContext.getEvents(), hasSize(4));
+    }
+
+    @Test
+    public void testBatchIsEndedEvenIfTheDelegateFailsToEndIt() throws Exception {
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(new QueueingMemoryDataStore<String, Person>(Person.class), repositoryMetadata, listenerContext);
+        final Object outer = store.startBatch();
+        final Object inner = store.startBatch();
+        store.save("k1", new Person());
+        try {
+            store.endBatch(outer);
+            throw new AssertionError("Expected the delegate to refuse to end the batches out of order");
+        } catch (DataStoreException ignored) {
+            //this is expected
+        }
+        assertThat(listenerContext.getEvents(), hasSize(1));
+        store.endBatch(inner);
+        assertThat(listenerContext.getEvents(), hasSize(2));
+        assertThat(listenerContext.getEvents().get(1).getEvent(), is(instanceOf(AfterInsertDataStoreEvent.class)));
+        store.save("k2", new Person());
+        assertThat(listenerContext.getEvents(), hasSize(4));
+    }
+
     @Test(expectedExceptions = CorruptDataException.class)
     public void testSavingNullKey() throws Exception {
         dataStore.save(null, new Person());
@@ -170,8 +311,8 @@ public class EventPublishingDataStoreTest {
         assertThat(listenerContext.getEvents(), hasSize(2));
         assertThat(listenerContext.getEvents().get(0).getEvent(), is(instanceOf(BeforeDeleteDataStoreEvent.class)));
         assertThat(listenerContext.getEvents().get(1).getEvent(), is(instanceOf(AfterDeleteDataStoreEvent.class)));
-        assertThat(delegateSpy.getRequests(), hasSize(3));
-        final OperationRequest request = delegateSpy.getRequests().get(2);
+        assertThat(delegateSpy.getRequests(), hasSize(2));
+        final OperationRequest request = delegateSpy.getRequests().get(1);
         assertThat(request.getOperation(), is(Operation.DELETE));
         assertThat(request.getKey(), Matchers.<Serializable>is(key));
         assertThat(request.getEntity(), is(nullValue()));
@@ -195,4 +336,599 @@ public class EventPublishingDataStoreTest {
         assertThat(delegate.retrieveAll(), is(Matchers.<Person>empty()));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testRollingBackWithoutPublishingEvents() throws Exception {
+        final EventPublishingDataStore<String, Person> store = (EventPublishingDataStore<String, Person>) dataStore;
+        store.save("k1", new Person().setFirstName("original"));
+        final int events = listenerContext.getEvents().size();
+        final Object savepoint = store.mark();
+        store.save("k1", new Person());
+        store.save("k2", new Person());
+        store.truncate();
+        store.rollback(savepoint);
+        assertThat(delegate.keys(), contains("k1"));
+        assertThat(delegate.retrieve("k1").getFirstName(), is("original"));
+        assertThat(listenerContext.getEvents(), hasSize(events + 4));
+        store.release(savepoint);
+    }
+
+    @Test
+    public void testRollingBackAnEntityChangedInPlace() throws Exception {
+        final EventPublishingDataStore<String, Person> store = (EventPublishingDataStore<String, Person>) dataStore;
+        final Person original = new Person().setId("k1").setFirstName("original");
+        store.save("k1", original);
+        final Object savepoint = store.mark();
+        final Person retrieved = store.retrieve("k1");
+        assertThat(retrieved, is(not(sameInstance(original))));
+        retrieved.setFirstName("changed");
+        store.save("k1", retrieved);
+        final List<Person> scanned = new ArrayList<>();
+        store.scan(new DataStoreVisitor<String, Person>() {
+            @Override
+            public boolean visit(String key, Person entity) {
+                scanned.add(entity);
+                return true;
+            }
+        });
+        scanned.get(0).setFirstName("changed again");
+        store.retrieveAll().iterator().next().setFirstName("changed again");
+        assertThat(store.retrieve("k1").getFirstName(), is("changed"));
+        store.rollback(savepoint);
+        assertThat(store.retrieve("k1").getFirstName(), is("original"));
+        store.release(savepoint);
+        //without savepoints, the entities are handed out as they are
+        assertThat(store.retrieve("k1"), is(sameInstance(delegate.retrieve("k1"))));
+    }
+
+    @Test
+    public void testVersionedSaveDelegation() throws Exception {
+        final EventPublishingDataStore<String, VersionedPerson> store = new EventPublishingDataStore<>(new MemoryDataStore<String, VersionedPerson>(VersionedPerson.class), repositoryMetadata, listenerContext, new ChangeLog<String, VersionedPerson>(VersionedPerson.class));
+        assertThat(store.save("k1", new VersionedPerson(), "version"), is(true));
+        final VersionedPerson update = new VersionedPerson().setVersion(0L);
+        assertThat(store.save("k1", update, "version"), is(false));
+        assertThat(update.getVersion(), is(1L));
+        assertThat(listenerContext.getEvents(), hasSize(4));
+        assertThat(listenerContext.getEvents().get(3).getEvent(), is(instanceOf(AfterUpdateDataStoreEvent.class)));
+        assertThat(store.getChanges().getLastSequence(), is(2L));
+    }
+
+    @Test
+    public void testVersionedSaveReportsTheReplacedEntity() throws Exception {
+        final VersionedPerson replacement = new VersionedPerson().setVersion(0L);
+        final MemoryDataStore<String, VersionedPerson> delegate = new MemoryDataStore<String, VersionedPerson>(VersionedPerson.class) {
+            @Override
+            public VersionedPerson put(String key, VersionedPerson entity, String versionProperty) {
+                //another entity with the same version is saved after the key has been looked up
+                save(key, replacement);
+                return super.put(key, entity, versionProperty);
+            }
+        };
+        final EventPublishingDataStore<String, VersionedPerson> store = new EventPublishingDataStore<>(delegate, repositoryMetadata, listenerContext, new ChangeLog<String, VersionedPerson>(VersionedPerson.class));
+        delegate.save("k1", new VersionedPerson().setVersion(0L));
+        final ChangeCursor<String, VersionedPerson> cursor = store.getChanges().openCursor();
+        final VersionedPerson update = new VersionedPerson().setVersion(0L);
+        assertThat(store.put("k1", update, "version"), is(sameInstance(replacement)));
+        final List<DataStoreChange<String, VersionedPerson>> changes = cursor.poll(10);
+        assertThat(changes, hasSize(1));
+        assertThat(changes.get(0).getPrevious(), is(sameInstance(replacement)));
+        assertThat(changes.get(0).getCurrent(), is(sameInstance(update)));
+        assertThat(update.getVersion(), is(1L));
+    }
+
+    @Test
+    public void testVersionedSaveWithoutDelegateSupport() throws Exception {
+        final EventPublishingDataStore<String, VersionedPerson> store = new EventPublishingDataStore<>(new PersistentMemoryDataStore<String, VersionedPerson>(VersionedPerson.class), repositoryMetadata, listenerContext, new ChangeLog<String, VersionedPerson>(VersionedPerson.class));
+        store.save("k1", new VersionedPerson(), "version");
+        store.save("k1", new VersionedPerson().setVersion(0L), "version");
+        final VersionedPerson stale = new VersionedPerson().setVersion(0L);
+        final int published = listenerContext.getEvents().size();
+        try {
+            store.save("k1", stale, "version");
+            throw new AssertionError("Expected a version conflict");
+        } catch (OptimisticLockException e) {
+            assertThat(e.getActualVersion(), is((Object) 1L));
+        }
+        //the version is checked before any of the "before" events are published
+        assertThat(listenerContext.getEvents(), hasSize(published));
+        assertThat(stale.getVersion(), is(0L));
+        assertThat(store.retrieve("k1").getVersion(), is(1L));
+        assertThat(store.getChanges().getLastSequence(), is(2L));
+    }
+
+    @Test
+    public void testSavepointDelegation() throws Exception {
+        final EventPublishingDataStore<String, Person> inner = new EventPublishingDataStore<>(delegate, repositoryMetadata, listenerContext);
+        final EventPublishingDataStore<String, Person> outer = new EventPublishingDataStore<>(inner, repositoryMetadata, listenerContext);
+        final Object savepoint = outer.mark();
+        outer.save("k1", new Person());
+        inner.rollback(savepoint);
+        assertThat(delegate.keys(), is(Matchers.<String>empty()));
+    }
+
+    @Test
+    public void testForking() throws Exception {
+        final EventPublishingDataStore<String, Person> original = new EventPublishingDataStore<>(new PersistentMemoryDataStore<String, Person>(Person.class), repositoryMetadata, listenerContext);
+        original.save("k1", new Person());
+        final EventPublishingDataStore<String, Person> fork = original.fork();
+        assertThat(fork.getDelegate(), is(instanceOf(PersistentMemoryDataStore.class)));
+        final int events = listenerContext.getEvents().size();
+        fork.save("k2", new Person());
+        assertThat(listenerContext.getEvents(), hasSize(events + 2));
+        assertThat(fork.keys(), containsInAnyOrder("k1", "k2"));
+        assertThat(original.keys(), contains("k1"));
+    }
+
+    @Test
+    public void testPublishingDeleteEventsOnEviction() throws Exception {
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(new EvictingMemoryDataStore<String, Person>(Person.class, EvictionPolicy.LEAST_RECENTLY_USED, 1), repositoryMetadata, listenerContext);
+        final Person first = new Person();
+        store.save("k1", first);
+        store.save("k2", new Person());
+        assertThat(store.keys(), contains("k2"));
+        assertThat(listenerContext.getEvents(), hasSize(5));
+        final DataStoreEvent event = listenerContext.getEvents().get(3).getEvent();
+        assertThat(event, is(instanceOf(AfterDeleteDataStoreEvent.class)));
+        assertThat(((AfterDeleteDataStoreEvent) event).getEntity(), is((Object) first));
+        assertThat(event.getDataStore(), is((DataStore) store));
+        assertThat(listenerContext.getEvents().get(4).getEvent(), is(instanceOf(AfterInsertDataStoreEvent.class)));
+    }
+
+    @Test
+    public void testRecordingChanges() throws Exception {
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(delegate, repositoryMetadata, listenerContext, new ChangeLog<String, Person>(Person.class));
+        final ChangeCursor<String, Person> cursor = store.getChanges().openCursor();
+        final Person first = new Person();
+        final Person second = new Person();
+        store.save("k1", first);
+        store.save("k1", second);
+        store.delete("k1");
+        store.delete("k2");
+        final List<DataStoreChange<String, Person>> changes = cursor.poll(10);
+        assertThat(changes, hasSize(3));
+        assertThat(changes.get(0).getSequence(), is(1L));
+        assertThat(changes.get(0).getType(), is(ChangeType.INSERT));
+        assertThat(changes.get(0).getKey(), is("k1"));
+        assertThat(changes.get(0).getPrevious(), is(nullValue()));
+        assertThat(changes.get(0).getCurrent(), is(sameInstance(first)));
+        assertThat(changes.get(1).getType(), is(ChangeType.UPDATE));
+        assertThat(changes.get(1).getPrevious(), is(sameInstance(first)));
+        assertThat(changes.get(1).getCurrent(), is(sameInstance(second)));
+        assertThat(changes.get(2).getType(), is(ChangeType.DELETE));
+        assertThat(changes.get(2).getPrevious(), is(sameInstance(second)));
+        assertThat(changes.get(2).getCurrent(), is(nullValue()));
+        assertThat(cursor.getLag(), is(0L));
+    }
+
+    @Test
+    public void testRecordingBulkChanges() throws Exception {
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(delegate, repositoryMetadata, listenerContext, new ChangeLog<String, Person>(Person.class));
+        store.save("k1", new Person());
+        final ChangeCursor<String, Person> cursor = store.getChanges().openCursor();
+        final Map<String, Person> entities = new LinkedHashMap<>();
+        entities.put("k1", new Person());
+        entities.put("k2", new Person());
+        store.saveAll(entities);
+        store.deleteAll(Arrays.asList("k1", "k3"));
+        store.truncate();
+        final List<ChangeType> types = new ArrayList<>();
+        final List<String> keys = new ArrayList<>();
+        for (DataStoreChange<String, Person> change : cursor.poll(10)) {
+            types.add(change.getType());
+            keys.add(change.getKey());
+        }
+        assertThat(types, contains(ChangeType.UPDATE, ChangeType.INSERT, ChangeType.DELETE, ChangeType.TRUNCATE));
+        assertThat(keys, contains("k1", "k2", "k1", null));
+    }
+
+    @Test
+    public void testRecordingRolledBackChanges() throws Exception {
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(delegate, repositoryMetadata, listenerContext, new ChangeLog<String, Person>(Person.class));
+        store.save("k1", new Person().setFirstName("original"));
+        final Object savepoint = store.mark();
+        final Person replacement = new Person().setFirstName("replacement");
+        store.save("k1", replacement);
+        store.save("k2", new Person());
+        final ChangeCursor<String, Person> cursor = store.getChanges().openCursor();
+        store.rollback(savepoint);
+        final List<DataStoreChange<String, Person>> changes = cursor.poll(10);
+        assertThat(changes, hasSize(2));
+        assertThat(changes.get(0).getType(), is(ChangeType.DELETE));
+        assertThat(changes.get(0).getKey(), is("k2"));
+        assertThat(changes.get(1).getType(), is(ChangeType.UPDATE));
+        assertThat(changes.get(1).getPrevious(), is(sameInstance(replacement)));
+        assertThat(changes.get(1).getCurrent().getFirstName(), is("original"));
+    }
+
+    @Test
+    public void testRecordingEvictions() throws Exception {
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(new EvictingMemoryDataStore<String, Person>(Person.class, EvictionPolicy.LEAST_RECENTLY_USED, 1), repositoryMetadata, listenerContext, new ChangeLog<String, Person>(Person.class));
+        final Person first = new Person();
+        store.save("k1", first);
+        store.save("k2", new Person());
+        final List<DataStoreChange<String, Person>> changes = store.getChanges().openCursor(1).poll(10);
+        assertThat(changes, hasSize(3));
+        assertThat(changes.get(1).getType(), is(ChangeType.DELETE));
+        assertThat(changes.get(1).getPrevious(), is(sameInstance(first)));
+    }
+
+    @Test
+    public void testRecordingConcurrentChangesInOrder() throws Exception {
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(delegate, repositoryMetadata, listenerContext, new ChangeLog<String, Person>(Person.class, 4096, 0, TimeUnit.SECONDS));
+        final ChangeCursor<String, Person> cursor = store.getChanges().openCursor();
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 250; j++) {
+                        store.save("k1", new Person());
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        final List<DataStoreChange<String, Person>> changes = cursor.poll(4096);
+        assertThat(changes, hasSize(2000));
+        for (int i = 1; i < changes.size(); i++) {
+            assertThat(changes.get(i).getPrevious(), is(sameInstance(changes.get(i - 1).getCurrent())));
+        }
+        assertThat(changes.get(changes.size() - 1).getCurrent(), is(sameInstance(delegate.retrieve("k1"))));
+    }
+
+    @Test
+    public void testPublishingOnePairOfEventsPerConcurrentSave() throws Exception {
+        final CountingListenerContext context = new CountingListenerContext();
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(delegate, repositoryMetadata, context);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 200; j++) {
+                        store.put("k" + j, new Person());
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(context.count(BeforeInsertDataStoreEvent.class), is(200));
+        assertThat(context.count(AfterInsertDataStoreEvent.class), is(200));
+        assertThat(context.count(BeforeUpdateDataStoreEvent.class), is(1400));
+        assertThat(context.count(AfterUpdateDataStoreEvent.class), is(1400));
+    }
+
+    @Test
+    public void testNotRecordingChangesWithoutAChangeLog() throws Exception {
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(new PersistentMemoryDataStore<String, Person>(Person.class), repositoryMetadata, listenerContext);
+        store.save("k1", new Person());
+        store.truncate();
+        assertThat(store.getChanges(), is(nullValue()));
+        assertThat(store.fork().getChanges(), is(nullValue()));
+    }
+
+    @Test
+    public void testForkingChangeLog() throws Exception {
+        final EventPublishingDataStore<String, Person> original = new EventPublishingDataStore<>(new PersistentMemoryDataStore<String, Person>(Person.class), repositoryMetadata, listenerContext, new ChangeLog<String, Person>(Person.class, 16, 0, TimeUnit.SECONDS));
+        original.save("k1", new Person());
+        final EventPublishingDataStore<String, Person> fork = original.fork();
+        fork.save("k2", new Person());
+        assertThat(original.getChanges().getLastSequence(), is(1L));
+        assertThat(fork.getChanges().getLastSequence(), is(1L));
+        assertThat(((ChangeLog) fork.getChanges()).getCapacity(), is(16));
+    }
+
+    @Test
+    public void testPartitionDelegation() throws Exception {
+        final ShardedMemoryDataStore<String, Person> sharded = new ShardedMemoryDataStore<>(Person.class, 3);
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(sharded, repositoryMetadata, listenerContext);
+        for (int i = 0; i < 10; i++) {
+            store.save("k" + i, new Person());
+        }
+        assertThat(store.getPartitionCount(), is(3));
+        for (int i = 0; i < 3; i++) {
+            final List<String> expected = new ArrayList<>();
+            final List<String> actual = new ArrayList<>();
+            sharded.scan(i, new KeyCollector(expected));
+            store.scan(i, new KeyCollector(actual));
+            assertThat(actual, is(expected));
+        }
+    }
+
+    @Test
+    public void testPresentingAnUnpartitionedDelegateAsASinglePartition() throws Exception {
+        final EventPublishingDataStore<String, Person> store = (EventPublishingDataStore<String, Person>) dataStore;
+        store.save("k1", new Person());
+        store.save("k2", new Person());
+        assertThat(store.getPartitionCount(), is(1));
+        final List<String> keys = new ArrayList<>();
+        store.scan(0, new KeyCollector(keys));
+        assertThat(keys, containsInAnyOrder("k1", "k2"));
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testScanningAMissingPartitionOfAnUnpartitionedDelegate() throws Exception {
+        ((EventPublishingDataStore<String, Person>) dataStore).scan(1, new KeyCollector(new ArrayList<String>()));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testForkingWithoutAForkableDelegate() throws Exception {
+        ((EventPublishingDataStore<String, Person>) dataStore).fork();
+    }
+
+    @Test
+    public void testSavingInBulk() throws Exception {
+        final EventPublishingDataStore<String, Person> store = (EventPublishingDataStore<String, Person>) dataStore;
+        delegate.save("k1", new Person());
+        final Map<String, Person> entities = new LinkedHashMap<>();
+        entities.put("k1", new Person());
+        entities.put("k2", new Person());
+        assertThat(store.saveAll(entities), is(1));
+        assertThat(delegate.keys(), containsInAnyOrder("k1", "k2"));
+        assertThat(delegate.retrieve("k1"), is(sameInstance(entities.get("k1"))));
+        assertThat(listenerContext.getEvents(), hasSize(4));
+        assertThat(listenerContext.getEvents().get(0).getEvent(), is(instanceOf(BeforeUpdateDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(1).getEvent(), is(instanceOf(BeforeInsertDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(2).getEvent(), is(instanceOf(AfterUpdateDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(3).getEvent(), is(instanceOf(AfterInsertDataStoreEvent.class)));
+        final long lastSave = delegateSpy.getRequests().get(delegateSpy.getRequests().size() - 1).getTimestamp();
+        assertThat(listenerContext.getEvents().get(1).getTimestamp(), is(lessThan(lastSave)));
+        assertThat(listenerContext.getEvents().get(2).getTimestamp(), is(greaterThan(lastSave)));
+    }
+
+    @Test(expectedExceptions = CorruptDataException.class)
+    public void testSavingInBulkWithANullEntity() throws Exception {
+        ((EventPublishingDataStore<String, Person>) dataStore).saveAll(Collections.<String, Person>singletonMap("k1", null));
+    }
+
+    @Test
+    public void testDeletingInBulk() throws Exception {
+        final EventPublishingDataStore<String, Person> store = (EventPublishingDataStore<String, Person>) dataStore;
+        final Person first = new Person();
+        delegate.save("k1", first);
+        delegate.save("k2", new Person());
+        final Map<String, Person> deleted = store.deleteAll(Arrays.asList("k1", "k3"));
+        assertThat(deleted.keySet(), contains("k1"));
+        assertThat(deleted.get("k1"), is(sameInstance(first)));
+        assertThat(delegate.keys(), contains("k2"));
+        assertThat(listenerContext.getEvents(), hasSize(2));
+        assertThat(listenerContext.getEvents().get(0).getEvent(), is(instanceOf(BeforeDeleteDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(1).getEvent(), is(instanceOf(AfterDeleteDataStoreEvent.class)));
+        assertThat(store.retrieveAll(Arrays.asList("k1", "k2")), hasSize(1));
+    }
+
+    @Test
+    public void testRollingBackBulkOperations() throws Exception {
+        final EventPublishingDataStore<String, Person> store = (EventPublishingDataStore<String, Person>) dataStore;
+        delegate.save("k1", new Person());
+        final Object savepoint = store.mark();
+        store.saveAll(Collections.singletonMap("k2", new Person()));
+        store.deleteAll(Collections.singletonList("k1"));
+        store.rollback(savepoint);
+        assertThat(delegate.keys(), contains("k1"));
+    }
+
+    @Test
+    public void testSkippingEventsNobodyListensTo() throws Exception {
+        final SelectiveListenerContext context = new SelectiveListenerContext();
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(delegate, repositoryMetadata, context);
+        store.save("k1", new Person());
+        store.save("k1", new Person());
+        store.saveAll(Collections.singletonMap("k2", new Person()));
+        store.delete("k1");
+        store.deleteAll(Collections.singletonList("k2"));
+        assertThat(context.triggered, Matchers.<Class<?>>contains(AfterInsertDataStoreEvent.class, AfterInsertDataStoreEvent.class));
+        assertThat(delegate.keys(), is(Matchers.<String>empty()));
+    }
+
+    @Test
+    public void testSingleProbeWritesOnAnAtomicDelegate() throws Exception {
+        final AtomicInteger probes = new AtomicInteger();
+        final MemoryDataStore<String, Person> atomic = new MemoryDataStore<String, Person>(Person.class) {
+            @Override
+            public boolean hasKey(String key) {
+                probes.incrementAndGet();
+                return super.hasKey(key);
+            }
+
+            @Override
+            public Person retrieve(String key) {
+                probes.incrementAndGet();
+                return super.retrieve(key);
+            }
+        };
+        final SelectiveListenerContext context = new SelectiveListenerContext();
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(atomic, repositoryMetadata, context);
+        final Person first = new Person();
+        final Person second = new Person();
+        assertThat(store.put("k", first), is(nullValue()));
+        assertThat(store.put("k", second), is(first));
+        assertThat(store.remove("k"), is(second));
+        assertThat(store.remove("k"), is(nullValue()));
+        assertThat(probes.get(), is(0));
+        assertThat(context.triggered, Matchers.<Class<?>>contains(AfterInsertDataStoreEvent.class));
+    }
+
+    @Test
+    public void testPuttingIfAbsent() throws Exception {
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(delegate, repositoryMetadata, listenerContext);
+        final Person first = new Person();
+        assertThat(store.putIfAbsent("k", first), is(nullValue()));
+        assertThat(store.putIfAbsent("k", new Person()), is(first));
+        assertThat(delegate.retrieve("k"), is(first));
+        assertThat(listenerContext.getEvents(), hasSize(2));
+        assertThat(listenerContext.getEvents().get(0).getEvent(), is(instanceOf(BeforeInsertDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(1).getEvent(), is(instanceOf(AfterInsertDataStoreEvent.class)));
+    }
+
+    @Test
+    public void testPuttingIfAbsentOnANonAtomicDelegate() throws Exception {
+        final EventPublishingDataStore<String, Person> store = (EventPublishingDataStore<String, Person>) dataStore;
+        final Person first = new Person();
+        assertThat(store.putIfAbsent("k", first), is(nullValue()));
+        assertThat(store.putIfAbsent("k", new Person()), is(first));
+        assertThat(delegate.retrieve("k"), is(first));
+        assertThat(listenerContext.getEvents(), hasSize(2));
+    }
+
+    @Test
+    public void testPuttingOnAnAtomicDelegate() throws Exception {
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(delegate, repositoryMetadata, listenerContext);
+        store.put("k", new Person());
+        store.put("k", new Person());
+        store.remove("k");
+        assertThat(listenerContext.getEvents(), hasSize(6));
+        assertThat(listenerContext.getEvents().get(0).getEvent(), is(instanceOf(BeforeInsertDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(1).getEvent(), is(instanceOf(AfterInsertDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(2).getEvent(), is(instanceOf(BeforeUpdateDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(3).getEvent(), is(instanceOf(AfterUpdateDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(4).getEvent(), is(instanceOf(BeforeDeleteDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(5).getEvent(), is(instanceOf(AfterDeleteDataStoreEvent.class)));
+    }
+
+    @Test
+    public void testComputing() throws Exception {
+        final EventPublishingDataStore<String, Person> store = new EventPublishingDataStore<>(delegate, repositoryMetadata, listenerContext, new ChangeLog<String, Person>(Person.class));
+        final ChangeCursor<String, Person> cursor = store.getChanges().openCursor();
+        final EntityRemappingFunction<String, Person> increment = new EntityRemappingFunction<String, Person>() {
+            @Override
+            public Person apply(String key, Person current) {
+                final Person person = new Person();
+                person.setLastName(current == null ? "1" : String.valueOf(Integer.parseInt(current.getLastName()) + 1));
+                return person;
+            }
+        };
+        assertThat(store.compute("k", increment).getLastName(), is("1"));
+        assertThat(store.compute("k", increment).getLastName(), is("2"));
+        assertThat(store.compute("k", new EntityRemappingFunction<String, Person>() {
+            @Override
+            public Person apply(String key, Person current) {
+                return null;
+            }
+        }), is(nullValue()));
+        assertThat(delegate.hasKey("k"), is(false));
+        assertThat(listenerContext.getEvents(), hasSize(6));
+        assertThat(listenerContext.getEvents().get(0).getEvent(), is(instanceOf(BeforeInsertDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(1).getEvent(), is(instanceOf(AfterInsertDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(2).getEvent(), is(instanceOf(BeforeUpdateDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(3).getEvent(), is(instanceOf(AfterUpdateDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(4).getEvent(), is(instanceOf(BeforeDeleteDataStoreEvent.class)));
+        assertThat(listenerContext.getEvents().get(5).getEvent(), is(instanceOf(AfterDeleteDataStoreEvent.class)));
+        final List<DataStoreChange<String, Person>> changes = cursor.poll(10);
+        assertThat(changes, hasSize(3));
+        assertThat(changes.get(0).getType(), is(ChangeType.INSERT));
+        assertThat(changes.get(1).getType(), is(ChangeType.UPDATE));
+        assertThat(changes.get(1).getPrevious().getLastName(), is("1"));
+        assertThat(changes.get(2).getType(), is(ChangeType.DELETE));
+        assertThat(changes.get(2).getPrevious().getLastName(), is("2"));
+    }
+
+    @Test
+    public void testComputingOnANonAtomicDelegate() throws Exception {
+        final EventPublishingDataStore<String, Person> store = (EventPublishingDataStore<String, Person>) dataStore;
+        final Person person = new Person();
+        assertThat(store.compute("k", new EntityRemappingFunction<String, Person>() {
+            @Override
+            public Person apply(String key, Person current) {
+                return current == null ? person : current;
+            }
+        }), is(person));
+        assertThat(delegate.retrieve("k"), is(person));
+        assertThat(listenerContext.getEvents(), hasSize(2));
+    }
+
+    @Test(expectedExceptions = CorruptDataException.class)
+    public void testComputingWithANullKey() throws Exception {
+        ((EventPublishingDataStore<String, Person>) dataStore).compute(null, new EntityRemappingFunction<String, Person>() {
+            @Override
+            public Person apply(String key, Person current) {
+                return current;
+            }
+        });
+    }
+
+    /**
+     * Counts the events triggered, from any number of threads
+     */
+    private static class CountingListenerContext implements DataStoreEventListenerContext {
+
+        private final ConcurrentMap<Class<?>, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+        @Override
+        public <E extends DataStoreEvent> void register(DataStoreEventListener<E> listener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void trigger(DataStoreEvent event) {
+            counts.putIfAbsent(event.getClass(), new AtomicInteger());
+            counts.get(event.getClass()).incrementAndGet();
+        }
+
+        @Override
+        public <E extends DataStoreEvent> List<DataStoreEventListener<? extends E>> getListeners(Class<E> eventType) {
+            throw new UnsupportedOperationException();
+        }
+
+        private int count(Class<?> eventType) {
+            final AtomicInteger count = counts.get(eventType);
+            return count == null ? 0 : count.get();
+        }
+
+    }
+
+    /**
+     * Only claims to have listeners for {@link AfterInsertDataStoreEvent}
+     */
+    private static class SelectiveListenerContext implements SelectiveDataStoreEventListenerContext {
+
+        private final List<Class<?>> triggered = new ArrayList<>();
+
+        @Override
+        public boolean hasListeners(Class<? extends DataStoreEvent> eventType) {
+            return AfterInsertDataStoreEvent.class.equals(eventType);
+        }
+
+        @Override
+        public <E extends DataStoreEvent> void register(DataStoreEventListener<E> listener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void trigger(DataStoreEvent event) {
+            triggered.add(event.getClass());
+        }
+
+        @Override
+        public <E extends DataStoreEvent> List<DataStoreEventListener<? extends E>> getListeners(Class<E> eventType) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    private static class KeyCollector implements DataStoreVisitor<String, Person> {
+
+        private final List<String> keys;
+
+        private KeyCollector(List<String> keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public boolean visit(String key, Person entity) {
+            keys.add(key);
+            return true;
+        }
+
+    }
+
+}
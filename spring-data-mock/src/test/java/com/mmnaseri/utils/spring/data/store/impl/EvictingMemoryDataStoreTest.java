@@ -0,0 +1,268 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityWeigher;
+import com.mmnaseri.utils.spring.data.store.EvictionListener;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class EvictingMemoryDataStoreTest {
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testInvalidCapacity() throws Exception {
+        new EvictingMemoryDataStore<>(Person.class, EvictionPolicy.LEAST_RECENTLY_USED, 0);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testNullPolicy() throws Exception {
+        new EvictingMemoryDataStore<>(Person.class, null, 1);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testNegativeTimeToLive() throws Exception {
+        new EvictingMemoryDataStore<>(Person.class, EvictionPolicy.LEAST_RECENTLY_USED, 1, new CountingWeigher(), -1, TimeUnit.SECONDS);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingWithNullKey() throws Exception {
+        new EvictingMemoryDataStore<String, Person>(Person.class, EvictionPolicy.LEAST_RECENTLY_USED, 1).save(null, new Person());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingNullEntity() throws Exception {
+        new EvictingMemoryDataStore<String, Person>(Person.class, EvictionPolicy.LEAST_RECENTLY_USED, 1).save("1", null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testRetrievingWithNullKey() throws Exception {
+        new EvictingMemoryDataStore<String, Person>(Person.class, EvictionPolicy.LEAST_RECENTLY_USED, 1).retrieve(null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDeletingWithNullKey() throws Exception {
+        new EvictingMemoryDataStore<String, Person>(Person.class, EvictionPolicy.LEAST_RECENTLY_USED, 1).delete(null);
+    }
+
+    @Test
+    public void testBasicOperations() throws Exception {
+        final EvictingMemoryDataStore<String, Person> dataStore = new EvictingMemoryDataStore<>(Person.class, EvictionPolicy.LEAST_RECENTLY_USED, 10);
+        final Person person = new Person();
+        assertThat(dataStore.getEntityType(), is(equalTo(Person.class)));
+        assertThat(dataStore.hasKey("1"), is(false));
+        assertThat(dataStore.hasKey(null), is(false));
+        assertThat(dataStore.save("1", person), is(true));
+        assertThat(dataStore.save("1", person), is(false));
+        assertThat(dataStore.save("2", new Person()), is(true));
+        assertThat(dataStore.hasKey("1"), is(true));
+        assertThat(dataStore.retrieve("1"), is(sameInstance(person)));
+        assertThat(dataStore.retrieve("3"), is(nullValue()));
+        assertThat(dataStore.keys(), containsInAnyOrder("1", "2"));
+        assertThat(dataStore.retrieveAll(), hasSize(2));
+        assertThat(dataStore.size(), is(2));
+        assertThat(dataStore.getWeight(), is(2L));
+        assertThat(dataStore.delete("1"), is(true));
+        assertThat(dataStore.delete("1"), is(false));
+        assertThat(dataStore.getWeight(), is(1L));
+        dataStore.truncate();
+        assertThat(dataStore.keys(), is(empty()));
+        assertThat(dataStore.getWeight(), is(0L));
+    }
+
+    @Test
+    public void testScanning() throws Exception {
+        final EvictingMemoryDataStore<String, Person> dataStore = new EvictingMemoryDataStore<>(Person.class, EvictionPolicy.LEAST_RECENTLY_USED, 10);
+        for (int i = 0; i < 5; i++) {
+            dataStore.save(String.valueOf(i), new Person());
+        }
+        final List<String> keys = new ArrayList<>();
+        dataStore.scan(new DataStoreVisitor<String, Person>() {
+            @Override
+            public boolean visit(String key, Person entity) {
+                keys.add(key);
+                return keys.size() < 3;
+            }
+        });
+        assertThat(keys, hasSize(3));
+    }
+
+    @Test
+    public void testEvictingTheLeastRecentlyUsedEntity() throws Exception {
+        final EvictingMemoryDataStore<String, Person> dataStore = new EvictingMemoryDataStore<>(Person.class, EvictionPolicy.LEAST_RECENTLY_USED, 3);
+        final RecordingEvictionListener<Person> listener = new RecordingEvictionListener<>();
+        dataStore.addEvictionListener(listener);
+        dataStore.save("1", new Person());
+        dataStore.save("2", new Person());
+        dataStore.save("3", new Person());
+        dataStore.retrieve("1");
+        dataStore.save("4", new Person());
+        assertThat(dataStore.keys(), containsInAnyOrder("1", "3", "4"));
+        assertThat(listener.keys, contains("2"));
+        dataStore.save("3", new Person());
+        dataStore.save("5", new Person());
+        assertThat(dataStore.keys(), containsInAnyOrder("3", "4", "5"));
+        assertThat(listener.keys, contains("2", "1"));
+    }
+
+    @Test
+    public void testEvictingTheLeastFrequentlyUsedEntity() throws Exception {
+        final EvictingMemoryDataStore<String, Person> dataStore = new EvictingMemoryDataStore<>(Person.class, EvictionPolicy.LEAST_FREQUENTLY_USED, 3);
+        final RecordingEvictionListener<Person> listener = new RecordingEvictionListener<>();
+        dataStore.addEvictionListener(listener);
+        dataStore.save("1", new Person());
+        dataStore.save("2", new Person());
+        dataStore.save("3", new Person());
+        dataStore.retrieve("1");
+        dataStore.retrieve("1");
+        dataStore.retrieve("2");
+        dataStore.retrieve("3");
+        dataStore.retrieve("3");
+        dataStore.save("4", new Person());
+        assertThat(listener.keys, contains("2"));
+        //the newly saved entity is the least frequently used, but it is not the one to go
+        dataStore.save("5", new Person());
+        assertThat(listener.keys, contains("2", "4"));
+        assertThat(dataStore.keys(), containsInAnyOrder("1", "3", "5"));
+    }
+
+    @Test
+    public void testEvictingByWeight() throws Exception {
+        final EvictingMemoryDataStore<String, String> dataStore = new EvictingMemoryDataStore<>(String.class, EvictionPolicy.LEAST_RECENTLY_USED, 10, new EntityWeigher<String>() {
+            @Override
+            public long weigh(String entity) {
+                return entity.length();
+            }
+        }, EvictingMemoryDataStore.NO_EXPIRY, TimeUnit.SECONDS);
+        final RecordingEvictionListener<String> listener = new RecordingEvictionListener<>();
+        dataStore.addEvictionListener(listener);
+        dataStore.save("1", "aaaa");
+        dataStore.save("2", "bbbb");
+        assertThat(dataStore.getWeight(), is(8L));
+        dataStore.save("3", "cccccc");
+        assertThat(dataStore.keys(), containsInAnyOrder("2", "3"));
+        assertThat(dataStore.getWeight(), is(10L));
+        dataStore.save("2", "b");
+        assertThat(dataStore.getWeight(), is(7L));
+        dataStore.save("4", "dddddddddddd");
+        assertThat(dataStore.keys(), is(empty()));
+        assertThat(dataStore.getWeight(), is(0L));
+        assertThat(listener.keys, contains("1", "3", "2", "4"));
+    }
+
+    @Test
+    public void testExpiringEntities() throws Exception {
+        final ClockedDataStore dataStore = new ClockedDataStore(TimeUnit.SECONDS.toNanos(10));
+        final RecordingEvictionListener<Person> listener = new RecordingEvictionListener<>();
+        dataStore.addEvictionListener(listener);
+        dataStore.save("1", new Person());
+        dataStore.save("2", new Person(), 30, TimeUnit.SECONDS);
+        dataStore.save("3", new Person(), EvictingMemoryDataStore.NO_EXPIRY, TimeUnit.SECONDS);
+        dataStore.time = TimeUnit.SECONDS.toNanos(10);
+        assertThat(dataStore.hasKey("1"), is(false));
+        assertThat(dataStore.retrieve("1"), is(nullValue()));
+        assertThat(dataStore.keys(), containsInAnyOrder("2", "3"));
+        assertThat(listener.keys, is(empty()));
+        dataStore.cleanUp();
+        assertThat(listener.keys, contains("1"));
+        assertThat(dataStore.size(), is(2));
+        dataStore.time = TimeUnit.MINUTES.toNanos(10);
+        dataStore.save("4", new Person());
+        assertThat(listener.keys, contains("1", "2"));
+        assertThat(dataStore.keys(), containsInAnyOrder("3", "4"));
+        assertThat(dataStore.getWeight(), is(2L));
+    }
+
+    @Test
+    public void testReplacingAnExpiredEntity() throws Exception {
+        final ClockedDataStore dataStore = new ClockedDataStore(TimeUnit.SECONDS.toNanos(10));
+        final RecordingEvictionListener<Person> listener = new RecordingEvictionListener<>();
+        dataStore.addEvictionListener(listener);
+        dataStore.save("1", new Person());
+        dataStore.time = TimeUnit.SECONDS.toNanos(10) + 1;
+        assertThat(dataStore.save("1", new Person()), is(true));
+        assertThat(listener.keys, contains("1"));
+        dataStore.time = TimeUnit.SECONDS.toNanos(25);
+        assertThat(dataStore.delete("1"), is(false));
+        assertThat(listener.keys, contains("1", "1"));
+        assertThat(dataStore.size(), is(0));
+    }
+
+    @Test
+    public void testRecordingReadsConcurrently() throws Exception {
+        final EvictingMemoryDataStore<Integer, Person> dataStore = new EvictingMemoryDataStore<>(Person.class, EvictionPolicy.LEAST_RECENTLY_USED, 100);
+        for (int i = 0; i < 100; i++) {
+            dataStore.save(i, new Person());
+        }
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        dataStore.retrieve(j % 100);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (int i = 100; i < 200; i++) {
+            dataStore.save(i, new Person());
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        dataStore.cleanUp();
+        assertThat(dataStore.size(), is(100));
+        assertThat(dataStore.getWeight(), is(100L));
+    }
+
+    private static class ClockedDataStore extends EvictingMemoryDataStore<String, Person> {
+
+        private long time;
+
+        private ClockedDataStore(long timeToLive) {
+            super(Person.class, EvictionPolicy.LEAST_RECENTLY_USED, 100, new CountingWeigher(), timeToLive, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        protected long now() {
+            return time;
+        }
+
+    }
+
+    private static class CountingWeigher implements EntityWeigher<Object> {
+
+        @Override
+        public long weigh(Object entity) {
+            return 1;
+        }
+
+    }
+
+    private static class RecordingEvictionListener<E> implements EvictionListener<String, E> {
+
+        private final List<String> keys = new ArrayList<>();
+
+        @Override
+        public void onEviction(String key, E entity) {
+            keys.add(key);
+        }
+
+    }
+
+}
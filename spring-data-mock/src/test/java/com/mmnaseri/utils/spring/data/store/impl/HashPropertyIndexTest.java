@@ -0,0 +1,102 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.domain.Modifier;
+import com.mmnaseri.utils.spring.data.domain.Parameter;
+import com.mmnaseri.utils.spring.data.domain.impl.DefaultOperatorContext;
+import com.mmnaseri.utils.spring.data.domain.impl.ImmutableParameter;
+import org.hamcrest.Matchers;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class HashPropertyIndexTest {
+
+    private HashPropertyIndex<String> index;
+    private DefaultOperatorContext operatorContext;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        index = new HashPropertyIndex<>("lastName");
+        operatorContext = new DefaultOperatorContext();
+        index.index("k1", "Naseri");
+        index.index("k2", "Sadeghi");
+        index.index("k3", "Naseri");
+        index.index("k4", null);
+    }
+
+    private Parameter parameter(String path, String suffix, Modifier... modifiers) {
+        return new ImmutableParameter(path, modifiers.length == 0 ? Collections.<Modifier>emptySet() : Collections.singleton(modifiers[0]), new int[]{0}, operatorContext.getBySuffix(suffix));
+    }
+
+    @Test
+    public void testProperty() throws Exception {
+        assertThat(index.getProperty(), is("lastName"));
+    }
+
+    @Test
+    public void testEqualityLookup() throws Exception {
+        assertThat(index.lookup(parameter("lastName", "Is"), "Naseri"), containsInAnyOrder("k1", "k3"));
+        assertThat(index.lookup(parameter("lastName", "EqualTo"), "Sadeghi"), containsInAnyOrder("k2"));
+        assertThat(index.lookup(parameter("lastName", "Is"), "Ghomboli"), is(Matchers.<String>empty()));
+    }
+
+    @Test
+    public void testNullLookup() throws Exception {
+        assertThat(index.lookup(parameter("lastName", "Is"), (Object) null), containsInAnyOrder("k4"));
+        assertThat(index.lookup(parameter("lastName", "IsNull")), containsInAnyOrder("k4"));
+    }
+
+    @Test
+    public void testMembershipLookup() throws Exception {
+        assertThat(index.lookup(parameter("lastName", "In"), Arrays.asList("Naseri", "Sadeghi", null)), containsInAnyOrder("k1", "k2", "k3"));
+        assertThat(index.lookup(parameter("lastName", "In"), (Object) new String[]{"Sadeghi"}), containsInAnyOrder("k2"));
+    }
+
+    @Test
+    public void testMembershipLookupWithIterator() throws Exception {
+        final Iterator<String> iterator = Collections.singletonList("Naseri").iterator();
+        assertThat(index.lookup(parameter("lastName", "In"), iterator), is(nullValue()));
+        assertThat(iterator.hasNext(), is(true));
+    }
+
+    @Test
+    public void testUnsupportedLookups() throws Exception {
+        assertThat(index.lookup(parameter("firstName", "Is"), "Naseri"), is(nullValue()));
+        assertThat(index.lookup(parameter("lastName", "StartsWith"), "N"), is(nullValue()));
+        assertThat(index.lookup(parameter("lastName", "Is", Modifier.IGNORE_CASE), "naseri"), is(nullValue()));
+    }
+
+    @Test
+    public void testReindexing() throws Exception {
+        index.index("k1", "Sadeghi");
+        assertThat(index.lookup(parameter("lastName", "Is"), "Naseri"), containsInAnyOrder("k3"));
+        assertThat(index.lookup(parameter("lastName", "Is"), "Sadeghi"), containsInAnyOrder("k1", "k2"));
+    }
+
+    @Test
+    public void testRemoving() throws Exception {
+        index.remove("k1");
+        index.remove("k4");
+        index.remove("k5");
+        assertThat(index.lookup(parameter("lastName", "Is"), "Naseri"), containsInAnyOrder("k3"));
+        assertThat(index.lookup(parameter("lastName", "IsNull")), is(Matchers.<String>empty()));
+    }
+
+    @Test
+    public void testClearing() throws Exception {
+        index.clear();
+        assertThat(index.lookup(parameter("lastName", "Is"), "Naseri"), is(Matchers.<String>empty()));
+        assertThat(index.lookup(parameter("lastName", "Is"), "Sadeghi"), is(Matchers.<String>empty()));
+    }
+
+}
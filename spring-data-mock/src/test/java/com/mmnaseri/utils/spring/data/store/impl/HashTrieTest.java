@@ -0,0 +1,168 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class HashTrieTest {
+
+    @Test
+    public void testEmptyTrie() throws Exception {
+        final HashTrie<String, Object> trie = HashTrie.empty();
+        assertThat(trie.size(), is(0));
+        assertThat(trie.get("a"), is(nullValue()));
+        assertThat(trie.remove("a"), is(sameInstance(trie)));
+    }
+
+    @Test
+    public void testPuttingAndRemoving() throws Exception {
+        final HashTrie<String, Object> empty = HashTrie.empty();
+        final Object value = new Object();
+        final HashTrie<String, Object> first = empty.put("a", value);
+        assertThat(first.size(), is(1));
+        assertThat(first.get("a"), is(value));
+        assertThat(first.put("a", value), is(sameInstance(first)));
+        final HashTrie<String, Object> second = first.put("a", "b");
+        assertThat(second.size(), is(1));
+        assertThat(second.get("a"), is((Object) "b"));
+        final HashTrie<String, Object> third = second.remove("a");
+        assertThat(third.size(), is(0));
+        assertThat(third.get("a"), is(nullValue()));
+        //earlier versions are left untouched
+        assertThat(empty.size(), is(0));
+        assertThat(first.get("a"), is(value));
+        assertThat(second.get("a"), is((Object) "b"));
+    }
+
+    @Test
+    public void testAgainstAHashMap() throws Exception {
+        final Random random = new Random(42);
+        final Map<Integer, Integer> expected = new HashMap<>();
+        HashTrie<Integer, Integer> trie = HashTrie.empty();
+        for (int i = 0; i < 20000; i++) {
+            final int key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                trie = trie.remove(key);
+            } else {
+                expected.put(key, i);
+                trie = trie.put(key, i);
+            }
+        }
+        assertThat(trie.size(), is(expected.size()));
+        for (int key = 0; key < 5000; key++) {
+            assertThat(trie.get(key), is(expected.get(key)));
+        }
+    }
+
+    @Test
+    public void testCollidingKeys() throws Exception {
+        HashTrie<CollidingKey, Integer> trie = HashTrie.empty();
+        for (int i = 0; i < 100; i++) {
+            trie = trie.put(new CollidingKey(i), i);
+        }
+        assertThat(trie.size(), is(100));
+        for (int i = 0; i < 100; i++) {
+            assertThat(trie.get(new CollidingKey(i)), is(i));
+        }
+        for (int i = 0; i < 100; i += 2) {
+            trie = trie.remove(new CollidingKey(i));
+        }
+        assertThat(trie.size(), is(50));
+        for (int i = 0; i < 100; i++) {
+            assertThat(trie.get(new CollidingKey(i)), is(i % 2 == 0 ? null : i));
+        }
+        assertThat(trie.remove(new CollidingKey(1000)), is(sameInstance(trie)));
+    }
+
+    @Test
+    public void testVisiting() throws Exception {
+        HashTrie<Integer, Integer> trie = HashTrie.empty();
+        for (int i = 0; i < 100; i++) {
+            trie = trie.put(i, i * 2);
+        }
+        final List<Integer> keys = new ArrayList<>();
+        assertThat(trie.visit(new DataStoreVisitor<Integer, Integer>() {
+            @Override
+            public boolean visit(Integer key, Integer value) {
+                assertThat(value, is(key * 2));
+                keys.add(key);
+                return true;
+            }
+        }), is(true));
+        assertThat(keys, hasSize(100));
+        assertThat(trie.visit(new DataStoreVisitor<Integer, Integer>() {
+            @Override
+            public boolean visit(Integer key, Integer value) {
+                return false;
+            }
+        }), is(false));
+    }
+
+    @Test
+    public void testViews() throws Exception {
+        HashTrie<CollidingKey, Integer> trie = HashTrie.empty();
+        final List<CollidingKey> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            trie = trie.put(new CollidingKey(i), i);
+            expected.add(new CollidingKey(i));
+        }
+        final HashTrie<CollidingKey, Integer> snapshot = trie;
+        trie = trie.remove(new CollidingKey(0));
+        assertThat(snapshot.keys(), hasSize(50));
+        assertThat(snapshot.keys(), containsInAnyOrder(expected.toArray()));
+        assertThat(snapshot.keys().contains(new CollidingKey(0)), is(true));
+        assertThat(trie.keys().contains(new CollidingKey(0)), is(false));
+        assertThat(snapshot.keys(), is(sameInstance(snapshot.keys())));
+        final List<Integer> values = new ArrayList<>(snapshot.values());
+        int i = 0;
+        for (CollidingKey key : snapshot.keys()) {
+            assertThat(values.get(i++), is(key.value));
+        }
+        assertThat(HashTrie.<String, Object>empty().values(), is(empty()));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testViewsAreUnmodifiable() throws Exception {
+        HashTrie.<String, Object>empty().put("a", 1).keys().clear();
+    }
+
+    /**
+     * A key that only uses a few distinct hashes, so that keys collide completely as well as share hash prefixes
+     */
+    private static class CollidingKey implements Serializable {
+
+        private static final long serialVersionUID = 4316470712378120893L;
+
+        private final int value;
+
+        private CollidingKey(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof CollidingKey && ((CollidingKey) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return (value % 3) << 20;
+        }
+
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class ImmutableEntitySchemaTest {
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testSchemaWithoutTheEntityType() throws Exception {
+        new ImmutableEntitySchema("a.Entity", Collections.singletonMap("a.Other", Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void testSchemaContents() throws Exception {
+        final Map<String, List<String>> layouts = new HashMap<>();
+        final List<String> properties = new ArrayList<>(Arrays.asList("id:string?", "other:object<a.Other>?"));
+        layouts.put("a.Entity", properties);
+        layouts.put("a.Other", Collections.singletonList("value:int"));
+        final ImmutableEntitySchema schema = new ImmutableEntitySchema("a.Entity", layouts);
+        properties.add("late:int");
+        assertThat(schema.getEntityType(), is("a.Entity"));
+        assertThat(schema.getTypes(), contains("a.Entity", "a.Other"));
+        assertThat(schema.getProperties("a.Entity"), contains("id:string?", "other:object<a.Other>?"));
+        assertThat(schema.getProperties("a.Other"), contains("value:int"));
+        assertThat(schema.getProperties("a.Missing"), is(nullValue()));
+    }
+
+    @Test
+    public void testVersion() throws Exception {
+        final Map<String, List<String>> first = new LinkedHashMap<>();
+        first.put("a.Entity", Collections.singletonList("id:string?"));
+        first.put("a.Other", Collections.singletonList("value:int"));
+        final Map<String, List<String>> second = new LinkedHashMap<>();
+        second.put("a.Other", Collections.singletonList("value:int"));
+        second.put("a.Entity", Collections.singletonList("id:string?"));
+        final int version = new ImmutableEntitySchema("a.Entity", first).getVersion();
+        assertThat(new ImmutableEntitySchema("a.Entity", second).getVersion(), is(version));
+        second.put("a.Other", Collections.singletonList("value:long"));
+        assertThat(new ImmutableEntitySchema("a.Entity", second).getVersion(), is(not(version)));
+        assertThat(new ImmutableEntitySchema("a.Other", first).getVersion(), is(not(version)));
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.domain.Modifier;
+import com.mmnaseri.utils.spring.data.domain.Parameter;
+import com.mmnaseri.utils.spring.data.domain.impl.DefaultOperatorContext;
+import com.mmnaseri.utils.spring.data.domain.impl.ImmutableParameter;
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.query.NullHandling;
+import com.mmnaseri.utils.spring.data.query.SortDirection;
+import com.mmnaseri.utils.spring.data.query.impl.ImmutableOrder;
+import com.mmnaseri.utils.spring.data.sample.models.Address;
+import com.mmnaseri.utils.spring.data.sample.models.EntityWithIndexedProperties;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.models.VersionedPerson;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import org.hamcrest.Matchers;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class IndexedMemoryDataStoreTest {
+
+    private IndexedMemoryDataStore<String, Person> dataStore;
+    private DefaultOperatorContext operatorContext;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dataStore = new IndexedMemoryDataStore<>(Person.class, "lastName", "address.city");
+        operatorContext = new DefaultOperatorContext();
+    }
+
+    private Parameter parameter(String path, String suffix) {
+        return new ImmutableParameter(path, Collections.<Modifier>emptySet(), new int[]{0}, operatorContext.getBySuffix(suffix));
+    }
+
+    @Test
+    public void testIndexedProperties() throws Exception {
+        assertThat(dataStore.getIndexedProperties(), contains("lastName", "address.city"));
+    }
+
+    @Test
+    public void testAnnotatedProperties() throws Exception {
+        final IndexedMemoryDataStore<String, EntityWithIndexedProperties> annotated = new IndexedMemoryDataStore<>(EntityWithIndexedProperties.class, "age");
+        assertThat(annotated.getIndexedProperties(), contains("email", "birthday", "lastName", "age"));
+    }
+
+    @Test
+    public void testSortedAnnotatedProperties() throws Exception {
+        final IndexedMemoryDataStore<String, EntityWithIndexedProperties> annotated = new IndexedMemoryDataStore<>(EntityWithIndexedProperties.class);
+        annotated.save("k1", new EntityWithIndexedProperties().setBirthday(new Date(3000)));
+        annotated.save("k2", new EntityWithIndexedProperties().setBirthday(new Date(1000)));
+        annotated.save("k3", new EntityWithIndexedProperties().setBirthday(new Date(2000)));
+        final Parameter between = new ImmutableParameter("birthday", Collections.<Modifier>emptySet(), new int[]{0, 1}, operatorContext.getBySuffix("Between"));
+        assertThat(annotated.lookup(between, new Date(1500), new Date(3000)), containsInAnyOrder("k1", "k3"));
+        assertThat(annotated.sort(new ImmutableOrder(SortDirection.ASCENDING, "birthday", NullHandling.DEFAULT)), contains("k2", "k3", "k1"));
+        assertThat(annotated.sort(new ImmutableOrder(SortDirection.ASCENDING, "email", NullHandling.DEFAULT)), is(nullValue()));
+    }
+
+    @Test
+    public void testRegisteringAnIndex() throws Exception {
+        dataStore.save("k1", new Person().setId("k1").setAge(30));
+        dataStore.save("k2", new Person().setId("k2").setAge(20));
+        assertThat(dataStore.sort(new ImmutableOrder(SortDirection.ASCENDING, "age", NullHandling.DEFAULT)), is(nullValue()));
+        dataStore.register(new SkipListPropertyIndex<String>("age"));
+        assertThat(dataStore.getIndexedProperties(), contains("lastName", "address.city", "age"));
+        assertThat(dataStore.lookup(parameter("age", "GreaterThan"), 25), containsInAnyOrder("k1"));
+        assertThat(dataStore.sort(new ImmutableOrder(SortDirection.DESCENDING, "age", NullHandling.DEFAULT)), contains("k1", "k2"));
+    }
+
+    @Test
+    public void testFailedIndexingRevertsTheChange() throws Exception {
+        dataStore.register(new SkipListPropertyIndex<String>("address"));
+        final Person person = new Person().setId("k1").setLastName("Naseri");
+        dataStore.save("k1", person);
+        try {
+            dataStore.save("k1", new Person().setId("k1").setLastName("Sadeghi").setAddress(new Address()));
+        } catch (DataStoreException ignored) {
+        }
+        try {
+            dataStore.save("k2", new Person().setId("k2").setAddress(new Address()));
+        } catch (DataStoreException ignored) {
+        }
+        assertThat(dataStore.retrieve("k1"), is(sameInstance(person)));
+        assertThat(dataStore.hasKey("k2"), is(false));
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Naseri"), containsInAnyOrder("k1"));
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Sadeghi"), is(Matchers.<String>empty()));
+    }
+
+    @Test
+    public void testLookupAfterSave() throws Exception {
+        dataStore.save("k1", new Person().setId("k1").setLastName("Naseri"));
+        dataStore.save("k2", new Person().setId("k2").setLastName("Sadeghi"));
+        dataStore.save("k3", new Person().setId("k3").setLastName("Naseri"));
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Naseri"), containsInAnyOrder("k1", "k3"));
+        assertThat(dataStore.lookup(parameter("address.city", "IsNull")), containsInAnyOrder("k1", "k2", "k3"));
+        assertThat(dataStore.lookup(parameter("firstName", "Is"), "Milad"), is(nullValue()));
+    }
+
+    @Test
+    public void testLookupAfterUpdate() throws Exception {
+        final Person person = new Person().setId("k1").setLastName("Naseri");
+        dataStore.save("k1", person);
+        person.setLastName("Sadeghi");
+        dataStore.save("k1", person);
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Naseri"), is(Matchers.<String>empty()));
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Sadeghi"), containsInAnyOrder("k1"));
+    }
+
+    @Test
+    public void testLookupAfterDelete() throws Exception {
+        dataStore.save("k1", new Person().setId("k1").setLastName("Naseri"));
+        dataStore.save("k2", new Person().setId("k2").setLastName("Naseri"));
+        assertThat(dataStore.delete("k1"), is(true));
+        assertThat(dataStore.delete("k1"), is(false));
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Naseri"), containsInAnyOrder("k2"));
+    }
+
+    @Test
+    public void testLookupAfterTruncate() throws Exception {
+        dataStore.save("k1", new Person().setId("k1").setLastName("Naseri"));
+        dataStore.truncate();
+        assertThat(dataStore.retrieveAll(), is(Matchers.<Person>empty()));
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Naseri"), is(Matchers.<String>empty()));
+    }
+
+    @Test
+    public void testIndexingExistingData() throws Exception {
+        final MemoryDataStore<String, Person> delegate = new MemoryDataStore<>(Person.class);
+        delegate.save("k1", new Person().setId("k1").setLastName("Naseri"));
+        final IndexedMemoryDataStore<String, Person> indexed = new IndexedMemoryDataStore<>(delegate, "lastName");
+        assertThat(indexed.lookup(parameter("lastName", "Is"), "Naseri"), containsInAnyOrder("k1"));
+    }
+
+    @Test
+    public void testDelegation() throws Exception {
+        final Person person = new Person().setId("k1");
+        assertThat(dataStore.save("k1", person), is(true));
+        assertThat(dataStore.save("k1", person), is(false));
+        assertThat(dataStore.hasKey("k1"), is(true));
+        assertThat(dataStore.retrieve("k1"), is(person));
+        assertThat(dataStore.keys(), containsInAnyOrder("k1"));
+        assertThat(dataStore.retrieveAll(), containsInAnyOrder(person));
+        assertThat(dataStore.getEntityType(), is(equalTo(Person.class)));
+    }
+
+    @Test
+    public void testAtomicWrites() throws Exception {
+        assertThat(dataStore.putIfAbsent("k1", new Person().setId("k1").setLastName("Naseri")), is(nullValue()));
+        assertThat(dataStore.putIfAbsent("k1", new Person().setId("k1").setLastName("Sadeghi")).getLastName(), is("Naseri"));
+        assertThat(dataStore.put("k1", new Person().setId("k1").setLastName("Sadeghi")).getLastName(), is("Naseri"));
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Naseri"), is(Matchers.<String>empty()));
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Sadeghi"), containsInAnyOrder("k1"));
+        dataStore.compute("k2", new EntityRemappingFunction<String, Person>() {
+            @Override
+            public Person apply(String key, Person entity) {
+                return new Person().setId(key).setLastName("Sadeghi");
+            }
+        });
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Sadeghi"), containsInAnyOrder("k1", "k2"));
+        assertThat(dataStore.remove("k1").getLastName(), is("Sadeghi"));
+        assertThat(dataStore.remove("k1"), is(nullValue()));
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Sadeghi"), containsInAnyOrder("k2"));
+    }
+
+    @Test
+    public void testBulkWrites() throws Exception {
+        final Map<String, Person> entities = new LinkedHashMap<>();
+        entities.put("k1", new Person().setId("k1").setLastName("Naseri"));
+        entities.put("k2", new Person().setId("k2").setLastName("Naseri"));
+        entities.put("k3", new Person().setId("k3").setLastName("Sadeghi"));
+        assertThat(dataStore.saveAll(entities), is(3));
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Naseri"), containsInAnyOrder("k1", "k2"));
+        assertThat(dataStore.deleteAll(Arrays.asList("k1", "k3", "k4")).keySet(), contains("k1", "k3"));
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Naseri"), containsInAnyOrder("k2"));
+        assertThat(dataStore.lookup(parameter("lastName", "Is"), "Sadeghi"), is(Matchers.<String>empty()));
+        assertThat(dataStore.retrieveAll(Arrays.asList("k1", "k2")), contains(entities.get("k2")));
+    }
+
+    @Test
+    public void testVersionedWrites() throws Exception {
+        final IndexedMemoryDataStore<String, VersionedPerson> versioned = new IndexedMemoryDataStore<>(VersionedPerson.class, "version");
+        final VersionedPerson entity = new VersionedPerson().setId("k1");
+        assertThat(versioned.save("k1", entity, "version"), is(true));
+        assertThat(versioned.save("k1", entity, "version"), is(false));
+        assertThat(versioned.lookup(parameter("version", "Is"), 1L), containsInAnyOrder("k1"));
+        assertThat(versioned.lookup(parameter("version", "Is"), 0L), is(Matchers.<String>empty()));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testIndexingMissingProperty() throws Exception {
+        new IndexedMemoryDataStore<String, Person>(Person.class, "nickname").save("k1", new Person());
+    }
+
+    @Test
+    public void testFailedIndexingLeavesDataIntact() throws Exception {
+        final IndexedMemoryDataStore<String, Person> broken = new IndexedMemoryDataStore<>(Person.class, "nickname");
+        try {
+            broken.save("k1", new Person());
+        } catch (DataStoreException ignored) {
+        }
+        assertThat(broken.hasKey("k1"), is(false));
+    }
+
+}
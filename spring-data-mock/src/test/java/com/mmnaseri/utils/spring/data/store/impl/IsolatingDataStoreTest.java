@@ -0,0 +1,205 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.OptimisticLockException;
+import com.mmnaseri.utils.spring.data.sample.models.Address;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.models.VersionedPerson;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityCopier;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class IsolatingDataStoreTest {
+
+    private MemoryDataStore<String, Person> delegate;
+    private IsolatingDataStore<String, Person> dataStore;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        delegate = new MemoryDataStore<>(Person.class);
+        dataStore = new IsolatingDataStore<>(delegate);
+    }
+
+    @Test
+    public void testChangingSavedEntity() throws Exception {
+        final Person person = new Person().setFirstName("Milad").setAddress(new Address().setCity("Tehran"));
+        dataStore.save("1", person);
+        person.setFirstName("Zohreh");
+        person.getAddress().setCity("Shiraz");
+        assertThat(delegate.retrieve("1"), is(not(sameInstance(person))));
+        assertThat(dataStore.retrieve("1").getFirstName(), is("Milad"));
+        assertThat(dataStore.retrieve("1").getAddress().getCity(), is("Tehran"));
+    }
+
+    @Test
+    public void testChangingRetrievedEntity() throws Exception {
+        dataStore.save("1", new Person().setFirstName("Milad"));
+        final Person retrieved = dataStore.retrieve("1");
+        retrieved.setFirstName("Zohreh");
+        assertThat(dataStore.retrieve("1").getFirstName(), is("Milad"));
+        assertThat(dataStore.retrieve("1"), is(not(sameInstance(dataStore.retrieve("1")))));
+    }
+
+    @Test
+    public void testChangingAllRetrievedEntities() throws Exception {
+        dataStore.save("1", new Person().setFirstName("Milad"));
+        dataStore.save("2", new Person().setFirstName("Milad"));
+        for (Person person : dataStore.retrieveAll()) {
+            person.setFirstName("Zohreh");
+        }
+        for (Person person : delegate.retrieveAll()) {
+            assertThat(person.getFirstName(), is("Milad"));
+        }
+    }
+
+    @Test
+    public void testChangingScannedEntities() throws Exception {
+        dataStore.save("1", new Person().setFirstName("Milad"));
+        final List<String> keys = new ArrayList<>();
+        dataStore.scan(new DataStoreVisitor<String, Person>() {
+            @Override
+            public boolean visit(String key, Person entity) {
+                keys.add(key);
+                entity.setFirstName("Zohreh");
+                return true;
+            }
+        });
+        assertThat(keys, contains("1"));
+        assertThat(delegate.retrieve("1").getFirstName(), is("Milad"));
+    }
+
+    @Test
+    public void testRetrievingMissingEntity() throws Exception {
+        assertThat(dataStore.retrieve("1"), is(nullValue()));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class, expectedExceptionsMessageRegExp = ".*null entity.*")
+    public void testSavingNullEntity() throws Exception {
+        dataStore.save("1", null);
+    }
+
+    @Test
+    public void testForwardingToDelegate() throws Exception {
+        assertThat(dataStore.getEntityType(), is(equalTo(Person.class)));
+        dataStore.save("1", new Person());
+        dataStore.save("2", new Person());
+        assertThat(dataStore.hasKey("1"), is(true));
+        assertThat(dataStore.keys(), containsInAnyOrder("1", "2"));
+        assertThat(dataStore.delete("1"), is(true));
+        assertThat(delegate.hasKey("1"), is(false));
+        dataStore.truncate();
+        assertThat(delegate.keys(), is(empty()));
+    }
+
+    @Test
+    public void testForking() throws Exception {
+        final IsolatingDataStore<String, Person> original = new IsolatingDataStore<>(new PersistentMemoryDataStore<String, Person>(Person.class));
+        original.save("1", new Person().setFirstName("Milad").setAddress(new Address().setCity("Tehran")));
+        final IsolatingDataStore<String, Person> fork = original.fork();
+        final IsolatingDataStore<String, Person> sibling = original.fork();
+        final Person retrieved = fork.retrieve("1");
+        retrieved.getAddress().setCity("Shiraz");
+        assertThat(original.retrieve("1").getAddress().getCity(), is("Tehran"));
+        assertThat(sibling.retrieve("1").getAddress().getCity(), is("Tehran"));
+        fork.save("1", retrieved);
+        assertThat(fork.retrieve("1").getAddress().getCity(), is("Shiraz"));
+        assertThat(original.retrieve("1").getAddress().getCity(), is("Tehran"));
+        assertThat(sibling.retrieve("1").getAddress().getCity(), is("Tehran"));
+        original.retrieve("1").setFirstName("Zohreh");
+        assertThat(fork.retrieve("1").getFirstName(), is("Milad"));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class, expectedExceptionsMessageRegExp = ".*cannot be forked.*")
+    public void testForkingWithoutAForkableDelegate() throws Exception {
+        dataStore.fork();
+    }
+
+    @Test
+    public void testUsingCustomCopier() throws Exception {
+        final List<Person> copied = new ArrayList<>();
+        final IsolatingDataStore<String, Person> custom = new IsolatingDataStore<>(delegate, new EntityCopier<Person>() {
+            @Override
+            public Person copy(Person entity) {
+                copied.add(entity);
+                return entity == null ? null : new Person().setFirstName(entity.getFirstName());
+            }
+        });
+        final Person person = new Person().setFirstName("Milad");
+        custom.save("1", person);
+        custom.retrieve("1");
+        assertThat(copied, hasSize(2));
+        assertThat(copied.get(0), is(sameInstance(person)));
+    }
+
+    @Test
+    public void testCopyingThroughAtomicAndBulkOperations() throws Exception {
+        final Person person = new Person().setFirstName("Milad");
+        assertThat(dataStore.putIfAbsent("1", person), is(nullValue()));
+        assertThat(delegate.retrieve("1"), is(not(sameInstance(person))));
+        final Person existing = dataStore.putIfAbsent("1", new Person());
+        assertThat(existing.getFirstName(), is("Milad"));
+        existing.setFirstName("Zohreh");
+        assertThat(dataStore.put("1", person).getFirstName(), is("Milad"));
+        final Person computed = dataStore.compute("1", new EntityRemappingFunction<String, Person>() {
+            @Override
+            public Person apply(String key, Person current) {
+                //the function is handed a copy, so changing it is safe
+                return current.setLastName("Naseri");
+            }
+        });
+        computed.setFirstName("Zohreh");
+        assertThat(delegate.retrieve("1").getFirstName(), is("Milad"));
+        assertThat(delegate.retrieve("1").getLastName(), is("Naseri"));
+        final Map<String, Person> entities = new LinkedHashMap<>();
+        entities.put("1", person);
+        entities.put("2", new Person().setFirstName("Zohreh"));
+        assertThat(dataStore.saveAll(entities), is(1));
+        person.setFirstName("Ali");
+        assertThat(delegate.retrieve("1").getFirstName(), is("Milad"));
+        final List<Person> retrieved = dataStore.retrieveAll(Arrays.asList("1", "2"));
+        assertThat(retrieved, hasSize(2));
+        retrieved.get(0).setFirstName("Ali");
+        assertThat(delegate.retrieve("1").getFirstName(), is("Milad"));
+        final Person removed = dataStore.remove("1");
+        assertThat(removed.getFirstName(), is("Milad"));
+        final Map<String, Person> deleted = dataStore.deleteAll(Arrays.asList("1", "2"));
+        assertThat(deleted.keySet(), contains("2"));
+        assertThat(delegate.keys(), is(empty()));
+    }
+
+    @Test
+    public void testSavingVersionedEntities() throws Exception {
+        final MemoryDataStore<String, VersionedPerson> versionedDelegate = new MemoryDataStore<>(VersionedPerson.class);
+        final IsolatingDataStore<String, VersionedPerson> versioned = new IsolatingDataStore<>(versionedDelegate);
+        final VersionedPerson person = new VersionedPerson();
+        assertThat(versioned.save("1", person, "version"), is(true));
+        assertThat(person.getVersion(), is(0L));
+        assertThat(versioned.save("1", person, "version"), is(false));
+        assertThat(person.getVersion(), is(1L));
+        assertThat(versionedDelegate.retrieve("1"), is(not(sameInstance(person))));
+        assertThat(versionedDelegate.retrieve("1").getVersion(), is(1L));
+        final VersionedPerson stale = new VersionedPerson().setVersion(0L);
+        try {
+            versioned.save("1", stale, "version");
+            throw new AssertionError("Expected the save to fail");
+        } catch (OptimisticLockException ignored) {
+        }
+        assertThat(stale.getVersion(), is(0L));
+    }
+
+}
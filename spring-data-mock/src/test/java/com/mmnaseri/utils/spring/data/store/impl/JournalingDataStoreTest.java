@@ -0,0 +1,242 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.models.Note;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class JournalingDataStoreTest {
+
+    private File directory;
+    private JournalingDataStore<String, Note> dataStore;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("journal").toFile();
+        dataStore = open(3, 100);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        dataStore.close();
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        directory.delete();
+    }
+
+    private JournalingDataStore<String, Note> open(int groupSize, int snapshotInterval) {
+        return new JournalingDataStore<>(new MemoryDataStore<String, Note>(Note.class), directory, new SerializingEntityCodec<>(String.class), new SerializingEntityCodec<>(Note.class), groupSize, snapshotInterval);
+    }
+
+    private JournalingDataStore<String, Note> reopen(int groupSize, int snapshotInterval) {
+        dataStore.close();
+        dataStore = open(groupSize, snapshotInterval);
+        return dataStore;
+    }
+
+    private File journal() {
+        return new File(directory, JournalingDataStore.JOURNAL_FILE);
+    }
+
+    private File snapshot() {
+        return new File(directory, JournalingDataStore.SNAPSHOT_FILE);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testInvalidGroupSize() throws Exception {
+        open(0, 100);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testInvalidSnapshotInterval() throws Exception {
+        open(1, 0);
+    }
+
+    @Test
+    public void testDelegatingReads() throws Exception {
+        final Note note = new Note().setId("1").setText("Hello");
+        assertThat(dataStore.save("1", note), is(true));
+        assertThat(dataStore.save("1", note), is(false));
+        assertThat(dataStore.hasKey("1"), is(true));
+        assertThat(dataStore.retrieve("1"), is(sameInstance(note)));
+        assertThat(dataStore.keys(), contains("1"));
+        assertThat(dataStore.retrieveAll(), contains(note));
+        assertThat(dataStore.getEntityType(), is(equalTo(Note.class)));
+        assertThat(dataStore.getDirectory(), is(directory));
+    }
+
+    @Test
+    public void testCommittingInGroups() throws Exception {
+        dataStore.save("1", new Note().setId("1"));
+        dataStore.save("2", new Note().setId("2"));
+        assertThat(dataStore.getPendingCount(), is(2));
+        assertThat(journal().length(), is(0L));
+        dataStore.delete("1");
+        assertThat(dataStore.getPendingCount(), is(0));
+        final long length = journal().length();
+        assertThat(length, is(greaterThan(0L)));
+        assertThat(dataStore.delete("1"), is(false));
+        assertThat(dataStore.getPendingCount(), is(0));
+        dataStore.save("3", new Note().setId("3"));
+        dataStore.flush();
+        assertThat(dataStore.getPendingCount(), is(0));
+        assertThat(journal().length(), is(greaterThan(length)));
+    }
+
+    @Test
+    public void testRecovering() throws Exception {
+        dataStore.save("1", new Note().setId("1").setText("first"));
+        dataStore.save("2", new Note().setId("2").setText("second"));
+        dataStore.save("3", new Note().setId("3").setText("third"));
+        dataStore.save("2", new Note().setId("2").setText("updated"));
+        dataStore.delete("3");
+        final JournalingDataStore<String, Note> recovered = reopen(3, 100);
+        assertThat(recovered.keys(), containsInAnyOrder("1", "2"));
+        assertThat(recovered.retrieve("1").getText(), is("first"));
+        assertThat(recovered.retrieve("2").getText(), is("updated"));
+        recovered.truncate();
+        recovered.save("4", new Note().setId("4"));
+        assertThat(reopen(3, 100).keys(), contains("4"));
+    }
+
+    @Test
+    public void testBatching() throws Exception {
+        final Object outer = dataStore.startBatch();
+        final Object inner = dataStore.startBatch();
+        for (int i = 0; i < 10; i++) {
+            dataStore.save(String.valueOf(i), new Note().setId(String.valueOf(i)));
+        }
+        dataStore.endBatch(inner);
+        assertThat(dataStore.getPendingCount(), is(10));
+        assertThat(journal().length(), is(0L));
+        dataStore.endBatch(outer);
+        assertThat(dataStore.getPendingCount(), is(0));
+        assertThat(reopen(3, 100).keys(), hasSize(10));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testEndingBatchesOutOfOrder() throws Exception {
+        final Object outer = dataStore.startBatch();
+        dataStore.startBatch();
+        dataStore.endBatch(outer);
+    }
+
+    @Test
+    public void testTakingSnapshots() throws Exception {
+        final JournalingDataStore<String, Note> dataStore = reopen(1, 4);
+        dataStore.save("1", new Note().setId("1"));
+        dataStore.save("2", new Note().setId("2"));
+        dataStore.save("3", new Note().setId("3"));
+        assertThat(snapshot().exists(), is(false));
+        dataStore.delete("2");
+        assertThat(snapshot().exists(), is(true));
+        assertThat(journal().length(), is(0L));
+        dataStore.save("4", new Note().setId("4"));
+        assertThat(journal().length(), is(greaterThan(0L)));
+        final JournalingDataStore<String, Note> recovered = reopen(1, 4);
+        assertThat(recovered.keys(), containsInAnyOrder("1", "3", "4"));
+        recovered.snapshot();
+        assertThat(journal().length(), is(0L));
+        assertThat(reopen(1, 4).keys(), containsInAnyOrder("1", "3", "4"));
+    }
+
+    @Test
+    public void testDiscardingIncompleteRecords() throws Exception {
+        dataStore.save("1", new Note().setId("1"));
+        dataStore.flush();
+        final long length = journal().length();
+        dataStore.close();
+        try (FileOutputStream output = new FileOutputStream(journal(), true)) {
+            output.write(new byte[]{1, 0, 0, 0, 10, 0, 0, 0, 10, 1, 2, 3});
+        }
+        final JournalingDataStore<String, Note> recovered = reopen(3, 100);
+        assertThat(recovered.keys(), contains("1"));
+        assertThat(journal().length(), is(length));
+        recovered.save("2", new Note().setId("2"));
+        assertThat(reopen(3, 100).keys(), containsInAnyOrder("1", "2"));
+    }
+
+    @Test
+    public void testDiscardingTheContentsOfTheDelegate() throws Exception {
+        final MemoryDataStore<String, Note> delegate = new MemoryDataStore<>(Note.class);
+        delegate.save("1", new Note());
+        dataStore.close();
+        dataStore = new JournalingDataStore<>(delegate, directory);
+        assertThat(delegate.keys(), is(empty()));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testWritingToAClosedDataStore() throws Exception {
+        dataStore.close();
+        dataStore.close();
+        dataStore.save("1", new Note());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingWithNullKey() throws Exception {
+        dataStore.save(null, new Note());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingNullEntity() throws Exception {
+        dataStore.save("1", null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDeletingWithNullKey() throws Exception {
+        dataStore.delete(null);
+    }
+
+    @Test
+    public void testRecoveringAtomicAndBulkWrites() throws Exception {
+        final Note first = new Note().setId("1").setText("first");
+        assertThat(dataStore.putIfAbsent("1", first), is(nullValue()));
+        assertThat(dataStore.putIfAbsent("1", new Note()), is(sameInstance(first)));
+        assertThat(dataStore.put("1", new Note().setId("1").setText("updated")), is(sameInstance(first)));
+        final Map<String, Note> notes = new LinkedHashMap<>();
+        for (int i = 2; i <= 6; i++) {
+            notes.put(String.valueOf(i), new Note().setId(String.valueOf(i)));
+        }
+        //the bulk write is committed in one go, even though it is larger than a group
+        assertThat(dataStore.saveAll(notes), is(5));
+        assertThat(dataStore.getPendingCount(), is(0));
+        assertThat(dataStore.compute("2", new EntityRemappingFunction<String, Note>() {
+            @Override
+            public Note apply(String key, Note current) {
+                return new Note().setId(key).setText("computed");
+            }
+        }).getText(), is("computed"));
+        assertThat(dataStore.remove("3").getId(), is("3"));
+        assertThat(dataStore.remove("3"), is(nullValue()));
+        assertThat(dataStore.deleteAll(Arrays.asList("4", "5", "7")).keySet(), contains("4", "5"));
+        assertThat(dataStore.retrieveAll(Arrays.asList("1", "2", "7")), hasSize(2));
+        final JournalingDataStore<String, Note> recovered = reopen(3, 100);
+        assertThat(recovered.keys(), containsInAnyOrder("1", "2", "6"));
+        assertThat(recovered.retrieve("1").getText(), is("updated"));
+        assertThat(recovered.retrieve("2").getText(), is("computed"));
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class LongKeyMemoryDataStoreTest {
+
+    private LongKeyMemoryDataStore<Long, Person> dataStore;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dataStore = new LongKeyMemoryDataStore<>(Long.class, Person.class);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testNonIntegralKeyType() throws Exception {
+        new LongKeyMemoryDataStore<>(String.class, Person.class);
+    }
+
+    @Test
+    public void testSavingAndRetrieving() throws Exception {
+        final Person person = new Person();
+        assertThat(dataStore.save(Long.MIN_VALUE, person), is(true));
+        assertThat(dataStore.save(Long.MIN_VALUE, person), is(false));
+        assertThat(dataStore.hasKey(Long.MIN_VALUE), is(true));
+        assertThat(dataStore.hasKey(0L), is(false));
+        assertThat(dataStore.retrieve(Long.MIN_VALUE), is(sameInstance(person)));
+        assertThat(dataStore.retrieve(0L), is(nullValue()));
+        assertThat(dataStore.size(), is(1));
+        assertThat(dataStore.getEntityType(), is(equalTo(Person.class)));
+        assertThat(dataStore.getKeyType(), is(equalTo(Long.class)));
+    }
+
+    @Test
+    public void testHoldingManyKeys() throws Exception {
+        for (long i = 0; i < 1000; i++) {
+            dataStore.save(i * 7919L, new Person().setId(String.valueOf(i)));
+        }
+        for (long i = 0; i < 1000; i += 2) {
+            dataStore.delete(i * 7919L);
+        }
+        assertThat(dataStore.size(), is(500));
+        assertThat(dataStore.keys(), hasSize(500));
+        assertThat(dataStore.retrieveAll(), hasSize(500));
+        assertThat(dataStore.retrieve(7919L).getId(), is("1"));
+        assertThat(dataStore.hasKey(2 * 7919L), is(false));
+    }
+
+    @Test
+    public void testScanning() throws Exception {
+        for (long i = 1; i <= 10; i++) {
+            dataStore.save(i, new Person().setId(String.valueOf(i)));
+        }
+        final List<Long> visited = new ArrayList<>();
+        dataStore.scan(new DataStoreVisitor<Long, Person>() {
+            @Override
+            public boolean visit(Long key, Person entity) {
+                assertThat(entity.getId(), is(String.valueOf(key)));
+                visited.add(key);
+                return visited.size() < 3;
+            }
+        });
+        assertThat(visited, hasSize(3));
+    }
+
+    @Test
+    public void testAtomicAndBulkWrites() throws Exception {
+        final Person person = new Person();
+        assertThat(dataStore.putIfAbsent(7919L, person), is(nullValue()));
+        assertThat(dataStore.put(7919L, new Person()), is(sameInstance(person)));
+        final Map<Long, Person> entities = new LinkedHashMap<>();
+        entities.put(7919L, person);
+        entities.put(-7919L, new Person());
+        assertThat(dataStore.saveAll(entities), is(1));
+        assertThat(dataStore.retrieve(7919L), is(sameInstance(person)));
+        assertThat(dataStore.deleteAll(Arrays.asList(7919L, 1L)).keySet(), contains(7919L));
+        assertThat(dataStore.remove(-7919L), is(sameInstance(entities.get(-7919L))));
+        assertThat(dataStore.size(), is(0));
+    }
+
+    @Test
+    public void testTruncating() throws Exception {
+        dataStore.save(1L, new Person());
+        dataStore.save(2L, new Person());
+        dataStore.truncate();
+        assertThat(dataStore.keys(), is(empty()));
+        assertThat(dataStore.size(), is(0));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingWithNullKey() throws Exception {
+        dataStore.save(null, new Person());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingNullEntity() throws Exception {
+        dataStore.save(1L, null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDeletingWithNullKey() throws Exception {
+        dataStore.delete(null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testRetrievingWithNullKey() throws Exception {
+        dataStore.retrieve(null);
+    }
+
+}
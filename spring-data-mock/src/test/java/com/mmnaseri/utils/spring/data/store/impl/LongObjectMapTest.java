@@ -0,0 +1,133 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class LongObjectMapTest {
+
+    @Test
+    public void testPuttingAndGetting() throws Exception {
+        final LongObjectMap<String> map = new LongObjectMap<>();
+        assertThat(map.put(1L, "one"), is(nullValue()));
+        assertThat(map.put(-1L, "minus one"), is(nullValue()));
+        assertThat(map.put(Long.MAX_VALUE, "max"), is(nullValue()));
+        assertThat(map.put(1L, "uno"), is("one"));
+        assertThat(map.size(), is(3));
+        assertThat(map.get(1L), is("uno"));
+        assertThat(map.get(-1L), is("minus one"));
+        assertThat(map.get(Long.MAX_VALUE), is("max"));
+        assertThat(map.get(2L), is(nullValue()));
+        assertThat(map.containsKey(-1L), is(true));
+        assertThat(map.containsKey(0L), is(false));
+    }
+
+    @Test
+    public void testRemoving() throws Exception {
+        final LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "one");
+        assertThat(map.remove(1L), is("one"));
+        assertThat(map.remove(1L), is(nullValue()));
+        assertThat(map.size(), is(0));
+        assertThat(map.containsKey(1L), is(false));
+    }
+
+    @Test
+    public void testAgainstAHashMap() throws Exception {
+        //removals leave marked slots behind until the table is rebuilt, so we compare many random operations against a reference map
+        final LongObjectMap<Long> map = new LongObjectMap<>();
+        final Map<Long, Long> expected = new HashMap<>();
+        final Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            final long key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key), is(expected.remove(key)));
+            } else {
+                assertThat(map.put(key, (long) i), is(expected.put(key, (long) i)));
+            }
+        }
+        assertThat(map.size(), is(expected.size()));
+        for (long key = 0; key < 500; key++) {
+            assertThat(map.get(key), is(expected.get(key)));
+        }
+    }
+
+    @Test
+    public void testVisiting() throws Exception {
+        final LongObjectMap<String> map = new LongObjectMap<>();
+        for (long i = 0; i < 100; i++) {
+            map.put(i, String.valueOf(i));
+        }
+        final Map<Long, String> visited = new HashMap<>();
+        assertThat(map.visit(new LongObjectMap.Visitor<String>() {
+            @Override
+            public boolean visit(long key, String value) {
+                visited.put(key, value);
+                return true;
+            }
+        }), is(true));
+        assertThat(visited.size(), is(100));
+        assertThat(visited.get(42L), is("42"));
+        final int[] count = new int[1];
+        assertThat(map.visit(new LongObjectMap.Visitor<String>() {
+            @Override
+            public boolean visit(long key, String value) {
+                return ++count[0] < 10;
+            }
+        }), is(false));
+        assertThat(count[0], is(10));
+    }
+
+    @Test
+    public void testReadingWhileWriting() throws Exception {
+        final LongObjectMap<Long> map = new LongObjectMap<>();
+        for (long i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                //the keys come and go so that the table is rebuilt again and again
+                for (long i = 100; i < 50000; i++) {
+                    map.put(i, i);
+                    map.remove(i - 50);
+                    if (i % 1000 == 0) {
+                        map.remove(i - 10);
+                    }
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            for (long i = 0; i < 50; i++) {
+                assertThat(map.get(i), is(i));
+            }
+        }
+        writer.join();
+        assertThat(map.get(49999L), is(49999L));
+        assertThat(map.get(100L), is(nullValue()));
+    }
+
+    @Test
+    public void testClearing() throws Exception {
+        final LongObjectMap<String> map = new LongObjectMap<>();
+        for (long i = 0; i < 100; i++) {
+            map.put(i, String.valueOf(i));
+        }
+        map.clear();
+        assertThat(map.size(), is(0));
+        assertThat(map.get(42L), is(nullValue()));
+        map.put(42L, "42");
+        assertThat(map.get(42L), is("42"));
+    }
+
+}
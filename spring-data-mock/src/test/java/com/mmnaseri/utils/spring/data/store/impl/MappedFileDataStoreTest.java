@@ -0,0 +1,289 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.models.Note;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityCodec;
+import org.hamcrest.Matchers;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class MappedFileDataStoreTest {
+
+    private File file;
+    private MappedFileDataStore<String, Note> dataStore;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        file = File.createTempFile("notes", ".dat");
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+        dataStore = new MappedFileDataStore<>(Note.class, file);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        dataStore.close();
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    private MappedFileDataStore<String, Note> reopen() {
+        dataStore.close();
+        dataStore = new MappedFileDataStore<>(Note.class, file);
+        return dataStore;
+    }
+
+    @Test
+    public void testEntityType() throws Exception {
+        assertThat(dataStore.getEntityType(), is(equalTo(Note.class)));
+        assertThat(dataStore.getFile(), is(file));
+        assertThat(file.length(), is((long) MappedFileDataStore.DEFAULT_INITIAL_SIZE));
+    }
+
+    @Test
+    public void testSavingAndRetrieving() throws Exception {
+        final Note note = new Note().setId("1").setText("Hello");
+        assertThat(dataStore.save("1", note), is(true));
+        assertThat(dataStore.hasKey("1"), is(true));
+        assertThat(dataStore.hasKey("2"), is(false));
+        final Note retrieved = dataStore.retrieve("1");
+        assertThat(retrieved, is(note));
+        assertThat(retrieved, is(not(sameInstance(note))));
+        assertThat(dataStore.retrieve("2"), is(nullValue()));
+    }
+
+    @Test
+    public void testUpdatingAndDeleting() throws Exception {
+        dataStore.save("1", new Note().setId("1").setText("Hello"));
+        dataStore.save("2", new Note().setId("2"));
+        assertThat(dataStore.getGarbageBytes(), is(0L));
+        assertThat(dataStore.save("1", new Note().setId("1").setText("Goodbye")), is(false));
+        assertThat(dataStore.retrieve("1").getText(), is("Goodbye"));
+        assertThat(dataStore.delete("2"), is(true));
+        assertThat(dataStore.delete("2"), is(false));
+        assertThat(dataStore.keys(), contains("1"));
+        assertThat(dataStore.retrieveAll(), contains(new Note().setId("1").setText("Goodbye")));
+        assertThat(dataStore.getGarbageBytes(), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void testReopening() throws Exception {
+        dataStore.save("1", new Note().setId("1").setText("first"));
+        dataStore.save("2", new Note().setId("2").setText("second"));
+        dataStore.save("3", new Note().setId("3").setText("third"));
+        dataStore.save("2", new Note().setId("2").setText("updated"));
+        dataStore.delete("3");
+        final long garbage = dataStore.getGarbageBytes();
+        final MappedFileDataStore<String, Note> reopened = reopen();
+        assertThat(reopened.keys(), containsInAnyOrder("1", "2"));
+        assertThat(reopened.retrieve("1").getText(), is("first"));
+        assertThat(reopened.retrieve("2").getText(), is("updated"));
+        assertThat(reopened.retrieve("3"), is(nullValue()));
+        assertThat(reopened.getGarbageBytes(), is(garbage));
+    }
+
+    @Test
+    public void testGrowingTheFile() throws Exception {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < MappedFileDataStore.DEFAULT_INITIAL_SIZE; i++) {
+            text.append('x');
+        }
+        dataStore.save("1", new Note().setId("1"));
+        dataStore.save("2", new Note().setId("2").setText(text.toString()));
+        assertThat(file.length(), is(greaterThan((long) MappedFileDataStore.DEFAULT_INITIAL_SIZE)));
+        assertThat(dataStore.retrieve("1"), is(new Note().setId("1")));
+        assertThat(reopen().retrieve("2").getText(), is(text.toString()));
+    }
+
+    @Test
+    public void testCompacting() throws Exception {
+        dataStore.save("1", new Note().setId("1").setText("first"));
+        for (int i = 0; i < 10; i++) {
+            dataStore.save("2", new Note().setId("2").setText("value " + i));
+        }
+        dataStore.save("3", new Note().setId("3"));
+        dataStore.delete("3");
+        assertThat(dataStore.getGarbageBytes(), is(greaterThan(0L)));
+        dataStore.compact();
+        assertThat(dataStore.getGarbageBytes(), is(0L));
+        assertThat(dataStore.keys(), containsInAnyOrder("1", "2"));
+        assertThat(dataStore.retrieve("1").getText(), is("first"));
+        assertThat(dataStore.retrieve("2").getText(), is("value 9"));
+        dataStore.save("4", new Note().setId("4"));
+        final MappedFileDataStore<String, Note> reopened = reopen();
+        assertThat(reopened.keys(), containsInAnyOrder("1", "2", "4"));
+        assertThat(reopened.retrieve("2").getText(), is("value 9"));
+        assertThat(reopened.getGarbageBytes(), is(0L));
+    }
+
+    @Test
+    public void testScanning() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            dataStore.save(String.valueOf(i), new Note().setId(String.valueOf(i)));
+        }
+        final List<String> visited = new ArrayList<>();
+        dataStore.scan(new DataStoreVisitor<String, Note>() {
+            @Override
+            public boolean visit(String key, Note entity) {
+                assertThat(entity.getId(), is(key));
+                visited.add(key);
+                return visited.size() < 3;
+            }
+        });
+        assertThat(visited, hasSize(3));
+    }
+
+    @Test
+    public void testTruncating() throws Exception {
+        dataStore.save("1", new Note());
+        dataStore.save("2", new Note());
+        dataStore.truncate();
+        assertThat(dataStore.keys(), is(Matchers.<String>empty()));
+        assertThat(dataStore.retrieveAll(), is(Matchers.<Note>empty()));
+        assertThat(reopen().keys(), is(Matchers.<String>empty()));
+    }
+
+    @Test
+    public void testReopeningDoesNotDecodeKeys() throws Exception {
+        final CountingCodec<String> keyCodec = new CountingCodec<>(new SerializingEntityCodec<>(String.class));
+        final CountingCodec<Note> codec = new CountingCodec<>(new SerializingEntityCodec<>(Note.class));
+        for (int i = 0; i < 1000; i++) {
+            dataStore.save(String.valueOf(i), new Note().setId(String.valueOf(i)));
+        }
+        dataStore.delete("500");
+        dataStore.close();
+        dataStore = new MappedFileDataStore<>(Note.class, file, keyCodec, codec);
+        assertThat(dataStore.hasKey("999"), is(true));
+        assertThat(dataStore.hasKey("500"), is(false));
+        assertThat(dataStore.retrieve("123").getId(), is("123"));
+        assertThat(dataStore.retrieve("1000"), is(nullValue()));
+        assertThat(keyCodec.decoded, is(0));
+        assertThat(codec.decoded, is(1));
+        assertThat(dataStore.keys(), hasSize(999));
+        assertThat(keyCodec.decoded, is(999));
+    }
+
+    @Test
+    public void testGrowingTheDirectory() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            assertThat(dataStore.save(String.valueOf(i), new Note().setId(String.valueOf(i))), is(true));
+        }
+        for (int i = 0; i < 500; i += 2) {
+            dataStore.delete(String.valueOf(i));
+        }
+        assertThat(dataStore.save("0", new Note().setId("0").setText("again")), is(true));
+        assertThat(dataStore.keys(), hasSize(251));
+        final MappedFileDataStore<String, Note> reopened = reopen();
+        assertThat(reopened.keys(), hasSize(251));
+        for (int i = 1; i < 500; i += 2) {
+            assertThat(reopened.retrieve(String.valueOf(i)).getId(), is(String.valueOf(i)));
+        }
+        assertThat(reopened.retrieve("0").getText(), is("again"));
+        assertThat(reopened.retrieve("2"), is(nullValue()));
+        reopened.compact();
+        assertThat(reopened.getGarbageBytes(), is(0L));
+        assertThat(reopen().keys(), hasSize(251));
+    }
+
+    @Test
+    public void testRecordsSpanningSegments() throws Exception {
+        dataStore.close();
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+        dataStore = new MappedFileDataStore<>(Note.class, file, new SerializingEntityCodec<>(String.class), new SerializingEntityCodec<>(Note.class), 128);
+        for (int i = 0; i < 200; i++) {
+            dataStore.save(String.valueOf(i), new Note().setId(String.valueOf(i)).setText("text of note " + i));
+        }
+        dataStore.delete("7");
+        dataStore.compact();
+        dataStore.save("7", new Note().setId("7"));
+        dataStore.close();
+        dataStore = new MappedFileDataStore<>(Note.class, file, new SerializingEntityCodec<>(String.class), new SerializingEntityCodec<>(Note.class), 128);
+        assertThat(dataStore.keys(), hasSize(200));
+        for (int i = 0; i < 200; i++) {
+            assertThat(dataStore.retrieve(String.valueOf(i)).getId(), is(String.valueOf(i)));
+        }
+        assertThat(dataStore.retrieve("7").getText(), is(nullValue()));
+        assertThat(dataStore.retrieve("8").getText(), is("text of note 8"));
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testSegmentSizeThatDoesNotFitTheDirectory() throws Exception {
+        new MappedFileDataStore<>(Note.class, file, new SerializingEntityCodec<>(String.class), new SerializingEntityCodec<>(Note.class), 100);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testUsingAClosedDataStore() throws Exception {
+        dataStore.close();
+        dataStore.close();
+        dataStore.hasKey("1");
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testOpeningAForeignFile() throws Exception {
+        final File foreign = File.createTempFile("foreign", ".dat");
+        foreign.deleteOnExit();
+        try (FileOutputStream output = new FileOutputStream(foreign)) {
+            output.write("this is not a data file".getBytes("UTF-8"));
+        }
+        new MappedFileDataStore<>(Note.class, foreign);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingWithNullKey() throws Exception {
+        dataStore.save(null, new Note());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingNullEntity() throws Exception {
+        dataStore.save("1", null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDeletingWithNullKey() throws Exception {
+        dataStore.delete(null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testRetrievingWithNullKey() throws Exception {
+        dataStore.retrieve(null);
+    }
+
+    private static class CountingCodec<E> implements EntityCodec<E> {
+
+        private final EntityCodec<E> delegate;
+        private int decoded;
+
+        private CountingCodec(EntityCodec<E> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public byte[] encode(E entity) {
+            return delegate.encode(entity);
+        }
+
+        @Override
+        public E decode(byte[] data) {
+            decoded++;
+            return delegate.decode(data);
+        }
+
+    }
+
+}
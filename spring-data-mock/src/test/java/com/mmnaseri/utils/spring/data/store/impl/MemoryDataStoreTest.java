@@ -1,13 +1,27 @@
 package com.mmnaseri.utils.spring.data.store.impl;
 
 import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.OptimisticLockException;
 import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.models.VersionedPerson;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
 import org.hamcrest.Matchers;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.testng.Assert.fail;
 
 /**
  * @author Milad Naseri (mmnaseri@programmer.net)
@@ -123,4 +137,337 @@ public class MemoryDataStoreTest {
         assertThat(dataStore.retrieveAll(), is(Matchers.<Person>empty()));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSnapshotsAreSharedUntilTheNextWrite() throws Exception {
+        dataStore.save("1", new Person());
+        final Collection<Person> entities = dataStore.retrieveAll();
+        final Collection<String> keys = dataStore.keys();
+        assertThat(dataStore.retrieveAll(), is(sameInstance(entities)));
+        assertThat(dataStore.keys(), is(sameInstance(keys)));
+        dataStore.save("2", new Person());
+        assertThat(dataStore.retrieveAll(), is(not(sameInstance(entities))));
+        assertThat(dataStore.keys(), is(not(sameInstance(keys))));
+    }
+
+    @Test
+    public void testSnapshotsAreNotAffectedByLaterWrites() throws Exception {
+        final Person person = new Person();
+        dataStore.save("1", person);
+        final Collection<Person> entities = dataStore.retrieveAll();
+        final Collection<String> keys = dataStore.keys();
+        dataStore.save("2", new Person());
+        dataStore.delete("1");
+        assertThat(entities, contains(person));
+        assertThat(keys, contains("1"));
+        dataStore.truncate();
+        assertThat(entities, contains(person));
+        assertThat(dataStore.retrieveAll(), is(Matchers.<Person>empty()));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testSnapshotsAreImmutable() throws Exception {
+        dataStore.save("1", new Person());
+        dataStore.retrieveAll().clear();
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testKeySnapshotsAreImmutable() throws Exception {
+        dataStore.save("1", new Person());
+        dataStore.keys().remove("1");
+    }
+
+    @Test
+    public void testSnapshotsSeeASingleVersion() throws Exception {
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 2000; i++) {
+                    final Map<String, Person> entities = new LinkedHashMap<>();
+                    entities.put("1", new Person().setLastName(String.valueOf(i)));
+                    entities.put("2", new Person().setLastName(String.valueOf(i)));
+                    entities.put("3", new Person().setLastName(String.valueOf(i)));
+                    dataStore.saveAll(entities);
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            final Collection<Person> snapshot = dataStore.retrieveAll();
+            final List<String> names = new ArrayList<>();
+            for (Person person : snapshot) {
+                names.add(person.getLastName());
+            }
+            assertThat(names.size(), is(snapshot.size()));
+            if (!names.isEmpty()) {
+                assertThat(names, everyItem(is(names.get(0))));
+            }
+        }
+        writer.join();
+        assertThat(dataStore.keys(), containsInAnyOrder("1", "2", "3"));
+        assertThat(dataStore.keys().contains("2"), is(true));
+        assertThat(dataStore.keys().contains("4"), is(false));
+    }
+
+    @Test
+    public void testScanning() throws Exception {
+        dataStore.save("1", new Person());
+        dataStore.save("2", new Person());
+        dataStore.save("3", new Person());
+        final List<String> visited = new ArrayList<>();
+        dataStore.scan(new DataStoreVisitor<String, Person>() {
+            @Override
+            public boolean visit(String key, Person entity) {
+                visited.add(key);
+                return true;
+            }
+        });
+        assertThat(visited, containsInAnyOrder("1", "2", "3"));
+    }
+
+    @Test
+    public void testStoppingTheScan() throws Exception {
+        dataStore.save("1", new Person());
+        dataStore.save("2", new Person());
+        dataStore.save("3", new Person());
+        final List<String> visited = new ArrayList<>();
+        dataStore.scan(new DataStoreVisitor<String, Person>() {
+            @Override
+            public boolean visit(String key, Person entity) {
+                visited.add(key);
+                return visited.size() < 2;
+            }
+        });
+        assertThat(visited, hasSize(2));
+    }
+
+    @Test
+    public void testSavingInBulk() throws Exception {
+        final Person existing = new Person();
+        dataStore.save("1", existing);
+        final Collection<Person> snapshot = dataStore.retrieveAll();
+        final Map<String, Person> entities = new LinkedHashMap<>();
+        entities.put("1", new Person());
+        entities.put("2", new Person());
+        entities.put("3", new Person());
+        assertThat(dataStore.saveAll(entities), is(2));
+        assertThat(dataStore.keys(), containsInAnyOrder("1", "2", "3"));
+        assertThat(dataStore.retrieve("1"), is(sameInstance(entities.get("1"))));
+        assertThat(snapshot, contains(existing));
+        assertThat(dataStore.retrieveAll(), hasSize(3));
+    }
+
+    @Test
+    public void testSavingInBulkWithANullEntity() throws Exception {
+        final Map<String, Person> entities = new LinkedHashMap<>();
+        entities.put("1", new Person());
+        entities.put("2", null);
+        try {
+            dataStore.saveAll(entities);
+            fail();
+        } catch (DataStoreException ignored) {
+        }
+        assertThat(dataStore.keys(), is(Matchers.<String>empty()));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingInBulkWithANullKey() throws Exception {
+        dataStore.saveAll(Collections.<String, Person>singletonMap(null, new Person()));
+    }
+
+    @Test
+    public void testDeletingInBulk() throws Exception {
+        final Person first = new Person();
+        final Person third = new Person();
+        dataStore.save("1", first);
+        dataStore.save("2", new Person());
+        dataStore.save("3", third);
+        final Map<String, Person> deleted = dataStore.deleteAll(Arrays.asList("3", "4", "1"));
+        assertThat(deleted.keySet(), contains("3", "1"));
+        assertThat(deleted.get("1"), is(sameInstance(first)));
+        assertThat(deleted.get("3"), is(sameInstance(third)));
+        assertThat(dataStore.keys(), contains("2"));
+        assertThat(dataStore.deleteAll(Collections.singletonList("4")).isEmpty(), is(true));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDeletingInBulkWithANullKey() throws Exception {
+        dataStore.deleteAll(Collections.<String>singletonList(null));
+    }
+
+    @Test
+    public void testRetrievingInBulk() throws Exception {
+        final Person first = new Person();
+        final Person second = new Person();
+        dataStore.save("1", first);
+        dataStore.save("2", second);
+        assertThat(dataStore.retrieveAll(Arrays.asList("2", "3", "1", "2")), contains(second, first, second));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testRetrievingInBulkWithANullKey() throws Exception {
+        dataStore.retrieveAll(Collections.<String>singletonList(null));
+    }
+
+    @Test
+    public void testVersionedInsertAndUpdate() throws Exception {
+        final MemoryDataStore<String, VersionedPerson> store = new MemoryDataStore<>(VersionedPerson.class);
+        final VersionedPerson person = new VersionedPerson().setId("k");
+        assertThat(store.save("k", person, "version"), is(true));
+        assertThat(person.getVersion(), is(0L));
+        final VersionedPerson update = new VersionedPerson().setId("k").setVersion(0L).setName("updated");
+        assertThat(store.save("k", update, "version"), is(false));
+        assertThat(update.getVersion(), is(1L));
+        assertThat(store.retrieve("k"), is(sameInstance(update)));
+    }
+
+    @Test
+    public void testVersionedSaveOfStaleEntity() throws Exception {
+        final MemoryDataStore<String, VersionedPerson> store = new MemoryDataStore<>(VersionedPerson.class);
+        final VersionedPerson stored = new VersionedPerson().setId("k");
+        store.save("k", stored, "version");
+        store.save("k", new VersionedPerson().setId("k").setVersion(0L), "version");
+        //this one is equal to the stored entity, but was read before the last save
+        final VersionedPerson stale = new VersionedPerson().setId("k").setVersion(0L);
+        try {
+            store.save("k", stale, "version");
+            fail("Expected a version conflict");
+        } catch (OptimisticLockException e) {
+            assertThat(e.getActualVersion(), is((Object) 1L));
+        }
+        assertThat(stale.getVersion(), is(0L));
+        assertThat(store.retrieve("k").getVersion(), is(1L));
+    }
+
+    @Test
+    public void testVersionedInsertOverExistingEntity() throws Exception {
+        final MemoryDataStore<String, VersionedPerson> store = new MemoryDataStore<>(VersionedPerson.class);
+        store.save("k", new VersionedPerson().setId("k"), "version");
+        try {
+            store.save("k", new VersionedPerson().setId("k"), "version");
+            fail("Expected a version conflict");
+        } catch (OptimisticLockException e) {
+            assertThat(e.getExpectedVersion(), is(nullValue()));
+        }
+    }
+
+    @Test(expectedExceptions = DataStoreException.class, expectedExceptionsMessageRegExp = ".*null entity.*")
+    public void testVersionedSaveOfNullEntity() throws Exception {
+        new MemoryDataStore<String, VersionedPerson>(VersionedPerson.class).save("k", null, "version");
+    }
+
+    @Test
+    public void testConcurrentVersionedUpdates() throws Exception {
+        final MemoryDataStore<String, VersionedPerson> store = new MemoryDataStore<>(VersionedPerson.class);
+        store.save("k", new VersionedPerson().setId("k"), "version");
+        final int threads = 4;
+        final int updates = 250;
+        final AtomicInteger conflicts = new AtomicInteger();
+        final List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int done = 0;
+                    while (done < updates) {
+                        final VersionedPerson copy = new VersionedPerson().setId("k").setVersion(store.retrieve("k").getVersion());
+                        try {
+                            store.save("k", copy, "version");
+                            done++;
+                        } catch (OptimisticLockException e) {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        //no update was lost, so every one of them bumped the version exactly once
+        assertThat(store.retrieve("k").getVersion(), is((long) threads * updates));
+    }
+
+    @Test
+    public void testPuttingAndRemoving() throws Exception {
+        final Person first = new Person();
+        final Person second = new Person();
+        assertThat(dataStore.put("k", first), is(nullValue()));
+        assertThat(dataStore.put("k", second), is(first));
+        assertThat(dataStore.putIfAbsent("k", first), is(second));
+        assertThat(dataStore.retrieve("k"), is(second));
+        assertThat(dataStore.remove("k"), is(second));
+        assertThat(dataStore.remove("k"), is(nullValue()));
+        assertThat(dataStore.putIfAbsent("k", first), is(nullValue()));
+        assertThat(dataStore.retrieve("k"), is(first));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testPuttingANullKey() throws Exception {
+        dataStore.put(null, new Person());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testPuttingANullEntity() throws Exception {
+        dataStore.putIfAbsent("k", null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testRemovingANullKey() throws Exception {
+        dataStore.remove(null);
+    }
+
+    @Test
+    public void testComputing() throws Exception {
+        final EntityRemappingFunction<String, Person> rename = new EntityRemappingFunction<String, Person>() {
+            @Override
+            public Person apply(String key, Person current) {
+                return current == null ? new Person().setLastName(key) : null;
+            }
+        };
+        assertThat(dataStore.compute("k", rename).getLastName(), is("k"));
+        assertThat(dataStore.retrieve("k").getLastName(), is("k"));
+        assertThat(dataStore.compute("k", rename), is(nullValue()));
+        assertThat(dataStore.hasKey("k"), is(false));
+        assertThat(dataStore.compute("k", new EntityRemappingFunction<String, Person>() {
+            @Override
+            public Person apply(String key, Person current) {
+                return null;
+            }
+        }), is(nullValue()));
+        assertThat(dataStore.keys(), is(Matchers.<String>empty()));
+    }
+
+    @Test
+    public void testConcurrentComputations() throws Exception {
+        final int threads = 4;
+        final int updates = 250;
+        final EntityRemappingFunction<String, Person> increment = new EntityRemappingFunction<String, Person>() {
+            @Override
+            public Person apply(String key, Person current) {
+                return new Person().setLastName(String.valueOf(current == null ? 1 : Integer.parseInt(current.getLastName()) + 1));
+            }
+        };
+        final List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < updates; j++) {
+                        dataStore.compute("k", increment);
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertThat(dataStore.retrieve("k").getLastName(), is(String.valueOf(threads * updates)));
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.sample.models.Address;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.models.Shipment;
+import com.mmnaseri.utils.spring.data.sample.models.State;
+import com.mmnaseri.utils.spring.data.sample.models.Zip;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class MethodHandleEntityCopierTest {
+
+    @Test
+    public void testCopyingNull() throws Exception {
+        final MethodHandleEntityCopier<Person> copier = new MethodHandleEntityCopier<>(Person.class);
+        assertThat(copier.getEntityType(), is(equalTo(Person.class)));
+        assertThat(copier.copy(null), is(nullValue()));
+    }
+
+    @Test
+    public void testCopyingNestedObjects() throws Exception {
+        final MethodHandleEntityCopier<Person> copier = new MethodHandleEntityCopier<>(Person.class);
+        final Zip zip = new Zip().setPrefix("123").setRegion(4L).setArea("area");
+        final Person original = new Person().setId("1").setFirstName("Milad").setAge(30).setAddressZip(zip)
+                .setAddress(new Address().setCity("Tehran").setState(new State().setName("Tehran")).setZip(zip));
+        final Person copy = copier.copy(original);
+        assertThat(copy, is(not(sameInstance(original))));
+        assertThat(copy.getId(), is("1"));
+        assertThat(copy.getFirstName(), is("Milad"));
+        assertThat(copy.getAge(), is(30));
+        assertThat(copy.getAddress(), is(not(sameInstance(original.getAddress()))));
+        assertThat(copy.getAddress().getCity(), is("Tehran"));
+        assertThat(copy.getAddress().getState(), is(not(sameInstance(original.getAddress().getState()))));
+        assertThat(copy.getAddress().getState().getName(), is("Tehran"));
+        assertThat(copy.getAddressZip(), is(not(sameInstance(zip))));
+        assertThat(copy.getAddressZip().getPrefix(), is("123"));
+        assertThat(copy.getAddressZip().getRegion(), is(4L));
+        //the same zip was referenced twice, so it should be copied once
+        assertThat(copy.getAddress().getZip(), is(sameInstance(copy.getAddressZip())));
+    }
+
+    @Test
+    public void testCopyingContainers() throws Exception {
+        final MethodHandleEntityCopier<Shipment> copier = new MethodHandleEntityCopier<>(Shipment.class);
+        final Address stop = new Address().setCity("Shiraz");
+        final Map<String, Zip> zones = new HashMap<>();
+        zones.put("north", new Zip().setPrefix("N"));
+        final TreeSet<String> tags = new TreeSet<>(Collections.<String>reverseOrder());
+        tags.addAll(Arrays.asList("a", "b", "c"));
+        final Shipment original = new Shipment().setId("1").setWeight(12L).setDimensions(new int[]{1, 2, 3})
+                .setLabels(new String[]{"fragile"}).setStops(new ArrayList<>(Arrays.asList(stop, stop)))
+                .setZones(zones).setUnits(EnumSet.of(TimeUnit.DAYS)).setTags(tags).setShipped(new Date(1000L));
+        original.getNotes().add("note");
+        final Shipment copy = copier.copy(original);
+        assertThat(copy.getWeight(), is(12L));
+        assertThat(copy.getNotes(), is(not(sameInstance(original.getNotes()))));
+        assertThat(copy.getNotes(), contains("note"));
+        assertThat(copy.getDimensions(), is(not(sameInstance(original.getDimensions()))));
+        assertThat(copy.getDimensions()[2], is(3));
+        assertThat(copy.getLabels(), is(not(sameInstance(original.getLabels()))));
+        assertThat(copy.getLabels(), is(arrayContaining("fragile")));
+        assertThat(copy.getStops(), is(instanceOf(ArrayList.class)));
+        assertThat(copy.getStops(), hasSize(2));
+        assertThat(copy.getStops().get(0), is(not(sameInstance(stop))));
+        assertThat(copy.getStops().get(0), is(sameInstance(copy.getStops().get(1))));
+        assertThat(copy.getStops().get(0).getCity(), is("Shiraz"));
+        assertThat(copy.getZones(), is(instanceOf(HashMap.class)));
+        assertThat(copy.getZones().get("north"), is(not(sameInstance(zones.get("north")))));
+        assertThat(copy.getZones().get("north").getPrefix(), is("N"));
+        assertThat(copy.getUnits(), is(not(sameInstance(original.getUnits()))));
+        assertThat(copy.getUnits(), contains(TimeUnit.DAYS));
+        assertThat(copy.getTags(), is(not(sameInstance(original.getTags()))));
+        assertThat(copy.getTags(), contains("c", "b", "a"));
+        assertThat(copy.getShipped(), is(not(sameInstance(original.getShipped()))));
+        assertThat(copy.getShipped(), is(equalTo(original.getShipped())));
+    }
+
+    @Test
+    public void testCopyingCycles() throws Exception {
+        final MethodHandleEntityCopier<Shipment> copier = new MethodHandleEntityCopier<>(Shipment.class);
+        final Shipment original = new Shipment().setId("1");
+        original.setParent(original);
+        final Shipment copy = copier.copy(original);
+        assertThat(copy, is(not(sameInstance(original))));
+        assertThat(copy.getParent(), is(sameInstance(copy)));
+    }
+
+    @Test
+    public void testCopyingUnmodifiableCollections() throws Exception {
+        final MethodHandleEntityCopier<Shipment> copier = new MethodHandleEntityCopier<>(Shipment.class);
+        final Shipment original = new Shipment().setStops(Collections.singletonList(new Address().setCity("Rasht")))
+                .setZones(Collections.<String, Zip>emptyMap());
+        final Shipment copy = copier.copy(original);
+        assertThat(copy.getStops(), hasSize(1));
+        assertThat(copy.getStops().get(0).getCity(), is("Rasht"));
+        copy.getStops().add(new Address());
+        copy.getZones().put("south", new Zip());
+        assertThat(original.getStops(), hasSize(1));
+        assertThat(original.getZones().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testCopyingSubclasses() throws Exception {
+        final MethodHandleEntityCopier<Object> copier = new MethodHandleEntityCopier<>(Object.class);
+        final Object copy = copier.copy(new Zip().setPrefix("1"));
+        assertThat(copy, is(instanceOf(Zip.class)));
+        assertThat(((Zip) copy).getPrefix(), is("1"));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class, expectedExceptionsMessageRegExp = ".*without a default constructor.*")
+    public void testCopyingTypeWithoutDefaultConstructor() throws Exception {
+        new MethodHandleEntityCopier<>(Immovable.class);
+    }
+
+    @SuppressWarnings("unused")
+    private static class Immovable {
+
+        private final String value;
+
+        private Immovable(String value) {
+            this.value = value;
+        }
+
+    }
+
+}
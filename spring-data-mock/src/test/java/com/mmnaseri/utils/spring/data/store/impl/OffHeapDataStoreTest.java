@@ -0,0 +1,165 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.models.Note;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityCodec;
+import org.hamcrest.Matchers;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class OffHeapDataStoreTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private OffHeapDataStore<String, Note> dataStore;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dataStore = new OffHeapDataStore<>(Note.class);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testInvalidSlabSize() throws Exception {
+        new OffHeapDataStore<>(Note.class, new SerializingEntityCodec<>(Note.class), 4);
+    }
+
+    @Test
+    public void testEntityType() throws Exception {
+        assertThat(dataStore.getEntityType(), is(equalTo(Note.class)));
+    }
+
+    @Test
+    public void testSavingAndRetrieving() throws Exception {
+        final Note note = new Note().setId("1").setText("Hello");
+        assertThat(dataStore.save("1", note), is(true));
+        assertThat(dataStore.hasKey("1"), is(true));
+        assertThat(dataStore.hasKey("2"), is(false));
+        final Note retrieved = dataStore.retrieve("1");
+        assertThat(retrieved, is(note));
+        assertThat(retrieved, is(not(sameInstance(note))));
+        assertThat(dataStore.retrieve("2"), is(nullValue()));
+        assertThat(dataStore.getLiveBytes(), is(greaterThan(0L)));
+        assertThat(dataStore.getAllocatedBytes(), is((long) OffHeapDataStore.DEFAULT_SLAB_SIZE));
+    }
+
+    @Test
+    public void testUpdating() throws Exception {
+        dataStore.save("1", new Note().setId("1").setText("Hello"));
+        assertThat(dataStore.save("1", new Note().setId("1").setText("Goodbye")), is(false));
+        assertThat(dataStore.retrieve("1").getText(), is("Goodbye"));
+        assertThat(dataStore.keys(), contains("1"));
+    }
+
+    @Test
+    public void testDeleting() throws Exception {
+        dataStore.save("1", new Note().setId("1"));
+        dataStore.save("2", new Note().setId("2"));
+        assertThat(dataStore.delete("1"), is(true));
+        assertThat(dataStore.delete("1"), is(false));
+        assertThat(dataStore.keys(), contains("2"));
+        assertThat(dataStore.retrieveAll(), contains(new Note().setId("2")));
+    }
+
+    @Test
+    public void testScanning() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            dataStore.save(String.valueOf(i), new Note().setId(String.valueOf(i)));
+        }
+        final List<String> visited = new ArrayList<>();
+        dataStore.scan(new DataStoreVisitor<String, Note>() {
+            @Override
+            public boolean visit(String key, Note entity) {
+                assertThat(entity.getId(), is(key));
+                visited.add(key);
+                return visited.size() < 3;
+            }
+        });
+        assertThat(visited, hasSize(3));
+    }
+
+    @Test
+    public void testSpanningMultipleSlabs() throws Exception {
+        final OffHeapDataStore<String, Note> dataStore = new OffHeapDataStore<>(Note.class, new TextCodec(), 16);
+        dataStore.save("1", new Note().setText("0123456789"));
+        dataStore.save("2", new Note().setText("0123456789"));
+        dataStore.save("3", new Note().setText("this one is larger than a slab"));
+        assertThat(dataStore.getAllocatedBytes(), is(16L + 16L + 34L));
+        assertThat(dataStore.retrieve("1").getText(), is("0123456789"));
+        assertThat(dataStore.retrieve("2").getText(), is("0123456789"));
+        assertThat(dataStore.retrieve("3").getText(), is("this one is larger than a slab"));
+    }
+
+    @Test
+    public void testCompacting() throws Exception {
+        final OffHeapDataStore<String, Note> dataStore = new OffHeapDataStore<>(Note.class, new TextCodec(), 16);
+        dataStore.save("1", new Note().setText("0123456789"));
+        for (int i = 0; i < 10; i++) {
+            dataStore.save("2", new Note().setText("value " + i));
+        }
+        assertThat(dataStore.getLiveBytes(), is(14L + 11L));
+        assertThat(dataStore.getAllocatedBytes(), is(lessThanOrEqualTo(64L)));
+        assertThat(dataStore.retrieve("1").getText(), is("0123456789"));
+        assertThat(dataStore.retrieve("2").getText(), is("value 9"));
+    }
+
+    @Test
+    public void testTruncating() throws Exception {
+        dataStore.save("1", new Note());
+        dataStore.save("2", new Note());
+        dataStore.truncate();
+        assertThat(dataStore.keys(), is(Matchers.<String>empty()));
+        assertThat(dataStore.retrieveAll(), is(Matchers.<Note>empty()));
+        assertThat(dataStore.getAllocatedBytes(), is(0L));
+        assertThat(dataStore.getLiveBytes(), is(0L));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingWithNullKey() throws Exception {
+        dataStore.save(null, new Note());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingNullEntity() throws Exception {
+        dataStore.save("1", null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDeletingWithNullKey() throws Exception {
+        dataStore.delete(null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testRetrievingWithNullKey() throws Exception {
+        dataStore.retrieve(null);
+    }
+
+    /**
+     * Only keeps the text of the note, so that the size of each entity is predictable
+     */
+    private static class TextCodec implements EntityCodec<Note> {
+
+        @Override
+        public byte[] encode(Note entity) {
+            return entity.getText().getBytes(UTF_8);
+        }
+
+        @Override
+        public Note decode(byte[] data) {
+            return new Note().setText(new String(data, UTF_8));
+        }
+
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class PersistentMemoryDataStoreTest {
+
+    private PersistentMemoryDataStore<String, Person> dataStore;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dataStore = new PersistentMemoryDataStore<>(Person.class);
+    }
+
+    @Test
+    public void testSavingAndRetrieving() throws Exception {
+        final Person person = new Person();
+        assertThat(dataStore.getEntityType(), is(equalTo(Person.class)));
+        assertThat(dataStore.hasKey("1"), is(false));
+        assertThat(dataStore.save("1", person), is(true));
+        assertThat(dataStore.save("1", person), is(false));
+        assertThat(dataStore.hasKey("1"), is(true));
+        assertThat(dataStore.retrieve("1"), is(sameInstance(person)));
+        assertThat(dataStore.retrieve("2"), is(nullValue()));
+        dataStore.save("2", new Person());
+        assertThat(dataStore.keys(), containsInAnyOrder("1", "2"));
+        assertThat(dataStore.retrieveAll(), hasSize(2));
+        assertThat(dataStore.size(), is(2));
+    }
+
+    @Test
+    public void testDeletingAndTruncating() throws Exception {
+        dataStore.save("1", new Person());
+        dataStore.save("2", new Person());
+        assertThat(dataStore.delete("1"), is(true));
+        assertThat(dataStore.delete("1"), is(false));
+        assertThat(dataStore.keys(), contains("2"));
+        dataStore.truncate();
+        assertThat(dataStore.keys(), is(empty()));
+        assertThat(dataStore.size(), is(0));
+    }
+
+    @Test
+    public void testScanning() throws Exception {
+        dataStore.save("1", new Person());
+        dataStore.save("2", new Person());
+        final List<String> keys = new ArrayList<>();
+        dataStore.scan(new DataStoreVisitor<String, Person>() {
+            @Override
+            public boolean visit(String key, Person entity) {
+                keys.add(key);
+                return false;
+            }
+        });
+        assertThat(keys, hasSize(1));
+    }
+
+    @Test
+    public void testForking() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            dataStore.save(String.valueOf(i), new Person());
+        }
+        final PersistentMemoryDataStore<String, Person> fork = dataStore.fork();
+        assertThat(fork.size(), is(1000));
+        fork.delete("0");
+        fork.save("1000", new Person());
+        dataStore.save("1001", new Person());
+        assertThat(dataStore.hasKey("0"), is(true));
+        assertThat(dataStore.hasKey("1000"), is(false));
+        assertThat(fork.hasKey("0"), is(false));
+        assertThat(fork.hasKey("1001"), is(false));
+        fork.truncate();
+        assertThat(dataStore.size(), is(1001));
+        assertThat(dataStore.fork().fork().size(), is(1001));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingWithNullKey() throws Exception {
+        dataStore.save(null, new Person());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingNullEntity() throws Exception {
+        dataStore.save("1", null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDeletingWithNullKey() throws Exception {
+        dataStore.delete(null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testRetrievingWithNullKey() throws Exception {
+        dataStore.retrieve(null);
+    }
+
+}
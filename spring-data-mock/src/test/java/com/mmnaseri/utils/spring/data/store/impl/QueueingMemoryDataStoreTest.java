@@ -0,0 +1,243 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.mocks.Operation;
+import com.mmnaseri.utils.spring.data.sample.mocks.OperationRequest;
+import com.mmnaseri.utils.spring.data.sample.mocks.SpyingDataStore;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class QueueingMemoryDataStoreTest {
+
+    private MemoryDataStore<String, Person> delegate;
+    private SpyingDataStore<String, Person> spy;
+    private QueueingMemoryDataStore<String, Person> dataStore;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        delegate = new MemoryDataStore<>(Person.class);
+        spy = new SpyingDataStore<>(delegate, new AtomicLong());
+        dataStore = new QueueingMemoryDataStore<>(spy, 3);
+    }
+
+    private List<Operation> writes() {
+        final List<Operation> operations = new ArrayList<>();
+        for (OperationRequest<?, ?> request : spy.getRequests()) {
+            if (Operation.SAVE.equals(request.getOperation()) || Operation.DELETE.equals(request.getOperation())) {
+                operations.add(request.getOperation());
+            }
+        }
+        return operations;
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testInvalidThreshold() throws Exception {
+        new QueueingMemoryDataStore<>(delegate, 0);
+    }
+
+    @Test
+    public void testReadingYourWrites() throws Exception {
+        final Person first = new Person().setId("k1");
+        final Person second = new Person().setId("k2");
+        assertThat(dataStore.save("k1", first), is(true));
+        assertThat(dataStore.save("k2", second), is(true));
+        assertThat(delegate.keys(), is(empty()));
+        assertThat(dataStore.hasKey("k1"), is(true));
+        assertThat(dataStore.retrieve("k1"), is(first));
+        assertThat(dataStore.keys(), containsInAnyOrder("k1", "k2"));
+        assertThat(dataStore.retrieveAll(), containsInAnyOrder(first, second));
+        assertThat(dataStore.getEntityType(), is(equalTo(Person.class)));
+    }
+
+    @Test
+    public void testReadingQueuedDeletes() throws Exception {
+        delegate.save("k1", new Person().setId("k1"));
+        delegate.save("k2", new Person().setId("k2"));
+        assertThat(dataStore.delete("k1"), is(true));
+        assertThat(dataStore.delete("k1"), is(false));
+        assertThat(delegate.hasKey("k1"), is(true));
+        assertThat(dataStore.hasKey("k1"), is(false));
+        assertThat(dataStore.retrieve("k1"), is(nullValue()));
+        assertThat(dataStore.keys(), containsInAnyOrder("k2"));
+        assertThat(dataStore.retrieveAll(), contains(delegate.retrieve("k2")));
+    }
+
+    @Test
+    public void testCoalescingWrites() throws Exception {
+        final Person person = new Person().setId("k1");
+        assertThat(dataStore.save("k1", new Person()), is(true));
+        assertThat(dataStore.save("k1", person), is(false));
+        assertThat(dataStore.getQueueSize(), is(1));
+        dataStore.flush();
+        assertThat(dataStore.getQueueSize(), is(0));
+        assertThat(writes(), contains(Operation.SAVE));
+        assertThat(delegate.retrieve("k1"), is(person));
+    }
+
+    @Test
+    public void testDeletingQueuedInserts() throws Exception {
+        dataStore.save("k1", new Person());
+        assertThat(dataStore.delete("k1"), is(true));
+        assertThat(dataStore.getQueueSize(), is(0));
+        dataStore.flush();
+        assertThat(writes(), is(empty()));
+    }
+
+    @Test
+    public void testFlushingWhenThresholdIsReached() throws Exception {
+        dataStore.save("k1", new Person());
+        dataStore.save("k2", new Person());
+        assertThat(delegate.keys(), is(empty()));
+        dataStore.save("k3", new Person());
+        assertThat(delegate.keys(), containsInAnyOrder("k1", "k2", "k3"));
+        assertThat(dataStore.getQueueSize(), is(0));
+    }
+
+    @Test
+    public void testBatching() throws Exception {
+        final Object outer = dataStore.startBatch();
+        final Object inner = dataStore.startBatch();
+        for (int i = 0; i < 10; i++) {
+            dataStore.save("k" + i, new Person());
+        }
+        dataStore.delete("k0");
+        assertThat(delegate.keys(), is(empty()));
+        dataStore.endBatch(inner);
+        assertThat(delegate.keys(), is(empty()));
+        dataStore.endBatch(outer);
+        assertThat(delegate.keys(), hasSize(9));
+        assertThat(delegate.hasKey("k0"), is(false));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testEndingBatchesOutOfOrder() throws Exception {
+        final Object outer = dataStore.startBatch();
+        dataStore.startBatch();
+        dataStore.endBatch(outer);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testEndingUnknownBatch() throws Exception {
+        dataStore.endBatch(new Object());
+    }
+
+    @Test
+    public void testBatchesOnSeparateThreads() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch ended = new CountDownLatch(1);
+        final List<Throwable> failures = new CopyOnWriteArrayList<>();
+        final Thread other = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final Object batch = dataStore.startBatch();
+                    dataStore.save("k1", new Person());
+                    started.countDown();
+                    ended.await();
+                    dataStore.endBatch(batch);
+                } catch (Throwable e) {
+                    failures.add(e);
+                    started.countDown();
+                }
+            }
+        });
+        other.start();
+        started.await();
+        final Object batch = dataStore.startBatch();
+        for (int i = 2; i < 6; i++) {
+            dataStore.save("k" + i, new Person());
+        }
+        assertThat(delegate.keys(), is(empty()));
+        dataStore.endBatch(batch);
+        assertThat(delegate.keys(), hasSize(5));
+        ended.countDown();
+        other.join();
+        assertThat(failures, is(empty()));
+    }
+
+    @Test
+    public void testFlushingDeletesAndSavesTogether() throws Exception {
+        final QueueingMemoryDataStore<String, Person> dataStore = new QueueingMemoryDataStore<>(delegate);
+        delegate.save("k1", new Person().setId("k1"));
+        delegate.save("k2", new Person().setId("k2"));
+        final Person updated = new Person().setId("k2");
+        dataStore.delete("k1");
+        dataStore.save("k2", updated);
+        dataStore.save("k3", new Person().setId("k3"));
+        dataStore.flush();
+        assertThat(dataStore.getQueueSize(), is(0));
+        assertThat(delegate.keys(), containsInAnyOrder("k2", "k3"));
+        assertThat(delegate.retrieve("k2"), is(sameInstance(updated)));
+    }
+
+    @Test
+    public void testTruncating() throws Exception {
+        delegate.save("k1", new Person());
+        dataStore.save("k2", new Person());
+        dataStore.truncate();
+        assertThat(dataStore.keys(), is(empty()));
+        assertThat(dataStore.getQueueSize(), is(0));
+        assertThat(delegate.keys(), is(empty()));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingWithNullKey() throws Exception {
+        dataStore.save(null, new Person());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingNullEntity() throws Exception {
+        dataStore.save("k1", null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDeletingWithNullKey() throws Exception {
+        dataStore.delete(null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testRetrievingWithNullKey() throws Exception {
+        dataStore.retrieve(null);
+    }
+
+    @Test
+    public void testScanningTakesTheQueueIntoAccount() throws Exception {
+        final Person updated = new Person().setId("k2");
+        final Person inserted = new Person().setId("k3");
+        final QueueingMemoryDataStore<String, Person> dataStore = new QueueingMemoryDataStore<>(delegate);
+        delegate.save("k1", new Person().setId("k1"));
+        delegate.save("k2", new Person().setId("k2"));
+        dataStore.delete("k1");
+        dataStore.save("k2", updated);
+        dataStore.save("k3", inserted);
+        assertThat(dataStore.getQueueSize(), is(3));
+        final List<Person> visited = new ArrayList<>();
+        dataStore.scan(new DataStoreVisitor<String, Person>() {
+            @Override
+            public boolean visit(String key, Person entity) {
+                visited.add(entity);
+                return true;
+            }
+        });
+        assertThat(visited, hasSize(2));
+        assertThat(visited, hasItem(sameInstance(updated)));
+        assertThat(visited, hasItem(sameInstance(inserted)));
+    }
+
+}
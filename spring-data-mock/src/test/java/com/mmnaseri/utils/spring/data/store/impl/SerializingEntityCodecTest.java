@@ -0,0 +1,42 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.sample.models.Note;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class SerializingEntityCodecTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final SerializingEntityCodec<Note> codec = new SerializingEntityCodec<>(Note.class);
+        final Note note = new Note().setId("1").setText("Hello");
+        final Note decoded = codec.decode(codec.encode(note));
+        assertThat(decoded, is(not(sameInstance(note))));
+        assertThat(decoded, is(note));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testEncodingNonSerializableEntity() throws Exception {
+        new SerializingEntityCodec<>(Person.class).encode(new Person());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDecodingGarbage() throws Exception {
+        new SerializingEntityCodec<>(Note.class).decode(new byte[]{1, 2, 3});
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDecodingEntityOfTheWrongType() throws Exception {
+        final byte[] data = new SerializingEntityCodec<>(String.class).encode("Hello");
+        new SerializingEntityCodec<>(Note.class).decode(data);
+    }
+
+}
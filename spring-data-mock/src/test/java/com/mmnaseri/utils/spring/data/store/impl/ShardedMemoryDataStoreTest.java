@@ -0,0 +1,130 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class ShardedMemoryDataStoreTest {
+
+    private ShardedMemoryDataStore<Integer, Person> dataStore;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dataStore = new ShardedMemoryDataStore<>(Person.class, 4);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testInvalidShardCount() throws Exception {
+        new ShardedMemoryDataStore<>(Person.class, 0);
+    }
+
+    @Test
+    public void testDefaultShardCount() throws Exception {
+        assertThat(new ShardedMemoryDataStore<>(Person.class).getPartitionCount(), is(Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingWithNullKey() throws Exception {
+        dataStore.save(null, new Person());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingNullEntity() throws Exception {
+        dataStore.save(1, null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDeletingWithNullKey() throws Exception {
+        dataStore.delete(null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testRetrievingWithNullKey() throws Exception {
+        dataStore.retrieve(null);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testScanningAPartitionThatDoesNotExist() throws Exception {
+        dataStore.scan(4, new CollectingVisitor(new ArrayList<Integer>(), 0));
+    }
+
+    @Test
+    public void testBasicOperations() throws Exception {
+        final Person person = new Person();
+        assertThat(dataStore.getEntityType(), is(equalTo(Person.class)));
+        assertThat(dataStore.hasKey(1), is(false));
+        assertThat(dataStore.hasKey(null), is(false));
+        assertThat(dataStore.save(1, person), is(true));
+        assertThat(dataStore.save(1, person), is(false));
+        assertThat(dataStore.hasKey(1), is(true));
+        assertThat(dataStore.retrieve(1), is(sameInstance(person)));
+        assertThat(dataStore.retrieve(2), is(nullValue()));
+        assertThat(dataStore.delete(1), is(true));
+        assertThat(dataStore.delete(1), is(false));
+        assertThat(dataStore.hasKey(1), is(false));
+    }
+
+    @Test
+    public void testSpreadingEntitiesOverShards() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            dataStore.save(i, new Person());
+        }
+        assertThat(dataStore.keys(), hasSize(100));
+        assertThat(dataStore.retrieveAll(), hasSize(100));
+        final List<Integer> all = new ArrayList<>();
+        for (int i = 0; i < dataStore.getPartitionCount(); i++) {
+            final List<Integer> partition = new ArrayList<>();
+            dataStore.scan(i, new CollectingVisitor(partition, 0));
+            assertThat(partition, is(not(empty())));
+            all.addAll(partition);
+        }
+        final List<Integer> scanned = new ArrayList<>();
+        dataStore.scan(new CollectingVisitor(scanned, 0));
+        assertThat(scanned, is(all));
+        assertThat(new ArrayList<>(dataStore.keys()), is(all));
+        dataStore.truncate();
+        assertThat(dataStore.keys(), is(empty()));
+    }
+
+    @Test
+    public void testStoppingTheScan() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            dataStore.save(i, new Person());
+        }
+        final List<Integer> scanned = new ArrayList<>();
+        dataStore.scan(new CollectingVisitor(scanned, 50));
+        assertThat(scanned, hasSize(50));
+    }
+
+    private static class CollectingVisitor implements DataStoreVisitor<Integer, Person> {
+
+        private final List<Integer> visited;
+        private final int limit;
+
+        private CollectingVisitor(List<Integer> visited, int limit) {
+            this.visited = visited;
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean visit(Integer key, Person entity) {
+            visited.add(key);
+            return limit <= 0 || visited.size() < limit;
+        }
+
+    }
+
+}
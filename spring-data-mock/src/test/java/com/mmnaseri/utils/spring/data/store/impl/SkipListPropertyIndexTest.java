@@ -0,0 +1,111 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.domain.Modifier;
+import com.mmnaseri.utils.spring.data.domain.Parameter;
+import com.mmnaseri.utils.spring.data.domain.impl.DefaultOperatorContext;
+import com.mmnaseri.utils.spring.data.domain.impl.ImmutableParameter;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.query.NullHandling;
+import com.mmnaseri.utils.spring.data.query.SortDirection;
+import com.mmnaseri.utils.spring.data.query.impl.ImmutableOrder;
+import org.hamcrest.Matchers;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class SkipListPropertyIndexTest {
+
+    private SkipListPropertyIndex<String> index;
+    private DefaultOperatorContext operatorContext;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        index = new SkipListPropertyIndex<>("age");
+        operatorContext = new DefaultOperatorContext();
+        index.index("k1", 10);
+        index.index("k2", 20);
+        index.index("k3", 30);
+        index.index("k4", 20);
+        index.index("k5", null);
+    }
+
+    private Parameter parameter(String suffix, int operands) {
+        final int[] indices = new int[operands];
+        for (int i = 0; i < operands; i++) {
+            indices[i] = i;
+        }
+        return new ImmutableParameter("age", Collections.<Modifier>emptySet(), indices, operatorContext.getBySuffix(suffix));
+    }
+
+    @Test
+    public void testSimpleLookups() throws Exception {
+        assertThat(index.lookup(parameter("Is", 1), 20), containsInAnyOrder("k2", "k4"));
+        assertThat(index.lookup(parameter("IsNull", 0)), containsInAnyOrder("k5"));
+        assertThat(index.lookup(parameter("In", 1), Arrays.asList(10, 30)), containsInAnyOrder("k1", "k3"));
+    }
+
+    @Test
+    public void testGreaterThan() throws Exception {
+        assertThat(index.lookup(parameter("GreaterThan", 1), 10), containsInAnyOrder("k2", "k3", "k4"));
+        assertThat(index.lookup(parameter("After", 1), 20), containsInAnyOrder("k3"));
+        assertThat(index.lookup(parameter("GreaterThanEqual", 1), 20), containsInAnyOrder("k2", "k3", "k4"));
+    }
+
+    @Test
+    public void testLessThan() throws Exception {
+        assertThat(index.lookup(parameter("LessThan", 1), 20), containsInAnyOrder("k1"));
+        assertThat(index.lookup(parameter("Before", 1), 30), containsInAnyOrder("k1", "k2", "k4"));
+        assertThat(index.lookup(parameter("LessThanEqual", 1), 20), containsInAnyOrder("k1", "k2", "k4"));
+    }
+
+    @Test
+    public void testBetween() throws Exception {
+        assertThat(index.lookup(parameter("Between", 2), 10, 20), containsInAnyOrder("k1", "k2", "k4"));
+        assertThat(index.lookup(parameter("Between", 2), 11, 29), containsInAnyOrder("k2", "k4"));
+        assertThat(index.lookup(parameter("Between", 2), 30, 10), is(Matchers.<String>empty()));
+    }
+
+    @Test
+    public void testUnsupportedLookups() throws Exception {
+        assertThat(index.lookup(parameter("GreaterThan", 1), (Object) null), is(nullValue()));
+        assertThat(index.lookup(parameter("GreaterThan", 1), "20"), is(nullValue()));
+        assertThat(index.lookup(parameter("Is", 1), "20"), is(nullValue()));
+        assertThat(index.lookup(parameter("NotBetween", 2), 10, 20), is(nullValue()));
+    }
+
+    @Test
+    public void testSorting() throws Exception {
+        assertThat(index.sort(new ImmutableOrder(SortDirection.ASCENDING, "age", NullHandling.DEFAULT)), anyOf(contains("k1", "k2", "k4", "k3", "k5"), contains("k1", "k4", "k2", "k3", "k5")));
+        assertThat(index.sort(new ImmutableOrder(SortDirection.ASCENDING, "age", NullHandling.NULLS_FIRST)).get(0), is("k5"));
+        assertThat(index.sort(new ImmutableOrder(SortDirection.DESCENDING, "age", NullHandling.DEFAULT)), anyOf(contains("k5", "k3", "k2", "k4", "k1"), contains("k5", "k3", "k4", "k2", "k1")));
+        assertThat(index.sort(new ImmutableOrder(SortDirection.DESCENDING, "age", NullHandling.NULLS_FIRST)).get(4), is("k5"));
+        assertThat(index.sort(new ImmutableOrder(SortDirection.ASCENDING, "name", NullHandling.DEFAULT)), is(nullValue()));
+    }
+
+    @Test
+    public void testReindexing() throws Exception {
+        index.index("k1", 40);
+        index.remove("k3");
+        assertThat(index.lookup(parameter("GreaterThan", 1), 20), containsInAnyOrder("k1"));
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testIndexingNonComparableValue() throws Exception {
+        index.index("k6", new Object());
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testIndexingIncomparableValue() throws Exception {
+        index.index("k6", "20");
+    }
+
+}
@@ -0,0 +1,191 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.models.Measurement;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.usecases.tools.ClassWithNoGetters;
+import com.mmnaseri.utils.spring.data.store.DataStoreStatistics;
+import com.mmnaseri.utils.spring.data.store.HistogramBucket;
+import com.mmnaseri.utils.spring.data.store.PropertyStatistics;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class StatisticsAccumulatorTest {
+
+    @Test
+    public void testFindingSimpleProperties() throws Exception {
+        assertThat(StatisticsAccumulator.getSimpleProperties(Person.class), containsInAnyOrder("id", "firstName", "lastName", "age"));
+        assertThat(StatisticsAccumulator.getSimpleProperties(Measurement.class), containsInAnyOrder("id", "sequence", "value", "valid", "unit", "taken"));
+        assertThat(StatisticsAccumulator.getSimpleProperties(ClassWithNoGetters.class), contains("id"));
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testInvalidNumberOfBuckets() throws Exception {
+        new StatisticsAccumulator(Person.class, Collections.<String>emptyList(), 0);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testReadingMissingProperty() throws Exception {
+        new StatisticsAccumulator(Person.class, Collections.singletonList("xyz")).read(new Person());
+    }
+
+    @Test
+    public void testEmptyStatistics() throws Exception {
+        final DataStoreStatistics statistics = new StatisticsAccumulator(Person.class, Collections.singletonList("age")).getStatistics();
+        assertThat(statistics.getEntityType(), is(equalTo((Object) Person.class)));
+        assertThat(statistics.getCount(), is(0L));
+        assertThat(statistics.isSampled(), is(false));
+        final PropertyStatistics age = statistics.getProperty("age");
+        assertThat(age.getNullFraction(), is(0D));
+        assertThat(age.getDistinctCount(), is(0L));
+        assertThat(age.getMinimum(), is(nullValue()));
+        assertThat(age.getHistogram(), is(empty()));
+        assertThat(statistics.getProperty("firstName"), is(nullValue()));
+    }
+
+    @Test
+    public void testExactStatistics() throws Exception {
+        final StatisticsAccumulator accumulator = new StatisticsAccumulator(Person.class, Arrays.asList("age", "lastName"), 4);
+        for (int i = 0; i < 20; i++) {
+            accumulator.add(accumulator.read(new Person().setAge(i % 5 == 0 ? null : i % 8).setLastName("Name" + (i % 3))));
+        }
+        final DataStoreStatistics statistics = accumulator.getStatistics();
+        assertThat(statistics.getCount(), is(20L));
+        assertThat(statistics.isSampled(), is(false));
+        assertThat(statistics.getProperties(), hasSize(2));
+        final PropertyStatistics age = statistics.getProperty("age");
+        assertThat(age.getProperty(), is("age"));
+        assertThat(age.getNullCount(), is(4L));
+        assertThat(age.getNullFraction(), is(0.2D));
+        assertThat(age.getDistinctCount(), is(8L));
+        assertThat(age.getMinimum(), is((Object) 0));
+        assertThat(age.getMaximum(), is((Object) 7));
+        final List<HistogramBucket> histogram = age.getHistogram();
+        long total = 0;
+        Object previous = null;
+        for (HistogramBucket bucket : histogram) {
+            //only the last bucket can fall short of the depth
+            if (bucket != histogram.get(histogram.size() - 1)) {
+                assertThat(bucket.getCount(), is(greaterThanOrEqualTo(4L)));
+            }
+            if (previous != null) {
+                assertThat((Integer) bucket.getLowerBound(), is(greaterThan((Integer) previous)));
+            }
+            assertThat((Integer) bucket.getUpperBound(), is(greaterThanOrEqualTo((Integer) bucket.getLowerBound())));
+            previous = bucket.getUpperBound();
+            total += bucket.getCount();
+        }
+        assertThat(histogram.size(), is(lessThanOrEqualTo(4)));
+        assertThat(histogram.get(0).getLowerBound(), is((Object) 0));
+        assertThat(previous, is((Object) 7));
+        assertThat(total, is(16L));
+        final PropertyStatistics lastName = statistics.getProperty("lastName");
+        assertThat(lastName.getDistinctCount(), is(3L));
+        assertThat(lastName.getMinimum(), is((Object) "Name0"));
+        assertThat(lastName.getMaximum(), is((Object) "Name2"));
+    }
+
+    @Test
+    public void testRemovingValues() throws Exception {
+        final StatisticsAccumulator accumulator = new StatisticsAccumulator(Person.class, Collections.singletonList("age"));
+        final Object[] first = accumulator.read(new Person().setAge(1));
+        final Object[] second = accumulator.read(new Person().setAge(2));
+        final Object[] none = accumulator.read(new Person());
+        accumulator.add(first);
+        accumulator.add(second);
+        accumulator.add(none);
+        accumulator.remove(second);
+        accumulator.remove(none);
+        final PropertyStatistics age = accumulator.getStatistics().getProperty("age");
+        assertThat(accumulator.getStatistics().getCount(), is(1L));
+        assertThat(age.getNullCount(), is(0L));
+        assertThat(age.getDistinctCount(), is(1L));
+        assertThat(age.getMaximum(), is((Object) 1));
+        accumulator.clear();
+        assertThat(accumulator.getStatistics().getCount(), is(0L));
+        assertThat(accumulator.getStatistics().getProperty("age").getDistinctCount(), is(0L));
+    }
+
+    @Test
+    public void testIncomparableValues() throws Exception {
+        final StatisticsAccumulator accumulator = new StatisticsAccumulator(ClassWithNoGetters.class, Collections.singletonList("id"));
+        accumulator.add(new Object[]{1});
+        accumulator.add(new Object[]{"1"});
+        final PropertyStatistics id = accumulator.getStatistics().getProperty("id");
+        assertThat(id.getDistinctCount(), is(2L));
+        assertThat(id.getMinimum(), is(nullValue()));
+        assertThat(id.getHistogram(), is(empty()));
+    }
+
+    @Test
+    public void testExtrapolatingFromASample() throws Exception {
+        final StatisticsAccumulator accumulator = new StatisticsAccumulator(Person.class, Arrays.asList("id", "lastName", "age"));
+        for (int i = 0; i < 100; i++) {
+            accumulator.add(accumulator.read(new Person().setId("id" + i).setLastName("Name" + (i % 4)).setAge(i % 10 == 0 ? null : i)));
+        }
+        final DataStoreStatistics statistics = accumulator.getStatistics(10000);
+        assertThat(statistics.getCount(), is(10000L));
+        assertThat(statistics.isSampled(), is(true));
+        //every key was seen exactly once, which suggests that every entity has its own key
+        assertThat(statistics.getProperty("id").getDistinctCount(), is(1000L));
+        //values seen many times are probably all the values there are
+        assertThat(statistics.getProperty("lastName").getDistinctCount(), is(4L));
+        assertThat(statistics.getProperty("age").getNullCount(), is(1000L));
+        assertThat(statistics.getProperty("age").getNullFraction(), is(0.1D));
+        long total = 0;
+        for (HistogramBucket bucket : statistics.getProperty("age").getHistogram()) {
+            total += bucket.getCount();
+        }
+        assertThat(total, is(9000L));
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testInvalidCapacity() throws Exception {
+        new StatisticsAccumulator(Person.class, Collections.<String>emptyList(), 4, 0);
+    }
+
+    @Test
+    public void testBoundingTheValuesKept() throws Exception {
+        final StatisticsAccumulator accumulator = new StatisticsAccumulator(Person.class, Arrays.asList("age", "lastName"), 4, 64);
+        final List<Object[]> added = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            final Object[] values = accumulator.read(new Person().setAge(i).setLastName("Name" + (i % 3)));
+            added.add(values);
+            accumulator.add(values);
+        }
+        DataStoreStatistics statistics = accumulator.getStatistics();
+        assertThat(statistics.getCount(), is(10000L));
+        assertThat(statistics.isSampled(), is(false));
+        //the values that fit are still counted exactly
+        assertThat(statistics.getProperty("lastName").getDistinctCount(), is(3L));
+        final PropertyStatistics age = statistics.getProperty("age");
+        assertThat(age.getDistinctCount(), is(both(greaterThan(7000L)).and(lessThan(13000L))));
+        assertThat((Integer) age.getMinimum(), is(both(greaterThanOrEqualTo(0)).and(lessThan(1000))));
+        assertThat((Integer) age.getMaximum(), is(both(greaterThan(9000)).and(lessThan(10000))));
+        long total = 0;
+        for (HistogramBucket bucket : age.getHistogram()) {
+            total += bucket.getCount();
+        }
+        assertThat(total, is(both(greaterThan(7000L)).and(lessThan(13000L))));
+        for (Object[] values : added) {
+            accumulator.remove(values);
+        }
+        statistics = accumulator.getStatistics();
+        assertThat(statistics.getCount(), is(0L));
+        assertThat(statistics.getProperty("age").getDistinctCount(), is(0L));
+        assertThat(statistics.getProperty("age").getHistogram(), is(empty()));
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.OptimisticLockException;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.models.VersionedPerson;
+import com.mmnaseri.utils.spring.data.store.DataStoreStatistics;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import com.mmnaseri.utils.spring.data.store.PropertyStatistics;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class StatisticsCollectingDataStoreTest {
+
+    private StatisticsCollectingDataStore<String, Person> dataStore;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dataStore = new StatisticsCollectingDataStore<>(Person.class, "lastName", "age");
+    }
+
+    @Test
+    public void testTrackingAllSimplePropertiesByDefault() throws Exception {
+        final StatisticsCollectingDataStore<String, Person> all = new StatisticsCollectingDataStore<>(Person.class);
+        final List<String> properties = new ArrayList<>();
+        for (PropertyStatistics statistics : all.getStatistics().getProperties()) {
+            properties.add(statistics.getProperty());
+        }
+        assertThat(properties, containsInAnyOrder("id", "firstName", "lastName", "age"));
+    }
+
+    @Test
+    public void testCollectingStatisticsForExistingEntities() throws Exception {
+        final MemoryDataStore<String, Person> delegate = new MemoryDataStore<>(Person.class);
+        delegate.save("k1", new Person().setAge(10));
+        delegate.save("k2", new Person().setAge(20));
+        final StatisticsCollectingDataStore<String, Person> collecting = new StatisticsCollectingDataStore<>(delegate, "age");
+        assertThat(collecting.getStatistics().getCount(), is(2L));
+        assertThat(collecting.getStatistics().getProperty("age").getMaximum(), is((Object) 20));
+    }
+
+    @Test
+    public void testKeepingStatisticsUpToDate() throws Exception {
+        final Person person = new Person().setLastName("Naseri").setAge(30);
+        assertThat(dataStore.save("k1", person), is(true));
+        assertThat(dataStore.save("k2", new Person().setLastName("Smith")), is(true));
+        DataStoreStatistics statistics = dataStore.getStatistics();
+        assertThat(dataStore.getStatistics(), is(sameInstance(statistics)));
+        assertThat(statistics.getCount(), is(2L));
+        assertThat(statistics.isSampled(), is(false));
+        assertThat(statistics.getProperty("lastName").getDistinctCount(), is(2L));
+        assertThat(statistics.getProperty("age").getNullCount(), is(1L));
+        //the entity is changed in place, so the statistics are collected again once it is saved
+        person.setAge(40);
+        assertThat(dataStore.save("k1", person), is(false));
+        statistics = dataStore.getStatistics();
+        assertThat(statistics.getCount(), is(2L));
+        assertThat(statistics.getProperty("age").getDistinctCount(), is(1L));
+        assertThat(statistics.getProperty("age").getMinimum(), is((Object) 40));
+        assertThat(dataStore.delete("k2"), is(true));
+        assertThat(dataStore.delete("k2"), is(false));
+        statistics = dataStore.getStatistics();
+        assertThat(statistics.getCount(), is(1L));
+        assertThat(statistics.getProperty("age").getNullCount(), is(0L));
+        assertThat(statistics.getProperty("lastName").getMaximum(), is((Object) "Naseri"));
+        dataStore.truncate();
+        assertThat(dataStore.getStatistics().getCount(), is(0L));
+        assertThat(dataStore.keys(), is(empty()));
+    }
+
+    @Test
+    public void testFailingToSaveLeavesTheStatisticsAlone() throws Exception {
+        try {
+            dataStore.save("k1", null);
+            throw new AssertionError("Expected the save to fail");
+        } catch (DataStoreException ignored) {
+        }
+        assertThat(dataStore.getStatistics().getCount(), is(0L));
+    }
+
+    @Test
+    public void testDelegation() throws Exception {
+        final Person person = new Person();
+        dataStore.save("k1", person);
+        assertThat(dataStore.hasKey("k1"), is(true));
+        assertThat(dataStore.retrieve("k1"), is(person));
+        assertThat(dataStore.keys(), contains("k1"));
+        assertThat(dataStore.retrieveAll(), contains(person));
+        assertThat(dataStore.getEntityType(), is(equalTo(Person.class)));
+        final List<String> keys = new ArrayList<>();
+        dataStore.scan(new DataStoreVisitor<String, Person>() {
+            @Override
+            public boolean visit(String key, Person entity) {
+                keys.add(key);
+                return true;
+            }
+        });
+        assertThat(keys, contains("k1"));
+    }
+
+    @Test
+    public void testGoingThroughAtomicAndBulkOperations() throws Exception {
+        final Person first = new Person().setLastName("Naseri").setAge(30);
+        assertThat(dataStore.putIfAbsent("k1", first), is(nullValue()));
+        assertThat(dataStore.putIfAbsent("k1", new Person().setAge(50)), is(first));
+        assertThat(dataStore.put("k1", new Person().setAge(40)), is(first));
+        assertThat(dataStore.getStatistics().getProperty("age").getMaximum(), is((Object) 40));
+        final Map<String, Person> entities = new LinkedHashMap<>();
+        entities.put("k1", new Person().setAge(10));
+        entities.put("k2", new Person().setAge(20));
+        entities.put("k3", new Person().setAge(30));
+        assertThat(dataStore.saveAll(entities), is(2));
+        DataStoreStatistics statistics = dataStore.getStatistics();
+        assertThat(statistics.getCount(), is(3L));
+        assertThat(statistics.getProperty("age").getMinimum(), is((Object) 10));
+        assertThat(statistics.getProperty("age").getMaximum(), is((Object) 30));
+        assertThat(dataStore.retrieveAll(Arrays.asList("k1", "k4")), hasSize(1));
+        assertThat(dataStore.compute("k2", new EntityRemappingFunction<String, Person>() {
+            @Override
+            public Person apply(String key, Person current) {
+                return new Person().setAge(current.getAge() + 50);
+            }
+        }).getAge(), is(70));
+        assertThat(dataStore.getStatistics().getProperty("age").getMaximum(), is((Object) 70));
+        assertThat(dataStore.remove("k2").getAge(), is(70));
+        assertThat(dataStore.remove("k2"), is(nullValue()));
+        assertThat(dataStore.deleteAll(Arrays.asList("k1", "k2")).keySet(), contains("k1"));
+        statistics = dataStore.getStatistics();
+        assertThat(statistics.getCount(), is(1L));
+        assertThat(statistics.getProperty("age").getMinimum(), is((Object) 30));
+    }
+
+    @Test
+    public void testSavingVersionedEntities() throws Exception {
+        final StatisticsCollectingDataStore<String, VersionedPerson> versioned = new StatisticsCollectingDataStore<>(VersionedPerson.class, "version");
+        final VersionedPerson person = new VersionedPerson();
+        assertThat(versioned.save("k1", person, "version"), is(true));
+        assertThat(versioned.getStatistics().getProperty("version").getMaximum(), is((Object) 0L));
+        assertThat(versioned.save("k1", new VersionedPerson().setVersion(0L), "version"), is(false));
+        assertThat(versioned.getStatistics().getCount(), is(1L));
+        assertThat(versioned.getStatistics().getProperty("version").getMinimum(), is((Object) 1L));
+        try {
+            versioned.save("k1", new VersionedPerson().setVersion(0L), "version");
+            throw new AssertionError("Expected the save to fail");
+        } catch (OptimisticLockException ignored) {
+        }
+        assertThat(versioned.getStatistics().getProperty("version").getMaximum(), is((Object) 1L));
+    }
+
+    @Test
+    public void testForking() throws Exception {
+        final StatisticsCollectingDataStore<String, Person> original = new StatisticsCollectingDataStore<>(new PersistentMemoryDataStore<String, Person>(Person.class), "age");
+        original.save("k1", new Person().setAge(10));
+        final StatisticsCollectingDataStore<String, Person> fork = original.fork();
+        fork.save("k2", new Person().setAge(20));
+        assertThat(fork.getStatistics().getCount(), is(2L));
+        assertThat(original.getStatistics().getCount(), is(1L));
+        assertThat(original.hasKey("k2"), is(false));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class, expectedExceptionsMessageRegExp = ".*cannot be forked.*")
+    public void testForkingWithoutAForkableDelegate() throws Exception {
+        dataStore.fork();
+    }
+
+}
@@ -0,0 +1,268 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.error.OptimisticLockException;
+import com.mmnaseri.utils.spring.data.sample.models.Note;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.models.VersionedPerson;
+import com.mmnaseri.utils.spring.data.store.DataStore;
+import com.mmnaseri.utils.spring.data.store.DataStoreVisitor;
+import com.mmnaseri.utils.spring.data.store.EntityRemappingFunction;
+import com.mmnaseri.utils.spring.data.store.EntityWeigher;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class TieredDataStoreTest {
+
+    private static final EntityWeigher<Note> COUNTING_WEIGHER = new EntityWeigher<Note>() {
+        @Override
+        public long weigh(Note entity) {
+            return 1;
+        }
+    };
+    private OffHeapDataStore<String, Note> cold;
+    private TieredDataStore<String, Note> dataStore;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        cold = new OffHeapDataStore<>(Note.class, new CompressingEntityCodec<>(Note.class));
+        dataStore = new TieredDataStore<>(Note.class, 2, COUNTING_WEIGHER, EvictionPolicy.LEAST_RECENTLY_USED, cold);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testNullColdTier() throws Exception {
+        new TieredDataStore<>(Note.class, 2, COUNTING_WEIGHER, EvictionPolicy.LEAST_RECENTLY_USED, null);
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testColdTierOfTheWrongType() throws Exception {
+        final OffHeapDataStore<String, Person> people = new OffHeapDataStore<>(Person.class);
+        new TieredDataStore<>(Note.class, 2, TieredDataStoreTest.<String, Note>disguise(people));
+    }
+
+    @Test
+    public void testEntityType() throws Exception {
+        assertThat(dataStore.getEntityType(), is(equalTo(Note.class)));
+        assertThat(dataStore.getMemoryCeiling(), is(2L));
+    }
+
+    @Test
+    public void testSpillingToTheColdTier() throws Exception {
+        final Note first = new Note().setId("1").setText("first");
+        assertThat(dataStore.save("1", first), is(true));
+        assertThat(dataStore.save("2", new Note().setId("2").setText("second")), is(true));
+        assertThat(dataStore.save("3", new Note().setId("3").setText("third")), is(true));
+        assertThat(dataStore.getHotCount(), is(2));
+        assertThat(dataStore.getHotWeight(), is(2L));
+        assertThat(dataStore.getColdCount(), is(1));
+        assertThat(dataStore.getSpills(), is(1L));
+        assertThat(cold.keys(), contains("1"));
+        assertThat(dataStore.keys(), containsInAnyOrder("1", "2", "3"));
+        assertThat(dataStore.hasKey("1"), is(true));
+        assertThat(dataStore.hasKey("4"), is(false));
+    }
+
+    @Test
+    public void testPromotingOnRetrieval() throws Exception {
+        final Note first = new Note().setId("1").setText("first");
+        dataStore.save("1", first);
+        dataStore.save("2", new Note().setId("2").setText("second"));
+        dataStore.save("3", new Note().setId("3").setText("third"));
+        final Note promoted = dataStore.retrieve("1");
+        assertThat(promoted, is(first));
+        assertThat(promoted, is(not(sameInstance(first))));
+        assertThat(dataStore.getMisses(), is(1L));
+        assertThat(cold.keys(), contains("2"));
+        assertThat(dataStore.retrieve("1"), is(sameInstance(promoted)));
+        assertThat(dataStore.retrieve("3"), is(notNullValue()));
+        assertThat(dataStore.retrieve("4"), is(nullValue()));
+        assertThat(dataStore.getHits(), is(2L));
+        assertThat(dataStore.getMisses(), is(1L));
+        assertThat(dataStore.getHitRate(), is(closeTo(2D / 3, 0.0001)));
+    }
+
+    @Test
+    public void testHitRateBeforeAnyReads() throws Exception {
+        assertThat(dataStore.getHitRate(), is(0D));
+    }
+
+    @Test
+    public void testPromotingOnScan() throws Exception {
+        dataStore.save("1", new Note().setId("1").setText("first"));
+        dataStore.save("2", new Note().setId("2").setText("second"));
+        dataStore.save("3", new Note().setId("3").setText("third"));
+        final List<String> visited = new ArrayList<>();
+        dataStore.scan(new DataStoreVisitor<String, Note>() {
+            @Override
+            public boolean visit(String key, Note entity) {
+                visited.add(entity.getText());
+                return true;
+            }
+        });
+        assertThat(visited, containsInAnyOrder("first", "second", "third"));
+        assertThat(dataStore.getMisses(), is(greaterThanOrEqualTo(1L)));
+        assertThat(dataStore.retrieveAll(), hasSize(3));
+        assertThat(dataStore.getHotCount() + dataStore.getColdCount(), is(3));
+    }
+
+    @Test
+    public void testUpdatingASpilledEntity() throws Exception {
+        dataStore.save("1", new Note().setId("1").setText("first"));
+        dataStore.save("2", new Note().setId("2").setText("second"));
+        dataStore.save("3", new Note().setId("3").setText("third"));
+        assertThat(dataStore.save("1", new Note().setId("1").setText("updated")), is(false));
+        assertThat(dataStore.keys(), hasSize(3));
+        assertThat(dataStore.retrieve("1").getText(), is("updated"));
+    }
+
+    @Test
+    public void testDeleting() throws Exception {
+        dataStore.save("1", new Note().setId("1").setText("first"));
+        dataStore.save("2", new Note().setId("2").setText("second"));
+        dataStore.save("3", new Note().setId("3").setText("third"));
+        assertThat(dataStore.delete("1"), is(true));
+        assertThat(dataStore.delete("3"), is(true));
+        assertThat(dataStore.delete("4"), is(false));
+        assertThat(dataStore.keys(), contains("2"));
+    }
+
+    @Test
+    public void testTruncating() throws Exception {
+        dataStore.save("1", new Note().setId("1").setText("first"));
+        dataStore.save("2", new Note().setId("2").setText("second"));
+        dataStore.save("3", new Note().setId("3").setText("third"));
+        dataStore.truncate();
+        assertThat(dataStore.keys(), is(empty()));
+        assertThat(cold.keys(), is(empty()));
+    }
+
+    @Test
+    public void testSpillingToDisk() throws Exception {
+        final File file = File.createTempFile("notes", ".dat");
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+        final MappedFileDataStore<String, Note> disk = new MappedFileDataStore<>(Note.class, file, new SerializingEntityCodec<>(String.class), new CompressingEntityCodec<>(Note.class));
+        try {
+            final TieredDataStore<String, Note> tiered = new TieredDataStore<>(Note.class, 1, COUNTING_WEIGHER, EvictionPolicy.LEAST_RECENTLY_USED, disk);
+            tiered.save("1", new Note().setId("1").setText("first"));
+            tiered.save("2", new Note().setId("2").setText("second"));
+            assertThat(disk.keys(), contains("1"));
+            assertThat(tiered.retrieve("1").getText(), is("first"));
+            assertThat(disk.keys(), contains("2"));
+        } finally {
+            disk.close();
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testDefaultMemoryCeilingInBytes() throws Exception {
+        final TieredDataStore<String, Note> tiered = new TieredDataStore<>(Note.class, 1024);
+        for (int i = 0; i < 100; i++) {
+            tiered.save(String.valueOf(i), new Note().setId(String.valueOf(i)).setText("note #" + i));
+        }
+        assertThat(tiered.getHotWeight(), is(lessThanOrEqualTo(1024L)));
+        assertThat(tiered.getColdCount(), is(greaterThan(0)));
+        assertThat(tiered.keys(), hasSize(100));
+        assertThat(tiered.retrieve("0").getText(), is("note #0"));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingWithANullKey() throws Exception {
+        dataStore.save(null, new Note());
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testSavingANullEntity() throws Exception {
+        dataStore.save("1", null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDeletingWithANullKey() throws Exception {
+        dataStore.delete(null);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testRetrievingWithANullKey() throws Exception {
+        dataStore.retrieve(null);
+    }
+
+    @Test
+    public void testAtomicAndBulkOperationsAcrossTiers() throws Exception {
+        final Note first = new Note().setId("1").setText("first");
+        assertThat(dataStore.putIfAbsent("1", first), is(nullValue()));
+        dataStore.save("2", new Note().setId("2").setText("second"));
+        dataStore.save("3", new Note().setId("3").setText("third"));
+        assertThat(cold.keys(), contains("1"));
+        //looking up the entity being replaced neither promotes it nor counts as a read
+        assertThat(dataStore.putIfAbsent("1", new Note()), is(equalTo(first)));
+        assertThat(cold.keys(), contains("1"));
+        assertThat(dataStore.put("1", new Note().setId("1").setText("updated")), is(equalTo(first)));
+        assertThat(cold.hasKey("1"), is(false));
+        assertThat(dataStore.getHits() + dataStore.getMisses(), is(0L));
+        assertThat(dataStore.compute("2", new EntityRemappingFunction<String, Note>() {
+            @Override
+            public Note apply(String key, Note current) {
+                return new Note().setId(key).setText(current.getText() + "!");
+            }
+        }).getText(), is("second!"));
+        assertThat(dataStore.retrieve("2").getText(), is("second!"));
+        assertThat(dataStore.remove("3").getText(), is("third"));
+        assertThat(dataStore.remove("3"), is(nullValue()));
+        final Map<String, Note> notes = new LinkedHashMap<>();
+        notes.put("3", new Note().setId("3"));
+        notes.put("4", new Note().setId("4"));
+        assertThat(dataStore.saveAll(notes), is(2));
+        assertThat(dataStore.retrieveAll(Arrays.asList("1", "2", "3", "4", "5")), hasSize(4));
+        assertThat(dataStore.deleteAll(Arrays.asList("1", "5", "3")).keySet(), contains("1", "3"));
+        assertThat(dataStore.keys(), containsInAnyOrder("2", "4"));
+    }
+
+    @Test
+    public void testSavingVersionedEntities() throws Exception {
+        final TieredDataStore<String, VersionedPerson> versioned = new TieredDataStore<>(VersionedPerson.class, 1, new EntityWeigher<VersionedPerson>() {
+            @Override
+            public long weigh(VersionedPerson entity) {
+                return 1;
+            }
+        }, EvictionPolicy.LEAST_RECENTLY_USED, new MemoryDataStore<String, VersionedPerson>(VersionedPerson.class));
+        final VersionedPerson person = new VersionedPerson();
+        assertThat(versioned.save("1", person, "version"), is(true));
+        versioned.save("2", new VersionedPerson());
+        assertThat(versioned.getColdCount(), is(1));
+        assertThat(versioned.save("1", person, "version"), is(false));
+        assertThat(person.getVersion(), is(1L));
+        try {
+            versioned.save("1", new VersionedPerson().setVersion(0L), "version");
+            throw new AssertionError("Expected the save to fail");
+        } catch (OptimisticLockException ignored) {
+        }
+        assertThat(versioned.retrieve("1"), is(sameInstance(person)));
+    }
+
+    /**
+     * Passes a data store off as one holding another type of entity, which the compiler would not allow otherwise
+     */
+    @SuppressWarnings("unchecked")
+    private static <K extends Serializable, E> DataStore<K, E> disguise(DataStore<K, ?> dataStore) {
+        return (DataStore<K, E>) dataStore;
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.sample.mocks.Operation;
+import com.mmnaseri.utils.spring.data.sample.mocks.OperationRequest;
+import com.mmnaseri.utils.spring.data.sample.mocks.SpyingDataStore;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.store.EntityCopier;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class UndoLogTest {
+
+    private MemoryDataStore<String, Person> dataStore;
+    private UndoLog<String, Person> undoLog;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dataStore = new MemoryDataStore<>(Person.class);
+        undoLog = new UndoLog<>(dataStore);
+    }
+
+    private void save(String key, Person person) {
+        undoLog.record(key);
+        dataStore.save(key, person);
+    }
+
+    private void delete(String key) {
+        undoLog.record(key);
+        dataStore.delete(key);
+    }
+
+    private void truncate() {
+        undoLog.recordAll();
+        dataStore.truncate();
+    }
+
+    @Test
+    public void testRollingBack() throws Exception {
+        final Person first = new Person().setId("1").setFirstName("first");
+        final Person second = new Person().setId("2").setFirstName("second");
+        dataStore.save("1", first);
+        dataStore.save("2", second);
+        assertThat(undoLog.isActive(), is(false));
+        final Object savepoint = undoLog.mark();
+        assertThat(undoLog.isActive(), is(true));
+        save("1", new Person().setId("1"));
+        save("1", new Person().setId("1"));
+        delete("2");
+        save("3", new Person().setId("3"));
+        undoLog.rollback(savepoint);
+        assertThat(dataStore.keys(), containsInAnyOrder("1", "2"));
+        assertThat(dataStore.retrieve("1").getFirstName(), is("first"));
+        assertThat(dataStore.retrieve("2").getFirstName(), is("second"));
+        //the savepoint stays in place
+        save("4", new Person());
+        undoLog.rollback(savepoint);
+        assertThat(dataStore.hasKey("4"), is(false));
+    }
+
+    @Test
+    public void testRollingBackOnlyWhatChanged() throws Exception {
+        final SpyingDataStore<String, Person> spy = new SpyingDataStore<>(dataStore, new AtomicLong());
+        final UndoLog<String, Person> undoLog = new UndoLog<>(spy);
+        for (int i = 0; i < 100; i++) {
+            dataStore.save(String.valueOf(i), new Person());
+        }
+        final Object savepoint = undoLog.mark();
+        for (int i = 0; i < 10; i++) {
+            undoLog.record("1");
+            dataStore.save("1", new Person());
+        }
+        undoLog.record("new");
+        dataStore.save("new", new Person());
+        final int before = spy.getRequests().size();
+        undoLog.rollback(savepoint);
+        final List<Operation> operations = new ArrayList<>();
+        for (OperationRequest<?, ?> request : spy.getRequests().subList(before, spy.getRequests().size())) {
+            operations.add(request.getOperation());
+        }
+        assertThat(operations, contains(Operation.DELETE, Operation.SAVE));
+    }
+
+    @Test
+    public void testRollingBackATruncate() throws Exception {
+        dataStore.save("1", new Person());
+        dataStore.save("2", new Person());
+        final Object savepoint = undoLog.mark();
+        delete("1");
+        truncate();
+        save("2", new Person());
+        save("3", new Person());
+        undoLog.rollback(savepoint);
+        assertThat(dataStore.keys(), containsInAnyOrder("1", "2"));
+    }
+
+    @Test
+    public void testNestedSavepoints() throws Exception {
+        dataStore.save("1", new Person().setFirstName("original"));
+        final Object outer = undoLog.mark();
+        save("1", new Person().setFirstName("changed"));
+        final Object inner = undoLog.mark();
+        save("1", new Person());
+        save("2", new Person());
+        undoLog.rollback(inner);
+        assertThat(dataStore.retrieve("1").getFirstName(), is("changed"));
+        assertThat(dataStore.hasKey("2"), is(false));
+        undoLog.rollback(outer);
+        assertThat(dataStore.retrieve("1").getFirstName(), is("original"));
+    }
+
+    @Test
+    public void testReleasingSavepoints() throws Exception {
+        dataStore.save("1", new Person().setFirstName("original"));
+        final Object outer = undoLog.mark();
+        final Object inner = undoLog.mark();
+        save("1", new Person());
+        undoLog.release(inner);
+        assertThat(undoLog.isActive(), is(true));
+        //the change made after the released savepoint can still be undone
+        save("1", new Person());
+        undoLog.rollback(outer);
+        assertThat(dataStore.retrieve("1").getFirstName(), is("original"));
+        undoLog.release(outer);
+        assertThat(undoLog.isActive(), is(false));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testRollingBackPastASavepoint() throws Exception {
+        final Object outer = undoLog.mark();
+        final Object inner = undoLog.mark();
+        undoLog.rollback(outer);
+        undoLog.rollback(inner);
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testReleasingAnUnknownSavepoint() throws Exception {
+        undoLog.release(new Object());
+    }
+
+    @Test
+    public void testRecordingWithACustomCopier() throws Exception {
+        final List<Person> copied = new ArrayList<>();
+        final UndoLog<String, Person> undoLog = new UndoLog<>(dataStore, new EntityCopier<Person>() {
+            @Override
+            public Person copy(Person entity) {
+                copied.add(entity);
+                return new Person().setId(entity.getId()).setFirstName(entity.getFirstName());
+            }
+        });
+        final Person original = new Person().setId("1").setFirstName("original");
+        dataStore.save("1", original);
+        final Object savepoint = undoLog.mark();
+        undoLog.record("1");
+        undoLog.record("2");
+        original.setFirstName("changed");
+        undoLog.rollback(savepoint);
+        assertThat(copied, contains(original));
+        assertThat(dataStore.retrieve("1").getFirstName(), is("original"));
+    }
+
+    @Test
+    public void testNotRecordingWithoutSavepoints() throws Exception {
+        final SpyingDataStore<String, Person> spy = new SpyingDataStore<>(dataStore, new AtomicLong());
+        final UndoLog<String, Person> undoLog = new UndoLog<>(spy);
+        undoLog.record("1");
+        undoLog.recordAll();
+        assertThat(spy.getRequests(), is(empty()));
+    }
+
+}
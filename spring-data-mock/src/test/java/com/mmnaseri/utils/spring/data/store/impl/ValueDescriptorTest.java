@@ -0,0 +1,100 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.InvalidArgumentException;
+import com.mmnaseri.utils.spring.data.sample.models.Address;
+import com.mmnaseri.utils.spring.data.sample.models.Shipment;
+import com.mmnaseri.utils.spring.data.store.impl.ValueDescriptor.Kind;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class ValueDescriptorTest {
+
+    @Test
+    public void testDescribingDeclaredTypes() throws Exception {
+        assertThat(ValueDescriptor.of(int.class).signature, is("int"));
+        assertThat(ValueDescriptor.of(Integer.class).signature, is("int?"));
+        assertThat(ValueDescriptor.of(String.class).signature, is("string?"));
+        assertThat(ValueDescriptor.of(TimeZoneHolder.class).kind, is(Kind.DYNAMIC));
+        assertThat(ValueDescriptor.of(BigDecimal.class).signature, is("serialized<java.math.BigDecimal>?"));
+        assertThat(ValueDescriptor.of(Shipment.class.getDeclaredMethod("getStops").getGenericReturnType()).signature,
+                is("collection<java.util.ArrayList,object<" + Address.class.getName() + ">?>?"));
+        assertThat(ValueDescriptor.of(Shipment.class.getDeclaredMethod("getTags").getGenericReturnType()).signature,
+                is("collection<java.util.TreeSet,string?>?"));
+        assertThat(ValueDescriptor.of(Shipment.class.getDeclaredMethod("getDimensions").getGenericReturnType()).signature,
+                is("array<[I,int>?"));
+        assertThat(ValueDescriptor.of(Map.class).signature, is("map<java.util.LinkedHashMap,dynamic,dynamic>?"));
+        assertThat(ValueDescriptor.of(Object.class), is(sameInstance(ValueDescriptor.DYNAMIC)));
+    }
+
+    @Test
+    public void testDescribingValues() throws Exception {
+        assertThat(ValueDescriptor.ofValue(Integer.class), is(sameInstance(ValueDescriptor.ofValue(Integer.class))));
+        assertThat(ValueDescriptor.ofValue(Integer.class).signature, is("int?"));
+        assertThat(ValueDescriptor.ofKind(Kind.LONG).signature, is("long?"));
+        assertThat(ValueDescriptor.ofValue(ArrayList.class).isNamed(), is(true));
+        assertThat(ValueDescriptor.ofKind(Kind.STRING).isNamed(), is(false));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class)
+    public void testDescribingValuesThatCannotBeEncoded() throws Exception {
+        ValueDescriptor.ofValue(Object.class);
+    }
+
+    @Test
+    public void testParsingSignatures() throws Exception {
+        final ClassLoader classLoader = getClass().getClassLoader();
+        for (String signature : Arrays.asList("int", "boolean?", "dynamic", "date?", "enum<java.util.concurrent.TimeUnit>?",
+                "map<java.util.TreeMap,string?,collection<java.util.LinkedList,object<" + Address.class.getName() + ">?>?>",
+                "array<[Ljava.lang.String;,string?>?")) {
+            assertThat(ValueDescriptor.parse(signature, classLoader).signature, is(signature));
+        }
+        final ValueDescriptor descriptor = ValueDescriptor.parse("collection<java.util.ArrayList,long>?", classLoader);
+        assertThat(descriptor.kind, is(Kind.COLLECTION));
+        assertThat(descriptor.nullable, is(true));
+        assertThat(descriptor.type, is(equalTo((Class) ArrayList.class)));
+        assertThat(descriptor.elements[0].type, is(equalTo((Class) long.class)));
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testParsingAnUnknownKind() throws Exception {
+        ValueDescriptor.parse("integer", getClass().getClassLoader());
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testParsingAnIncompleteSignature() throws Exception {
+        ValueDescriptor.parse("map<java.util.TreeMap,int", getClass().getClassLoader());
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testParsingASignatureWithTrailingCharacters() throws Exception {
+        ValueDescriptor.parse("int??", getClass().getClassLoader());
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testParsingASignatureWithTheWrongNumberOfElements() throws Exception {
+        ValueDescriptor.parse("map<java.util.TreeMap,int>", getClass().getClassLoader());
+    }
+
+    @Test(expectedExceptions = InvalidArgumentException.class)
+    public void testParsingASignatureWithAnUnknownClass() throws Exception {
+        ValueDescriptor.parse("object<com.example.Missing>", getClass().getClassLoader());
+    }
+
+    private static class TimeZoneHolder {
+
+        private TimeZoneHolder(TimeZone timeZone) {
+        }
+
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.mmnaseri.utils.spring.data.store.impl;
+
+import com.mmnaseri.utils.spring.data.error.DataStoreException;
+import com.mmnaseri.utils.spring.data.error.OptimisticLockException;
+import com.mmnaseri.utils.spring.data.sample.models.EntityWithPrimitiveVersion;
+import com.mmnaseri.utils.spring.data.sample.models.Person;
+import com.mmnaseri.utils.spring.data.sample.models.VersionedPerson;
+import com.mmnaseri.utils.spring.data.tools.AbstractUtilityClassTest;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Milad Naseri (mmnaseri@programmer.net)
+ * @since 1.2 (10/18/26)
+ */
+public class VersionUtilsTest extends AbstractUtilityClassTest {
+
+    @Override
+    protected Class<?> getUtilityClass() {
+        return VersionUtils.class;
+    }
+
+    @Test
+    public void testFindingVersionProperty() throws Exception {
+        assertThat(VersionUtils.getVersionProperty(VersionedPerson.class), is("version"));
+        assertThat(VersionUtils.getVersionProperty(EntityWithPrimitiveVersion.class), is("revision"));
+        assertThat(VersionUtils.getVersionProperty(Person.class), is(nullValue()));
+        //the second time around, the answer comes from the cache
+        assertThat(VersionUtils.getVersionProperty(Person.class), is(nullValue()));
+    }
+
+    @Test
+    public void testNextVersionOfNewEntity() throws Exception {
+        final VersionedPerson person = new VersionedPerson();
+        assertThat(VersionUtils.getNextVersion(VersionedPerson.class, "k", null, person, "version"), is((Object) 0L));
+        assertThat(person.getVersion(), is(nullValue()));
+    }
+
+    @Test
+    public void testNextVersionOfNewEntityWithVersion() throws Exception {
+        final VersionedPerson person = new VersionedPerson().setVersion(5L);
+        assertThat(VersionUtils.getNextVersion(VersionedPerson.class, "k", null, person, "version"), is((Object) 5L));
+        assertThat(person.getVersion(), is(5L));
+    }
+
+    @Test
+    public void testNextVersionOfExistingEntity() throws Exception {
+        final VersionedPerson stored = new VersionedPerson().setVersion(3L);
+        final VersionedPerson person = new VersionedPerson().setVersion(3L);
+        assertThat(VersionUtils.getNextVersion(VersionedPerson.class, "k", stored, person, "version"), is((Object) 4L));
+        assertThat(person.getVersion(), is(3L));
+        assertThat(stored.getVersion(), is(3L));
+    }
+
+    @Test
+    public void testNextPrimitiveVersion() throws Exception {
+        final EntityWithPrimitiveVersion stored = new EntityWithPrimitiveVersion();
+        final EntityWithPrimitiveVersion entity = new EntityWithPrimitiveVersion();
+        assertThat(VersionUtils.getNextVersion(EntityWithPrimitiveVersion.class, "k", null, stored, "revision"), is((Object) 0));
+        assertThat(VersionUtils.getNextVersion(EntityWithPrimitiveVersion.class, "k", stored, entity, "revision"), is((Object) 1));
+    }
+
+    @Test
+    public void testNextVersionOfStaleEntity() throws Exception {
+        final VersionedPerson person = new VersionedPerson().setVersion(2L);
+        try {
+            VersionUtils.getNextVersion(VersionedPerson.class, "k", new VersionedPerson().setVersion(3L), person, "version");
+            throw new AssertionError("Expected a conflict");
+        } catch (OptimisticLockException e) {
+            assertThat(e.getKey(), is((Object) "k"));
+            assertThat(e.getExpectedVersion(), is((Object) 2L));
+            assertThat(e.getActualVersion(), is((Object) 3L));
+        }
+        assertThat(person.getVersion(), is(2L));
+    }
+
+    @Test(expectedExceptions = DataStoreException.class, expectedExceptionsMessageRegExp = ".*Unsupported type.*")
+    public void testUnsupportedVersionType() throws Exception {
+        VersionUtils.getNextVersion(Person.class, "k", null, new Person(), "firstName");
+    }
+
+}
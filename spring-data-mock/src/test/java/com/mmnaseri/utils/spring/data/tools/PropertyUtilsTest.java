@@ -192,6 +192,19 @@ public class PropertyUtilsTest extends AbstractUtilityClassTest {
         assertThat(PropertyUtils.getPropertyValue(new Person().setAddress(new Address()), "address.zip.prefix"), is(nullValue()));
     }
 
+    @Test
+    public void testPropertyType() throws Exception {
+        assertThat(PropertyUtils.getPropertyType(Person.class, "age"), is(equalTo((Object) Integer.class)));
+        assertThat(PropertyUtils.getPropertyType(Person.class, "address.zip.prefix"), is(equalTo((Object) String.class)));
+        assertThat(PropertyUtils.getPropertyType(ClassWithNoGetters.class, "id"), is(equalTo((Object) String.class)));
+        assertThat(PropertyUtils.getPropertyType(ClassWithPrimitiveField.class, "position"), is(equalTo((Object) int.class)));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testTypeOfNonExistentProperty() throws Exception {
+        PropertyUtils.getPropertyType(Person.class, "address.xyz");
+    }
+
     @Test
     public void testSettingImmediatePropertyValueUsingField() throws Exception {
         final ClassWithNoGetters object = new ClassWithNoGetters();